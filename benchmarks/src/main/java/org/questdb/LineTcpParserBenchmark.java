@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package org.questdb;
+
+import io.questdb.cairo.sql.SymbolLookup;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cutlass.line.tcp.LineTcpEventBuffer;
+import io.questdb.cutlass.line.tcp.LineTcpParser;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rows per second a single network IO thread can parse and copy into writer queue events,
+ * this is the work done for every line received by ILP over TCP before it is handed to a writer thread.
+ * Use it together with LineTCPSenderMain, which measures end-to-end ingestion rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LineTcpParserBenchmark {
+    private static final int N_LINES = 1000;
+    private static final long EVENT_SIZE = 64 * 1024;
+    private static final SymbolLookup NOT_FOUND_LOOKUP = value -> SymbolTable.VALUE_NOT_FOUND;
+    private final LineTcpParser parser = new LineTcpParser(false, false);
+    @Param({"false", "true"})
+    public boolean nonAscii;
+    private long lines;
+    private long linesSize;
+    private long event;
+    private LineTcpEventBuffer buffer;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LineTcpParserBenchmark.class.getSimpleName())
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Rnd rnd = new Rnd();
+        final StringSink sink = new StringSink();
+        final String location = nonAscii ? "londón" : "london";
+        for (int i = 0; i < N_LINES; i++) {
+            sink.put("weather,location=").put(location).put(",by=blah")
+                    .put(" temp=").put(rnd.nextPositiveLong()).put('i')
+                    .put(",ok=").put(rnd.nextDouble())
+                    .put(",note=\"").put(rnd.nextString(32)).put('"')
+                    .put(' ').put(1465839830100400200L + i)
+                    .put('\n');
+        }
+        final byte[] bytes = sink.toString().getBytes(StandardCharsets.UTF_8);
+        linesSize = bytes.length;
+        lines = Unsafe.malloc(linesSize, MemoryTag.NATIVE_DEFAULT);
+        for (int i = 0; i < bytes.length; i++) {
+            Unsafe.getUnsafe().putByte(lines + i, bytes[i]);
+        }
+        event = Unsafe.malloc(EVENT_SIZE, MemoryTag.NATIVE_DEFAULT);
+        buffer = new LineTcpEventBuffer(event, EVENT_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Unsafe.free(lines, linesSize, MemoryTag.NATIVE_DEFAULT);
+        Unsafe.free(event, EVENT_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_LINES)
+    public long testParseAndCopy() {
+        final long hi = lines + linesSize;
+        long size = 0;
+        parser.of(lines);
+        for (int i = 0; i < N_LINES; i++) {
+            if (parser.parseMeasurement(hi) != LineTcpParser.ParseResult.MEASUREMENT_COMPLETE) {
+                throw new IllegalStateException("could not parse line " + i);
+            }
+            size += copyMeasurement();
+            parser.startNextMeasurement();
+        }
+        return size;
+    }
+
+    private long copyMeasurement() {
+        long offset = event + Long.BYTES + Integer.BYTES;
+        final int n = parser.getEntityCount();
+        for (int i = 0; i < n; i++) {
+            final LineTcpParser.ProtoEntity entity = parser.getEntity(i);
+            offset = buffer.addColumnIndex(offset, i);
+            switch (entity.getType()) {
+                case LineTcpParser.ENTITY_TYPE_TAG:
+                    offset = buffer.addSymbol(offset, entity.getValue(), parser.hasNonAsciiChars(), NOT_FOUND_LOOKUP);
+                    break;
+                case LineTcpParser.ENTITY_TYPE_INTEGER:
+                    offset = buffer.addLong(offset, entity.getLongValue());
+                    break;
+                case LineTcpParser.ENTITY_TYPE_FLOAT:
+                    offset = buffer.addDouble(offset, entity.getFloatValue());
+                    break;
+                case LineTcpParser.ENTITY_TYPE_STRING:
+                    offset = buffer.addString(offset, entity.getValue(), parser.hasNonAsciiChars());
+                    break;
+                default:
+                    offset = buffer.addNull(offset);
+                    break;
+            }
+        }
+        buffer.addDesignatedTimestamp(event, parser.getTimestamp());
+        buffer.addNumOfColumns(event + Long.BYTES, n);
+        return offset - event;
+    }
+}
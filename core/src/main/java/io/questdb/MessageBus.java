@@ -95,6 +95,18 @@ public interface MessageBus extends Closeable {
 
     MCSequence getPageFrameReduceSubSeq(int shard);
 
+    MPSequence getPartitionSummaryPubSeq();
+
+    RingQueue<PartitionSummaryTask> getPartitionSummaryQueue();
+
+    MCSequence getPartitionSummarySubSeq();
+
+    Sequence getSortPubSeq();
+
+    RingQueue<SortRunTask> getSortQueue();
+
+    Sequence getSortSubSeq();
+
     FanOut getTableWriterEventFanOut();
 
     MPSequence getTableWriterEventPubSeq();
@@ -107,6 +119,12 @@ public interface MessageBus extends Closeable {
 
     Sequence getVectorAggregateSubSeq();
 
+    MPSequence getWalTxnNotificationPubSequence();
+
+    RingQueue<WalTxnNotificationTask> getWalTxnNotificationQueue();
+
+    MCSequence getWalTxnNotificationSubSequence();
+
     MPSequence getQueryCacheEventPubSeq();
 
     FanOut getQueryCacheEventFanOut();
@@ -69,6 +69,14 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
 
+    private final RingQueue<SortRunTask> sortQueue;
+    private final MPSequence sortPubSeq;
+    private final MCSequence sortSubSeq;
+
+    private final RingQueue<PartitionSummaryTask> partitionSummaryQueue;
+    private final MPSequence partitionSummaryPubSeq;
+    private final MCSequence partitionSummarySubSeq;
+
     private final RingQueue<TableWriterTask> tableWriterEventQueue;
     private final MPSequence tableWriterEventPubSeq;
     private final FanOut tableWriterEventSubSeq;
@@ -85,6 +93,10 @@ public class MessageBusImpl implements MessageBus {
     private final SCSequence columnPurgeSubSeq;
     private final MPSequence columnPurgePubSeq;
 
+    private final RingQueue<WalTxnNotificationTask> walTxnNotificationQueue;
+    private final MPSequence walTxnNotificationPubSequence;
+    private final MCSequence walTxnNotificationSubSequence;
+
     private final RingQueue<TextImportTask> textImportQueue;
     private final SPSequence textImportPubSeq;
     private final MCSequence textImportSubSeq;
@@ -135,6 +147,16 @@ public class MessageBusImpl implements MessageBus {
         this.latestBySubSeq = new MCSequence(latestByQueue.getCycle());
         latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
 
+        this.sortQueue = new RingQueue<>(SortRunTask::new, configuration.getSortQueueCapacity());
+        this.sortPubSeq = new MPSequence(sortQueue.getCycle());
+        this.sortSubSeq = new MCSequence(sortQueue.getCycle());
+        sortPubSeq.then(sortSubSeq).then(sortPubSeq);
+
+        this.partitionSummaryQueue = new RingQueue<>(PartitionSummaryTask::new, configuration.getPartitionSummaryQueueCapacity());
+        this.partitionSummaryPubSeq = new MPSequence(partitionSummaryQueue.getCycle());
+        this.partitionSummarySubSeq = new MCSequence(partitionSummaryQueue.getCycle());
+        partitionSummaryPubSeq.then(partitionSummarySubSeq).then(partitionSummaryPubSeq);
+
         this.tableWriterEventQueue = new RingQueue<>(
                 TableWriterTask::new,
                 configuration.getWriterCommandQueueSlotSize(),
@@ -154,6 +176,11 @@ public class MessageBusImpl implements MessageBus {
         this.columnPurgePubSeq = new MPSequence(this.columnPurgeQueue.getCycle());
         this.columnPurgePubSeq.then(this.columnPurgeSubSeq).then(this.columnPurgePubSeq);
 
+        this.walTxnNotificationQueue = new RingQueue<>(WalTxnNotificationTask::new, configuration.getWalTxnNotificationQueueCapacity());
+        this.walTxnNotificationPubSequence = new MPSequence(walTxnNotificationQueue.getCycle());
+        this.walTxnNotificationSubSequence = new MCSequence(walTxnNotificationQueue.getCycle());
+        walTxnNotificationPubSequence.then(walTxnNotificationSubSequence).then(walTxnNotificationPubSequence);
+
         this.pageFrameReduceShardCount = configuration.getPageFrameReduceShardCount();
 
         //noinspection unchecked
@@ -350,6 +377,36 @@ public class MessageBusImpl implements MessageBus {
         return pageFrameReduceSubSeq[shard];
     }
 
+    @Override
+    public MPSequence getPartitionSummaryPubSeq() {
+        return partitionSummaryPubSeq;
+    }
+
+    @Override
+    public RingQueue<PartitionSummaryTask> getPartitionSummaryQueue() {
+        return partitionSummaryQueue;
+    }
+
+    @Override
+    public MCSequence getPartitionSummarySubSeq() {
+        return partitionSummarySubSeq;
+    }
+
+    @Override
+    public Sequence getSortPubSeq() {
+        return sortPubSeq;
+    }
+
+    @Override
+    public RingQueue<SortRunTask> getSortQueue() {
+        return sortQueue;
+    }
+
+    @Override
+    public Sequence getSortSubSeq() {
+        return sortSubSeq;
+    }
+
     @Override
     public FanOut getTableWriterEventFanOut() {
         return tableWriterEventSubSeq;
@@ -360,6 +417,21 @@ public class MessageBusImpl implements MessageBus {
         return tableWriterEventPubSeq;
     }
 
+    @Override
+    public MPSequence getWalTxnNotificationPubSequence() {
+        return walTxnNotificationPubSequence;
+    }
+
+    @Override
+    public RingQueue<WalTxnNotificationTask> getWalTxnNotificationQueue() {
+        return walTxnNotificationQueue;
+    }
+
+    @Override
+    public MCSequence getWalTxnNotificationSubSequence() {
+        return walTxnNotificationSubSequence;
+    }
+
     @Override
     public RingQueue<TableWriterTask> getTableWriterEventQueue() {
         return tableWriterEventQueue;
@@ -27,6 +27,7 @@ package io.questdb;
 import io.questdb.cairo.TableWriterMetrics;
 import io.questdb.metrics.HealthMetricsImpl;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
+import io.questdb.cutlass.line.tcp.LineTcpMetrics;
 import io.questdb.cutlass.pgwire.PGWireMetrics;
 import io.questdb.metrics.*;
 import io.questdb.std.MemoryTag;
@@ -38,6 +39,7 @@ public class Metrics implements Scrapable {
     private final GCMetrics gcMetrics;
     private final JsonQueryMetrics jsonQuery;
     private final PGWireMetrics pgWire;
+    private final LineTcpMetrics lineTcp;
     private final HealthMetricsImpl healthCheck;
     private final TableWriterMetrics tableWriter;
     private final MetricsRegistry metricsRegistry;
@@ -51,6 +53,7 @@ public class Metrics implements Scrapable {
         this.gcMetrics = new GCMetrics();
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
         this.pgWire = new PGWireMetrics(metricsRegistry);
+        this.lineTcp = new LineTcpMetrics(metricsRegistry);
         this.healthCheck = new HealthMetricsImpl(metricsRegistry);
         this.tableWriter = new TableWriterMetrics(metricsRegistry);
         createMemoryGauges(metricsRegistry);
@@ -91,6 +94,10 @@ public class Metrics implements Scrapable {
         return pgWire;
     }
 
+    public LineTcpMetrics lineTcp() {
+        return lineTcp;
+    }
+
     public HealthMetricsImpl health() {
         return healthCheck;
     }
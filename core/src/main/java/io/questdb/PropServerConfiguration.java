@@ -95,6 +95,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean httpSqlCacheEnabled;
     private final int httpSqlCacheBlockCount;
     private final int httpSqlCacheRowCount;
+    private final boolean httpSqlResultCacheEnabled;
+    private final long httpSqlResultCacheSize;
     private final int rndFunctionMemoryPageSize;
     private final int rndFunctionMemoryMaxPages;
     private final int sqlCharacterStoreCapacity;
@@ -124,8 +126,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
+    private final long sqlSortRunSize;
+    private final long sqlSortMemoryLimit;
+    private final String sqlSortSpillRoot;
+    private final int sortQueueCapacity;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean partitionSummaryEnabled;
+    private final int partitionSummaryQueueCapacity;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -133,6 +141,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int lineUdpMsgBufferSize;
     private final int lineUdpMsgCount;
     private final int lineUdpReceiveBufferSize;
+    private final int lineUdpReceiverCount;
+    private final int lineUdpWriterQueueCapacity;
     private final int lineUdpCommitMode;
     private final int[] sharedWorkerAffinity;
     private final int sharedWorkerCount;
@@ -250,7 +260,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int cairoPageFrameReduceQueueCapacity;
     private final int cairoPageFrameReduceRowIdListCapacity;
     private final int cairoPageFrameReduceColumnListCapacity;
-    private final int cairoPageFrameReduceTaskPoolCapacity;
+    private final boolean cairoPageFrameReadAheadEnabled;
+    private final int cairoPageFrameReadAheadQueueDepth;
     private final long writerFileOpenOpts;
     private final int queryCacheEventQueueCapacity;
     private final int columnPurgeQueueCapacity;
@@ -260,6 +271,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long columnPurgeRetryDelay;
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
+    private final boolean sqlParallelGroupByEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelSortEnabled;
     private final int cairoPageFrameReduceShardCount;
     private final int replaceFunctionBufferMaxSize;
     private final int cairoSqlCopyQueueCapacity;
@@ -272,6 +286,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean ioURingEnabled;
     private final int cairoMaxCrashFiles;
     private final boolean walEnabledDefault;
+    private final int walTxnNotificationQueueCapacity;
     private final String cairoAttachPartitionSuffix;
     private final boolean cairoAttachPartitionCopy;
     private int lineUdpDefaultPartitionBy;
@@ -359,6 +374,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int pgInsertCacheBlockCount;
     private int pgInsertCacheRowCount;
     private int pgInsertPoolCapacity;
+    private int pgCopyBatchSize;
     private boolean pgUpdateCacheEnabled;
     private int pgUpdateCacheBlockCount;
     private int pgUpdateCacheRowCount;
@@ -388,6 +404,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private long lineTcpIOWorkerYieldThreshold;
     private long lineTcpIOWorkerSleepThreshold;
     private long lineTcpMaintenanceInterval;
+    private long lineTcpWriterRebalanceLatencyThreshold;
+    private double lineTcpWriterRebalanceLatencyRatio;
+    private boolean lineTcpWriterColumnarAppendEnabled;
+    private boolean lineTcpCompressionEnabled;
     private double lineTcpCommitIntervalFraction;
     private long lineTcpCommitIntervalDefault;
     private String lineTcpAuthDbPath;
@@ -428,6 +448,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.mkdirMode = getInt(properties, env, PropertyKey.CAIRO_MKDIR_MODE, 509);
         this.maxFileNameLength = getInt(properties, env, PropertyKey.CAIRO_MAX_FILE_NAME_LENGTH, 127);
         this.walEnabledDefault = getBoolean(properties, env, PropertyKey.CAIRO_WAL_ENABLED_DEFAULT, false);
+        this.walTxnNotificationQueueCapacity = getQueueCapacity(properties, env, PropertyKey.CAIRO_WAL_TXN_NOTIFICATION_QUEUE_CAPACITY, 4096);
 
         this.dbDirectory = getString(properties, env, PropertyKey.CAIRO_ROOT, DB_DIRECTORY);
         if (new File(this.dbDirectory).isAbsolute()) {
@@ -675,6 +696,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.pgUpdateCacheEnabled = getBoolean(properties, env, PropertyKey.PG_UPDATE_CACHE_ENABLED, true);
                 this.pgUpdateCacheBlockCount = getInt(properties, env, PropertyKey.PG_UPDATE_CACHE_BLOCK_COUNT, 4);
                 this.pgUpdateCacheRowCount = getInt(properties, env, PropertyKey.PG_UPDATE_CACHE_ROW_COUNT, 4);
+                this.pgCopyBatchSize = getInt(properties, env, PropertyKey.PG_COPY_BATCH_SIZE, 100_000);
                 this.pgNamedStatementCacheCapacity = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_CACHE_CAPACITY, 32);
                 this.pgNamesStatementPoolCapacity = getInt(properties, env, PropertyKey.PG_NAMED_STATEMENT_POOL_CAPACITY, 32);
                 this.pgPendingWritersCacheCapacity = getInt(properties, env, PropertyKey.PG_PENDING_WRITERS_CACHE_CAPACITY, 16);
@@ -697,6 +719,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.httpSqlCacheEnabled = getBoolean(properties, env, PropertyKey.HTTP_QUERY_CACHE_ENABLED, true);
             this.httpSqlCacheBlockCount = getInt(properties, env, PropertyKey.HTTP_QUERY_CACHE_BLOCK_COUNT, 4);
             this.httpSqlCacheRowCount = getInt(properties, env, PropertyKey.HTTP_QUERY_CACHE_ROW_COUNT, 4);
+            this.httpSqlResultCacheEnabled = getBoolean(properties, env, PropertyKey.HTTP_QUERY_RESULT_CACHE_ENABLED, false);
+            this.httpSqlResultCacheSize = getLongSize(properties, env, PropertyKey.HTTP_QUERY_RESULT_CACHE_SIZE, 64 * Numbers.SIZE_1MB);
             this.sqlCharacterStoreCapacity = getInt(properties, env, PropertyKey.CAIRO_CHARACTER_STORE_CAPACITY, 1024);
             this.sqlCharacterStoreSequencePoolCapacity = getInt(properties, env, PropertyKey.CAIRO_CHARACTER_STORE_SEQUENCE_POOL_CAPACITY, 64);
             this.sqlColumnPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_COLUMN_POOL_CAPACITY, 4096);
@@ -723,8 +747,12 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
             this.sqlSortValuePageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_PAGE_SIZE, 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, PropertyKey.CAIRO_SQL_SORT_VALUE_MAX_PAGES, Integer.MAX_VALUE);
+            this.sqlSortRunSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SORT_RUN_SIZE, 16 * Numbers.SIZE_1MB);
+            this.sqlSortMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_SQL_SORT_MEMORY_LIMIT, 256 * Numbers.SIZE_1MB);
             this.workStealTimeoutNanos = getLong(properties, env, PropertyKey.CAIRO_WORK_STEAL_TIMEOUT_NANOS, 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARALLEL_INDEXING_ENABLED, true);
+            this.partitionSummaryEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PARTITION_SUMMARY_ENABLED, false);
+            this.partitionSummaryQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PARTITION_SUMMARY_QUEUE_CAPACITY, 64));
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_PAGE_SIZE, 16384);
             this.sqlJoinMetadataMaxResizes = getIntSize(properties, env, PropertyKey.CAIRO_SQL_JOIN_METADATA_MAX_RESIZES, Integer.MAX_VALUE);
             this.sqlAnalyticColumnPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_ANALYTIC_COLUMN_POOL_CAPACITY, 64);
@@ -747,8 +775,12 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
             this.sqlParallelFilterPreTouchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED, true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_GROUPBY_ENABLED, true);
+            this.sqlParallelHashJoinEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED, true);
+            this.sqlParallelSortEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_SORT_ENABLED, true);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
-            this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
+            this.cairoPageFrameReadAheadEnabled = getBoolean(properties, env, PropertyKey.CAIRO_PAGE_FRAME_READ_AHEAD_ENABLED, false);
+            this.cairoPageFrameReadAheadQueueDepth = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_READ_AHEAD_QUEUE_DEPTH, 32));
 
             this.writerDataIndexKeyAppendPageSize = Files.ceilPageSize(getLongSize(properties, env, PropertyKey.CAIRO_WRITER_DATA_INDEX_KEY_APPEND_PAGE_SIZE, 512 * 1024));
             this.writerDataIndexValueAppendPageSize = Files.ceilPageSize(getLongSize(properties, env, PropertyKey.CAIRO_WRITER_DATA_INDEX_VALUE_APPEND_PAGE_SIZE, 16 * Numbers.SIZE_1MB));
@@ -819,6 +851,14 @@ public class PropServerConfiguration implements ServerConfiguration {
                 throw new ServerConfigurationException("Configuration value for " + PropertyKey.CAIRO_SQL_COPY_WORK_ROOT.getPropertyPath() + " can't point to root, data, conf or snapshot dirs. ");
             }
 
+            // sorted runs are spilled next to import work files unless configured otherwise
+            String sqlSortSpillRoot = getString(properties, env, PropertyKey.CAIRO_SQL_SORT_SPILL_ROOT, this.cairoSqlCopyWorkRoot);
+            if (sqlSortSpillRoot != null) {
+                this.sqlSortSpillRoot = getCanonicalPath(sqlSortSpillRoot);
+            } else {
+                this.sqlSortSpillRoot = null;
+            }
+
             this.cairoSqlCopyMaxIndexChunkSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_COPY_MAX_INDEX_CHUNK_SIZE, 100 * Numbers.SIZE_1MB);
             this.cairoSqlCopyMaxIndexChunkSize -= (cairoSqlCopyMaxIndexChunkSize % CsvFileIndexer.INDEX_ENTRY_SIZE);
             if (this.cairoSqlCopyMaxIndexChunkSize < 16) {
@@ -855,6 +895,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlAnalyticTreeKeyMaxPages = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SQL_ANALYTIC_TREE_MAX_PAGES, Integer.MAX_VALUE));
             this.sqlTxnScoreboardEntryCount = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_O3_TXN_SCOREBOARD_ENTRY_COUNT, 16384));
             this.latestByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_LATESTBY_QUEUE_CAPACITY, 32));
+            this.sortQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_SORT_QUEUE_CAPACITY, 32));
             this.telemetryEnabled = getBoolean(properties, env, PropertyKey.TELEMETRY_ENABLED, true);
             this.telemetryDisableCompletely = getBoolean(properties, env, PropertyKey.TELEMETRY_DISABLE_COMPLETELY, false);
             this.telemetryQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.TELEMETRY_QUEUE_CAPACITY, 512));
@@ -873,6 +914,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineUdpMsgBufferSize = getIntSize(properties, env, PropertyKey.LINE_UDP_MSG_BUFFER_SIZE, 2048);
             this.lineUdpMsgCount = getInt(properties, env, PropertyKey.LINE_UDP_MSG_COUNT, 10_000);
             this.lineUdpReceiveBufferSize = getIntSize(properties, env, PropertyKey.LINE_UDP_RECEIVE_BUFFER_SIZE, 8 * Numbers.SIZE_1MB);
+            this.lineUdpReceiverCount = Math.max(1, getInt(properties, env, PropertyKey.LINE_UDP_RECEIVER_COUNT, 1));
+            this.lineUdpWriterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.LINE_UDP_WRITER_QUEUE_CAPACITY, 1024));
             this.lineUdpEnabled = getBoolean(properties, env, PropertyKey.LINE_UDP_ENABLED, true);
             this.lineUdpOwnThreadAffinity = getInt(properties, env, PropertyKey.LINE_UDP_OWN_THREAD_AFFINITY, -1);
             this.lineUdpOwnThread = getBoolean(properties, env, PropertyKey.LINE_UDP_OWN_THREAD, false);
@@ -941,6 +984,10 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.lineTcpIOWorkerYieldThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_YIELD_THRESHOLD, 10);
                 this.lineTcpIOWorkerSleepThreshold = getLong(properties, env, PropertyKey.LINE_TCP_IO_WORKER_SLEEP_THRESHOLD, 10_000);
                 this.lineTcpMaintenanceInterval = getLong(properties, env, PropertyKey.LINE_TCP_MAINTENANCE_JOB_INTERVAL, 1000);
+                this.lineTcpWriterRebalanceLatencyThreshold = getLong(properties, env, PropertyKey.LINE_TCP_WRITER_REBALANCE_LATENCY_THRESHOLD, 0);
+                this.lineTcpWriterRebalanceLatencyRatio = getDouble(properties, env, PropertyKey.LINE_TCP_WRITER_REBALANCE_LATENCY_RATIO, 2.0);
+                this.lineTcpWriterColumnarAppendEnabled = getBoolean(properties, env, PropertyKey.LINE_TCP_WRITER_COLUMNAR_APPEND_ENABLED, true);
+                this.lineTcpCompressionEnabled = getBoolean(properties, env, PropertyKey.LINE_TCP_COMPRESSION_ENABLED, false);
                 this.lineTcpCommitIntervalFraction = getDouble(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_FRACTION, 0.5);
                 this.lineTcpCommitIntervalDefault = getLong(properties, env, PropertyKey.LINE_TCP_COMMIT_INTERVAL_DEFAULT, COMMIT_INTERVAL_DEFAULT);
                 if (this.lineTcpCommitIntervalDefault < 1L) {
@@ -1164,6 +1211,10 @@ public class PropServerConfiguration implements ServerConfiguration {
         registerReplacements(DEPRECATED_SETTINGS, old, replacements);
     }
 
+    private static void registerUnused(PropertyKey old) {
+        DEPRECATED_SETTINGS.put(old, "No longer used, the setting is ignored");
+    }
+
     private int[] getAffinity(Properties properties, @Nullable Map<String, String> env, PropertyKey key, int httpWorkerCount) throws ServerConfigurationException {
         final int[] result = new int[httpWorkerCount];
         String value = overrideWithEnv(properties, env, key);
@@ -1810,6 +1861,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpSqlCacheRowCount;
         }
 
+        @Override
+        public boolean isQueryResultCacheEnabled() {
+            return httpSqlResultCacheEnabled;
+        }
+
+        @Override
+        public long getQueryResultCacheSize() {
+            return httpSqlResultCacheSize;
+        }
+
         @Override
         public WaitProcessorConfiguration getWaitProcessorConfiguration() {
             return httpWaitProcessorConfiguration;
@@ -2098,6 +2159,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return latestByQueueCapacity;
         }
 
+        @Override
+        public int getSortQueueCapacity() {
+            return sortQueueCapacity;
+        }
+
         @Override
         public int getMaxCrashFiles() {
             return cairoMaxCrashFiles;
@@ -2178,6 +2244,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return o3PurgeDiscoveryQueueCapacity;
         }
 
+        @Override
+        public int getPageFrameReadAheadQueueDepth() {
+            return cairoPageFrameReadAheadQueueDepth;
+        }
+
         @Override
         public int getPageFrameReduceColumnListCapacity() {
             return cairoPageFrameReduceColumnListCapacity;
@@ -2198,11 +2269,6 @@ public class PropServerConfiguration implements ServerConfiguration {
             return cairoPageFrameReduceShardCount;
         }
 
-        @Override
-        public int getPageFrameReduceTaskPoolCapacity() {
-            return cairoPageFrameReduceTaskPoolCapacity;
-        }
-
         @Override
         public int getParallelIndexThreshold() {
             return parallelIndexThreshold;
@@ -2213,6 +2279,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return o3PartitionPurgeListCapacity;
         }
 
+        @Override
+        public int getPartitionSummaryQueueCapacity() {
+            return partitionSummaryQueueCapacity;
+        }
+
         @Override
         public int getQueryCacheEventQueueCapacity() {
             return queryCacheEventQueueCapacity;
@@ -2528,6 +2599,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValuePageSize;
         }
 
+        @Override
+        public long getSqlSortMemoryLimit() {
+            return sqlSortMemoryLimit;
+        }
+
+        @Override
+        public long getSqlSortRunSize() {
+            return sqlSortRunSize;
+        }
+
+        @Override
+        public CharSequence getSqlSortSpillRoot() {
+            return sqlSortSpillRoot;
+        }
+
         @Override
         public CharSequence getSystemTableNamePrefix() {
             return systemTableNamePrefix;
@@ -2557,6 +2643,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return walEnabledDefault;
         }
 
+        @Override
+        public int getWalTxnNotificationQueueCapacity() {
+            return walTxnNotificationQueueCapacity;
+        }
+
         @Override
         public int getWithClauseModelPoolCapacity() {
             return sqlWithClauseModelPoolCapacity;
@@ -2612,6 +2703,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isPageFrameReadAheadEnabled() {
+            return cairoPageFrameReadAheadEnabled;
+        }
+
+        @Override
+        public boolean isPartitionSummaryEnabled() {
+            return partitionSummaryEnabled;
+        }
+
         @Override
         public boolean isSnapshotRecoveryEnabled() {
             return snapshotRecoveryEnabled;
@@ -2631,6 +2732,21 @@ public class PropServerConfiguration implements ServerConfiguration {
         public boolean isSqlParallelFilterPreTouchEnabled() {
             return sqlParallelFilterPreTouchEnabled;
         }
+
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
@@ -2694,6 +2810,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineUdpReceiveBufferSize;
         }
 
+        @Override
+        public int getReceiverCount() {
+            return lineUdpReceiverCount;
+        }
+
+        @Override
+        public int getWriterQueueCapacity() {
+            return lineUdpWriterQueueCapacity;
+        }
+
         @Override
         public CairoSecurityContext getCairoSecurityContext() {
             return AllowAllCairoSecurityContext.INSTANCE;
@@ -2953,6 +3079,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return minIdleMsBeforeWriterRelease;
         }
 
+        @Override
+        public double getWriterRebalanceLatencyRatio() {
+            return lineTcpWriterRebalanceLatencyRatio;
+        }
+
+        @Override
+        public long getWriterRebalanceLatencyThreshold() {
+            return lineTcpWriterRebalanceLatencyThreshold;
+        }
+
         @Override
         public IODispatcherConfiguration getDispatcherConfiguration() {
             return lineTcpReceiverDispatcherConfiguration;
@@ -2988,6 +3124,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpEnabled;
         }
 
+        @Override
+        public boolean isColumnarAppendEnabled() {
+            return lineTcpWriterColumnarAppendEnabled;
+        }
+
+        @Override
+        public boolean isCompressionEnabled() {
+            return lineTcpCompressionEnabled;
+        }
+
         @Override
         public boolean getDisconnectOnError() {
             return lineTcpDisconnectOnError;
@@ -3210,6 +3356,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return pgCharacterStoreCapacity;
         }
 
+        @Override
+        public int getCopyBatchSize() {
+            return pgCopyBatchSize;
+        }
+
         @Override
         public int getCharacterStorePoolCapacity() {
             return pgCharacterStorePoolCapacity;
@@ -3534,6 +3685,8 @@ public class PropServerConfiguration implements ServerConfiguration {
         registerDeprecated(
                 PropertyKey.LINE_TCP_DEFAULT_PARTITION_BY,
                 PropertyKey.LINE_DEFAULT_PARTITION_BY);
+
+        registerUnused(PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY);
     }
 }
 
@@ -82,15 +82,25 @@ public enum PropertyKey {
     CAIRO_SQL_HASH_JOIN_LIGHT_VALUE_MAX_PAGES("cairo.sql.hash.join.light.value.max.pages"),
     CAIRO_SQL_SORT_VALUE_PAGE_SIZE("cairo.sql.sort.value.page.size"),
     CAIRO_SQL_SORT_VALUE_MAX_PAGES("cairo.sql.sort.value.max.pages"),
+    CAIRO_SQL_SORT_RUN_SIZE("cairo.sql.sort.run.size"),
+    CAIRO_SQL_SORT_MEMORY_LIMIT("cairo.sql.sort.memory.limit"),
+    CAIRO_SQL_SORT_SPILL_ROOT("cairo.sql.sort.spill.root"),
     CAIRO_WORK_STEAL_TIMEOUT_NANOS("cairo.work.steal.timeout.nanos"),
     CAIRO_PARALLEL_INDEXING_ENABLED("cairo.parallel.indexing.enabled"),
+    CAIRO_PARTITION_SUMMARY_ENABLED("cairo.partition.summary.enabled"),
+    CAIRO_PARTITION_SUMMARY_QUEUE_CAPACITY("cairo.partition.summary.queue.capacity"),
     CAIRO_PAGE_FRAME_REDUCE_QUEUE_CAPACITY("cairo.page.frame.reduce.queue.capacity"),
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED("cairo.sql.parallel.filter.pretouch.enabled"),
+    CAIRO_SQL_PARALLEL_GROUPBY_ENABLED("cairo.sql.parallel.groupby.enabled"),
+    CAIRO_SQL_PARALLEL_HASH_JOIN_ENABLED("cairo.sql.parallel.hash.join.enabled"),
+    CAIRO_SQL_PARALLEL_SORT_ENABLED("cairo.sql.parallel.sort.enabled"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
+    CAIRO_PAGE_FRAME_READ_AHEAD_ENABLED("cairo.page.frame.read.ahead.enabled"),
+    CAIRO_PAGE_FRAME_READ_AHEAD_QUEUE_DEPTH("cairo.page.frame.read.ahead.queue.depth"),
     CAIRO_SQL_JOIN_METADATA_PAGE_SIZE("cairo.sql.join.metadata.page.size"),
     CAIRO_SQL_JOIN_METADATA_MAX_RESIZES("cairo.sql.join.metadata.max.resizes"),
     CAIRO_SQL_ANALYTIC_COLUMN_POOL_CAPACITY("cairo.sql.analytic.column.pool.capacity"),
@@ -160,6 +170,7 @@ public enum PropertyKey {
     CAIRO_SQL_ANALYTIC_TREE_MAX_PAGES("cairo.sql.analytic.tree.max.pages"),
     CAIRO_O3_TXN_SCOREBOARD_ENTRY_COUNT("cairo.o3.txn.scoreboard.entry.count"),
     CAIRO_LATESTBY_QUEUE_CAPACITY("cairo.latestby.queue.capacity"),
+    CAIRO_SORT_QUEUE_CAPACITY("cairo.sort.queue.capacity"),
     CAIRO_O3_PARTITION_PURGE_LIST_INITIAL_CAPACITY("cairo.o3.partition.purge.list.initial.capacity"),
     CAIRO_O3_ENABLED("cairo.o3.enabled"),
     CAIRO_QUERY_CACHE_EVENT_QUEUE_CAPACITY("cairo.query.cache.event.queue.capacity"),
@@ -246,6 +257,8 @@ public enum PropertyKey {
     HTTP_QUERY_CACHE_ENABLED("http.query.cache.enabled"),
     HTTP_QUERY_CACHE_BLOCK_COUNT("http.query.cache.block.count"),
     HTTP_QUERY_CACHE_ROW_COUNT("http.query.cache.row.count"),
+    HTTP_QUERY_RESULT_CACHE_ENABLED("http.query.result.cache.enabled"),
+    HTTP_QUERY_RESULT_CACHE_SIZE("http.query.result.cache.size"),
     LINE_UDP_BIND_TO("line.udp.bind.to"),
     LINE_UDP_HALT_ON_ERROR("line.udp.haltOnError"),
     LINE_UDP_JOIN("line.udp.join"),
@@ -253,6 +266,8 @@ public enum PropertyKey {
     LINE_UDP_MSG_BUFFER_SIZE("line.udp.msg.buffer.size"),
     LINE_UDP_MSG_COUNT("line.udp.msg.count"),
     LINE_UDP_RECEIVE_BUFFER_SIZE("line.udp.receive.buffer.size"),
+    LINE_UDP_RECEIVER_COUNT("line.udp.receiver.count"),
+    LINE_UDP_WRITER_QUEUE_CAPACITY("line.udp.writer.queue.capacity"),
     LINE_UDP_ENABLED("line.udp.enabled"),
     LINE_UDP_OWN_THREAD_AFFINITY("line.udp.own.thread.affinity"),
     LINE_UDP_OWN_THREAD("line.udp.own.thread"),
@@ -280,6 +295,10 @@ public enum PropertyKey {
     LINE_TCP_WRITER_HALT_ON_ERROR("line.tcp.writer.halt.on.error"),
     LINE_TCP_WRITER_WORKER_YIELD_THRESHOLD("line.tcp.writer.worker.yield.threshold"),
     LINE_TCP_WRITER_WORKER_SLEEP_THRESHOLD("line.tcp.writer.worker.sleep.threshold"),
+    LINE_TCP_WRITER_REBALANCE_LATENCY_THRESHOLD("line.tcp.writer.rebalance.latency.threshold"),
+    LINE_TCP_WRITER_REBALANCE_LATENCY_RATIO("line.tcp.writer.rebalance.latency.ratio"),
+    LINE_TCP_WRITER_COLUMNAR_APPEND_ENABLED("line.tcp.writer.columnar.append.enabled"),
+    LINE_TCP_COMPRESSION_ENABLED("line.tcp.compression.enabled"),
     LINE_TCP_SYMBOL_CACHE_WAIT_US_BEFORE_RELOAD("line.tcp.symbol.cache.wait.us.before.reload"),
     LINE_TCP_IO_WORKER_COUNT("line.tcp.io.worker.count"),
     LINE_TCP_IO_WORKER_AFFINITY("line.tcp.io.worker.affinity"),
@@ -355,6 +374,7 @@ public enum PropertyKey {
     PG_UPDATE_CACHE_ENABLED("pg.update.cache.enabled"),
     PG_UPDATE_CACHE_BLOCK_COUNT("pg.update.cache.block.count"),
     PG_UPDATE_CACHE_ROW_COUNT("pg.update.cache.row.count"),
+    PG_COPY_BATCH_SIZE("pg.copy.batch.size"),
     CAIRO_SQL_COLUMN_PURGE_QUEUE_CAPACITY("cairo.sql.column.purge.queue.capacity"),
     CAIRO_SQL_COLUMN_PURGE_TASK_POOL_CAPACITY("cairo.sql.column.purge.task.pool.capacity"),
     CAIRO_SQL_COLUMN_PURGE_RETRY_DELAY_LIMIT("cairo.sql.column.purge.retry.delay.limit"),
@@ -365,7 +385,8 @@ public enum PropertyKey {
     LINE_AUTO_CREATE_NEW_COLUMNS("line.auto.create.new.columns"),
     LINE_AUTO_CREATE_NEW_TABLES("line.auto.create.new.tables"),
     CAIRO_SIMULATE_CRASH_ENABLED("cairo.enable.crash.simulation"),
-    CAIRO_WAL_ENABLED_DEFAULT("cairo.wal.enabled.default");
+    CAIRO_WAL_ENABLED_DEFAULT("cairo.wal.enabled.default"),
+    CAIRO_WAL_TXN_NOTIFICATION_QUEUE_CAPACITY("cairo.wal.txn.notification.queue.capacity");
 
     private static final Map<String, PropertyKey> nameMapping;
     private final String propertyPath;
@@ -24,6 +24,7 @@
 
 package io.questdb;
 
+import io.questdb.cairo.ApplyWal2TableJob;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
@@ -35,6 +36,8 @@ import io.questdb.griffin.DatabaseSnapshotAgent;
 import io.questdb.griffin.FunctionFactory;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.mv.MatViewRefreshJob;
+import io.questdb.griffin.engine.orderby.SortRunJob;
 import io.questdb.griffin.engine.table.AsyncFilterAtom;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
 import io.questdb.log.Log;
@@ -99,6 +102,15 @@ public class ServerMain implements Closeable {
                     sharedPool.assign(new ColumnIndexerJob(messageBus));
                     sharedPool.assign(new GroupByJob(messageBus));
                     sharedPool.assign(new LatestByAllIndexedJob(messageBus));
+                    sharedPool.assign(new SortRunJob(messageBus));
+
+                    // WAL apply
+                    ApplyWal2TableJob.assignToPool(engine, sharedPool);
+
+                    // materialized views
+                    final MatViewRefreshJob matViewRefreshJob = new MatViewRefreshJob(engine, ffCache);
+                    sharedPool.assign(matViewRefreshJob);
+                    sharedPool.freeOnExit(matViewRefreshJob);
 
                     // text import
                     TextImportJob.assignToPool(messageBus, sharedPool);
@@ -29,12 +29,14 @@ import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Chars;
+import io.questdb.std.Misc;
 import io.questdb.std.str.CharSink;
 
 public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorFactory {
     private final String tableName;
     private final int tableId;
     private final long tableVersion;
+    protected PartitionSummaryFilter partitionFilter;
 
     public AbstractDataFrameCursorFactory(String tableName, int tableId, long tableVersion) {
         this.tableName = tableName;
@@ -48,17 +50,31 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
     }
 
     protected TableReader getReader(SqlExecutionContext executionContext) throws SqlException {
-        return executionContext.getCairoEngine()
-                .getReader(
-                        executionContext.getCairoSecurityContext(),
-                        tableName,
-                        tableId,
-                        tableVersion
-                );
+        final TableReader reader = executionContext.getReader(tableName, tableId, tableVersion);
+        if (partitionFilter != null) {
+            try {
+                partitionFilter.of(reader, executionContext);
+            } catch (Throwable th) {
+                Misc.free(reader);
+                throw th;
+            }
+        }
+        return reader;
     }
 
     @Override
     public void close() {
+        partitionFilter = Misc.free(partitionFilter);
+    }
+
+    /**
+     * Sets filter that skips partitions, which cannot contain rows matching the
+     * query filter. Factory takes ownership of the filter.
+     *
+     * @param partitionFilter filter built from query filter
+     */
+    public void setPartitionFilter(PartitionSummaryFilter partitionFilter) {
+        this.partitionFilter = partitionFilter;
     }
 
     @Override
@@ -34,6 +34,7 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected TableReader reader;
     protected int partitionHi;
     protected int partitionIndex;
+    protected PartitionSummaryFilter partitionFilter;
 
     @Override
     public void close() {
@@ -59,6 +60,9 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     public boolean reload() {
         boolean moreData = reader.reload();
         this.partitionHi = reader.getPartitionCount();
+        if (partitionFilter != null) {
+            partitionFilter.clearPartitions();
+        }
         toTop();
         return moreData;
     }
@@ -75,6 +79,10 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
         return this;
     }
 
+    public void setPartitionFilter(PartitionSummaryFilter partitionFilter) {
+        this.partitionFilter = partitionFilter;
+    }
+
     protected class FullTableDataFrame implements DataFrame {
         protected long rowLo = 0;
         protected long rowHi;
@@ -52,6 +52,7 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     protected long partitionLimit;
     protected long sizeSoFar = 0;
     protected long size = -1;
+    protected PartitionSummaryFilter partitionFilter;
     private int initialIntervalsLo;
     private int initialIntervalsHi;
     private int initialPartitionLo;
@@ -71,6 +72,9 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
     @Override
     public boolean reload() {
         if (reader != null && reader.reload()) {
+            if (partitionFilter != null) {
+                partitionFilter.clearPartitions();
+            }
             calculateRanges(intervals);
             return true;
         }
@@ -117,6 +121,10 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
         return this;
     }
 
+    public void setPartitionFilter(PartitionSummaryFilter partitionFilter) {
+        this.partitionFilter = partitionFilter;
+    }
+
     protected static long search(MemoryR column, long value, long low, long high, int increment) {
         while (low < high) {
             long mid = (low + high - 1) >>> 1;
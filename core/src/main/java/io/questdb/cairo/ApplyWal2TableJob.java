@@ -0,0 +1,415 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.FlyweightCharSequence;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.tasks.WalTxnNotificationTask;
+
+import java.io.Closeable;
+
+/**
+ * Applies committed WAL transactions to the table. The job is woken up by {@link WalWriter} commit
+ * notifications and applies all transactions the sequencer has issued since the last txn recorded
+ * in the table's _txn file. Consecutive data transactions of the same WAL segment are coalesced
+ * into a single O3 commit, capped by the table's max uncommitted rows.
+ * <p>
+ * Only one job instance can apply transactions to a table at a time. When the table writer is busy,
+ * or the notification queue is full, the table is marked as pending in {@link CairoEngine} and idle
+ * job instances re-publish its notification periodically, until the writer becomes available.
+ */
+public class ApplyWal2TableJob extends AbstractQueueConsumerJob<WalTxnNotificationTask> implements Closeable {
+    static final String WAL_2_TABLE_WRITE_REASON = "WAL Data Application";
+    private static final Log LOG = LogFactory.getLog(ApplyWal2TableJob.class);
+    private static final long PENDING_TABLES_CHECK_INTERVAL_US = 100_000;
+    private final CairoEngine engine;
+    private final MicrosecondClock clock;
+    private final WalReaderEvents walEvents;
+    private final MergedSymbolMapDiffCursor symbolMapDiffs = new MergedSymbolMapDiffCursor();
+    private final Path walPath = new Path();
+    private WalEventCursor eventCursor;
+    private int eventWalId = -1;
+    private long eventSegmentId = -1;
+    // coalesced data transactions
+    private int batchWalId;
+    private long batchSegmentId;
+    private long batchRowLo;
+    private long batchRowHi;
+    private long batchMinTimestamp;
+    private long batchMaxTimestamp;
+    private boolean batchInOrder;
+    private long batchTxn;
+    private int batchTxnCount;
+    private long lastSeenTxn;
+    private long nextPendingTablesCheckUs;
+
+    public ApplyWal2TableJob(CairoEngine engine) {
+        super(engine.getMessageBus().getWalTxnNotificationQueue(), engine.getMessageBus().getWalTxnNotificationSubSequence());
+        this.engine = engine;
+        this.clock = engine.getConfiguration().getMicrosecondClock();
+        this.walEvents = new WalReaderEvents(engine.getConfiguration().getFilesFacade());
+    }
+
+    public static void assignToPool(CairoEngine engine, WorkerPool pool) {
+        for (int i = 0, n = pool.getWorkerCount(); i < n; i++) {
+            final ApplyWal2TableJob job = new ApplyWal2TableJob(engine);
+            pool.assign(i, job);
+            pool.freeOnExit(job);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(walEvents);
+        Misc.free(walPath);
+    }
+
+    /**
+     * Applies all outstanding WAL transactions to the table.
+     *
+     * @param tableName table to apply transactions to
+     * @return last sequencer txn applied to the table or -1 when table writer is not available
+     */
+    public long applyOutstandingTransactions(CharSequence tableName) {
+        long appliedTxn = -1;
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, WAL_2_TABLE_WRITE_REASON)) {
+            appliedTxn = applyOutstandingTransactions(writer);
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table writer is busy, WAL transactions are not applied [table=").utf8(tableName).I$();
+            engine.markWalTablePending(Chars.toString(tableName));
+        } catch (Throwable e) {
+            LOG.critical().$("could not apply WAL transactions [table=").utf8(tableName).$(", error=").$(e).I$();
+        } finally {
+            closeEventCursor();
+            symbolMapDiffs.clear();
+        }
+        return appliedTxn;
+    }
+
+    @Override
+    public boolean run(int workerId) {
+        if (super.run(workerId)) {
+            return true;
+        }
+        final long now = clock.getTicks();
+        if (now >= nextPendingTablesCheckUs) {
+            nextPendingTablesCheckUs = now + PENDING_TABLES_CHECK_INTERVAL_US;
+            return engine.publishPendingWalNotifications();
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final WalTxnNotificationTask task = queue.get(cursor);
+        final String tableName = task.getTableName();
+        subSeq.done(cursor);
+
+        if (applyOutstandingTransactions(tableName) > -1) {
+            // other job instances could not apply transactions committed while this job held
+            // the writer, pick them up now rather than waiting for the pending tables check
+            final long lastTxn = engine.getSequencer(tableName).lastTxn();
+            if (lastTxn > lastSeenTxn) {
+                engine.notifyWalTxnCommitted(tableName, lastTxn);
+            }
+        }
+        return true;
+    }
+
+    private long applyOutstandingTransactions(TableWriter writer) {
+        final String tableName = writer.getTableName();
+        final long maxBatchRowCount = writer.getMetadata().getMaxUncommittedRows();
+        final Sequencer sequencer = engine.getSequencer(tableName);
+        batchTxnCount = 0;
+        lastSeenTxn = sequencer.lastTxn();
+
+        try (SequencerCursor cursor = sequencer.getCursor(writer.getSeqTxn())) {
+            while (cursor.hasNext()) {
+                final long txn = cursor.getTxn();
+                final int walId = cursor.getWalId();
+                final long segmentId = cursor.getSegmentId();
+
+                if (!seekEvent(tableName, walId, segmentId, txn)) {
+                    // WAL writer has not written the event yet, its notification will arrive later
+                    break;
+                }
+
+                switch (eventCursor.getType()) {
+                    case WalTxnType.DATA:
+                        final WalEventCursor.DataInfo dataInfo = eventCursor.getDataInfo();
+                        if (batchTxnCount > 0 && !canCoalesce(walId, segmentId, dataInfo, maxBatchRowCount)) {
+                            commitBatch(writer);
+                        }
+                        addToBatch(walId, segmentId, txn, dataInfo);
+                        break;
+                    case WalTxnType.ADD_COLUMN:
+                        commitBatch(writer);
+                        final WalEventCursor.AddColumnInfo addColumnInfo = eventCursor.getAddColumnInfo();
+                        if (writer.getMetadata().getColumnIndexQuiet(addColumnInfo.getColumnName()) < 0) {
+                            writer.addColumn(addColumnInfo.getColumnName(), addColumnInfo.getColumnType());
+                        }
+                        writer.commitSeqTxn(txn);
+                        break;
+                    case WalTxnType.REMOVE_COLUMN:
+                        commitBatch(writer);
+                        final int columnIndex = eventCursor.getRemoveColumnInfo().getColumnIndex();
+                        final TableWriterMetadata metadata = writer.getMetadata();
+                        if (columnIndex < metadata.getColumnCount() && metadata.getColumnType(columnIndex) > 0) {
+                            writer.removeColumn(metadata.getColumnName(columnIndex));
+                        }
+                        writer.commitSeqTxn(txn);
+                        break;
+                    default:
+                        throw CairoException.critical(0).put("unsupported WAL event type [table=").put(tableName)
+                                .put(", txn=").put(txn)
+                                .put(", type=").put(eventCursor.getType())
+                                .put(']');
+                }
+            }
+            commitBatch(writer);
+        }
+        return writer.getSeqTxn();
+    }
+
+    private void addToBatch(int walId, long segmentId, long txn, WalEventCursor.DataInfo dataInfo) {
+        if (batchTxnCount == 0) {
+            batchWalId = walId;
+            batchSegmentId = segmentId;
+            batchRowLo = dataInfo.getStartRowID();
+            batchMinTimestamp = dataInfo.getMinTimestamp();
+            batchMaxTimestamp = dataInfo.getMaxTimestamp();
+            batchInOrder = !dataInfo.isOutOfOrder();
+        } else {
+            batchInOrder &= !dataInfo.isOutOfOrder() && dataInfo.getMinTimestamp() >= batchMaxTimestamp;
+            batchMinTimestamp = Math.min(batchMinTimestamp, dataInfo.getMinTimestamp());
+            batchMaxTimestamp = Math.max(batchMaxTimestamp, dataInfo.getMaxTimestamp());
+        }
+        batchRowHi = dataInfo.getEndRowID();
+        batchTxn = txn;
+        batchTxnCount++;
+        symbolMapDiffs.add(dataInfo);
+    }
+
+    private boolean canCoalesce(int walId, long segmentId, WalEventCursor.DataInfo dataInfo, long maxBatchRowCount) {
+        return batchWalId == walId
+                && batchSegmentId == segmentId
+                && batchRowHi == dataInfo.getStartRowID()
+                && dataInfo.getEndRowID() - batchRowLo <= maxBatchRowCount;
+    }
+
+    private void closeEventCursor() {
+        walEvents.close();
+        eventCursor = null;
+        eventWalId = -1;
+        eventSegmentId = -1;
+    }
+
+    private void commitBatch(TableWriter writer) {
+        if (batchTxnCount > 0) {
+            LOG.info().$("applying WAL transactions [table=").utf8(writer.getTableName())
+                    .$(", wal=").$(batchWalId)
+                    .$(", segment=").$(batchSegmentId)
+                    .$(", rowLo=").$(batchRowLo)
+                    .$(", rowHi=").$(batchRowHi)
+                    .$(", txnCount=").$(batchTxnCount)
+                    .$(", lastTxn=").$(batchTxn)
+                    .I$();
+            setWalPath(writer.getTableName(), batchWalId);
+            writer.processWalCommit(
+                    walPath,
+                    batchSegmentId,
+                    batchInOrder,
+                    batchRowLo,
+                    batchRowHi,
+                    batchMinTimestamp,
+                    batchMaxTimestamp + 1,
+                    symbolMapDiffs,
+                    batchTxn
+            );
+            batchTxnCount = 0;
+            symbolMapDiffs.clear();
+        }
+    }
+
+    // positions event cursor at the event of the given txn
+    private boolean seekEvent(CharSequence tableName, int walId, long segmentId, long txn) {
+        if (eventCursor == null || eventWalId != walId || eventSegmentId != segmentId) {
+            openEventCursor(tableName, walId, segmentId);
+            return seekEvent0(txn);
+        }
+        // events are scanned forward only, mapped event file could also be
+        // behind the writer, reopen the file when txn is not found
+        if (seekEvent0(txn)) {
+            return true;
+        }
+        openEventCursor(tableName, walId, segmentId);
+        return seekEvent0(txn);
+    }
+
+    private boolean seekEvent0(long txn) {
+        while (eventCursor.hasNext()) {
+            if (eventCursor.getTxn() == txn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void openEventCursor(CharSequence tableName, int walId, long segmentId) {
+        setWalPath(tableName, walId);
+        eventCursor = walEvents.of(walPath, walPath.length(), segmentId, WalWriter.WAL_FORMAT_VERSION);
+        eventWalId = walId;
+        eventSegmentId = segmentId;
+    }
+
+    private void setWalPath(CharSequence tableName, int walId) {
+        walPath.of(engine.getConfiguration().getRoot()).concat(tableName).concat(WalWriter.WAL_NAME_BASE).put(walId);
+    }
+
+    // Symbol map diffs of consecutive transactions of the same WAL segment. Symbol keys
+    // are allocated by the WAL writer sequentially, so merged diff of a column is the
+    // clean symbol count of the first transaction followed by entries of all transactions.
+    private static class MergedSymbolMapDiffCursor implements SymbolMapDiffCursor, Mutable {
+        private final ObjList<MergedSymbolMapDiff> diffs = new ObjList<>();
+        private int columnIndex;
+
+        @Override
+        public void clear() {
+            for (int i = 0, n = diffs.size(); i < n; i++) {
+                final MergedSymbolMapDiff diff = diffs.getQuick(i);
+                if (diff != null) {
+                    diff.clear();
+                }
+            }
+            columnIndex = 0;
+        }
+
+        @Override
+        public SymbolMapDiff nextSymbolMapDiff() {
+            for (int n = diffs.size(); columnIndex < n; columnIndex++) {
+                final MergedSymbolMapDiff diff = diffs.getQuick(columnIndex);
+                if (diff != null && diff.getColumnIndex() > -1) {
+                    columnIndex++;
+                    diff.toTop();
+                    return diff;
+                }
+            }
+            return null;
+        }
+
+        void add(SymbolMapDiffCursor cursor) {
+            SymbolMapDiff diff;
+            while ((diff = cursor.nextSymbolMapDiff()) != null) {
+                final int index = diff.getColumnIndex();
+                MergedSymbolMapDiff mergedDiff = diffs.getQuiet(index);
+                if (mergedDiff == null) {
+                    mergedDiff = new MergedSymbolMapDiff();
+                    diffs.extendAndSet(index, mergedDiff);
+                }
+                mergedDiff.add(diff);
+            }
+        }
+    }
+
+    private static class MergedSymbolMapDiff implements SymbolMapDiff, SymbolMapDiffEntry, Mutable {
+        private final IntList keys = new IntList();
+        private final StringSink symbolChars = new StringSink();
+        private final IntList symbolHi = new IntList();
+        private final FlyweightCharSequence symbol = new FlyweightCharSequence();
+        private int columnIndex = -1;
+        private int cleanSymbolCount;
+        private int entryIndex;
+
+        @Override
+        public void clear() {
+            columnIndex = -1;
+            keys.clear();
+            symbolChars.clear();
+            symbolHi.clear();
+        }
+
+        @Override
+        public int getCleanSymbolCount() {
+            return cleanSymbolCount;
+        }
+
+        @Override
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        @Override
+        public int getKey() {
+            return keys.getQuick(entryIndex);
+        }
+
+        @Override
+        public int getSize() {
+            return keys.size();
+        }
+
+        @Override
+        public CharSequence getSymbol() {
+            final int lo = entryIndex > 0 ? symbolHi.getQuick(entryIndex - 1) : 0;
+            return symbol.of(symbolChars, lo, symbolHi.getQuick(entryIndex) - lo);
+        }
+
+        @Override
+        public SymbolMapDiffEntry nextEntry() {
+            return ++entryIndex < keys.size() ? this : null;
+        }
+
+        void add(SymbolMapDiff diff) {
+            if (columnIndex == -1) {
+                columnIndex = diff.getColumnIndex();
+                cleanSymbolCount = diff.getCleanSymbolCount();
+            } else if (diff.getCleanSymbolCount() != cleanSymbolCount + keys.size()) {
+                throw CairoException.critical(0).put("WAL symbol map diffs are not consecutive [columnIndex=").put(columnIndex)
+                        .put(", expectedCleanSymbolCount=").put(cleanSymbolCount + keys.size())
+                        .put(", actualCleanSymbolCount=").put(diff.getCleanSymbolCount())
+                        .put(']');
+            }
+
+            SymbolMapDiffEntry entry;
+            while ((entry = diff.nextEntry()) != null) {
+                keys.add(entry.getKey());
+                symbolChars.put(entry.getSymbol());
+                symbolHi.add(symbolChars.length());
+            }
+        }
+
+        void toTop() {
+            entryIndex = -1;
+        }
+    }
+}
@@ -196,6 +196,14 @@ public interface CairoConfiguration {
         return "hs_err_pid+";
     }
 
+    /**
+     * Number of reads the page frame read-ahead keeps in flight for a single query.
+     * Each read covers up to 1MB of a column file.
+     *
+     * @return io_uring queue depth used by page frame read-ahead, a power of 2
+     */
+    int getPageFrameReadAheadQueueDepth();
+
     int getPageFrameReduceColumnListCapacity();
 
     int getPageFrameReduceQueueCapacity();
@@ -204,12 +212,12 @@ public interface CairoConfiguration {
 
     int getPageFrameReduceShardCount();
 
-    int getPageFrameReduceTaskPoolCapacity();
-
     int getParallelIndexThreshold();
 
     int getPartitionPurgeListCapacity();
 
+    int getPartitionSummaryQueueCapacity();
+
     int getQueryCacheEventQueueCapacity();
 
     default Rnd getRandom() {
@@ -364,6 +372,17 @@ public interface CairoConfiguration {
 
     int getSqlSortValuePageSize();
 
+    // amount of memory held by sorted runs of a single ORDER BY before they are spilled to disk,
+    // runs kept in memory are limited by sort key and value max pages
+    long getSqlSortMemoryLimit();
+
+    long getSqlSortRunSize();
+
+    // null spill root keeps all sorted runs in memory
+    CharSequence getSqlSortSpillRoot();
+
+    int getSortQueueCapacity();
+
     CharSequence getSystemTableNamePrefix();
 
     TelemetryConfiguration getTelemetryConfiguration();
@@ -376,6 +395,8 @@ public interface CairoConfiguration {
 
     boolean getWallEnabledDefault();
 
+    int getWalTxnNotificationQueueCapacity();
+
     int getWithClauseModelPoolCapacity();
 
     long getWorkStealTimeoutNanos();
@@ -398,6 +419,26 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    /**
+     * A flag to enable/disable read-ahead of page frames for parallel SQL execution. When enabled,
+     * column file ranges of upcoming page frames are read via io_uring while workers reduce
+     * current frames, so that cold partitions are loaded into page cache in large sequential reads
+     * rather than by page faults. Takes effect only when io_uring is enabled and supported by the
+     * kernel. Defaults to {@code false}.
+     *
+     * @return enable/disable page frame read-ahead flag
+     */
+    boolean isPageFrameReadAheadEnabled();
+
+    /**
+     * A flag to enable/disable per-partition column summaries (min/max values and Bloom filters).
+     * Summaries are written when table writer switches to the next partition and are used by
+     * table scans to skip partitions that cannot match the filter. Defaults to {@code false}.
+     *
+     * @return enable/disable partition summaries flag
+     */
+    boolean isPartitionSummaryEnabled();
+
     /**
      * A flag to enable/disable snapshot recovery mechanism. Defaults to {@code true}.
      *
@@ -409,5 +450,11 @@ public interface CairoConfiguration {
 
     boolean isSqlParallelFilterEnabled();
 
+    boolean isSqlParallelGroupByEnabled();
+
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelSortEnabled();
+
     boolean isSqlParallelFilterPreTouchEnabled();
 }
@@ -28,6 +28,7 @@ import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.cairo.mig.EngineMigration;
+import io.questdb.cairo.mv.MatViewRegistry;
 import io.questdb.cairo.pool.*;
 import io.questdb.cairo.sql.AsyncWriterCommand;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
@@ -38,9 +39,11 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
+import io.questdb.std.ConcurrentHashMap;
 import io.questdb.std.Files;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.Misc;
+import io.questdb.std.Os;
 import io.questdb.std.Transient;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
@@ -70,6 +73,10 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
     private final AtomicLong asyncCommandCorrelationId = new AtomicLong();
     private final IDGenerator tableIdGenerator;
     private final TableRegistry tableRegistry;
+    private final MatViewRegistry matViewRegistry;
+    // tables with committed WAL transactions whose notification was not published
+    // or was dropped because table writer was busy
+    private final ConcurrentHashMap<Boolean> pendingWalTables = new ConcurrentHashMap<>();
 
     private final TextImportExecutionContext textImportExecutionContext;
     // Kept for embedded API purposes. The second constructor (the one with metrics)
@@ -84,7 +91,8 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         this.metrics = metrics;
         this.tableRegistry = new TableRegistry(this);
         this.messageBus = new MessageBusImpl(configuration);
-        this.writerPool = new WriterPool(configuration, messageBus, metrics);
+        this.matViewRegistry = new MatViewRegistry(configuration);
+        this.writerPool = new WriterPool(configuration, messageBus, metrics, matViewRegistry);
         this.readerPool = new ReaderPool(configuration, messageBus);
         this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
         if (configuration.getTelemetryConfiguration().getEnabled()) {
@@ -118,11 +126,13 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
             close();
             throw e;
         }
+        matViewRegistry.load();
     }
 
     @TestOnly
     public boolean clear() {
         tableRegistry.clear();
+        matViewRegistry.clear();
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
         return b1 & b2;
@@ -234,6 +244,10 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         return engineMaintenanceJob;
     }
 
+    public MatViewRegistry getMatViewRegistry() {
+        return matViewRegistry;
+    }
+
     public MessageBus getMessageBus() {
         return messageBus;
     }
@@ -367,6 +381,52 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         return writerPool.getWriterOrPublishCommand(tableName, asyncWriterCommand.getCommandName(), asyncWriterCommand);
     }
 
+    /**
+     * Lets WAL apply job know that table has a committed WAL transaction. When the queue is full
+     * the table is remembered as pending and the notification is re-published by
+     * {@link #publishPendingWalNotifications()}.
+     *
+     * @param tableName table name, must be immutable
+     * @param txn       sequencer txn of the committed transaction
+     * @return true when notification has been published
+     */
+    public boolean notifyWalTxnCommitted(String tableName, long txn) {
+        final Sequence pubSeq = messageBus.getWalTxnNotificationPubSequence();
+        while (true) {
+            long cursor = pubSeq.next();
+            if (cursor > -1) {
+                messageBus.getWalTxnNotificationQueue().get(cursor).of(tableName, txn);
+                pubSeq.done(cursor);
+                return true;
+            } else if (cursor == -1) {
+                LOG.info().$("cannot publish WAL notification, queue is full [table=").$(tableName).$(", txn=").$(txn).I$();
+                pendingWalTables.put(tableName, Boolean.TRUE);
+                return false;
+            }
+            Os.pause();
+        }
+    }
+
+    /**
+     * Re-publishes notifications of the tables that have been marked as pending, either because
+     * the notification queue was full or because the WAL apply job found table writer busy.
+     *
+     * @return true when at least one notification has been published
+     */
+    public boolean publishPendingWalNotifications() {
+        boolean published = false;
+        for (CharSequence tableName : pendingWalTables.keySet()) {
+            if (pendingWalTables.remove(tableName) != null) {
+                if (!notifyWalTxnCommitted((String) tableName, -1)) {
+                    // queue is full again, the table is back in the pending set
+                    break;
+                }
+                published = true;
+            }
+        }
+        return published;
+    }
+
     @Override
     public WalWriter getWalWriter(CairoSecurityContext securityContext, CharSequence tableName) {
         securityContext.checkWritePermission();
@@ -374,6 +434,14 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         return sequencer.createWal();
     }
 
+    Sequencer getSequencer(CharSequence tableName) {
+        return tableRegistry.getSequencer(tableName);
+    }
+
+    void markWalTablePending(String tableName) {
+        pendingWalTables.put(tableName, Boolean.TRUE);
+    }
+
     public CharSequence lock(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -433,12 +501,18 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "removeTable");
         if (null == lockedReason) {
             try {
+                final String viewName = matViewRegistry.getDependentViewName(tableName);
+                if (viewName != null) {
+                    throw CairoException.nonCritical().put("table is the base table of materialized view, drop the view first [table=")
+                            .put(tableName).put(", view=").put(viewName).put(']');
+                }
                 path.of(configuration.getRoot()).concat(tableName).$();
                 int errno;
                 if ((errno = configuration.getFilesFacade().rmdir(path)) != 0) {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(errno).$(']').$();
                     throw CairoException.critical(errno).put("Table remove failed");
                 }
+                matViewRegistry.deregister(tableName);
                 return;
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -468,6 +542,14 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "renameTable");
         if (null == lockedReason) {
             try {
+                final String viewName = matViewRegistry.getDependentViewName(tableName);
+                if (viewName != null) {
+                    throw CairoException.nonCritical().put("table is the base table of materialized view, drop the view first [table=")
+                            .put(tableName).put(", view=").put(viewName).put(']');
+                }
+                if (matViewRegistry.isView(tableName)) {
+                    throw CairoException.nonCritical().put("materialized view cannot be renamed [view=").put(tableName).put(']');
+                }
                 rename0(path, tableName, otherPath, newName);
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -297,6 +297,13 @@ public class ColumnPurgeOperator implements Closeable {
                         continue;
                     }
                 }
+
+                path.trimTo(pathTrimToPartition);
+                PartitionSummary.fileName(path, task.getColumnName(), columnVersion);
+                if (couldNotRemove(ff, path)) {
+                    allDone = false;
+                    continue;
+                }
                 completedRowIds.add(updateRowId);
             }
         } finally {
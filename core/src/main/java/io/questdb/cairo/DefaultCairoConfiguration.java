@@ -268,6 +268,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public int getWalTxnNotificationQueueCapacity() {
+        return 4096;
+    }
+
     @Override
     public int getDoubleToStrCastScale() {
         return Numbers.MAX_SCALE;
@@ -418,6 +423,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSqlParallelFilterPreTouchEnabled() {
         return true;
@@ -429,17 +449,17 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     }
 
     @Override
-    public int getPageFrameReduceQueueCapacity() {
+    public int getPageFrameReadAheadQueueDepth() {
         return 32;
     }
 
     @Override
-    public int getPageFrameReduceShardCount() {
-        return 4;
+    public int getPageFrameReduceQueueCapacity() {
+        return 32;
     }
 
     @Override
-    public int getPageFrameReduceTaskPoolCapacity() {
+    public int getPageFrameReduceShardCount() {
         return 4;
     }
 
@@ -453,6 +473,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public int getPartitionSummaryQueueCapacity() {
+        return 64;
+    }
+
     @Override
     public int getReaderPoolMaxSegments() {
         return 5;
@@ -730,6 +755,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return Numbers.SIZE_1MB * 16;
     }
 
+    @Override
+    public long getSqlSortMemoryLimit() {
+        return Numbers.SIZE_1MB * 256;
+    }
+
+    @Override
+    public long getSqlSortRunSize() {
+        return Numbers.SIZE_1MB * 16;
+    }
+
+    @Override
+    public CharSequence getSqlSortSpillRoot() {
+        return null;
+    }
+
+    @Override
+    public int getSortQueueCapacity() {
+        return 32;
+    }
+
     @Override
     public TelemetryConfiguration getTelemetryConfiguration() {
         return telemetryConfiguration;
@@ -804,6 +849,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isPageFrameReadAheadEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isPartitionSummaryEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return false;
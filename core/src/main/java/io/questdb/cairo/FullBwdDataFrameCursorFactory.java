@@ -39,6 +39,7 @@ public class FullBwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_DESC || order == ORDER_ANY) {
+            cursor.setPartitionFilter(partitionFilter);
             return cursor.of(getReader(executionContext));
         }
 
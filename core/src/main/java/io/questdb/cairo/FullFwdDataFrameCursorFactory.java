@@ -40,6 +40,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_ASC || order == ORDER_ANY) {
+            cursor.setPartitionFilter(partitionFilter);
             return cursor.of(getReader(executionContext));
         }
 
@@ -48,6 +49,7 @@ public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactor
         if (bwdCursor == null) {
             bwdCursor = new FullBwdDataFrameCursor();
         }
+        bwdCursor.setPartitionFilter(partitionFilter);
         return bwdCursor.of(getReader(executionContext));
     }
 
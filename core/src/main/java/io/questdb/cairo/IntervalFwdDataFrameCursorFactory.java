@@ -51,6 +51,7 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     @Override
     public DataFrameCursor getCursor(SqlExecutionContext executionContext, int order) throws SqlException {
         if (order == ORDER_ASC || order == ORDER_ANY) {
+            cursor.setPartitionFilter(partitionFilter);
             cursor.of(getReader(executionContext), executionContext);
             return cursor;
         }
@@ -58,6 +59,7 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         if (bwdCursor == null) {
             bwdCursor = new IntervalBwdDataFrameCursor(intervals, cursor.getTimestampIndex());
         }
+        bwdCursor.setPartitionFilter(partitionFilter);
         return bwdCursor.of(getReader(executionContext), executionContext);
     }
 
@@ -74,6 +74,10 @@ public class O3Utils {
             );
             workerPool.assign(i, pageFrameReduceJob);
             workerPool.freeOnExit(pageFrameReduceJob);
+
+            final PartitionSummaryJob partitionSummaryJob = new PartitionSummaryJob(cairoEngine.getConfiguration(), messageBus);
+            workerPool.assign(i, partitionSummaryJob);
+            workerPool.freeOnExit(partitionSummaryJob);
         }
     }
 
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.COLUMN_NAME_TXN_NONE;
+
+/**
+ * Summary of column values in a single partition. Numeric columns are summarised by
+ * min and max of their non-null values, SYMBOL, STRING and LONG256 columns by a Bloom
+ * filter of their non-null values. Summaries are written by {@link PartitionSummaryWriter}
+ * and are used to skip partitions that cannot contain rows matching a filter.
+ * <p>
+ * Summary file layout:
+ * <pre>
+ * 0  long  partition row count at the time summary was written
+ * 8  int   kind
+ * 12 int   reserved
+ * 16 long  count of non-null values
+ * 24 long  min value, long or double bits depending on the kind
+ * 32 long  max value, long or double bits depending on the kind
+ * 40 long  number of bits in Bloom filter, power of 2
+ * 48       Bloom filter bits
+ * </pre>
+ */
+public class PartitionSummary implements Closeable {
+    public static final int KIND_NONE = 0;
+    public static final int KIND_MIN_MAX_LONG = 1;
+    public static final int KIND_MIN_MAX_DOUBLE = 2;
+    public static final int KIND_BLOOM = 3;
+    static final int BLOOM_BITS_PER_VALUE = 10;
+    static final int BLOOM_HASH_COUNT = 7;
+    static final long BLOOM_MAX_BITS = 1L << 23;
+    static final long BLOOM_MIN_BITS = 64;
+    static final int HEADER_SIZE = 48;
+    static final int OFFSET_BLOOM_BITS = 40;
+    static final int OFFSET_KIND = 8;
+    static final int OFFSET_MAX = 32;
+    static final int OFFSET_MIN = 24;
+    static final int OFFSET_ROW_COUNT = 0;
+    static final int OFFSET_VALUE_COUNT = 16;
+    private final MemoryCMR mem = Vm.getCMRInstance();
+    private long bloomMask;
+    private int kind = KIND_NONE;
+
+    public PartitionSummary() {
+    }
+
+    public static Path fileName(Path path, CharSequence columnName, long columnNameTxn) {
+        path.concat(columnName).put(".ps");
+        if (columnNameTxn > COLUMN_NAME_TXN_NONE) {
+            path.put('.').put(columnNameTxn);
+        }
+        return path.$();
+    }
+
+    public static int getKind(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return KIND_MIN_MAX_LONG;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return KIND_MIN_MAX_DOUBLE;
+            case ColumnType.SYMBOL:
+            case ColumnType.STRING:
+            case ColumnType.LONG256:
+                return KIND_BLOOM;
+            default:
+                return KIND_NONE;
+        }
+    }
+
+    public static long hash(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public static long hash(long l0, long l1, long l2, long l3) {
+        return hash(hash(hash(hash(l0) ^ l1) ^ l2) ^ l3);
+    }
+
+    public static long hash(CharSequence value) {
+        final int len = value.length();
+        long h = len;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return hash(h);
+    }
+
+    public static long hashChars(long address, int len) {
+        long h = len;
+        for (int i = 0; i < len; i++) {
+            h = 31 * h + Unsafe.getUnsafe().getChar(address + 2L * i);
+        }
+        return hash(h);
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        kind = KIND_NONE;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public double getMaxDouble() {
+        return Double.longBitsToDouble(mem.getLong(OFFSET_MAX));
+    }
+
+    public long getMaxLong() {
+        return mem.getLong(OFFSET_MAX);
+    }
+
+    public double getMinDouble() {
+        return Double.longBitsToDouble(mem.getLong(OFFSET_MIN));
+    }
+
+    public long getMinLong() {
+        return mem.getLong(OFFSET_MIN);
+    }
+
+    public long getValueCount() {
+        return mem.getLong(OFFSET_VALUE_COUNT);
+    }
+
+    /**
+     * Checks Bloom filter of the summary. False positives are possible, false negatives are not.
+     *
+     * @param hash hash of the value as calculated by one of hash() methods
+     * @return false when the value is definitely not present in the partition
+     */
+    public boolean mightContain(long hash) {
+        assert kind == KIND_BLOOM;
+        return bloomMightContain(mem.addressOf(HEADER_SIZE), bloomMask, hash);
+    }
+
+    /**
+     * Maps summary file and validates it against the partition row count. Summary written
+     * for a different number of rows is stale and is not loaded.
+     *
+     * @param ff       files facade
+     * @param path     path to the summary file
+     * @param rowCount current row count of the partition
+     * @return true when summary is loaded
+     */
+    public boolean of(FilesFacade ff, LPSZ path, long rowCount) {
+        close();
+        if (!ff.exists(path)) {
+            return false;
+        }
+        mem.of(ff, path, ff.getPageSize(), -1, MemoryTag.MMAP_TABLE_READER);
+        if (mem.size() < HEADER_SIZE || mem.getLong(OFFSET_ROW_COUNT) != rowCount) {
+            mem.close();
+            return false;
+        }
+        final int kind = mem.getInt(OFFSET_KIND);
+        final long bloomBits = mem.getLong(OFFSET_BLOOM_BITS);
+        if (kind == KIND_BLOOM) {
+            if (bloomBits < BLOOM_MIN_BITS || (bloomBits & (bloomBits - 1)) != 0 || mem.size() < HEADER_SIZE + bloomBits / Byte.SIZE) {
+                mem.close();
+                return false;
+            }
+            this.bloomMask = bloomBits - 1;
+        } else if (kind != KIND_MIN_MAX_LONG && kind != KIND_MIN_MAX_DOUBLE) {
+            mem.close();
+            return false;
+        }
+        this.kind = kind;
+        return true;
+    }
+
+    static void bloomAdd(long address, long mask, long hash) {
+        long h = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASH_COUNT; i++) {
+            final long bit = h & mask;
+            final long p = address + (bit >>> 6) * Long.BYTES;
+            Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(p) | (1L << (bit & 63)));
+            h += step;
+        }
+    }
+
+    static long bloomBitCount(long valueCount) {
+        return Numbers.ceilPow2(Math.min(Math.max(valueCount * BLOOM_BITS_PER_VALUE, BLOOM_MIN_BITS), BLOOM_MAX_BITS));
+    }
+
+    private static boolean bloomMightContain(long address, long mask, long hash) {
+        long h = hash;
+        final long step = (hash >>> 32) | 1;
+        for (int i = 0; i < BLOOM_HASH_COUNT; i++) {
+            final long bit = h & mask;
+            if ((Unsafe.getUnsafe().getLong(address + (bit >>> 6) * Long.BYTES) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+            h += step;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,428 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Skips partitions that cannot contain rows matching a table scan filter. The filter is
+ * a conjunction of "column op value" predicates taken from the query filter, where value
+ * is a constant, a runtime constant or a bind variable. A partition is skipped when
+ * {@link PartitionSummary} of any predicate column proves that none of the column values
+ * satisfy the predicate. Partitions without valid summaries are always scanned, so the
+ * query filter still has to be applied to the rows of the remaining partitions.
+ */
+public class PartitionSummaryFilter implements Closeable {
+    public static final int OP_EQ = 0;
+    public static final int OP_GE = 4;
+    public static final int OP_GT = 3;
+    public static final int OP_LE = 2;
+    public static final int OP_LT = 1;
+    // wider than the tolerance of double equality function
+    private static final double DOUBLE_EQ_TOLERANCE = 1e-9;
+    private static final Log LOG = LogFactory.getLog(PartitionSummaryFilter.class);
+    private static final int STATE_SCAN = 2;
+    private static final int STATE_SKIP = 1;
+    private static final int STATE_UNKNOWN = 0;
+    private final IntList activePredicates = new IntList();
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    // true for integer values of integer columns, these are compared as longs
+    private final BoolList longValues = new BoolList();
+    private final IntList ops = new IntList();
+    private final IntList partitionStates = new IntList();
+    private final StringSink sink = new StringSink();
+    private final PartitionSummary summary = new PartitionSummary();
+    private final ObjList<Function> valueFunctions = new ObjList<>();
+    // predicate values are [valueHis[i - 1], valueHis[i])
+    private final IntList valueHis = new IntList();
+    // longs or double bits for min/max summaries, value hashes for Bloom filters
+    private final LongList values = new LongList();
+    private TableReader reader;
+
+    public PartitionSummaryFilter() {
+    }
+
+    /**
+     * Checks whether predicate of the given column and value types can be evaluated
+     * against partition summaries.
+     *
+     * @param columnType type of the column
+     * @param valueType  type of the value function
+     * @param op         predicate operation
+     * @return true when predicate can be added to the filter
+     */
+    public static boolean isSupported(int columnType, int valueType, int op) {
+        final int valueTag = ColumnType.tagOf(valueType);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return isNumeric(valueTag);
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return valueTag == ColumnType.tagOf(columnType);
+            case ColumnType.SYMBOL:
+            case ColumnType.STRING:
+                return op == OP_EQ && (valueTag == ColumnType.STRING || valueTag == ColumnType.SYMBOL || valueTag == ColumnType.CHAR);
+            case ColumnType.LONG256:
+                return op == OP_EQ && valueTag == ColumnType.LONG256;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds predicate to the filter. Predicates with more than one value are satisfied by
+     * any of the values, e.g. "column in (values)". Filter takes ownership of the value functions.
+     *
+     * @param columnIndex    index of the column in table reader metadata
+     * @param columnType     type of the column
+     * @param op             predicate operation
+     * @param valueFunctions constant, runtime constant or bind variable functions
+     */
+    public void add(int columnIndex, int columnType, int op, ObjList<Function> valueFunctions) {
+        assert op == OP_EQ || valueFunctions.size() == 1;
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        ops.add(op);
+        this.valueFunctions.addAll(valueFunctions);
+        valueHis.add(this.valueFunctions.size());
+    }
+
+    /**
+     * Returns true when partition summaries prove that partition has no rows matching the filter.
+     *
+     * @param partitionIndex index of partition in table reader
+     * @return true when partition can be skipped
+     */
+    public boolean canSkip(int partitionIndex) {
+        if (activePredicates.size() == 0) {
+            return false;
+        }
+        int state = partitionIndex < partitionStates.size() ? partitionStates.getQuick(partitionIndex) : STATE_UNKNOWN;
+        if (state == STATE_UNKNOWN) {
+            state = isPartitionUnmatched(partitionIndex) ? STATE_SKIP : STATE_SCAN;
+            partitionStates.extendAndSet(partitionIndex, state);
+        }
+        return state == STATE_SKIP;
+    }
+
+    /**
+     * Forgets partition decisions, partitions may change when table reader is reloaded.
+     */
+    public void clearPartitions() {
+        partitionStates.setAll(reader != null ? reader.getPartitionCount() : 0, STATE_UNKNOWN);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(valueFunctions);
+        valueFunctions.clear();
+        summary.close();
+        reader = null;
+    }
+
+    public int getPredicateCount() {
+        return columnIndexes.size();
+    }
+
+    /**
+     * Evaluates predicate values for the new cursor.
+     *
+     * @param reader           table reader of the cursor
+     * @param executionContext execution context providing bind variables
+     * @throws SqlException when value functions cannot be initialised
+     */
+    public void of(TableReader reader, SqlExecutionContext executionContext) throws SqlException {
+        this.reader = reader;
+        Function.init(valueFunctions, null, executionContext);
+        values.clear();
+        longValues.clear();
+        activePredicates.clear();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (evaluate(i)) {
+                activePredicates.add(i);
+            }
+        }
+        clearPartitions();
+    }
+
+    private static boolean isInteger(int typeTag) {
+        switch (typeTag) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNumeric(int typeTag) {
+        switch (typeTag) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static double toDouble(Function function) {
+        switch (ColumnType.tagOf(function.getType())) {
+            case ColumnType.BYTE:
+                return function.getByte(null);
+            case ColumnType.SHORT:
+                return function.getShort(null);
+            case ColumnType.INT:
+                final int intValue = function.getInt(null);
+                return intValue != Numbers.INT_NaN ? intValue : Double.NaN;
+            case ColumnType.LONG:
+                final long longValue = function.getLong(null);
+                return longValue != Numbers.LONG_NaN ? longValue : Double.NaN;
+            case ColumnType.FLOAT:
+                return function.getFloat(null);
+            case ColumnType.DOUBLE:
+                return function.getDouble(null);
+            default:
+                return Double.NaN;
+        }
+    }
+
+    private static long toLong(Function function) {
+        switch (ColumnType.tagOf(function.getType())) {
+            case ColumnType.BYTE:
+                return function.getByte(null);
+            case ColumnType.SHORT:
+                return function.getShort(null);
+            case ColumnType.INT:
+                final int intValue = function.getInt(null);
+                return intValue != Numbers.INT_NaN ? intValue : Numbers.LONG_NaN;
+            case ColumnType.LONG:
+                return function.getLong(null);
+            case ColumnType.DATE:
+                return function.getDate(null);
+            case ColumnType.TIMESTAMP:
+                return function.getTimestamp(null);
+            default:
+                return Numbers.LONG_NaN;
+        }
+    }
+
+    // evaluates values of the predicate, predicates with null values cannot be used to skip partitions
+    private boolean evaluate(int predicate) {
+        final int columnType = columnTypes.getQuick(predicate);
+        for (int i = predicate > 0 ? valueHis.getQuick(predicate - 1) : 0, hi = valueHis.getQuick(predicate); i < hi; i++) {
+            final Function function = valueFunctions.getQuick(i);
+            final int kind = PartitionSummary.getKind(columnType);
+            longValues.extendAndSet(i, false);
+            switch (kind) {
+                case PartitionSummary.KIND_MIN_MAX_LONG:
+                case PartitionSummary.KIND_MIN_MAX_DOUBLE:
+                    if (kind == PartitionSummary.KIND_MIN_MAX_LONG && isInteger(ColumnType.tagOf(function.getType()))) {
+                        // doubles cannot represent longs above 2^53 exactly
+                        final long longValue = toLong(function);
+                        if (longValue == Numbers.LONG_NaN) {
+                            return false;
+                        }
+                        values.extendAndSet(i, longValue);
+                        longValues.extendAndSet(i, true);
+                        break;
+                    }
+                    final double value = toDouble(function);
+                    if (value != value) {
+                        return false;
+                    }
+                    values.extendAndSet(i, Double.doubleToRawLongBits(value));
+                    break;
+                default:
+                    if (ColumnType.tagOf(columnType) == ColumnType.LONG256) {
+                        final Long256 long256 = function.getLong256A(null);
+                        final long l0 = long256.getLong0();
+                        final long l1 = long256.getLong1();
+                        final long l2 = long256.getLong2();
+                        final long l3 = long256.getLong3();
+                        if (l0 == Numbers.LONG_NaN && l1 == Numbers.LONG_NaN && l2 == Numbers.LONG_NaN && l3 == Numbers.LONG_NaN) {
+                            return false;
+                        }
+                        values.extendAndSet(i, PartitionSummary.hash(l0, l1, l2, l3));
+                        break;
+                    }
+
+                    final CharSequence str = toStr(function);
+                    if (str == null) {
+                        return false;
+                    }
+                    if (ColumnType.isSymbol(columnType)) {
+                        final int key = reader.getSymbolMapReader(columnIndexes.getQuick(predicate)).keyOf(str);
+                        if (key < 0) {
+                            return false;
+                        }
+                        values.extendAndSet(i, PartitionSummary.hash(key));
+                    } else {
+                        values.extendAndSet(i, PartitionSummary.hash(str));
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private boolean isPartitionUnmatched(int partitionIndex) {
+        try {
+            for (int i = 0, n = activePredicates.size(); i < n; i++) {
+                final int predicate = activePredicates.getQuick(i);
+                final int columnIndex = columnIndexes.getQuick(predicate);
+                if (reader.readPartitionSummary(partitionIndex, columnIndex, summary) && isPredicateUnmatched(predicate)) {
+                    LOG.debug().$("skipping partition [table=").utf8(reader.getTableName())
+                            .$(", partitionIndex=").$(partitionIndex)
+                            .$(", column=").utf8(reader.getMetadata().getColumnName(columnIndex))
+                            .I$();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            summary.close();
+        }
+    }
+
+    private boolean isPredicateUnmatched(int predicate) {
+        final int kind = summary.getKind();
+        if (kind != PartitionSummary.getKind(columnTypes.getQuick(predicate))) {
+            return false;
+        }
+        if (summary.getValueCount() == 0) {
+            // all values are null, none of them satisfies predicate with non-null value
+            return true;
+        }
+
+        final int lo = predicate > 0 ? valueHis.getQuick(predicate - 1) : 0;
+        final int hi = valueHis.getQuick(predicate);
+        if (kind == PartitionSummary.KIND_BLOOM) {
+            for (int i = lo; i < hi; i++) {
+                if (summary.mightContain(values.getQuick(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final int op = ops.getQuick(predicate);
+        for (int i = lo; i < hi; i++) {
+            if (!isValueUnmatched(kind, op, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValueUnmatched(int kind, int op, int valueIndex) {
+        if (longValues.get(valueIndex)) {
+            final long value = values.getQuick(valueIndex);
+            final long min = summary.getMinLong();
+            final long max = summary.getMaxLong();
+            switch (op) {
+                case OP_EQ:
+                    return value < min || value > max;
+                case OP_LT:
+                    return min >= value;
+                case OP_LE:
+                    return min > value;
+                case OP_GT:
+                    return max <= value;
+                case OP_GE:
+                    return max < value;
+                default:
+                    return false;
+            }
+        }
+
+        // fractional values are compared as doubles, the cast preserves order
+        // and numeric comparison functions compare mixed types as doubles
+        final double value = Double.longBitsToDouble(values.getQuick(valueIndex));
+        final double min;
+        final double max;
+        if (kind == PartitionSummary.KIND_MIN_MAX_LONG) {
+            min = summary.getMinLong();
+            max = summary.getMaxLong();
+        } else {
+            min = summary.getMinDouble();
+            max = summary.getMaxDouble();
+        }
+
+        switch (op) {
+            case OP_EQ:
+                return value + DOUBLE_EQ_TOLERANCE < min || value - DOUBLE_EQ_TOLERANCE > max;
+            case OP_LT:
+                return min >= value;
+            case OP_LE:
+                return min > value;
+            case OP_GT:
+                return max <= value;
+            case OP_GE:
+                return max < value;
+            default:
+                return false;
+        }
+    }
+
+    private CharSequence toStr(Function function) {
+        switch (ColumnType.tagOf(function.getType())) {
+            case ColumnType.CHAR:
+                final char c = function.getChar(null);
+                if (c == 0) {
+                    return null;
+                }
+                sink.clear();
+                sink.put(c);
+                return sink;
+            case ColumnType.SYMBOL:
+                return function.getSymbol(null);
+            default:
+                return function.getStr(null);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.std.Misc;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.PartitionSummaryTask;
+
+import java.io.Closeable;
+
+/**
+ * Writes partition summaries queued by table writers, so that ingestion does not
+ * wait for closed partitions to be scanned. Summaries are optional, partition that
+ * cannot be summarised, e.g. because the table was dropped in the meantime, is left
+ * without one and is scanned by queries.
+ * <p>
+ * Job instance is not thread-safe, each worker should have its own.
+ */
+public class PartitionSummaryJob extends AbstractQueueConsumerJob<PartitionSummaryTask> implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionSummaryJob.class);
+    private final Path path = new Path();
+    private final CharSequence root;
+    private final PartitionSummaryWriter summaryWriter;
+
+    public PartitionSummaryJob(CairoConfiguration configuration, MessageBus messageBus) {
+        super(messageBus.getPartitionSummaryQueue(), messageBus.getPartitionSummarySubSeq());
+        this.root = configuration.getRoot();
+        this.summaryWriter = new PartitionSummaryWriter(configuration);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(summaryWriter);
+        Misc.free(path);
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final PartitionSummaryTask task = queue.get(cursor);
+        try {
+            write(task);
+        } finally {
+            task.clear();
+            subSeq.done(cursor);
+        }
+        return true;
+    }
+
+    private void write(PartitionSummaryTask task) {
+        final long partitionTimestamp = task.getPartitionTimestamp();
+        try {
+            path.of(root).concat(task.getTableName());
+            TableUtils.setPathForPartition(path, task.getPartitionBy(), partitionTimestamp, false);
+            TableUtils.txnPartitionConditionally(path, task.getPartitionNameTxn());
+            final int plen = path.length();
+            for (int i = 0, n = task.getColumnCount(); i < n; i++) {
+                summaryWriter.write(
+                        path.trimTo(plen),
+                        task.getColumnName(i),
+                        task.getColumnType(i),
+                        task.getColumnNameTxn(i),
+                        task.getColumnTop(i),
+                        task.getPartitionSize()
+                );
+            }
+        } catch (CairoException e) {
+            LOG.error().$("could not write partition summaries [table=").utf8(task.getTableName())
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        }
+    }
+}
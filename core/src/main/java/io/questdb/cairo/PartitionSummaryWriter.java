@@ -0,0 +1,233 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Writes {@link PartitionSummary} files for columns of a partition that is no longer
+ * appended to. Column files are read back from disk, so summary can be written only
+ * after the partition columns are closed by the writer.
+ */
+public class PartitionSummaryWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionSummaryWriter.class);
+    private final MemoryCMR dataMem = Vm.getCMRInstance();
+    private final FilesFacade ff;
+    private final long fileOpenOpts;
+    private final MemoryCMR indexMem = Vm.getCMRInstance();
+    private long buf;
+    private long bufSize;
+
+    public PartitionSummaryWriter(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.fileOpenOpts = configuration.getWriterFileOpenOpts();
+    }
+
+    @Override
+    public void close() {
+        dataMem.close();
+        indexMem.close();
+        if (buf != 0) {
+            buf = Unsafe.free(buf, bufSize, MemoryTag.NATIVE_TABLE_WRITER);
+            bufSize = 0;
+        }
+    }
+
+    /**
+     * Writes summary file of a column in the partition.
+     *
+     * @param path          path to partition directory, it is trimmed back to the same length on exit
+     * @param columnName    name of the column
+     * @param columnType    type of the column, columns without {@link PartitionSummary#getKind(int) summary kind} are ignored
+     * @param columnNameTxn column name txn of the column files in the partition
+     * @param columnTop     column top in the partition, -1 if the column does not exist in the partition
+     * @param rowCount      number of rows in the partition
+     */
+    public void write(Path path, CharSequence columnName, int columnType, long columnNameTxn, long columnTop, long rowCount) {
+        final int kind = PartitionSummary.getKind(columnType);
+        if (kind == PartitionSummary.KIND_NONE) {
+            return;
+        }
+
+        final int plen = path.length();
+        try {
+            final long valueRowCount = columnTop > -1 && columnTop < rowCount ? rowCount - columnTop : 0;
+            final long bloomBits = kind == PartitionSummary.KIND_BLOOM ? PartitionSummary.bloomBitCount(valueRowCount) : 0;
+            final long size = PartitionSummary.HEADER_SIZE + bloomBits / Byte.SIZE;
+            if (size > bufSize) {
+                buf = Unsafe.realloc(buf, bufSize, size, MemoryTag.NATIVE_TABLE_WRITER);
+                bufSize = size;
+            }
+            Vect.memset(buf, size, 0);
+            Unsafe.getUnsafe().putLong(buf + PartitionSummary.OFFSET_ROW_COUNT, rowCount);
+            Unsafe.getUnsafe().putInt(buf + PartitionSummary.OFFSET_KIND, kind);
+            Unsafe.getUnsafe().putLong(buf + PartitionSummary.OFFSET_BLOOM_BITS, bloomBits);
+
+            final long valueCount;
+            if (valueRowCount > 0) {
+                final int columnTag = ColumnType.tagOf(columnType);
+                if (columnTag == ColumnType.STRING) {
+                    indexMem.of(ff, TableUtils.iFile(path.trimTo(plen), columnName, columnNameTxn), ff.getMapPageSize(), valueRowCount * Long.BYTES, MemoryTag.MMAP_TABLE_WRITER);
+                    dataMem.of(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), ff.getMapPageSize(), -1, MemoryTag.MMAP_TABLE_WRITER);
+                } else {
+                    final long dataSize = valueRowCount << ColumnType.pow2SizeOf(columnType);
+                    dataMem.of(ff, TableUtils.dFile(path.trimTo(plen), columnName, columnNameTxn), ff.getMapPageSize(), dataSize, MemoryTag.MMAP_TABLE_WRITER);
+                }
+
+                switch (kind) {
+                    case PartitionSummary.KIND_MIN_MAX_LONG:
+                        valueCount = summariseLongs(columnTag, valueRowCount);
+                        break;
+                    case PartitionSummary.KIND_MIN_MAX_DOUBLE:
+                        valueCount = summariseDoubles(columnTag, valueRowCount);
+                        break;
+                    default:
+                        valueCount = summariseBloom(columnTag, valueRowCount, buf + PartitionSummary.HEADER_SIZE, bloomBits - 1);
+                        break;
+                }
+            } else {
+                valueCount = 0;
+            }
+            Unsafe.getUnsafe().putLong(buf + PartitionSummary.OFFSET_VALUE_COUNT, valueCount);
+
+            final LPSZ summaryPath = PartitionSummary.fileName(path.trimTo(plen), columnName, columnNameTxn);
+            if (ff.exists(summaryPath) && !ff.remove(summaryPath)) {
+                throw CairoException.critical(ff.errno()).put("could not remove partition summary [file=").put(summaryPath).put(']');
+            }
+            final long fd = TableUtils.openRW(ff, summaryPath, LOG, fileOpenOpts);
+            try {
+                if (ff.write(fd, buf, size, 0) != size || !ff.truncate(fd, size)) {
+                    throw CairoException.critical(ff.errno()).put("could not write partition summary [file=").put(summaryPath).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+            LOG.debug().$("written partition summary [file=").utf8(summaryPath).$(", valueCount=").$(valueCount).I$();
+        } finally {
+            dataMem.close();
+            indexMem.close();
+            path.trimTo(plen);
+        }
+    }
+
+    private long summariseBloom(int columnTag, long rowCount, long bloomAddress, long bloomMask) {
+        long valueCount = 0;
+        switch (columnTag) {
+            case ColumnType.SYMBOL:
+                for (long i = 0; i < rowCount; i++) {
+                    final int key = dataMem.getInt(i * Integer.BYTES);
+                    if (key != SymbolTable.VALUE_IS_NULL) {
+                        PartitionSummary.bloomAdd(bloomAddress, bloomMask, PartitionSummary.hash(key));
+                        valueCount++;
+                    }
+                }
+                break;
+            case ColumnType.STRING:
+                for (long i = 0; i < rowCount; i++) {
+                    final long offset = indexMem.getLong(i * Long.BYTES);
+                    final int len = dataMem.getInt(offset);
+                    if (len != TableUtils.NULL_LEN) {
+                        PartitionSummary.bloomAdd(bloomAddress, bloomMask, PartitionSummary.hashChars(dataMem.addressOf(offset + Integer.BYTES), len));
+                        valueCount++;
+                    }
+                }
+                break;
+            default:
+                assert columnTag == ColumnType.LONG256;
+                for (long i = 0; i < rowCount; i++) {
+                    final long offset = i * Long256.BYTES;
+                    final long l0 = dataMem.getLong(offset);
+                    final long l1 = dataMem.getLong(offset + Long.BYTES);
+                    final long l2 = dataMem.getLong(offset + 2 * Long.BYTES);
+                    final long l3 = dataMem.getLong(offset + 3 * Long.BYTES);
+                    if (l0 != Numbers.LONG_NaN || l1 != Numbers.LONG_NaN || l2 != Numbers.LONG_NaN || l3 != Numbers.LONG_NaN) {
+                        PartitionSummary.bloomAdd(bloomAddress, bloomMask, PartitionSummary.hash(l0, l1, l2, l3));
+                        valueCount++;
+                    }
+                }
+                break;
+        }
+        return valueCount;
+    }
+
+    private long summariseDoubles(int columnTag, long rowCount) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long valueCount = 0;
+        for (long i = 0; i < rowCount; i++) {
+            final double value = columnTag == ColumnType.FLOAT ? dataMem.getFloat(i * Float.BYTES) : dataMem.getDouble(i * Double.BYTES);
+            if (value == value) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                valueCount++;
+            }
+        }
+        Unsafe.getUnsafe().putDouble(buf + PartitionSummary.OFFSET_MIN, min);
+        Unsafe.getUnsafe().putDouble(buf + PartitionSummary.OFFSET_MAX, max);
+        return valueCount;
+    }
+
+    private long summariseLongs(int columnTag, long rowCount) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long valueCount = 0;
+        for (long i = 0; i < rowCount; i++) {
+            final long value;
+            switch (columnTag) {
+                case ColumnType.BYTE:
+                    value = dataMem.getByte(i);
+                    break;
+                case ColumnType.SHORT:
+                    value = dataMem.getShort(i * Short.BYTES);
+                    break;
+                case ColumnType.INT:
+                    final int intValue = dataMem.getInt(i * Integer.BYTES);
+                    value = intValue != Numbers.INT_NaN ? intValue : Numbers.LONG_NaN;
+                    break;
+                default:
+                    value = dataMem.getLong(i * Long.BYTES);
+                    break;
+            }
+            if (value != Numbers.LONG_NaN) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                valueCount++;
+            }
+        }
+        Unsafe.getUnsafe().putLong(buf + PartitionSummary.OFFSET_MIN, min);
+        Unsafe.getUnsafe().putLong(buf + PartitionSummary.OFFSET_MAX, max);
+        return valueCount;
+    }
+}
@@ -29,7 +29,8 @@ import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTableSource;
 import io.questdb.cairo.vm.Vm;
-import io.questdb.cairo.vm.api.MemoryARW;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.cairo.vm.api.MemoryCR;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 
@@ -38,7 +39,9 @@ import java.io.Closeable;
 public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSinkSPI, AnalyticSPI, Reopenable {
 
     private final long[] columnOffsets;
-    private final MemoryARW mem;
+    private final MemoryCARW mem;
+    // same as mem, unless chain data was moved elsewhere, e.g. spilled to disk and mapped back
+    private MemoryCR dataMem;
     private final RecordChainRecord recordA = new RecordChainRecord();
     private final RecordChainRecord recordB = new RecordChainRecord();
     private final long varOffset;
@@ -50,7 +53,8 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private SymbolTableSource symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+        this.mem = Vm.getCARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+        this.dataMem = mem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -72,7 +76,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     }
 
     public long addressOf(long offset) {
-        return mem.addressOf(offset);
+        return dataMem.addressOf(offset);
     }
 
     public long beginRecord(long prevOffset) {
@@ -90,6 +94,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     @Override
     public void clear() {
         mem.close();
+        dataMem = mem;
         nextRecordOffset = -1L;
         varAppendOffset = 0L;
     }
@@ -109,6 +114,23 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
 
+    /**
+     * Chain memory is contiguous, which allows copying all records
+     * in one go, starting at this address.
+     *
+     * @return address of the first record
+     */
+    public long getDataAddress() {
+        return mem.getPageAddress(0);
+    }
+
+    /**
+     * @return number of bytes occupied by records, including variable length data
+     */
+    public long getDataSize() {
+        return varAppendOffset;
+    }
+
     @Override
     public Record getRecord() {
         return recordA;
@@ -118,7 +140,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     public boolean hasNext() {
         if (nextRecordOffset != -1) {
             final long offset = nextRecordOffset;
-            nextRecordOffset = mem.getLong(nextRecordOffset);
+            nextRecordOffset = dataMem.getLong(nextRecordOffset);
             recordA.of(rowToDataOffset(offset));
             return true;
         }
@@ -142,7 +164,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
     @Override
     public void toTop() {
-        if (mem.getAppendOffset() == 0) {
+        if (varAppendOffset == 0) {
             nextRecordOffset = -1L;
         } else {
             nextRecordOffset = 0L;
@@ -158,6 +180,18 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         this.nextRecordOffset = nextRecordOffset;
     }
 
+    /**
+     * Releases chain memory and reads records from the given memory from now on.
+     * The memory must contain copy of chain data at the same offsets. Chain
+     * cannot be appended to until it is cleared.
+     *
+     * @param dataMem copy of chain data, usually chain written to disk and mapped back
+     */
+    public void ofReadOnly(MemoryCR dataMem) {
+        mem.close();
+        this.dataMem = dataMem;
+    }
+
     public long put(Record record, long prevRecordOffset) {
         long offset = beginRecord(prevRecordOffset);
         recordSink.copy(record, this);
@@ -284,79 +318,89 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     }
 
     private class RecordChainRecord implements Record {
+        // string and long256 values are per column, so that values of several
+        // columns can be held at the same time, e.g. by record comparator
+        private final ObjList<Long256Impl> long256sA = new ObjList<>();
+        private final ObjList<Long256Impl> long256sB = new ObjList<>();
+        private final ObjList<MemoryCR.CharSequenceView> strViewsA = new ObjList<>();
+        private final ObjList<MemoryCR.CharSequenceView> strViewsB = new ObjList<>();
         long fixedOffset;
         long baseOffset;
 
         @Override
         public BinarySequence getBin(int col) {
             long offset = varWidthColumnOffset(col);
-            return offset == -1 ? null : mem.getBin(offset);
+            return offset == -1 ? null : dataMem.getBin(offset);
         }
 
         @Override
         public long getBinLen(int col) {
             long offset = varWidthColumnOffset(col);
-            return offset == -1 ? TableUtils.NULL_LEN : mem.getLong(offset);
+            return offset == -1 ? TableUtils.NULL_LEN : dataMem.getLong(offset);
         }
 
         @Override
         public boolean getBool(int col) {
-            return mem.getBool(fixedWithColumnOffset(col));
+            return dataMem.getBool(fixedWithColumnOffset(col));
         }
 
         @Override
         public byte getByte(int col) {
-            return mem.getByte(fixedWithColumnOffset(col));
+            return dataMem.getByte(fixedWithColumnOffset(col));
         }
 
         @Override
         public char getChar(int col) {
-            return mem.getChar(fixedWithColumnOffset(col));
+            return dataMem.getChar(fixedWithColumnOffset(col));
         }
 
         @Override
         public double getDouble(int col) {
-            return mem.getDouble(fixedWithColumnOffset(col));
+            return dataMem.getDouble(fixedWithColumnOffset(col));
         }
 
         @Override
         public float getFloat(int col) {
-            return mem.getFloat(fixedWithColumnOffset(col));
+            return dataMem.getFloat(fixedWithColumnOffset(col));
         }
 
         @Override
         public int getInt(int col) {
-            return mem.getInt(fixedWithColumnOffset(col));
+            return dataMem.getInt(fixedWithColumnOffset(col));
         }
 
         @Override
         public long getLong(int col) {
-            return mem.getLong(fixedWithColumnOffset(col));
+            return dataMem.getLong(fixedWithColumnOffset(col));
         }
 
         @Override
         public void getLong256(int col, CharSink sink) {
-            mem.getLong256(fixedWithColumnOffset(col), sink);
+            dataMem.getLong256(fixedWithColumnOffset(col), sink);
         }
 
         @Override
         public Long256 getLong256A(int col) {
-            return mem.getLong256A(fixedWithColumnOffset(col));
+            final Long256Impl long256 = long256(long256sA, col);
+            dataMem.getLong256(fixedWithColumnOffset(col), long256);
+            return long256;
         }
 
         @Override
         public Long256 getLong256B(int col) {
-            return mem.getLong256B(fixedWithColumnOffset(col));
+            final Long256Impl long256 = long256(long256sB, col);
+            dataMem.getLong256(fixedWithColumnOffset(col), long256);
+            return long256;
         }
 
         @Override
         public long getLong128Hi(int col) {
-            return mem.getLong(fixedWithColumnOffset(col) + 8);
+            return dataMem.getLong(fixedWithColumnOffset(col) + 8);
         }
 
         @Override
         public long getLong128Lo(int col) {
-            return mem.getLong(fixedWithColumnOffset(col));
+            return dataMem.getLong(fixedWithColumnOffset(col));
         }
 
         @Override
@@ -366,28 +410,28 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
         @Override
         public short getShort(int col) {
-            return mem.getShort(fixedWithColumnOffset(col));
+            return dataMem.getShort(fixedWithColumnOffset(col));
         }
 
         @Override
         public CharSequence getStr(int col) {
             long offset = varWidthColumnOffset(col);
             assert offset > -2;
-            return offset == -1 ? null : mem.getStr(offset);
+            return offset == -1 ? null : dataMem.getStr(offset, strViewA(col));
         }
 
         @Override
         public CharSequence getStrB(int col) {
             long offset = varWidthColumnOffset(col);
             assert offset > -2;
-            return offset == -1 ? null : mem.getStr2(offset);
+            return offset == -1 ? null : dataMem.getStr(offset, strViewB(col));
         }
 
         @Override
         public int getStrLen(int col) {
             final long offset = varWidthColumnOffset(col);
             if (offset > -1) {
-                return mem.getInt(offset);
+                return dataMem.getInt(offset);
             }
             return TableUtils.NULL_LEN;
         }
@@ -404,39 +448,65 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
         @Override
         public byte getGeoByte(int col) {
-            // No column tops, return byte from mem.
-            return mem.getByte(fixedWithColumnOffset(col));
+            // No column tops, return byte from dataMem.
+            return dataMem.getByte(fixedWithColumnOffset(col));
         }
 
         @Override
         public short getGeoShort(int col) {
-            // No column tops, return short from mem.
-            return mem.getShort(fixedWithColumnOffset(col));
+            // No column tops, return short from dataMem.
+            return dataMem.getShort(fixedWithColumnOffset(col));
         }
 
         @Override
         public int getGeoInt(int col) {
-            // No column tops, return int from mem.
-            return mem.getInt(fixedWithColumnOffset(col));
+            // No column tops, return int from dataMem.
+            return dataMem.getInt(fixedWithColumnOffset(col));
         }
 
         @Override
         public long getGeoLong(int col) {
-            // No column tops, return long from mem.
-            return mem.getLong(fixedWithColumnOffset(col));
+            // No column tops, return long from dataMem.
+            return dataMem.getLong(fixedWithColumnOffset(col));
         }
 
         private long fixedWithColumnOffset(int index) {
             return fixedOffset + columnOffsets[index];
         }
 
+        private Long256Impl long256(ObjList<Long256Impl> values, int col) {
+            Long256Impl value = values.getQuiet(col);
+            if (value == null) {
+                value = new Long256Impl();
+                values.extendAndSet(col, value);
+            }
+            return value;
+        }
+
         private void of(long offset) {
             this.baseOffset = offset;
             this.fixedOffset = offset + varOffset;
         }
 
+        private MemoryCR.CharSequenceView strView(ObjList<MemoryCR.CharSequenceView> views, int col) {
+            MemoryCR.CharSequenceView view = views.getQuiet(col);
+            if (view == null) {
+                view = new MemoryCR.CharSequenceView();
+                views.extendAndSet(col, view);
+            }
+            return view;
+        }
+
+        private MemoryCR.CharSequenceView strViewA(int col) {
+            return strView(strViewsA, col);
+        }
+
+        private MemoryCR.CharSequenceView strViewB(int col) {
+            return strView(strViewsB, col);
+        }
+
         private long varWidthColumnOffset(int index) {
-            return mem.getLong(baseOffset + columnOffsets[index]);
+            return dataMem.getLong(baseOffset + columnOffsets[index]);
         }
     }
 }
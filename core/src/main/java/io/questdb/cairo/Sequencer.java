@@ -51,6 +51,12 @@ public interface Sequencer extends Closeable {
     // always creates a new wal with an increasing unique id
     WalWriter createWal();
 
+    // returns the last txn number recorded in the catalog
+    long lastTxn();
+
+    // returns cursor over the catalog entries after lastCommittedTxn, the cursor does not see txns added after this call
+    SequencerCursor getCursor(long lastCommittedTxn);
+
     @Override
     void close();
 }
@@ -31,6 +31,7 @@ import io.questdb.std.str.Path;
 
 import java.util.concurrent.locks.ReadWriteLock;
 
+import static io.questdb.cairo.TableUtils.CATALOG_FILE_NAME;
 import static io.questdb.cairo.TableUtils.TXN_FILE_NAME;
 import static io.questdb.cairo.TableUtils.WAL_INDEX_FILE_NAME;
 
@@ -95,9 +96,28 @@ public class SequencerImpl implements Sequencer {
 
     @Override
     public long nextTxn(int walId, long segmentId) {
-        final long txn = txnGenerator.getNextId();
-        catalog.setEntry(txn, walId, segmentId);
-        return txn;
+        // txn numbers and catalog entries are issued together to keep the catalog
+        // in txn order, cursors rely on it when they take the catalog snapshot
+        synchronized (catalog) {
+            final long txn = txnGenerator.getNextId();
+            catalog.setEntry(txn, walId, segmentId);
+            return txn;
+        }
+    }
+
+    @Override
+    public long lastTxn() {
+        synchronized (catalog) {
+            return txnGenerator.getCurrentId();
+        }
+    }
+
+    @Override
+    public SequencerCursor getCursor(long lastCommittedTxn) {
+        final Path catalogPath = Path.getThreadLocal(engine.getConfiguration().getRoot()).concat(tableName).concat(SEQ_DIR).concat(CATALOG_FILE_NAME).$();
+        synchronized (catalog) {
+            return catalog.getCursor(catalogPath, lastCommittedTxn, txnGenerator.getCurrentId());
+        }
     }
 
     @Override
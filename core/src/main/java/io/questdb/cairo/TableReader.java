@@ -340,6 +340,34 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Loads summary of column values in the partition without opening the partition.
+     *
+     * @param partitionIndex index of the partition
+     * @param columnIndex    index of the column
+     * @param summary        summary to load
+     * @return false when summary does not exist or does not match partition data
+     */
+    public boolean readPartitionSummary(int partitionIndex, int columnIndex, PartitionSummary summary) {
+        try {
+            final long partitionTimestamp = txFile.getPartitionTimestamp(partitionIndex);
+            final long columnNameTxn = columnVersionReader.getColumnNameTxn(partitionTimestamp, metadata.getWriterIndex(columnIndex));
+            final Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return summary.of(ff, PartitionSummary.fileName(path, metadata.getColumnName(columnIndex), columnNameTxn), txFile.getPartitionSize(partitionIndex));
+        } catch (CairoException e) {
+            LOG.error().$("could not read partition summary [table=").utf8(tableName)
+                    .$(", partitionIndex=").$(partitionIndex)
+                    .$(", column=").utf8(metadata.getColumnName(columnIndex))
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            return false;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex, boolean forceTruncate) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -63,6 +63,7 @@ public final class TableUtils {
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
     public static final String WAL_INDEX_FILE_NAME = "_wal_index.d";
     public static final String SNAPSHOT_META_FILE_NAME = "_snapshot";
+    public static final String MAT_VIEW_FILE_NAME = "_mv";
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_ID = -1;
@@ -112,6 +113,7 @@ public final class TableUtils {
     public static final long TX_OFFSET_PARTITION_TABLE_VERSION_64 = TX_OFFSET_DATA_VERSION_64 + 8;
     public static final long TX_OFFSET_COLUMN_VERSION_64 = TX_OFFSET_PARTITION_TABLE_VERSION_64 + 8;
     public static final long TX_OFFSET_TRUNCATE_VERSION_64 = TX_OFFSET_COLUMN_VERSION_64 + 8;
+    public static final long TX_OFFSET_SEQ_TXN_64 = TX_OFFSET_TRUNCATE_VERSION_64 + 8;
     public static final long TX_OFFSET_MAP_WRITER_COUNT_32 = 128;
     public static final int TX_RECORD_HEADER_SIZE = (int) TX_OFFSET_MAP_WRITER_COUNT_32 + Integer.BYTES;
     public static final long COLUMN_NAME_TXN_NONE = -1L;
@@ -129,6 +131,7 @@ public final class TableUtils {
      * long struct_version; // data structure version; whenever columns added or removed this version changes.
      * long partition_version; // version that increments whenever non-current partitions are modified/added/removed
      * long txn_check; // same as txn - sanity check for concurrent reads and writes
+     * long seq_txn; // last WAL sequencer txn applied to the table, 0 for non-WAL tables
      * int  map_writer_count; // symbol writer count
      * int  map_writer_position[map_writer_count]; // position of each of map writers
      * }
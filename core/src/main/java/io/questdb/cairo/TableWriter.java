@@ -87,8 +87,10 @@ public class TableWriter implements Closeable {
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
     private final Path path;
     private final Path other;
+    private final boolean partitionSummaryEnabled;
     private final LongList rowValueIsNotNull = new LongList();
     private final Row regularRow = new RowImpl();
+    private final BatchImpl batch = new BatchImpl();
     private final int rootLen;
     private final MemoryMR metaMem;
     private final int partitionBy;
@@ -208,6 +210,10 @@ public class TableWriter implements Closeable {
     private long commitInterval;
     private UpdateOperator updateOperator;
     private DropIndexOperator dropIndexOperator;
+    private CommitListener commitListener;
+    // timestamp range of the rows committed by the last O3 commit
+    private long o3CommitTimestampLo;
+    private long o3CommitTimestampHi;
 
 
     public TableWriter(
@@ -242,6 +248,7 @@ public class TableWriter implements Closeable {
         this.o3PartitionUpdateSubSeq = new SCSequence();
         o3PartitionUpdatePubSeq.then(o3PartitionUpdateSubSeq).then(o3PartitionUpdatePubSeq);
         this.o3ColumnMemorySize = configuration.getO3ColumnMemorySize();
+        this.partitionSummaryEnabled = configuration.isPartitionSummaryEnabled();
         this.path = new Path().of(root).concat(tableName);
         this.other = new Path().of(root).concat(tableName);
         this.rootLen = path.length();
@@ -704,6 +711,7 @@ public class TableWriter implements Closeable {
 
             LOG.info().$("partition attached [table=").$(tableName)
                     .$(", partition=").$ts(timestamp).I$();
+            notifyCommitListener(attachMinTimestamp, attachMaxTimestamp);
 
             if (appendPartitionAttached) {
                 LOG.info().$("switch partition after partition attach [tableName=").$(tableName)
@@ -930,6 +938,7 @@ public class TableWriter implements Closeable {
             other.trimTo(rootLen);
         }
         safeDeletePartitionDir(timestamp, partitionNameTxn);
+        notifyCommitListener(Long.MIN_VALUE, Long.MAX_VALUE);
         return AttachDetachStatus.OK;
     }
 
@@ -1082,6 +1091,10 @@ public class TableWriter implements Closeable {
         return txWriter.getRowCount();
     }
 
+    public long getSeqTxn() {
+        return txWriter.getSeqTxn();
+    }
+
     public long getStructureVersion() {
         return txWriter.getStructureVersion();
     }
@@ -1192,6 +1205,35 @@ public class TableWriter implements Closeable {
         return newRow(0L);
     }
 
+    /**
+     * Starts appending rows column at a time. Unlike {@link #newRow(long)} batch does not track
+     * which columns are set, the caller puts value or null into every column for every row of the batch,
+     * designated timestamp included, and then either appends or cancels the batch.
+     *
+     * @param timestampLo minimum designated timestamp of the batch
+     * @param timestampHi maximum designated timestamp of the batch, rows are expected in timestamp order
+     * @return batch or null when rows cannot be appended in bulk, for example when they are out of order,
+     * belong to more than one partition or another row is in progress
+     */
+    public Batch newBatch(long timestampLo, long timestampHi) {
+        if ((masterRef & 1) != 0 || timestampLo < Timestamps.O3_MIN_TS || timestampLo < txWriter.getMaxTimestamp()) {
+            return null;
+        }
+        switch (rowAction) {
+            case ROW_ACTION_SWITCH_PARTITION:
+                if (timestampHi > partitionTimestampHi) {
+                    return null;
+                }
+                break;
+            case ROW_ACTION_NO_PARTITION:
+                break;
+            default:
+                return null;
+        }
+        batch.of(txWriter.getTransientRowCount(), timestampHi);
+        return batch;
+    }
+
     public void o3BumpErrorCount() {
         o3ErrorCount.incrementAndGet();
     }
@@ -1306,6 +1348,21 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Records sequencer txn of a WAL transaction that did not carry any rows, such as
+     * column being added or removed. Data transactions record their txn
+     * as part of {@link #processWalCommit}.
+     *
+     * @param seqTxn WAL sequencer txn that has been applied to the table
+     */
+    public void commitSeqTxn(long seqTxn) {
+        if (inTransaction()) {
+            throw CairoException.critical(0).put("cannot commit WAL txn while in transaction");
+        }
+        txWriter.setSeqTxn(seqTxn);
+        txWriter.commit(defaultCommitMode, denseSymbolMapWriters);
+    }
+
     public void processWalCommit(
             Path walPath,
             long segmentId,
@@ -1314,13 +1371,15 @@ public class TableWriter implements Closeable {
             long rowHi,
             long o3TimestampMin,
             long o3TimestampMax,
-            SymbolMapDiffCursor mapDiffCursor
+            SymbolMapDiffCursor mapDiffCursor,
+            long seqTxn
     ) {
         if (inTransaction()) {
             throw CairoException.critical(0).put("cannot process WAL while in transaction");
         }
 
         txWriter.beginPartitionSizeUpdate();
+        txWriter.setSeqTxn(seqTxn);
         if (processO3Block(
                 walPath,
                 segmentId,
@@ -1349,6 +1408,7 @@ public class TableWriter implements Closeable {
 
         metrics.tableWriter().incrementCommits();
         metrics.tableWriter().addCommittedRows(rowsAdded);
+        notifyCommitListener(o3TimestampMin, o3TimestampMax);
     }
 
     public void publishAsyncWriterCommand(AsyncWriterCommand asyncWriterCommand) {
@@ -1491,6 +1551,7 @@ public class TableWriter implements Closeable {
 
         // Call O3 methods to remove check TxnScoreboard and remove partition directly
         safeDeletePartitionDir(timestamp, partitionNameTxn);
+        notifyCommitListener(Long.MIN_VALUE, Long.MAX_VALUE);
 
         return true;
     }
@@ -1715,6 +1776,16 @@ public class TableWriter implements Closeable {
         columnVersionWriter.readUnsafe();
     }
 
+    public void notifyCommitListener(long timestampLo, long timestampHi) {
+        if (commitListener != null) {
+            commitListener.onCommit(tableName, timestampLo, timestampHi);
+        }
+    }
+
+    public void setCommitListener(CommitListener commitListener) {
+        this.commitListener = commitListener;
+    }
+
     public void setExtensionListener(ExtensionListener listener) {
         txWriter.setExtensionListener(listener);
     }
@@ -1865,6 +1936,7 @@ public class TableWriter implements Closeable {
         }
 
         LOG.info().$("truncated [name=").$(tableName).I$();
+        notifyCommitListener(Long.MIN_VALUE, Long.MAX_VALUE);
     }
 
     public void updateCommitInterval(double commitIntervalFraction, long commitIntervalDefault) {
@@ -1893,6 +1965,44 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void publishPartitionSummaryTask(long partitionTimestamp, long partitionSize) {
+        final Sequence pubSeq = messageBus.getPartitionSummaryPubSeq();
+        while (true) {
+            final long cursor = pubSeq.next();
+            if (cursor > -1) {
+                final PartitionSummaryTask task = messageBus.getPartitionSummaryQueue().get(cursor);
+                task.of(
+                        tableName,
+                        partitionBy,
+                        partitionTimestamp,
+                        txWriter.getPartitionNameTxnByPartitionTimestamp(partitionTimestamp),
+                        partitionSize
+                );
+                final int timestampIndex = metadata.getTimestampIndex();
+                for (int i = 0; i < columnCount; i++) {
+                    final int columnType = metadata.getColumnType(i);
+                    if (columnType > 0 && i != timestampIndex) {
+                        task.addColumn(
+                                metadata.getColumnName(i),
+                                columnType,
+                                columnVersionWriter.getColumnNameTxn(partitionTimestamp, i),
+                                columnVersionWriter.getColumnTop(partitionTimestamp, i)
+                        );
+                    }
+                }
+                pubSeq.done(cursor);
+                return;
+            } else if (cursor == -1) {
+                // summaries are optional, partitions without them are scanned
+                LOG.info().$("partition summary queue is full, partition is left without summary [table=").utf8(tableName)
+                        .$(", partition=").$ts(partitionTimestamp)
+                        .I$();
+                return;
+            }
+            Os.pause();
+        }
+    }
+
     private static void removeFileAndOrLog(FilesFacade ff, LPSZ name) {
         if (ff.exists(name)) {
             if (ff.remove(name)) {
@@ -2426,6 +2536,7 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
             final boolean o3 = hasO3();
+            final long committedMaxTimestamp = txWriter.cancelToMaxTimestamp();
             if (o3 && o3Commit(commitLag)) {
                 // Bookmark masterRef to track how many rows is in uncommitted state
                 this.committedMasterRef = masterRef;
@@ -2453,6 +2564,13 @@ public class TableWriter implements Closeable {
             if (!o3) {
                 // If `o3`, the metric is tracked inside `o3Commit`, possibly async.
                 addPhysicallyWrittenRows(rowsAdded);
+                // in-order rows cannot be older than the committed max timestamp
+                notifyCommitListener(
+                        committedMaxTimestamp != Long.MIN_VALUE ? committedMaxTimestamp : txWriter.getMinTimestamp(),
+                        txWriter.getMaxTimestamp()
+                );
+            } else {
+                notifyCommitListener(o3CommitTimestampLo, o3CommitTimestampHi);
             }
         }
     }
@@ -3257,6 +3375,8 @@ public class TableWriter implements Closeable {
 
             // we could have moved the "srcOooMax" and hence we re-read the max timestamp
             o3TimestampMax = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1);
+            o3CommitTimestampLo = o3TimestampMin;
+            o3CommitTimestampHi = o3TimestampMax;
 
 
             // we are going to use this soon to avoid double-copying lag data
@@ -4219,6 +4339,11 @@ public class TableWriter implements Closeable {
                     }
 
                     openColumnFiles(name, columnNameTxn, i, plen);
+                    if (partitionSummaryEnabled) {
+                        // partition is going to be appended to, summary becomes stale
+                        removeFileAndOrLog(ff, PartitionSummary.fileName(path.trimTo(plen), name, columnNameTxn));
+                        path.trimTo(plen);
+                    }
                     columnTop = columnVersionWriter.getColumnTopQuick(partitionTimestamp, i);
                     columnTops.extendAndSet(i, columnTop);
 
@@ -5173,6 +5298,7 @@ public class TableWriter implements Closeable {
         removeFileAndOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, keyFileName(path.trimTo(plen), columnName, columnNameTxn));
         removeFileAndOrLog(ff, valueFileName(path.trimTo(plen), columnName, columnNameTxn));
+        removeFileAndOrLog(ff, PartitionSummary.fileName(path.trimTo(plen), columnName, columnNameTxn));
         path.trimTo(rootLen);
     }
 
@@ -5420,6 +5546,7 @@ public class TableWriter implements Closeable {
         renameFileOrLog(ff, iFile(path.trimTo(plen), columnName, columnNameTxn), iFile(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, keyFileName(path.trimTo(plen), columnName, columnNameTxn), keyFileName(other.trimTo(plen), newName, columnNameTxn));
         renameFileOrLog(ff, valueFileName(path.trimTo(plen), columnName, columnNameTxn), valueFileName(other.trimTo(plen), newName, columnNameTxn));
+        renameFileOrLog(ff, PartitionSummary.fileName(path.trimTo(plen), columnName, columnNameTxn), PartitionSummary.fileName(other.trimTo(plen), newName, columnNameTxn));
         path.trimTo(rootLen);
         other.trimTo(rootLen);
     }
@@ -5921,9 +6048,16 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        final long prevPartitionTimestamp = txWriter.getPartitionTimestampLo(txWriter.getMaxTimestamp());
+        final long prevPartitionSize = txWriter.getTransientRowCount();
         txWriter.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
+        if (partitionSummaryEnabled && prevPartitionSize > 0) {
+            // previous partition will not be appended to in order anymore,
+            // summaries are written by PartitionSummaryJob off the ingestion path
+            publishPartitionSummaryTask(prevPartitionTimestamp, prevPartitionSize);
+        }
     }
 
     private void syncColumns(int commitMode) {
@@ -6173,6 +6307,51 @@ public class TableWriter implements Closeable {
         );
     }
 
+    public interface Batch {
+
+        /**
+         * Makes rows of the batch part of the current transaction.
+         *
+         * @param rowCount number of values put into each column
+         */
+        void append(long rowCount);
+
+        void cancel();
+
+        void putBool(int columnIndex, boolean value);
+
+        void putByte(int columnIndex, byte value);
+
+        void putChar(int columnIndex, char value);
+
+        void putDesignatedTimestamp(long value);
+
+        void putDouble(int columnIndex, double value);
+
+        void putFloat(int columnIndex, float value);
+
+        void putInt(int columnIndex, int value);
+
+        void putLong(int columnIndex, long value);
+
+        void putLong256(int columnIndex, CharSequence hexString);
+
+        void putNull(int columnIndex);
+
+        void putShort(int columnIndex, short value);
+
+        void putStr(int columnIndex, CharSequence value);
+
+        /**
+         * @return symbol key of the value, it can be passed to {@link #putSymIndex(int, int)} to put the same value again
+         */
+        int putSym(int columnIndex, CharSequence value);
+
+        default void putSymIndex(int columnIndex, int key) {
+            putInt(columnIndex, key);
+        }
+    }
+
     public interface Row {
 
         void append();
@@ -6243,6 +6422,108 @@ public class TableWriter implements Closeable {
         void onTableExtended(long timestamp);
     }
 
+    @FunctionalInterface
+    public interface CommitListener {
+        /**
+         * Called on the writer thread once a transaction is committed to the table.
+         *
+         * @param tableName   name of the table
+         * @param timestampLo the lowest timestamp the transaction could have changed,
+         *                    Long.MIN_VALUE when the whole table could have changed
+         * @param timestampHi the highest timestamp the transaction could have changed
+         */
+        void onCommit(String tableName, long timestampLo, long timestampHi);
+    }
+
+    private class BatchImpl implements Batch {
+        private long rowLo;
+        private long timestampHi;
+
+        @Override
+        public void append(long rowCount) {
+            txWriter.updateMaxTimestamp(timestampHi);
+            txWriter.append(rowCount);
+            masterRef += 2 * rowCount;
+        }
+
+        @Override
+        public void cancel() {
+            setAppendPosition(rowLo, false);
+        }
+
+        @Override
+        public void putBool(int columnIndex, boolean value) {
+            getPrimaryColumn(columnIndex).putBool(value);
+        }
+
+        @Override
+        public void putByte(int columnIndex, byte value) {
+            getPrimaryColumn(columnIndex).putByte(value);
+        }
+
+        @Override
+        public void putChar(int columnIndex, char value) {
+            getPrimaryColumn(columnIndex).putChar(value);
+        }
+
+        @Override
+        public void putDesignatedTimestamp(long value) {
+            timestampSetter.accept(value);
+        }
+
+        @Override
+        public void putDouble(int columnIndex, double value) {
+            getPrimaryColumn(columnIndex).putDouble(value);
+        }
+
+        @Override
+        public void putFloat(int columnIndex, float value) {
+            getPrimaryColumn(columnIndex).putFloat(value);
+        }
+
+        @Override
+        public void putInt(int columnIndex, int value) {
+            getPrimaryColumn(columnIndex).putInt(value);
+        }
+
+        @Override
+        public void putLong(int columnIndex, long value) {
+            getPrimaryColumn(columnIndex).putLong(value);
+        }
+
+        @Override
+        public void putLong256(int columnIndex, CharSequence hexString) {
+            getPrimaryColumn(columnIndex).putLong256(hexString);
+        }
+
+        @Override
+        public void putNull(int columnIndex) {
+            nullSetters.getQuick(columnIndex).run();
+        }
+
+        @Override
+        public void putShort(int columnIndex, short value) {
+            getPrimaryColumn(columnIndex).putShort(value);
+        }
+
+        @Override
+        public void putStr(int columnIndex, CharSequence value) {
+            getSecondaryColumn(columnIndex).putLong(getPrimaryColumn(columnIndex).putStr(value));
+        }
+
+        @Override
+        public int putSym(int columnIndex, CharSequence value) {
+            final int key = symbolMapWriters.getQuick(columnIndex).put(value);
+            getPrimaryColumn(columnIndex).putInt(key);
+            return key;
+        }
+
+        private void of(long rowLo, long timestampHi) {
+            this.rowLo = rowLo;
+            this.timestampHi = timestampHi;
+        }
+    }
+
     private class RowImpl implements Row {
         @Override
         public void append() {
@@ -48,6 +48,7 @@ public class TxReader implements Closeable, Mutable {
     protected long txn;
     protected int symbolColumnCount;
     protected long truncateVersion;
+    protected long seqTxn;
     protected long dataVersion;
     protected long structureVersion;
     protected long fixedRowCount;
@@ -104,6 +105,7 @@ public class TxReader implements Closeable, Mutable {
         mem.putLong(baseOffset + TX_OFFSET_PARTITION_TABLE_VERSION_64, partitionTableVersion);
         mem.putLong(baseOffset + TX_OFFSET_COLUMN_VERSION_64, columnVersion);
         mem.putLong(baseOffset + TX_OFFSET_TRUNCATE_VERSION_64, truncateVersion);
+        mem.putLong(baseOffset + TX_OFFSET_SEQ_TXN_64, seqTxn);
         mem.putInt(baseOffset + TX_OFFSET_MAP_WRITER_COUNT_32, symbolColumnCount);
 
         int symbolMapCount = symbolCountSnapshot.size();
@@ -243,6 +245,10 @@ public class TxReader implements Closeable, Mutable {
         return transientRowCount;
     }
 
+    public long getSeqTxn() {
+        return seqTxn;
+    }
+
     public long getTruncateVersion() {
         return truncateVersion;
     }
@@ -292,6 +298,7 @@ public class TxReader implements Closeable, Mutable {
             final long prevColumnVersion = this.columnVersion;
             this.columnVersion = unsafeReadColumnVersion();
             this.truncateVersion = getLong(TableUtils.TX_OFFSET_TRUNCATE_VERSION_64);
+            this.seqTxn = getLong(TableUtils.TX_OFFSET_SEQ_TXN_64);
             this.symbolColumnCount = this.symbolsSize / 8;
 
             unsafeLoadSymbolCounts(symbolColumnCount);
@@ -26,7 +26,9 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMAR;
+import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 
 import java.io.Closeable;
@@ -34,6 +36,9 @@ import java.io.Closeable;
 import static io.questdb.cairo.TableUtils.*;
 
 public class TxnCatalog implements Closeable {
+    private static final long TXN_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final long TXN_ENTRY_OFFSET_WAL_ID = Long.BYTES;
+    private static final long TXN_ENTRY_OFFSET_SEGMENT_ID = TXN_ENTRY_OFFSET_WAL_ID + Integer.BYTES;
     private final FilesFacade ff;
     private final MemoryMAR metaMem = Vm.getMARInstance();
 
@@ -46,12 +51,17 @@ public class TxnCatalog implements Closeable {
         if (startTxn == 0) {
             metaMem.putInt(WalWriter.WAL_FORMAT_VERSION);
         } else {
-            metaMem.jumpTo(Integer.BYTES + startTxn * (Long.BYTES + Integer.BYTES + Long.BYTES));
+            metaMem.jumpTo(calcOffsetForTxn(startTxn + 1));
         }
     }
 
-    private long calcOffsetForTxn(long txn) {
-        return Integer.BYTES + (txn - 1) * (Long.BYTES + Integer.BYTES + Long.BYTES);
+    private static long calcOffsetForTxn(long txn) {
+        return Integer.BYTES + (txn - 1) * TXN_ENTRY_SIZE;
+    }
+
+    // catalog file has to contain all entries up to and including maxTxn
+    SequencerCursor getCursor(LPSZ catalogPath, long lastCommittedTxn, long maxTxn) {
+        return new SequencerCursorImpl(ff, catalogPath, lastCommittedTxn, maxTxn);
     }
 
     void setEntry(long txn, int walId, long segmentId) {
@@ -65,4 +75,56 @@ public class TxnCatalog implements Closeable {
     public void close() {
         Misc.free(metaMem);
     }
+
+    private static class SequencerCursorImpl implements SequencerCursor {
+        private final MemoryMR mem;
+        private final long maxTxn;
+        private long txn;
+        private int walId;
+        private long segmentId;
+
+        private SequencerCursorImpl(FilesFacade ff, LPSZ catalogPath, long lastCommittedTxn, long maxTxn) {
+            this.mem = Vm.getMRInstance(ff, catalogPath, calcOffsetForTxn(maxTxn + 1), MemoryTag.MMAP_SEQUENCER);
+            this.txn = lastCommittedTxn;
+            this.maxTxn = maxTxn;
+        }
+
+        @Override
+        public void close() {
+            Misc.free(mem);
+        }
+
+        @Override
+        public long getSegmentId() {
+            return segmentId;
+        }
+
+        @Override
+        public long getTxn() {
+            return txn;
+        }
+
+        @Override
+        public int getWalId() {
+            return walId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (txn < maxTxn) {
+                final long offset = calcOffsetForTxn(txn + 1);
+                final long entryTxn = mem.getLong(offset);
+                if (entryTxn != txn + 1) {
+                    throw CairoException.critical(0).put("sequencer catalog is corrupt [expectedTxn=").put(txn + 1)
+                            .put(", actualTxn=").put(entryTxn)
+                            .put(']');
+                }
+                walId = mem.getInt(offset + TXN_ENTRY_OFFSET_WAL_ID);
+                segmentId = mem.getLong(offset + TXN_ENTRY_OFFSET_SEGMENT_ID);
+                txn++;
+                return true;
+            }
+            return false;
+        }
+    }
 }
@@ -161,6 +161,7 @@ public class WalWriter implements Closeable {
 
             final long txn = sequencer.addColumn(index, name, type, walId, segmentId);
             events.addColumn(txn, index, name, type);
+            engine.notifyWalTxnCommitted(tableName, txn);
             LOG.info().$("ADDED column '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("], to ").$(path).$();
         } catch (Throwable e) {
             throw new CairoError(e);
@@ -225,6 +226,7 @@ public class WalWriter implements Closeable {
 
             final long txn = sequencer.removeColumn(index, walId, segmentId);
             events.removeColumn(txn, index);
+            engine.notifyWalTxnCommitted(tableName, txn);
             LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
         } catch (Throwable e) {
             throw new CairoError(e);
@@ -542,8 +544,11 @@ public class WalWriter implements Closeable {
         rollSegmentOnNextRow = rollSegment;
         final long transientRowCount = getTransientRowCount();
         if (transientRowCount != 0) {
-            events.data(nextTxn(), startRowCount, rowCount, txnMinTimestamp, txnMaxTimestamp, txnOutOfOrder);
+            final long txn = nextTxn();
+            events.data(txn, startRowCount, rowCount, txnMinTimestamp, txnMaxTimestamp, txnOutOfOrder);
             resetDataTxnProperties();
+            // notify after the event is written, apply job expects to find the event in the segment
+            engine.notifyWalTxnCommitted(tableName, txn);
         }
         return transientRowCount;
     }
@@ -51,6 +51,7 @@ public class FastMap implements Map, Reopenable {
     private final int maxResizes;
     private final int initialKeyCapacity;
     private final int initialPageSize;
+    private final int[] valueOffsets;
     private long capacity;
     // Offsets are shifted by +1 (0 -> 1, 1 -> 2, etc.), so that we fill the memory
     // with 0 instead of -1 when clearing/rehashing.
@@ -139,12 +140,11 @@ public class FastMap implements Map, Reopenable {
         this.nResizes = 0;
         this.maxResizes = maxResizes;
 
-        int[] valueOffsets;
         int offset = 4;
         if (valueTypes != null) {
             this.valueColumnCount = valueTypes.getColumnCount();
             final int columnSplit = valueColumnCount;
-            valueOffsets = new int[columnSplit];
+            this.valueOffsets = new int[columnSplit];
 
             for (int i = 0; i < columnSplit; i++) {
                 valueOffsets[i] = offset;
@@ -192,6 +192,7 @@ public class FastMap implements Map, Reopenable {
             this.record = new FastMapRecord(valueOffsets, columnSplit, keyDataOffset, keyBlockOffset, value, keyTypes);
         } else {
             this.valueColumnCount = 0;
+            this.valueOffsets = null;
             this.value = new FastMapValue(null);
             this.value2 = new FastMapValue(null);
             this.value3 = new FastMapValue(null);
@@ -255,6 +256,16 @@ public class FastMap implements Map, Reopenable {
         return key.init();
     }
 
+    /**
+     * Creates a lookup-only key that is backed by its own buffer rather than the map memory.
+     * Unlike {@link #withKey()}, probe keys allow several threads to look up values
+     * concurrently, each through its own key, as long as the map is not modified meanwhile.
+     * The caller is responsible for closing the key.
+     */
+    public ProbeKey newProbeKey() {
+        return new ProbeKey();
+    }
+
     @Override
     public void restoreInitialCapacity() {
         this.kStart = kPos = Unsafe.realloc(this.kStart, this.kLimit - this.kStart, this.capacity = initialPageSize, MemoryTag.NATIVE_FAST_MAP);
@@ -378,7 +389,7 @@ public class FastMap implements Map, Reopenable {
         return valueColumnCount;
     }
 
-    private long keyIndex() {
+    private long keyIndex(Key key) {
         return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset) & mask;
     }
 
@@ -466,10 +477,10 @@ public class FastMap implements Map, Reopenable {
     }
 
     public class Key implements MapKey {
-        private long startAddress;
-        private long appendAddress;
-        private int len;
-        private long nextColOffset;
+        long startAddress;
+        long appendAddress;
+        int len;
+        long nextColOffset;
 
         @Override
         public MapValue createValue() {
@@ -701,7 +712,7 @@ public class FastMap implements Map, Reopenable {
             writeOffset();
         }
 
-        private void checkSize(int size) {
+        void checkSize(int size) {
             if (appendAddress + size > kLimit) {
                 resize(size);
             }
@@ -711,11 +722,11 @@ public class FastMap implements Map, Reopenable {
             Unsafe.getUnsafe().putInt(startAddress, len = (int) (appendAddress - startAddress));
         }
 
-        private MapValue createValue(FastMapValue value) {
+        MapValue createValue(FastMapValue value) {
             commit();
             // calculate hash remembering "key" structure
             // [ len | value block | key offset block | key data block ]
-            long index = keyIndex();
+            long index = keyIndex(this);
             long offset = getOffset(index);
 
             if (offset == -1) {
@@ -727,9 +738,9 @@ public class FastMap implements Map, Reopenable {
             }
         }
 
-        private MapValue findValue(FastMapValue value) {
+        MapValue findValue(FastMapValue value) {
             commit();
-            long index = keyIndex();
+            long index = keyIndex(this);
             long offset = getOffset(index);
 
             if (offset == -1) {
@@ -757,4 +768,77 @@ public class FastMap implements Map, Reopenable {
             nextColOffset += 4;
         }
     }
+
+    public class ProbeKey extends Key implements QuietCloseable {
+        private final FastMapValue probeValue = new FastMapValue(valueOffsets);
+        private long bufStart;
+        private long bufLimit;
+
+        private ProbeKey() {
+            final long size = Numbers.ceilPow2(keyDataOffset + 64);
+            this.bufStart = Unsafe.malloc(size, MemoryTag.NATIVE_FAST_MAP);
+            this.bufLimit = bufStart + size;
+        }
+
+        @Override
+        public void close() {
+            if (bufStart != 0) {
+                Unsafe.free(bufStart, bufLimit - bufStart, MemoryTag.NATIVE_FAST_MAP);
+                bufStart = bufLimit = 0;
+            }
+        }
+
+        @Override
+        public MapValue createValue() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue2() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue createValue3() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MapValue findValue() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public MapValue findValue2() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public MapValue findValue3() {
+            return findValue(probeValue);
+        }
+
+        @Override
+        public ProbeKey init() {
+            startAddress = bufStart;
+            appendAddress = bufStart + keyDataOffset;
+            nextColOffset = bufStart + keyBlockOffset;
+            return this;
+        }
+
+        @Override
+        void checkSize(int size) {
+            if (appendAddress + size > bufLimit) {
+                final long oldSize = bufLimit - bufStart;
+                final long newSize = Numbers.ceilPow2(appendAddress + size - bufStart);
+                final long address = Unsafe.realloc(bufStart, oldSize, newSize, MemoryTag.NATIVE_FAST_MAP);
+                final long d = address - bufStart;
+                startAddress += d;
+                appendAddress += d;
+                nextColOffset += d;
+                bufStart = address;
+                bufLimit = address + newSize;
+            }
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.std.IntList;
+import io.questdb.std.Mutable;
+
+/**
+ * Properties of a materialized view derived from its SAMPLE BY query. The query is
+ * refreshed over a timestamp range by replacing base table reference, which spans
+ * [baseTableNameLo, baseTableNameHi) of the query text, with a filtered sub-query.
+ */
+public class MatViewDefinition implements Mutable {
+    // output columns that identify a row within a bucket, includes designated timestamp
+    private final IntList keyColumnIndexes = new IntList();
+    private String baseTableName;
+    private int baseTableNameLo;
+    private int baseTableNameHi;
+    private String baseTimestampName;
+    private boolean baseTableAliased;
+    private String samplingInterval;
+    private long fixedOffset;
+    private int timestampIndex;
+
+    public MatViewDefinition() {
+    }
+
+    @Override
+    public void clear() {
+        keyColumnIndexes.clear();
+        baseTableName = null;
+        baseTableNameLo = 0;
+        baseTableNameHi = 0;
+        baseTimestampName = null;
+        baseTableAliased = false;
+        samplingInterval = null;
+        fixedOffset = 0;
+        timestampIndex = -1;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public int getBaseTableNameHi() {
+        return baseTableNameHi;
+    }
+
+    public int getBaseTableNameLo() {
+        return baseTableNameLo;
+    }
+
+    public String getBaseTimestampName() {
+        return baseTimestampName;
+    }
+
+    public long getFixedOffset() {
+        return fixedOffset;
+    }
+
+    public IntList getKeyColumnIndexes() {
+        return keyColumnIndexes;
+    }
+
+    public String getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    public boolean isBaseTableAliased() {
+        return baseTableAliased;
+    }
+
+    public void ofBaseTable(
+            String baseTableName,
+            int baseTableNameLo,
+            int baseTableNameHi,
+            String baseTimestampName,
+            boolean baseTableAliased
+    ) {
+        this.baseTableName = baseTableName;
+        this.baseTableNameLo = baseTableNameLo;
+        this.baseTableNameHi = baseTableNameHi;
+        this.baseTimestampName = baseTimestampName;
+        this.baseTableAliased = baseTableAliased;
+    }
+
+    public void ofSampling(String samplingInterval, long fixedOffset) {
+        this.samplingInterval = samplingInterval;
+        this.fixedOffset = fixedOffset;
+    }
+
+    public void setTimestampIndex(int timestampIndex) {
+        this.timestampIndex = timestampIndex;
+    }
+}
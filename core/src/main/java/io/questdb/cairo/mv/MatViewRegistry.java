@@ -0,0 +1,246 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Keeps track of materialized views and marks them dirty when their base table commits.
+ * <p>
+ * Definition of a view is kept in the _mv file of the view table:
+ * <pre>
+ *     long   txn of the base table the view has been refreshed to
+ *     string base table name
+ *     string SAMPLE BY query
+ * </pre>
+ */
+public class MatViewRegistry implements TableWriter.CommitListener, Mutable {
+    private static final Log LOG = LogFactory.getLog(MatViewRegistry.class);
+    private static final long REFRESHED_BASE_TXN_OFFSET = 0;
+    private static final long BASE_TABLE_NAME_OFFSET = REFRESHED_BASE_TXN_OFFSET + Long.BYTES;
+    private final CairoConfiguration configuration;
+    private final ConcurrentHashMap<MatViewState> viewsByName = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ObjList<MatViewState>> viewsByBaseTable = new ConcurrentHashMap<>();
+    // copy-on-write list for the refresh job to iterate without locking
+    private volatile ObjList<MatViewState> views = new ObjList<>();
+
+    public MatViewRegistry(CairoConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public synchronized void clear() {
+        viewsByName.clear();
+        viewsByBaseTable.clear();
+        views = new ObjList<>();
+    }
+
+    /**
+     * Writes definition file into existing view table directory and starts tracking the view.
+     *
+     * @param path          path to use
+     * @param viewName      name of the view table
+     * @param baseTableName name of the base table
+     * @param query         SAMPLE BY query of the view
+     * @param baseTxn       txn of the base table the view has been populated from
+     */
+    public void createView(Path path, CharSequence viewName, CharSequence baseTableName, CharSequence query, long baseTxn) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        path.of(configuration.getRoot()).concat(viewName).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+        try (MemoryMARW mem = Vm.getMARWInstance()) {
+            mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+            mem.jumpTo(0);
+            mem.putLong(baseTxn);
+            mem.putStr(baseTableName);
+            mem.putStr(query);
+        }
+        register(new MatViewState(Chars.toString(viewName), Chars.toString(baseTableName), Chars.toString(query), baseTxn));
+    }
+
+    /**
+     * Stops tracking the view, called when a table is removed.
+     *
+     * @param tableName name of the removed table
+     */
+    public synchronized void deregister(CharSequence tableName) {
+        final MatViewState state = viewsByName.remove(tableName);
+        if (state != null) {
+            deregisterFromBase(state);
+            views = copyWithout(views, state);
+            LOG.info().$("materialized view removed [view=").utf8(tableName).I$();
+        }
+    }
+
+    /**
+     * Finds a view that is refreshed from the given table. Such table cannot be
+     * dropped or renamed while the view exists.
+     *
+     * @param tableName name of the table
+     * @return name of the dependent view or null when there is none
+     */
+    public String getDependentViewName(CharSequence tableName) {
+        final ObjList<MatViewState> views = this.views;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            final MatViewState state = views.getQuick(i);
+            if (Chars.equalsIgnoreCase(state.getBaseTableName(), tableName)) {
+                return state.getViewName();
+            }
+        }
+        return null;
+    }
+
+    public MatViewState getView(CharSequence viewName) {
+        return viewsByName.get(viewName);
+    }
+
+    public ObjList<MatViewState> getViews() {
+        return views;
+    }
+
+    public boolean isView(CharSequence tableName) {
+        final ObjList<MatViewState> views = this.views;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            if (Chars.equalsIgnoreCase(views.getQuick(i).getViewName(), tableName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scans database root for materialized view definitions. Views loaded from disk
+     * are verified against their base table by the refresh job before they are refreshed.
+     */
+    public void load() {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final StringSink nameSink = new StringSink();
+        try (Path path = new Path().of(configuration.getRoot())) {
+            final int rootLen = path.length();
+            ff.iterateDir(path.$(), (pUtf8NameZ, type) -> {
+                if (Files.isDir(pUtf8NameZ, type, nameSink)) {
+                    path.trimTo(rootLen).concat(pUtf8NameZ).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+                    if (ff.exists(path)) {
+                        try (MemoryCMR mem = Vm.getCMRInstance()) {
+                            mem.smallFile(ff, path, MemoryTag.MMAP_DEFAULT);
+                            final long baseTxn = mem.getLong(REFRESHED_BASE_TXN_OFFSET);
+                            final String baseTableName = Chars.toString(mem.getStr(BASE_TABLE_NAME_OFFSET));
+                            final String query = Chars.toString(mem.getStr(BASE_TABLE_NAME_OFFSET + Vm.getStorageLength(baseTableName)));
+                            register(new MatViewState(Chars.toString(nameSink), baseTableName, query, baseTxn));
+                        } catch (CairoException e) {
+                            LOG.error().$("could not load materialized view [path=").$(path)
+                                    .$(", msg=").$(e.getFlyweightMessage())
+                                    .$(", errno=").$(e.getErrno())
+                                    .I$();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onCommit(String tableName, long timestampLo, long timestampHi) {
+        final ObjList<MatViewState> baseViews = viewsByBaseTable.get(tableName);
+        if (baseViews != null) {
+            for (int i = 0, n = baseViews.size(); i < n; i++) {
+                baseViews.getQuick(i).markDirty(timestampLo, timestampHi);
+            }
+        }
+    }
+
+    public synchronized void register(MatViewState state) {
+        final MatViewState other = viewsByName.put(state.getViewName(), state);
+        if (other != null) {
+            deregisterFromBase(other);
+            views = copyWithout(views, other);
+        }
+
+        final ObjList<MatViewState> baseViews = viewsByBaseTable.get(state.getBaseTableName());
+        final ObjList<MatViewState> nextBaseViews = new ObjList<>();
+        if (baseViews != null) {
+            nextBaseViews.addAll(baseViews);
+        }
+        nextBaseViews.add(state);
+        viewsByBaseTable.put(state.getBaseTableName(), nextBaseViews);
+
+        final ObjList<MatViewState> nextViews = new ObjList<>();
+        nextViews.addAll(views);
+        nextViews.add(state);
+        views = nextViews;
+
+        LOG.info().$("materialized view registered [view=").utf8(state.getViewName())
+                .$(", base=").utf8(state.getBaseTableName())
+                .I$();
+    }
+
+    /**
+     * Persists txn of the base table the view has been refreshed to.
+     *
+     * @param path  path to use
+     * @param state refreshed view
+     */
+    public void writeRefreshedBaseTxn(Path path, MatViewState state) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        path.of(configuration.getRoot()).concat(state.getViewName()).concat(TableUtils.MAT_VIEW_FILE_NAME).$();
+        final long fd = TableUtils.openRW(ff, path, LOG, configuration.getWriterFileOpenOpts());
+        final long tempMem8b = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+        try {
+            TableUtils.writeLongOrFail(ff, fd, REFRESHED_BASE_TXN_OFFSET, state.getRefreshedBaseTxn(), tempMem8b, path);
+        } finally {
+            Unsafe.free(tempMem8b, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            ff.close(fd);
+        }
+    }
+
+    private static ObjList<MatViewState> copyWithout(ObjList<MatViewState> list, MatViewState state) {
+        final ObjList<MatViewState> copy = new ObjList<>(list.size());
+        for (int i = 0, n = list.size(); i < n; i++) {
+            final MatViewState s = list.getQuick(i);
+            if (s != state) {
+                copy.add(s);
+            }
+        }
+        return copy;
+    }
+
+    private void deregisterFromBase(MatViewState state) {
+        final ObjList<MatViewState> baseViews = viewsByBaseTable.get(state.getBaseTableName());
+        if (baseViews != null) {
+            viewsByBaseTable.put(state.getBaseTableName(), copyWithout(baseViews, state));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.mv;
+
+/**
+ * Refresh state of a single materialized view. Table writers of the base table widen
+ * the dirty timestamp range on commit, the refresh job takes the range over and
+ * recomputes the buckets it covers. Lower bound of Long.MIN_VALUE means that rows
+ * could have been removed or changed anywhere in the base table and the view has to
+ * be rebuilt.
+ */
+public class MatViewState {
+    private final String viewName;
+    private final String baseTableName;
+    private final String query;
+    private final MatViewDefinition definition = new MatViewDefinition();
+    // guarded by this
+    private long dirtyTimestampLo = Long.MAX_VALUE;
+    private long dirtyTimestampHi = Long.MIN_VALUE;
+    private volatile boolean dirty;
+    // owned by the refresh job
+    private long refreshTimestampLo;
+    private long refreshTimestampHi;
+    private long refreshedBaseTxn;
+    private boolean analysed;
+    private boolean verified;
+    private boolean invalid;
+
+    public MatViewState(String viewName, String baseTableName, String query, long refreshedBaseTxn) {
+        this.viewName = viewName;
+        this.baseTableName = baseTableName;
+        this.query = query;
+        this.refreshedBaseTxn = refreshedBaseTxn;
+    }
+
+    /**
+     * Returns timestamp range taken over by {@link #beginRefresh()} back to the dirty range,
+     * so that it is picked up by the next refresh.
+     */
+    public void abortRefresh() {
+        markDirty(refreshTimestampLo, refreshTimestampHi);
+    }
+
+    /**
+     * Takes over the dirty timestamp range.
+     *
+     * @return false when there is nothing to refresh
+     */
+    public synchronized boolean beginRefresh() {
+        if (!dirty) {
+            return false;
+        }
+        refreshTimestampLo = dirtyTimestampLo;
+        refreshTimestampHi = dirtyTimestampHi;
+        dirtyTimestampLo = Long.MAX_VALUE;
+        dirtyTimestampHi = Long.MIN_VALUE;
+        dirty = false;
+        return true;
+    }
+
+    public String getBaseTableName() {
+        return baseTableName;
+    }
+
+    public MatViewDefinition getDefinition() {
+        return definition;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getRefreshTimestampHi() {
+        return refreshTimestampHi;
+    }
+
+    public long getRefreshTimestampLo() {
+        return refreshTimestampLo;
+    }
+
+    public long getRefreshedBaseTxn() {
+        return refreshedBaseTxn;
+    }
+
+    public String getViewName() {
+        return viewName;
+    }
+
+    public boolean isAnalysed() {
+        return analysed;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public synchronized void markDirty(long timestampLo, long timestampHi) {
+        if (timestampLo < dirtyTimestampLo) {
+            dirtyTimestampLo = timestampLo;
+        }
+        if (timestampHi > dirtyTimestampHi) {
+            dirtyTimestampHi = timestampHi;
+        }
+        dirty = true;
+    }
+
+    public void setAnalysed(boolean analysed) {
+        this.analysed = analysed;
+    }
+
+    public void setInvalid(boolean invalid) {
+        this.invalid = invalid;
+    }
+
+    public void setRefreshedBaseTxn(long refreshedBaseTxn) {
+        this.refreshedBaseTxn = refreshedBaseTxn;
+    }
+
+    public void setVerified(boolean verified) {
+        this.verified = verified;
+    }
+}
@@ -83,6 +83,7 @@ public class WriterPool extends AbstractPool {
     private final MessageBus messageBus;
     @NotNull
     private final Metrics metrics;
+    private final TableWriter.CommitListener commitListener;
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -92,6 +93,23 @@ public class WriterPool extends AbstractPool {
      * @param metrics       metrics instance to be used by table writers.
      */
     public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus, @NotNull Metrics metrics) {
+        this(configuration, messageBus, metrics, null);
+    }
+
+    /**
+     * Pool constructor. WriterPool root directory is passed via configuration.
+     *
+     * @param configuration  configuration parameters.
+     * @param messageBus     message bus instance to allow index tasks to be communicated to available threads.
+     * @param metrics        metrics instance to be used by table writers.
+     * @param commitListener listener to be notified of commits made by table writers, can be null.
+     */
+    public WriterPool(
+            CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull Metrics metrics,
+            @Nullable TableWriter.CommitListener commitListener
+    ) {
         super(configuration, configuration.getInactiveWriterTTL());
         this.configuration = configuration;
         this.messageBus = messageBus;
@@ -100,6 +118,7 @@ public class WriterPool extends AbstractPool {
         this.path.concat(this.root);
         this.rootLen = this.path.length();
         this.metrics = metrics;
+        this.commitListener = commitListener;
         notifyListener(Thread.currentThread().getId(), null, PoolListener.EV_POOL_OPEN);
     }
 
@@ -249,6 +268,7 @@ public class WriterPool extends AbstractPool {
                 assert writer == null && e.lockFd != -1;
                 LOG.info().$("created [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
                 writer = new TableWriter(configuration, name, messageBus, null, false, e, root, metrics);
+                writer.setCommitListener(commitListener);
             }
 
             if (writer == null) {
@@ -425,6 +445,7 @@ public class WriterPool extends AbstractPool {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
             e.writer = new TableWriter(configuration, name, messageBus, null, true, e, root, metrics);
+            e.writer.setCommitListener(commitListener);
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
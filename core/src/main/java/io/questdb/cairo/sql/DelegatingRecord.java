@@ -100,6 +100,16 @@ public class DelegatingRecord implements Record {
         return base.getLong256B(col);
     }
 
+    @Override
+    public long getLong128Hi(int col) {
+        return base.getLong128Hi(col);
+    }
+
+    @Override
+    public long getLong128Lo(int col) {
+        return base.getLong128Lo(col);
+    }
+
     @Override
     public Record getRecord(int col) {
         return base.getRecord(col);
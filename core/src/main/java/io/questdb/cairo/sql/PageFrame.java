@@ -31,6 +31,15 @@ public interface PageFrame {
 
     void copyColumnAddressesTo(LongList destColumnAddresses);
 
+    /**
+     * Copies file ranges that back columns of the page frame as (fd, offset, length) triples.
+     * Page frames that are not backed by files copy nothing.
+     *
+     * @param destFileRanges list to append file ranges to
+     */
+    default void copyColumnFileRangesTo(LongList destFileRanges) {
+    }
+
     BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward);
 
     /**
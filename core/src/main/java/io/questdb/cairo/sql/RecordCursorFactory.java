@@ -30,8 +30,10 @@ import io.questdb.griffin.Plannable;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.mp.Sequence;
+import io.questdb.std.ObjList;
 import io.questdb.std.Sinkable;
 import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 
@@ -109,6 +111,48 @@ public interface RecordCursorFactory extends Closeable, Sinkable, Plannable {
         return false;
     }
 
+    /**
+     * Filter factories that run over page frames may hand their base factory and
+     * filter over to a parent factory, e.g. to evaluate the filter as a part of
+     * parallel GROUP BY. Once the filter is stolen, the factory has to be released
+     * via {@link #halfClose()}.
+     * <p>
+     * Filters that are not thread-safe come with per-worker copies, see
+     * {@link #getPerWorkerFilters()}. The stealing factory must evaluate
+     * the copies on worker threads, the same way the filter factory does.
+     *
+     * @return true if {@link #getBaseFactory()}, {@link #getFilter()} and
+     * {@link #getPerWorkerFilters()} can be taken over
+     */
+    default boolean supportsFilterStealing() {
+        return false;
+    }
+
+    default RecordCursorFactory getBaseFactory() {
+        return null;
+    }
+
+    default Function getFilter() {
+        return null;
+    }
+
+    /**
+     * @return per-worker copies of {@link #getFilter()}, one per shared worker,
+     * or null if the filter is thread-safe
+     */
+    @Nullable
+    default ObjList<Function> getPerWorkerFilters() {
+        return null;
+    }
+
+    /**
+     * Releases resources of the factory except for the base factory, the filter and
+     * its per-worker copies, which are now owned by the factory that stole them.
+     */
+    default void halfClose() {
+        close();
+    }
+
     default boolean supportsUpdateRowId(CharSequence tableName) {
         return false;
     }
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql.async;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.std.*;
+
+/**
+ * Reads column files of upcoming page frames via io_uring while the preceding frames are
+ * being reduced. Reads go through page cache into a scratch buffer and the data is discarded:
+ * reducers and JIT filters keep using mmapped addresses from {@link PageAddressCache}, but
+ * find cold pages already in memory instead of faulting them in one at a time.
+ * <p>
+ * This class is not thread-safe, it is used by the query owner thread only.
+ */
+public class PageFrameReadAhead implements QuietCloseable, Mutable {
+    static final int BLOCK_SIZE = 1024 * 1024;
+    // (fd, offset, length) triples of all frames
+    private final LongList fileRanges = new LongList();
+    // index of the first triple of each frame in fileRanges
+    private final IntList frameRangeIndexes = new IntList();
+    private final IOURing ring;
+    private final int queueDepth;
+    private long bufAddr;
+    private int inFlight;
+    // next triple to read and number of its bytes enqueued so far
+    private int rangeIndex;
+    private long rangeOffset;
+
+    public PageFrameReadAhead(IOURingFacade rf, int queueDepth) {
+        this.ring = rf.newInstance(queueDepth);
+        this.queueDepth = queueDepth;
+        this.bufAddr = Unsafe.malloc(BLOCK_SIZE, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    public void addFrame(PageFrame frame) {
+        frameRangeIndexes.add(fileRanges.size());
+        frame.copyColumnFileRangesTo(fileRanges);
+    }
+
+    /**
+     * Waits for reads in flight and forgets recorded frames. Has to be called
+     * before file descriptors of the frames are closed.
+     */
+    @Override
+    public void clear() {
+        await();
+        fileRanges.clear();
+        frameRangeIndexes.clear();
+        toTop();
+    }
+
+    @Override
+    public void close() {
+        if (bufAddr != 0) {
+            clear();
+            Misc.free(ring);
+            Unsafe.free(bufAddr, BLOCK_SIZE, MemoryTag.NATIVE_DEFAULT);
+            bufAddr = 0;
+        }
+    }
+
+    /**
+     * Tops up the ring with reads of frames starting from the given one. Remaining reads
+     * of frames before it are skipped, these frames are processed already.
+     *
+     * @param frameIndex index of the first frame that is yet to be processed
+     */
+    public void readAhead(int frameIndex) {
+        reap();
+        if (frameIndex < frameRangeIndexes.size()) {
+            final int frameRangeIndex = frameRangeIndexes.getQuick(frameIndex);
+            if (rangeIndex < frameRangeIndex) {
+                rangeIndex = frameRangeIndex;
+                rangeOffset = 0;
+            }
+        }
+
+        int enqueued = 0;
+        final int n = fileRanges.size();
+        while (inFlight < queueDepth && rangeIndex < n) {
+            final long fd = fileRanges.getQuick(rangeIndex);
+            final long offset = fileRanges.getQuick(rangeIndex + 1);
+            final long len = fileRanges.getQuick(rangeIndex + 2);
+            final int blockLen = (int) Math.min(len - rangeOffset, BLOCK_SIZE);
+            if (ring.enqueueRead(fd, offset + rangeOffset, bufAddr, blockLen) == -1) {
+                break;
+            }
+            inFlight++;
+            enqueued++;
+            rangeOffset += blockLen;
+            if (rangeOffset == len) {
+                rangeIndex += 3;
+                rangeOffset = 0;
+            }
+        }
+
+        if (enqueued > 0) {
+            ring.submit();
+        }
+    }
+
+    public void toTop() {
+        rangeIndex = 0;
+        rangeOffset = 0;
+    }
+
+    private void await() {
+        // kernel writes into the buffer until all reads complete
+        while (inFlight > 0) {
+            if (ring.submitAndWait() < 0) {
+                Os.pause();
+            }
+            reap();
+        }
+    }
+
+    private void reap() {
+        // read results are of no interest, failed read means page fault later on
+        while (ring.nextCqe()) {
+            inFlight--;
+        }
+    }
+}
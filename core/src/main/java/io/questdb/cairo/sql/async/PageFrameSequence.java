@@ -26,6 +26,7 @@ package io.questdb.cairo.sql.async;
 
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
@@ -53,7 +54,13 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private final PageFrameReducer reducer;
     private final PageAddressCache pageAddressCache;
     private final MessageBus messageBus;
+    private final CairoConfiguration configuration;
     private final MillisecondClock clock;
+    private final IOURingFacade ioURingFacade;
+    private final int readAheadQueueDepth;
+    private boolean readAheadEnabled;
+    // created on first use, reads column files of upcoming frames into page cache
+    private PageFrameReadAhead readAhead;
     private long id;
     private int shard;
     private int dispatchStartFrameIndex;
@@ -66,8 +73,8 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     private PageAddressCacheRecord record;
     private SqlExecutionCircuitBreaker circuitBreaker;
     // Local reduce task used when there is no slots in the queue to dispatch tasks.
+    // The task is owned by the sequence, since factory may be cached and used by any thread.
     private PageFrameReduceTask localTask;
-    private final WeakClosableObjectPool<PageFrameReduceTask> localTaskPool;
     private long startTime;
     private long circuitBreakerFd;
     private SqlExecutionContext sqlExecutionContext;
@@ -75,14 +82,18 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
     public PageFrameSequence(
             CairoConfiguration configuration,
             MessageBus messageBus,
-            PageFrameReducer reducer,
-            WeakClosableObjectPool<PageFrameReduceTask> localTaskPool
+            PageFrameReducer reducer
     ) {
+        this.configuration = configuration;
         this.pageAddressCache = new PageAddressCache(configuration);
         this.messageBus = messageBus;
         this.reducer = reducer;
         this.clock = configuration.getMillisecondClock();
-        this.localTaskPool = localTaskPool;
+        this.ioURingFacade = configuration.getIOURingFacade();
+        this.readAheadQueueDepth = configuration.getPageFrameReadAheadQueueDepth();
+        this.readAheadEnabled = configuration.isPageFrameReadAheadEnabled()
+                && configuration.isIOURingEnabled()
+                && ioURingFacade.isAvailable();
     }
 
     /**
@@ -146,6 +157,10 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         dispatchStartFrameIndex = 0;
         collectedFrameIndex = -1;
         pageAddressCache.clear();
+        if (readAhead != null) {
+            // reads in flight must complete before the cursor closes column files
+            readAhead.clear();
+        }
         symbolTableSource = Misc.freeIfCloseable(symbolTableSource);
         // collect sequence may not be set here when
         // factory is closed without using cursor
@@ -156,14 +171,14 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         }
         if (localTask != null) {
             localTask.resetCapacities();
-            localTaskPool.push(localTask);
-            localTask = null;
         }
     }
 
     @Override
     public void close() {
         this.clear();
+        readAhead = Misc.free(readAhead);
+        localTask = Misc.free(localTask);
         Misc.freeIfCloseable(circuitBreaker);
         Misc.free(record);
     }
@@ -336,6 +351,8 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         final MCSequence reduceSubSeq = messageBus.getPageFrameReduceSubSeq(shard);
         final MPSequence reducePubSeq = messageBus.getPageFrameReducePubSeq(shard);
 
+        readAhead();
+
         long cursor;
         int i = dispatchStartFrameIndex;
         dispatchStartFrameIndex = frameCount;
@@ -381,6 +398,7 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         // join the gang to consume published tasks
         while (reduceCounter.get() < frameCount) {
             idle = false;
+            readAhead();
             if (stealWork(reduceQueue, reduceSubSeq, record, circuitBreaker)) {
                 if (isActive()) {
                     continue;
@@ -409,11 +427,34 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         return true;
     }
 
+    private void readAhead() {
+        if (readAhead != null) {
+            // frames are reduced roughly in order, so the counter tells how far the reducers got
+            readAhead.readAhead(reduceCounter.get());
+        }
+    }
+
+    private void setupReadAhead() {
+        if (readAhead == null) {
+            try {
+                readAhead = new PageFrameReadAhead(ioURingFacade, readAheadQueueDepth);
+            } catch (CairoException e) {
+                LOG.error()
+                        .$("could not create page frame read-ahead [errno=").$(e.getErrno())
+                        .$(", msg=").$(e.getFlyweightMessage())
+                        .I$();
+                readAheadEnabled = false;
+                return;
+            }
+        }
+        readAhead.clear();
+    }
+
     private void workLocally() {
         assert dispatchStartFrameIndex < frameCount;
 
         if (localTask == null) {
-            localTask = localTaskPool.pop();
+            localTask = new PageFrameReduceTask(configuration);
         }
         localTask.of(this, dispatchStartFrameIndex++);
 
@@ -470,6 +511,9 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
             collectedFrameIndex = -1;
             reduceCounter.set(0);
             valid.set(true);
+            if (readAhead != null) {
+                readAhead.toTop();
+            }
         }
     }
 
@@ -512,12 +556,18 @@ public class PageFrameSequence<T extends StatefulAtom> implements Closeable {
         // this has to be separate pass to ensure there no cache reads
         // while cache might be resizing
         this.pageAddressCache.of(base.getMetadata());
+        if (readAheadEnabled) {
+            setupReadAhead();
+        }
 
         PageFrame frame;
         int frameIndex = 0;
         while ((frame = pageFrameCursor.next()) != null) {
             this.pageAddressCache.add(frameIndex++, frame);
             frameRowCounts.add(frame.getPartitionHi() - frame.getPartitionLo());
+            if (readAheadEnabled) {
+                readAhead.addFrame(frame);
+            }
         }
         return frameIndex;
     }
@@ -31,11 +31,12 @@ import io.questdb.cutlass.http.processors.HealthCheckProcessor;
 import io.questdb.cutlass.http.processors.JsonQueryProcessor;
 import io.questdb.cutlass.http.processors.PrometheusMetricsProcessor;
 import io.questdb.cutlass.http.processors.QueryCache;
+import io.questdb.cutlass.http.processors.QueryResultCache;
 import io.questdb.cutlass.line.tcp.LineTcpReceiver;
 import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
-import io.questdb.cutlass.line.udp.AbstractLineProtoUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiver;
 import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
+import io.questdb.cutlass.line.udp.LineUdpShardedReceiver;
 import io.questdb.cutlass.line.udp.LinuxMMLineUdpReceiver;
 import io.questdb.cutlass.pgwire.PGWireConfiguration;
 import io.questdb.cutlass.pgwire.PGWireServer;
@@ -48,6 +49,8 @@ import io.questdb.WorkerPoolManager.Requester;
 import io.questdb.std.Os;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.Closeable;
+
 public final class Services {
 
     @Nullable
@@ -93,13 +96,22 @@ public final class Services {
 
         final HttpServer server = new HttpServer(configuration, cairoEngine.getMessageBus(), metrics, workerPool);
         QueryCache.configure(configuration, metrics);
+        final QueryResultCache resultCache;
+        if (configuration.isQueryResultCacheEnabled()) {
+            // shared by all workers, entries that are still being sent are released by the workers themselves
+            resultCache = new QueryResultCache(cairoEngine, configuration.getQueryResultCacheSize());
+            workerPool.freeOnExit(resultCache);
+        } else {
+            resultCache = null;
+        }
         HttpServer.HttpRequestProcessorBuilder jsonQueryProcessorBuilder = () -> new JsonQueryProcessor(
                 configuration.getJsonQueryProcessorConfiguration(),
                 cairoEngine,
                 workerPool.getWorkerCount(),
                 sharedWorkerCount,
                 functionFactoryCache,
-                snapshotAgent
+                snapshotAgent,
+                resultCache
         );
 
         HttpServer.addDefaultEndpoints(
@@ -252,7 +264,7 @@ public final class Services {
     }
 
     @Nullable
-    public static AbstractLineProtoUdpReceiver createLineUdpReceiver(
+    public static Closeable createLineUdpReceiver(
             LineUdpReceiverConfiguration config,
             CairoEngine cairoEngine,
             WorkerPoolManager workerPoolManager
@@ -262,6 +274,9 @@ public final class Services {
         }
 
         // The pool is always the SHARED pool
+        if (config.getReceiverCount() > 1 && config.isUnicast()) {
+            return new LineUdpShardedReceiver(config, cairoEngine, workerPoolManager.getSharedPool());
+        }
         if (Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64) {
             return new LinuxMMLineUdpReceiver(config, cairoEngine, workerPoolManager.getSharedPool());
         }
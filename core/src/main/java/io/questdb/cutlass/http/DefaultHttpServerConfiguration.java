@@ -156,6 +156,16 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         return 4;
     }
 
+    @Override
+    public boolean isQueryResultCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getQueryResultCacheSize() {
+        return 64 * Numbers.SIZE_1MB;
+    }
+
     @Override
     public WaitProcessorConfiguration getWaitProcessorConfiguration() {
         return new WaitProcessorConfiguration() {
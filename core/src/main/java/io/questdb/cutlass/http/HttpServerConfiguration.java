@@ -41,6 +41,13 @@ public interface HttpServerConfiguration extends WorkerPoolConfiguration, HttpMi
 
     int getQueryCacheRowCount();
 
+    boolean isQueryResultCacheEnabled();
+
+    /**
+     * @return memory budget of the query result cache in bytes
+     */
+    long getQueryResultCacheSize();
+
     WaitProcessorConfiguration getWaitProcessorConfiguration();
 
     StaticContentProcessorConfiguration getStaticContentProcessorConfiguration();
@@ -30,6 +30,7 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.ex.RetryOperationException;
@@ -65,6 +66,10 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final Metrics metrics;
     private final long asyncWriterStartTimeout;
     private final long asyncCommandTimeout;
+    private final QueryResultCache resultCache;
+    private final QueryResultCacheWriter resultCacheWriter;
+    // set when result cache has no entry for the current query, the query result is then offered to the cache
+    private boolean resultCacheMiss;
 
     @TestOnly
     public JsonQueryProcessor(
@@ -82,11 +87,24 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             int sharedWorkerCount,
             @Nullable FunctionFactoryCache functionFactoryCache,
             @Nullable DatabaseSnapshotAgent snapshotAgent
+    ) {
+        this(configuration, engine, workerCount, sharedWorkerCount, functionFactoryCache, snapshotAgent, null);
+    }
+
+    public JsonQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            int workerCount,
+            int sharedWorkerCount,
+            @Nullable FunctionFactoryCache functionFactoryCache,
+            @Nullable DatabaseSnapshotAgent snapshotAgent,
+            @Nullable QueryResultCache resultCache
     ) {
         this(configuration,
                 engine,
                 new SqlCompiler(engine, functionFactoryCache, snapshotAgent),
-                new SqlExecutionContextImpl(engine, workerCount, sharedWorkerCount));
+                new SqlExecutionContextImpl(engine, workerCount, sharedWorkerCount),
+                resultCache);
     }
 
     public JsonQueryProcessor(
@@ -94,6 +112,16 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CairoEngine engine,
             SqlCompiler sqlCompiler,
             SqlExecutionContextImpl sqlExecutionContext
+    ) {
+        this(configuration, engine, sqlCompiler, sqlExecutionContext, null);
+    }
+
+    public JsonQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            SqlCompiler sqlCompiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            @Nullable QueryResultCache resultCache
     ) {
         this.configuration = configuration;
         this.compiler = sqlCompiler;
@@ -130,6 +158,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.metrics = engine.getMetrics();
         this.asyncWriterStartTimeout = engine.getConfiguration().getWriterAsyncCommandBusyWaitTimeout();
         this.asyncCommandTimeout = engine.getConfiguration().getWriterAsyncCommandMaxTimeout();
+        this.resultCache = resultCache;
+        this.resultCacheWriter = resultCache != null ? new QueryResultCacheWriter() : null;
     }
 
     @Override
@@ -137,6 +167,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         Misc.free(compiler);
         Misc.free(path);
         Misc.free(circuitBreaker);
+        Misc.free(resultCacheWriter);
     }
 
     public void execute0(JsonQueryProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
@@ -164,6 +195,10 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 return;
             }
 
+            if (resultCache != null && executeFromResultCache(state)) {
+                return;
+            }
+
             final RecordCursorFactory factory = QueryCache.getThreadLocalInstance().poll(state.getQuery());
             if (factory != null) {
                 try {
@@ -290,7 +325,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CompiledQuery cc,
             CharSequence keepAliveHeader
     ) throws SqlException {
-        throw SqlException.$(0, "copy from STDIN is not supported over REST");
+        // COPY TO STDOUT comes with the factory of the exported query
+        Misc.free(cc.getRecordCursorFactory());
+        throw SqlException.$(0, "copy from STDIN and copy to STDOUT are not supported over REST");
     }
 
     protected static void header(
@@ -518,14 +555,77 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 keepAliveHeader);
     }
 
+    private void executeAndCacheSelect(
+            JsonQueryProcessorState state,
+            RecordCursorFactory factory,
+            CharSequence keepAliveHeader
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        final QueryResultCache.Entry entry;
+        try {
+            entry = resultCacheWriter.materialize(state.getQuery(), factory, sqlExecutionContext, resultCache.getMemoryLimit());
+        } catch (Throwable e) {
+            // same as failed state.of(), state releases the factory along with the request
+            state.setRecordCursorFactory(factory, !(e instanceof CairoException) || ((CairoException) e).isCacheable());
+            throw e;
+        }
+        resultCache.put(entry);
+        if (entry.isTombstone()) {
+            // result has values that cannot be stored, query has not run yet, stream it as usual
+            resultCache.release(entry);
+            sendSelect(state, factory, true, keepAliveHeader);
+            return;
+        }
+
+        final RecordCursor cursor = resultCacheWriter.takeCursor();
+        if (cursor == null) {
+            // factory is not needed to serve this request, keep it for the next cache miss
+            QueryCache.getThreadLocalInstance().push(state.getQuery(), factory);
+            sendSelect(state, new QueryResultCacheRecordCursorFactory(resultCache, entry), false, keepAliveHeader);
+        } else {
+            // result exceeded memory limit, the rest of it is streamed from the query cursor
+            sendSelect(state, new QueryResultCacheRecordCursorFactory(resultCache, entry, factory, cursor), false, keepAliveHeader);
+        }
+    }
+
+    private boolean executeFromResultCache(JsonQueryProcessorState state) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        final QueryResultCache.Entry entry = resultCache.poll(state.getQuery(), sqlExecutionContext.getCairoSecurityContext());
+        if (entry == null) {
+            resultCacheMiss = true;
+            return false;
+        }
+        resultCacheMiss = false;
+        if (entry.isTombstone()) {
+            resultCache.release(entry);
+            return false;
+        }
+        sqlExecutionContext.storeTelemetry(CompiledQuery.SELECT, Telemetry.ORIGIN_HTTP_JSON);
+        state.setCompilerNanos(0);
+        state.logExecuteCached();
+        sendSelect(state, new QueryResultCacheRecordCursorFactory(resultCache, entry), false, configuration.getKeepAliveHeader());
+        return true;
+    }
+
     private void executeSelect(
             JsonQueryProcessorState state,
             RecordCursorFactory factory,
             CharSequence keepAliveHeader
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        if (resultCacheMiss) {
+            executeAndCacheSelect(state, factory, keepAliveHeader);
+        } else {
+            sendSelect(state, factory, true, keepAliveHeader);
+        }
+    }
+
+    private void sendSelect(
+            JsonQueryProcessorState state,
+            RecordCursorFactory factory,
+            boolean queryCacheable,
+            CharSequence keepAliveHeader
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         try {
-            if (state.of(factory, sqlExecutionContext)) {
+            if (state.of(factory, queryCacheable, sqlExecutionContext)) {
                 header(context.getChunkedResponseSocket(), keepAliveHeader, 200);
                 doResumeSend(state, context);
                 metrics.jsonQuery().markComplete();
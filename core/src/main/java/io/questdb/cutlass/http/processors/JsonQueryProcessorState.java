@@ -819,6 +819,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.queryCacheable = queryCacheable;
     }
 
+    void setRecordCursorFactory(RecordCursorFactory factory, boolean queryCacheable) {
+        this.recordCursorFactory = factory;
+        this.queryCacheable = queryCacheable;
+    }
+
     @FunctionalInterface
     interface StateResumeAction {
         void onResume(
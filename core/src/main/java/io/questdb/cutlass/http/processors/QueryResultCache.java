@@ -0,0 +1,353 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CairoSecurityContext;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Process-wide cache of materialized SELECT results served by the /exec endpoint.
+ * <p>
+ * Entries are keyed by SQL text and hold the result column by column in native memory.
+ * Each entry also remembers transaction, structure version and data version of every
+ * table it was derived from. Entry is only served while all of these tables are still
+ * at the remembered state, so commits, schema changes and table re-creation invalidate
+ * entries without any explicit notification.
+ * <p>
+ * Memory used by the entries is bounded by a budget, least recently used entries are
+ * evicted first. Entries that are being streamed to clients are reference counted and
+ * released once the response is sent, regardless of whether they are still cached.
+ */
+public class QueryResultCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(QueryResultCache.class);
+    private final CairoEngine engine;
+    private final long memoryLimit;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    // most recently used entry
+    private Entry head;
+    // least recently used entry
+    private Entry tail;
+    private long memoryUsed;
+    private boolean closed;
+
+    public QueryResultCache(CairoEngine engine, long memoryLimit) {
+        this.engine = engine;
+        this.memoryLimit = memoryLimit;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            while (tail != null) {
+                unlink(tail);
+            }
+            LOG.info().$("closed").$();
+        }
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Looks up entry for the given SQL text and checks that tables it was
+     * derived from did not move on since. Returned entry is acquired on behalf of the
+     * caller and must be released via {@link #release(Entry)}.
+     *
+     * @param sql             query text
+     * @param securityContext context used to open readers for validation
+     * @return valid entry or null when there is no entry or entry is stale
+     */
+    public Entry poll(CharSequence sql, CairoSecurityContext securityContext) {
+        final Entry entry = acquire(sql);
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.isValid(engine, securityContext)) {
+            log("hit", sql);
+            return entry;
+        }
+
+        log("stale", sql);
+        synchronized (this) {
+            if (entry.linked) {
+                unlink(entry);
+            }
+        }
+        release(entry);
+        return null;
+    }
+
+    /**
+     * Adds entry to the cache, replacing existing entry with the same SQL text. Entry is
+     * acquired on behalf of the caller, which must release it via {@link #release(Entry)}.
+     * Entry that cannot be cached leaves its tombstone in the cache instead, but remains
+     * usable until released. Same goes for entry that does not fit memory budget. Entry
+     * larger than the whole budget is rejected without evicting other entries.
+     */
+    public synchronized void put(Entry entry) {
+        entry.refCount++;
+        Entry cached = entry;
+        if (entry.tombstone != null) {
+            // entry is going to be freed as soon as it is served, it does not
+            // compete for the budget with cached entries
+            cached = entry.tombstone;
+        } else {
+            memoryUsed += entry.size;
+        }
+        if (closed) {
+            return;
+        }
+
+        if (cached != entry) {
+            memoryUsed += cached.size;
+        }
+
+        if (cached.size > memoryLimit) {
+            log("reject", cached.sql);
+            if (cached != entry) {
+                free(cached);
+            }
+            return;
+        }
+
+        final Entry existing = entries.get(cached.sql);
+        if (existing != null) {
+            unlink(existing);
+        }
+
+        while (memoryUsed > memoryLimit && tail != null) {
+            unlink(tail);
+        }
+
+        if (memoryUsed <= memoryLimit) {
+            entries.put(cached.sql, cached);
+            cached.linked = true;
+            linkHead(cached);
+            log("push", cached.sql);
+        } else if (cached != entry) {
+            free(cached);
+        }
+    }
+
+    public synchronized void release(Entry entry) {
+        assert entry.refCount > 0;
+        if (--entry.refCount == 0 && !entry.linked) {
+            free(entry);
+        }
+    }
+
+    private synchronized Entry acquire(CharSequence sql) {
+        final Entry entry = entries.get(sql);
+        if (entry != null) {
+            entry.refCount++;
+            if (entry != head) {
+                unlinkList(entry);
+                linkHead(entry);
+            }
+        } else {
+            log("miss", sql);
+        }
+        return entry;
+    }
+
+    private void free(Entry entry) {
+        if (entry.tombstone == null) {
+            memoryUsed -= entry.size;
+        }
+        entry.free();
+    }
+
+    private void linkHead(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    private void log(CharSequence action, CharSequence sql) {
+        LOG.debug().$(action)
+                .$(" [thread=").$(Thread.currentThread().getName())
+                .$(", sql=").utf8(sql)
+                .I$();
+    }
+
+    private void unlink(Entry entry) {
+        entries.remove(entry.sql);
+        unlinkList(entry);
+        entry.linked = false;
+        if (entry.refCount == 0) {
+            free(entry);
+        }
+    }
+
+    private void unlinkList(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = entry.next = null;
+    }
+
+    /**
+     * Immutable materialized result. Fixed size values of each column are stored back to
+     * back in a native buffer. STRING and SYMBOL columns store 64-bit offsets into
+     * a separate buffer of length-prefixed UTF-16 strings. BINARY and RECORD values
+     * are not stored.
+     * <p>
+     * Tombstone entries carry no data. They mark queries whose results are too large
+     * to cache or cannot be cached at all, so that these are not materialized again
+     * until their tables move on. Entry with such result is served to the request
+     * that materialized it and is replaced by its tombstone in the cache.
+     */
+    public static class Entry {
+        final String sql;
+        final RecordMetadata metadata;
+        final long rowCount;
+        final long size;
+        // per column value width in bytes, 0 for columns that are not stored
+        final IntList columnSizes;
+        final LongList fixAddresses;
+        final LongList fixSizes;
+        final LongList varAddresses;
+        final LongList varSizes;
+        final ObjList<String> tableNames;
+        final IntList tableIds;
+        final LongList tableVersions;
+        final LongList tableTxns;
+        final LongList tableDataVersions;
+        Entry prev;
+        Entry next;
+        // cached in place of this entry, when entry itself must not be cached
+        Entry tombstone;
+        int refCount;
+        boolean linked;
+
+        Entry(
+                String sql,
+                RecordMetadata metadata,
+                long rowCount,
+                IntList columnSizes,
+                LongList fixAddresses,
+                LongList fixSizes,
+                LongList varAddresses,
+                LongList varSizes,
+                ObjList<String> tableNames,
+                IntList tableIds,
+                LongList tableVersions,
+                LongList tableTxns,
+                LongList tableDataVersions
+        ) {
+            this.sql = sql;
+            this.metadata = metadata;
+            this.rowCount = rowCount;
+            this.columnSizes = columnSizes;
+            this.fixAddresses = fixAddresses;
+            this.fixSizes = fixSizes;
+            this.varAddresses = varAddresses;
+            this.varSizes = varSizes;
+            this.tableNames = tableNames;
+            this.tableIds = tableIds;
+            this.tableVersions = tableVersions;
+            this.tableTxns = tableTxns;
+            this.tableDataVersions = tableDataVersions;
+            // SQL text is accounted for too, otherwise tombstones would not count towards the budget
+            long size = (long) sql.length() * Character.BYTES;
+            if (fixSizes != null) {
+                for (int i = 0, n = fixSizes.size(); i < n; i++) {
+                    size += fixSizes.getQuick(i) + varSizes.getQuick(i);
+                }
+            }
+            this.size = size;
+        }
+
+        public boolean isTombstone() {
+            return metadata == null;
+        }
+
+        private void free() {
+            if (fixAddresses != null) {
+                for (int i = 0, n = fixAddresses.size(); i < n; i++) {
+                    freeQuick(fixAddresses, fixSizes, i);
+                    freeQuick(varAddresses, varSizes, i);
+                }
+            }
+        }
+
+        private static void freeQuick(LongList addresses, LongList sizes, int index) {
+            final long address = addresses.getQuick(index);
+            if (address != 0) {
+                Unsafe.free(address, sizes.getQuick(index), MemoryTag.NATIVE_QUERY_RESULT_CACHE);
+                addresses.setQuick(index, 0);
+            }
+        }
+
+        private boolean isValid(CairoEngine engine, CairoSecurityContext securityContext) {
+            for (int i = 0, n = tableNames.size(); i < n; i++) {
+                try (TableReader reader = engine.getReader(securityContext, tableNames.getQuick(i))) {
+                    if (reader.getMetadata().getId() != tableIds.getQuick(i)
+                            || reader.getVersion() != tableVersions.getQuick(i)
+                            || reader.getTxn() != tableTxns.getQuick(i)
+                            || reader.getDataVersion() != tableDataVersions.getQuick(i)) {
+                        return false;
+                    }
+                } catch (CairoException e) {
+                    // table is gone, locked or otherwise unavailable, let query itself deal with it
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
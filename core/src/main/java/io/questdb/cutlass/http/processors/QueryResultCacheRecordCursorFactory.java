@@ -0,0 +1,384 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.DelegatingRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Long256;
+import io.questdb.std.Long256Impl;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectCharSequence;
+
+/**
+ * Serves single acquired {@link QueryResultCache.Entry}. Factory is created per request and
+ * releases the entry when closed.
+ * <p>
+ * Entry that holds only the beginning of the result, because the result exceeded memory
+ * limit, is followed by the rest of the rows from the query cursor. Such factory owns the
+ * query factory and its cursor and serves single cursor, which does not support random access.
+ */
+public class QueryResultCacheRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final QueryResultCache cache;
+    private final QueryResultCacheRecordCursor cursor;
+    private final QueryResultCache.Entry entry;
+    private final OverflowRecordCursor overflowCursor;
+
+    public QueryResultCacheRecordCursorFactory(QueryResultCache cache, QueryResultCache.Entry entry) {
+        this(cache, entry, null, null);
+    }
+
+    /**
+     * @param base       factory of the query, which is released along with this factory, or null
+     * @param baseCursor cursor of the query positioned at the last row of the entry, or null
+     *                   when entry holds the entire result
+     */
+    public QueryResultCacheRecordCursorFactory(
+            QueryResultCache cache,
+            QueryResultCache.Entry entry,
+            RecordCursorFactory base,
+            RecordCursor baseCursor
+    ) {
+        super(entry.metadata);
+        assert !entry.isTombstone();
+        this.cache = cache;
+        this.entry = entry;
+        this.base = base;
+        this.cursor = new QueryResultCacheRecordCursor();
+        this.overflowCursor = baseCursor != null ? new OverflowRecordCursor(baseCursor) : null;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.toTop();
+        if (overflowCursor != null) {
+            overflowCursor.of();
+            return overflowCursor;
+        }
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return overflowCursor == null;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Query Result Cache");
+        sink.meta("rows").val(entry.rowCount);
+        if (base != null) {
+            sink.child(base);
+        }
+    }
+
+    @Override
+    protected void _close() {
+        cache.release(entry);
+        if (overflowCursor != null) {
+            overflowCursor.close();
+        }
+        Misc.free(base);
+    }
+
+    private class OverflowRecordCursor implements RecordCursor {
+        private final DelegatingRecord record = new DelegatingRecord();
+        private RecordCursor baseCursor;
+        private boolean streaming;
+
+        private OverflowRecordCursor(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!streaming) {
+                if (cursor.hasNext()) {
+                    return true;
+                }
+                streaming = true;
+                record.of(baseCursor.getRecord());
+            }
+            return baseCursor.hasNext();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void of() {
+            // query cursor can be read only once
+            assert !streaming && baseCursor != null;
+            record.of(cursor.getRecord());
+        }
+    }
+
+    private class QueryResultCacheRecordCursor implements RecordCursor {
+        private final CachedRecord recordA = new CachedRecord();
+        private final CachedRecord recordB = new CachedRecord();
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return recordB;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (recordA.row < entry.rowCount - 1) {
+                recordA.row++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((CachedRecord) record).row = atRowId;
+        }
+
+        @Override
+        public long size() {
+            return entry.rowCount;
+        }
+
+        @Override
+        public void skipTo(long rowCount) {
+            recordA.row = Math.min(rowCount, entry.rowCount) - 1;
+        }
+
+        @Override
+        public void toTop() {
+            recordA.row = -1;
+        }
+    }
+
+    private class CachedRecord implements Record {
+        private final DirectCharSequence strA = new DirectCharSequence();
+        private final DirectCharSequence strB = new DirectCharSequence();
+        private final Long256Impl long256A = new Long256Impl();
+        private final Long256Impl long256B = new Long256Impl();
+        private long row = -1;
+
+        @Override
+        public boolean getBool(int col) {
+            return Unsafe.getUnsafe().getByte(address(col)) == 1;
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return Unsafe.getUnsafe().getByte(address(col));
+        }
+
+        @Override
+        public char getChar(int col) {
+            return Unsafe.getUnsafe().getChar(address(col));
+        }
+
+        @Override
+        public long getDate(int col) {
+            return getLong(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return Unsafe.getUnsafe().getDouble(address(col));
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return Unsafe.getUnsafe().getFloat(address(col));
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return getByte(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return getInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return getLong(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return getShort(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return Unsafe.getUnsafe().getInt(address(col));
+        }
+
+        @Override
+        public long getLong(int col) {
+            return Unsafe.getUnsafe().getLong(address(col));
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            final long address = address(col);
+            Numbers.appendLong256(
+                    Unsafe.getUnsafe().getLong(address),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES * 2),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES * 3),
+                    sink
+            );
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return getLong256(col, long256A);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return getLong256(col, long256B);
+        }
+
+        @Override
+        public long getRowId() {
+            return row;
+        }
+
+        @Override
+        public short getShort(int col) {
+            return Unsafe.getUnsafe().getShort(address(col));
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return getStr(col, strA);
+        }
+
+        @Override
+        public void getStr(int col, CharSink sink) {
+            sink.put(getStr(col));
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return getStr(col, strB);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return Unsafe.getUnsafe().getInt(strAddress(col));
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return getStr(col, strA);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return getStr(col, strB);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return getLong(col);
+        }
+
+        private long address(int col) {
+            return entry.fixAddresses.getQuick(col) + row * entry.columnSizes.getQuick(col);
+        }
+
+        private Long256 getLong256(int col, Long256Impl long256) {
+            final long address = address(col);
+            long256.setAll(
+                    Unsafe.getUnsafe().getLong(address),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES * 2),
+                    Unsafe.getUnsafe().getLong(address + Long.BYTES * 3)
+            );
+            return long256;
+        }
+
+        private CharSequence getStr(int col, DirectCharSequence view) {
+            final long address = strAddress(col);
+            final int len = Unsafe.getUnsafe().getInt(address);
+            if (len == TableUtils.NULL_LEN) {
+                return null;
+            }
+            final long lo = address + Integer.BYTES;
+            return view.of(lo, lo + (long) len * Character.BYTES);
+        }
+
+        private long strAddress(int col) {
+            return entry.varAddresses.getQuick(col) + Unsafe.getUnsafe().getLong(address(col));
+        }
+    }
+}
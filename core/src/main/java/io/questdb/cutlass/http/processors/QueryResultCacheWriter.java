@@ -0,0 +1,377 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.griffin.QueryDependencyListener;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Executes query and copies its result into {@link QueryResultCache.Entry}. Entry gets its own
+ * exact size copy of the data, staging buffers are released as soon as the copy is made. Copy
+ * stops once result exceeds memory limit, the rest of the result is then read from the query
+ * cursor, which is handed over to the caller. Instances are not thread-safe, each HTTP worker
+ * owns one.
+ */
+public class QueryResultCacheWriter implements QueryDependencyListener, Closeable {
+    private static final int PAGE_SIZE = 16 * 1024;
+    private final ObjList<MemoryCARW> fixMemory = new ObjList<>();
+    private final ObjList<MemoryCARW> varMemory = new ObjList<>();
+    private final IntList columnSizes = new IntList();
+    private final ObjList<String> tableNames = new ObjList<>();
+    private final IntList tableIds = new IntList();
+    private final LongList tableVersions = new LongList();
+    private final LongList tableTxns = new LongList();
+    private final LongList tableDataVersions = new LongList();
+    private RecordCursor cursor;
+    private boolean nonDeterministic;
+
+    public QueryResultCacheWriter() {
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjListAndClear(fixMemory);
+        Misc.freeObjListAndClear(varMemory);
+        cursor = Misc.free(cursor);
+    }
+
+    /**
+     * Runs query and copies the result. Result that cannot be cached, for example because
+     * it depends on current time or does not read tables, is copied regardless and is served
+     * to the caller. Such entry carries tombstone to be cached in its place. Result that exceeds
+     * memory limit is copied up to the limit only, see {@link #takeCursor()}.
+     *
+     * @return entry with the result; tombstone entry without executing the query when result
+     * has values that cannot be stored
+     */
+    public QueryResultCache.Entry materialize(
+            CharSequence sql,
+            RecordCursorFactory factory,
+            SqlExecutionContextImpl executionContext,
+            long memoryLimit
+    ) throws SqlException {
+        try {
+            return materialize0(sql, factory, executionContext, memoryLimit);
+        } catch (Throwable th) {
+            cursor = Misc.free(cursor);
+            throw th;
+        } finally {
+            for (int i = 0, n = fixMemory.size(); i < n; i++) {
+                fixMemory.getQuick(i).close();
+                varMemory.getQuick(i).close();
+            }
+        }
+    }
+
+    @Override
+    public void onNonDeterministicValue() {
+        nonDeterministic = true;
+    }
+
+    @Override
+    public void onTableReader(TableReader reader) {
+        final String tableName = reader.getTableName();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            if (tableNames.getQuick(i).equals(tableName) && tableTxns.getQuick(i) == reader.getTxn()) {
+                return;
+            }
+        }
+        tableNames.add(tableName);
+        tableIds.add(reader.getMetadata().getId());
+        tableVersions.add(reader.getVersion());
+        tableTxns.add(reader.getTxn());
+        tableDataVersions.add(reader.getDataVersion());
+    }
+
+    /**
+     * Hands over cursor of the query, when the last materialized result exceeded memory limit.
+     * Cursor is positioned at the last row copied into the entry. Caller owns the cursor.
+     *
+     * @return cursor with the rest of the result or null when result was copied in full
+     */
+    public RecordCursor takeCursor() {
+        final RecordCursor cursor = this.cursor;
+        this.cursor = null;
+        return cursor;
+    }
+
+    static int storageSizeOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                return Byte.BYTES;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.GEOSHORT:
+                return Short.BYTES;
+            case ColumnType.INT:
+            case ColumnType.FLOAT:
+            case ColumnType.GEOINT:
+                return Integer.BYTES;
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.GEOLONG:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                return Long.BYTES;
+            case ColumnType.LONG256:
+                return Long256.BYTES;
+            case ColumnType.BINARY:
+            case ColumnType.RECORD:
+            case ColumnType.NULL:
+                // JSON output does not print values of these types
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    private static void copyMemory(MemoryCARW mem, LongList addresses, LongList sizes) {
+        final long size = mem.getAppendOffset();
+        if (size > 0) {
+            final long address = Unsafe.malloc(size, MemoryTag.NATIVE_QUERY_RESULT_CACHE);
+            Vect.memcpy(address, mem.getPageAddress(0), size);
+            addresses.add(address);
+        } else {
+            addresses.add(0);
+        }
+        sizes.add(size);
+    }
+
+    private static ObjList<String> copyOf(ObjList<String> list) {
+        return new ObjList<>(list);
+    }
+
+    private static IntList copyOf(IntList list) {
+        final IntList copy = new IntList(list.size());
+        copy.addAll(list);
+        return copy;
+    }
+
+    private QueryResultCache.Entry newTombstone(String sql, boolean permanent) {
+        return new QueryResultCache.Entry(
+                sql,
+                null,
+                0,
+                null,
+                null,
+                null,
+                null,
+                null,
+                permanent ? new ObjList<>() : copyOf(tableNames),
+                permanent ? new IntList() : copyOf(tableIds),
+                permanent ? new LongList() : new LongList(tableVersions),
+                permanent ? new LongList() : new LongList(tableTxns),
+                permanent ? new LongList() : new LongList(tableDataVersions)
+        );
+    }
+
+    private void copyValue(Record record, int col, int columnType) {
+        final MemoryCARW fix = fixMemory.getQuick(col);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                fix.putBool(record.getBool(col));
+                break;
+            case ColumnType.BYTE:
+                fix.putByte(record.getByte(col));
+                break;
+            case ColumnType.GEOBYTE:
+                fix.putByte(record.getGeoByte(col));
+                break;
+            case ColumnType.SHORT:
+                fix.putShort(record.getShort(col));
+                break;
+            case ColumnType.CHAR:
+                fix.putChar(record.getChar(col));
+                break;
+            case ColumnType.GEOSHORT:
+                fix.putShort(record.getGeoShort(col));
+                break;
+            case ColumnType.INT:
+                fix.putInt(record.getInt(col));
+                break;
+            case ColumnType.FLOAT:
+                fix.putFloat(record.getFloat(col));
+                break;
+            case ColumnType.GEOINT:
+                fix.putInt(record.getGeoInt(col));
+                break;
+            case ColumnType.LONG:
+                fix.putLong(record.getLong(col));
+                break;
+            case ColumnType.DOUBLE:
+                fix.putDouble(record.getDouble(col));
+                break;
+            case ColumnType.DATE:
+                fix.putLong(record.getDate(col));
+                break;
+            case ColumnType.TIMESTAMP:
+                fix.putLong(record.getTimestamp(col));
+                break;
+            case ColumnType.GEOLONG:
+                fix.putLong(record.getGeoLong(col));
+                break;
+            case ColumnType.LONG256:
+                fix.putLong256(record.getLong256A(col));
+                break;
+            case ColumnType.STRING:
+                copyStr(fix, varMemory.getQuick(col), record.getStr(col));
+                break;
+            case ColumnType.SYMBOL:
+                copyStr(fix, varMemory.getQuick(col), record.getSym(col));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void copyStr(MemoryCARW fix, MemoryCARW var, CharSequence value) {
+        fix.putLong(var.getAppendOffset());
+        var.putStr(value);
+    }
+
+    private QueryResultCache.Entry materialize0(
+            CharSequence sql,
+            RecordCursorFactory factory,
+            SqlExecutionContextImpl executionContext,
+            long memoryLimit
+    ) throws SqlException {
+        final RecordMetadata metadata = factory.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final String key = Chars.toString(sql);
+        if (!prepare(metadata)) {
+            // result has values we cannot store
+            return newTombstone(key, true);
+        }
+
+        boolean overflow = false;
+        long rowCount = 0;
+        executionContext.setDependencyListener(this);
+        RecordCursor cursor = null;
+        try {
+            cursor = factory.getCursor(executionContext);
+            final Record record = cursor.getRecord();
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            while (cursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                for (int i = 0; i < columnCount; i++) {
+                    copyValue(record, i, metadata.getColumnType(i));
+                }
+                rowCount++;
+                if (getSize() > memoryLimit) {
+                    overflow = true;
+                    break;
+                }
+            }
+            if (overflow) {
+                // caller streams the rest of the result, query is not executed again
+                this.cursor = cursor;
+                cursor = null;
+            }
+        } finally {
+            executionContext.setDependencyListener(null);
+            Misc.free(cursor);
+        }
+
+        final LongList fixAddresses = new LongList(columnCount);
+        final LongList fixSizes = new LongList(columnCount);
+        final LongList varAddresses = new LongList(columnCount);
+        final LongList varSizes = new LongList(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            copyMemory(fixMemory.getQuick(i), fixAddresses, fixSizes);
+            copyMemory(varMemory.getQuick(i), varAddresses, varSizes);
+        }
+
+        final QueryResultCache.Entry entry = new QueryResultCache.Entry(
+                key,
+                GenericRecordMetadata.copyOf(metadata),
+                rowCount,
+                copyOf(columnSizes),
+                fixAddresses,
+                fixSizes,
+                varAddresses,
+                varSizes,
+                copyOf(tableNames),
+                copyOf(tableIds),
+                new LongList(tableVersions),
+                new LongList(tableTxns),
+                new LongList(tableDataVersions)
+        );
+        if (nonDeterministic || tableNames.size() == 0) {
+            entry.tombstone = newTombstone(key, true);
+        } else if (overflow) {
+            entry.tombstone = newTombstone(key, false);
+        }
+        return entry;
+    }
+
+    private long getSize() {
+        long size = 0;
+        for (int i = 0, n = columnSizes.size(); i < n; i++) {
+            size += fixMemory.getQuick(i).getAppendOffset() + varMemory.getQuick(i).getAppendOffset();
+        }
+        return size;
+    }
+
+    private boolean prepare(RecordMetadata metadata) {
+        nonDeterministic = false;
+        tableNames.clear();
+        tableIds.clear();
+        tableVersions.clear();
+        tableTxns.clear();
+        tableDataVersions.clear();
+        columnSizes.clear();
+
+        final int columnCount = metadata.getColumnCount();
+        boolean cacheable = true;
+        for (int i = 0; i < columnCount; i++) {
+            final int size = storageSizeOf(metadata.getColumnType(i));
+            cacheable &= size > -1;
+            columnSizes.add(size);
+            if (i == fixMemory.size()) {
+                fixMemory.add(Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+                varMemory.add(Vm.getCARWInstance(PAGE_SIZE, Integer.MAX_VALUE, MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+            }
+        }
+        return cacheable;
+    }
+}
@@ -48,6 +48,16 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return true;
     }
 
+    @Override
+    public boolean isColumnarAppendEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isCompressionEnabled() {
+        return false;
+    }
+
     @Override
     public boolean getDisconnectOnError() {
         return true;
@@ -158,6 +168,16 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 30_000;
     }
 
+    @Override
+    public double getWriterRebalanceLatencyRatio() {
+        return 2.0;
+    }
+
+    @Override
+    public long getWriterRebalanceLatencyThreshold() {
+        return 0;
+    }
+
     @Override
     public long getSymbolCacheWaitUsBeforeReload() {
         return 500_000;
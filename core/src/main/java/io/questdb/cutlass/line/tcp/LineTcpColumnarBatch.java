@@ -0,0 +1,260 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterMetadata;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+
+import static io.questdb.cutlass.line.tcp.LineTcpParser.ENTITY_TYPE_NULL;
+
+/**
+ * Consecutive measurements of the same table collected by the writer thread, so that
+ * they are appended to the table column at a time rather than row by row.
+ * <p>
+ * Events stay in the writer queue until the batch is appended, the batch keeps addresses
+ * of their values only. For every row there is a slot per table column, slot holds address of
+ * the entity type byte followed by the value or zero when the line has no value for the column.
+ */
+class LineTcpColumnarBatch {
+    private final LongList values = new LongList();
+    private final LongList timestamps = new LongList();
+    private final ObjList<LineTcpEventBuffer> buffers = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final StringSink lastSymbol = new StringSink();
+    private int columnCount;
+    private int timestampIndex;
+    private int rowCount;
+
+    /**
+     * Adds measurement to the batch.
+     *
+     * @return false when measurement cannot be appended as part of the batch, batch is left unchanged
+     */
+    boolean add(LineTcpMeasurementEvent event) {
+        final long timestamp = event.getTimestamp();
+        if (rowCount > 0 && timestamp < timestamps.getLast()) {
+            return false;
+        }
+
+        final LineTcpEventBuffer buffer = event.getBuffer();
+        final int rowLo = rowCount * columnCount;
+        values.setPos(rowLo + columnCount);
+        values.fill(rowLo, rowLo + columnCount, 0);
+
+        long offset = buffer.getAddress() + Long.BYTES;
+        final int nEntities = buffer.readInt(offset);
+        offset += Integer.BYTES;
+        for (int nEntity = 0; nEntity < nEntities; nEntity++) {
+            final int colIndex = buffer.readInt(offset);
+            offset += Integer.BYTES;
+            // new columns are added by the row by row path
+            if (colIndex < 0 || colIndex >= columnCount || columnTypes.getQuick(colIndex) < 0) {
+                values.setPos(rowLo);
+                return false;
+            }
+            final long entityAddress = offset;
+            offset = skipValue(buffer, offset);
+            if (offset < 0) {
+                values.setPos(rowLo);
+                return false;
+            }
+            if (buffer.readByte(entityAddress) != ENTITY_TYPE_NULL) {
+                values.setQuick(rowLo + colIndex, entityAddress);
+            }
+        }
+        timestamps.add(timestamp);
+        buffers.add(buffer);
+        rowCount++;
+        return true;
+    }
+
+    /**
+     * Appends all rows of the batch to the table.
+     *
+     * @return false when the table writer cannot take the rows in bulk, nothing is appended then
+     */
+    boolean append(TableWriter writer) {
+        final TableWriter.Batch batch = writer.newBatch(timestamps.getQuick(0), timestamps.getLast());
+        if (batch == null) {
+            return false;
+        }
+        try {
+            for (int col = 0; col < columnCount; col++) {
+                if (col != timestampIndex && columnTypes.getQuick(col) > -1) {
+                    appendColumn(batch, col);
+                }
+            }
+            for (int row = 0; row < rowCount; row++) {
+                batch.putDesignatedTimestamp(timestamps.getQuick(row));
+            }
+        } catch (Throwable th) {
+            batch.cancel();
+            throw th;
+        }
+        batch.append(rowCount);
+        return true;
+    }
+
+    void clear() {
+        values.clear();
+        timestamps.clear();
+        buffers.clear();
+        rowCount = 0;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    void of(TableWriter writer) {
+        clear();
+        final TableWriterMetadata metadata = writer.getMetadata();
+        columnCount = metadata.getColumnCount();
+        timestampIndex = metadata.getTimestampIndex();
+        columnTypes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            columnTypes.add(metadata.getColumnType(i));
+        }
+    }
+
+    /**
+     * Skips value of the entity at the address.
+     *
+     * @return address of the next entity or -1 when entity type cannot be appended by the batch,
+     * the line is left to the row by row path then
+     */
+    private static long skipValue(LineTcpEventBuffer buffer, long address) {
+        final long valueAddress = address + Byte.BYTES;
+        switch (buffer.readByte(address)) {
+            case LineTcpParser.ENTITY_TYPE_TAG:
+            case LineTcpParser.ENTITY_TYPE_STRING:
+            case LineTcpParser.ENTITY_TYPE_LONG256:
+                return buffer.skipString(valueAddress);
+            case LineTcpParser.ENTITY_TYPE_LONG:
+            case LineTcpParser.ENTITY_TYPE_GEOLONG:
+            case LineTcpParser.ENTITY_TYPE_DATE:
+            case LineTcpParser.ENTITY_TYPE_DOUBLE:
+            case LineTcpParser.ENTITY_TYPE_TIMESTAMP:
+                return valueAddress + Long.BYTES;
+            case LineTcpParser.ENTITY_TYPE_CACHED_TAG:
+            case LineTcpParser.ENTITY_TYPE_INTEGER:
+            case LineTcpParser.ENTITY_TYPE_GEOINT:
+            case LineTcpParser.ENTITY_TYPE_FLOAT:
+                return valueAddress + Integer.BYTES;
+            case LineTcpParser.ENTITY_TYPE_SHORT:
+            case LineTcpParser.ENTITY_TYPE_GEOSHORT:
+            case LineTcpParser.ENTITY_TYPE_CHAR:
+                return valueAddress + Short.BYTES;
+            case LineTcpParser.ENTITY_TYPE_BYTE:
+            case LineTcpParser.ENTITY_TYPE_GEOBYTE:
+            case LineTcpParser.ENTITY_TYPE_BOOLEAN:
+                return valueAddress + Byte.BYTES;
+            case ENTITY_TYPE_NULL:
+                return valueAddress;
+            default:
+                return -1;
+        }
+    }
+
+    private void appendColumn(TableWriter.Batch batch, int col) {
+        // consecutive lines tend to repeat tag values, symbol key of the previous
+        // row is reused instead of looking the value up in the symbol table again
+        int lastSymbolKey = -1;
+        for (int row = 0; row < rowCount; row++) {
+            final long address = values.getQuick(row * columnCount + col);
+            if (address == 0) {
+                batch.putNull(col);
+                continue;
+            }
+            final LineTcpEventBuffer buffer = buffers.getQuick(row);
+            final long valueAddress = address + Byte.BYTES;
+            switch (buffer.readByte(address)) {
+                case LineTcpParser.ENTITY_TYPE_TAG: {
+                    final CharSequence value = buffer.readString(valueAddress);
+                    if (lastSymbolKey > -1 && Chars.equals(lastSymbol, value)) {
+                        batch.putSymIndex(col, lastSymbolKey);
+                    } else {
+                        lastSymbolKey = batch.putSym(col, value);
+                        lastSymbol.clear();
+                        lastSymbol.put(value);
+                    }
+                    break;
+                }
+                case LineTcpParser.ENTITY_TYPE_CACHED_TAG:
+                    batch.putSymIndex(col, buffer.readInt(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_LONG:
+                case LineTcpParser.ENTITY_TYPE_GEOLONG:
+                case LineTcpParser.ENTITY_TYPE_DATE:
+                case LineTcpParser.ENTITY_TYPE_TIMESTAMP:
+                    batch.putLong(col, buffer.readLong(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_INTEGER:
+                case LineTcpParser.ENTITY_TYPE_GEOINT:
+                    batch.putInt(col, buffer.readInt(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_SHORT:
+                case LineTcpParser.ENTITY_TYPE_GEOSHORT:
+                    batch.putShort(col, buffer.readShort(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_BYTE:
+                case LineTcpParser.ENTITY_TYPE_GEOBYTE:
+                    batch.putByte(col, buffer.readByte(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_DOUBLE:
+                    batch.putDouble(col, buffer.readDouble(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_FLOAT:
+                    batch.putFloat(col, buffer.readFloat(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_BOOLEAN:
+                    batch.putBool(col, buffer.readByte(valueAddress) == 1);
+                    break;
+                case LineTcpParser.ENTITY_TYPE_STRING:
+                    batch.putStr(col, buffer.readString(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_CHAR:
+                    batch.putChar(col, buffer.readChar(valueAddress));
+                    break;
+                case LineTcpParser.ENTITY_TYPE_LONG256:
+                    batch.putLong256(col, buffer.readString(valueAddress));
+                    break;
+                default:
+                    // add() takes lines with the entity types of skipValue() only, and those
+                    // are the types the row by row path writes, so this is a broken event buffer
+                    throw CairoException.critical(0).put("unexpected ILP entity type in columnar batch [type=")
+                            .put(buffer.readByte(address))
+                            .put(", column=").put(col)
+                            .put(']');
+            }
+        }
+    }
+}
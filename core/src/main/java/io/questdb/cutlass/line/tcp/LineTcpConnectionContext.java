@@ -34,12 +34,19 @@ import io.questdb.network.NetworkFacade;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
+import io.questdb.std.Zip;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.DirectByteCharSequence;
 
 class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectionContext> {
+    // line sent by client ahead of measurements to switch the rest of the connection to zlib compressed stream,
+    // it is not a valid measurement, so it cannot be confused with plain text data
+    static final String COMPRESSION_HANDSHAKE = "zlib\n";
     private static final Log LOG = LogFactory.getLog(LineTcpConnectionContext.class);
     private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
+    private static final int COMPRESSION_PENDING = 0;
+    private static final int COMPRESSION_NONE = 1;
+    private static final int COMPRESSION_ZLIB = 2;
     protected final NetworkFacade nf;
     private final LineTcpMeasurementScheduler scheduler;
     private final Metrics metrics;
@@ -47,6 +54,8 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private final LineTcpParser parser;
     private final boolean disconnectOnError;
+    private final boolean compressionEnabled;
+    private final int compressedBufSize;
     protected long recvBufStart;
     protected long recvBufEnd;
     protected long recvBufPos;
@@ -54,10 +63,15 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
     protected long recvBufStartOfMeasurement;
     private long lastQueueFullLogMillis = 0;
     private boolean goodMeasurement;
+    private int compression;
+    private long compressedBufStart;
+    private long zStream;
 
     LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler, Metrics metrics) {
         nf = configuration.getNetworkFacade();
         disconnectOnError = configuration.getDisconnectOnError();
+        compressionEnabled = configuration.isCompressionEnabled();
+        compressedBufSize = configuration.getNetMsgBufferSize();
         this.scheduler = scheduler;
         this.metrics = metrics;
         this.milliClock = configuration.getMillisecondClock();
@@ -71,12 +85,22 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        compression = compressionEnabled ? COMPRESSION_PENDING : COMPRESSION_NONE;
+        if (zStream != 0) {
+            Zip.inflateEnd(zStream);
+            zStream = 0;
+        }
         resetParser();
     }
 
     @Override
     public void close() {
         this.fd = -1;
+        if (zStream != 0) {
+            Zip.inflateEnd(zStream);
+            zStream = 0;
+        }
+        compressedBufStart = Unsafe.free(compressedBufStart, compressedBufSize, MemoryTag.NATIVE_ILP_RSS);
         recvBufStart = recvBufEnd = recvBufPos = Unsafe.free(recvBufStart, recvBufEnd - recvBufStart, MemoryTag.NATIVE_ILP_RSS);
     }
 
@@ -140,6 +164,10 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        if (compression == COMPRESSION_PENDING && !negotiateCompression()) {
+            return peerDisconnected ? IOContextResult.NEEDS_DISCONNECT : IOContextResult.NEEDS_READ;
+        }
+
         while (true) {
             try {
                 ParseResult rc = goodMeasurement ? parser.parseMeasurement(recvBufPos) : parser.skipMeasurement(recvBufPos);
@@ -210,6 +238,54 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
         }
     }
 
+    /**
+     * Inflates compressed stream received from socket into the receive buffer. Concatenated zlib streams are
+     * accepted, so that sender can finish stream at the end of every batch.
+     *
+     * @return true if any bytes were added to the receive buffer
+     */
+    private boolean inflate() {
+        final int bufferRemaining = (int) (recvBufEnd - recvBufPos);
+        if (bufferRemaining == 0) {
+            return !peerDisconnected;
+        }
+
+        while (true) {
+            if (Zip.availIn(zStream) == 0) {
+                if (peerDisconnected) {
+                    return false;
+                }
+                int bytesRead = nf.recv(fd, compressedBufStart, compressedBufSize);
+                if (bytesRead <= 0) {
+                    peerDisconnected = bytesRead < 0;
+                    return false;
+                }
+                metrics.lineTcp().compressedBytesCounter().add(bytesRead);
+                Zip.setInput(zStream, compressedBufStart, bytesRead);
+            }
+
+            int n = Zip.inflate(zStream, recvBufPos, bufferRemaining, false);
+            if (n == 0 && Zip.availIn(zStream) > 0) {
+                // previous stream has ended and there is more input, sender started new stream
+                Zip.inflateReset(zStream);
+                continue;
+            }
+
+            if (n < 0 && n != Zip.Z_BUF_ERROR) {
+                LOG.error().$('[').$(fd).$("] could not inflate compressed stream [rc=").$(n).I$();
+                // no way to resynchronise with the stream
+                peerDisconnected = true;
+                return false;
+            }
+
+            if (n > 0) {
+                recvBufPos += n;
+                metrics.lineTcp().inflatedBytesCounter().add(n);
+                return true;
+            }
+        }
+    }
+
     private void logParseError() {
         int position = (int) (parser.getBufferAddress() - recvBufStartOfMeasurement);
         assert position >= 0;
@@ -222,6 +298,48 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
                 .$();
     }
 
+    /**
+     * Checks whether connection starts with compression handshake. Bytes that follow the handshake are
+     * compressed, they are moved to the compressed buffer to be inflated into the receive buffer.
+     *
+     * @return false when not enough bytes are received to tell whether there is a handshake or when
+     * connection has to be closed
+     */
+    private boolean negotiateCompression() {
+        final int handshakeLen = COMPRESSION_HANDSHAKE.length();
+        final long hi = Math.min(recvBufPos, recvBufStart + handshakeLen);
+        for (long p = recvBufStart; p < hi; p++) {
+            if (Unsafe.getUnsafe().getByte(p) != COMPRESSION_HANDSHAKE.charAt((int) (p - recvBufStart))) {
+                compression = COMPRESSION_NONE;
+                return true;
+            }
+        }
+
+        if (hi - recvBufStart < handshakeLen) {
+            return false;
+        }
+
+        final long z = Zip.inflateInit(false);
+        if (z < 0) {
+            LOG.error().$('[').$(fd).$("] could not initialise inflater [rc=").$(z).I$();
+            peerDisconnected = true;
+            return false;
+        }
+        zStream = z;
+        if (compressedBufStart == 0) {
+            compressedBufStart = Unsafe.malloc(compressedBufSize, MemoryTag.NATIVE_ILP_RSS);
+        }
+        final int len = (int) (recvBufPos - hi);
+        Vect.memcpy(compressedBufStart, hi, len);
+        Zip.setInput(zStream, compressedBufStart, len);
+        metrics.lineTcp().compressedBytesCounter().add(len);
+        recvBufPos = recvBufStart;
+        resetParser();
+        compression = COMPRESSION_ZLIB;
+        LOG.info().$('[').$(fd).$("] zlib compression negotiated").$();
+        return true;
+    }
+
     private void startNewMeasurement() {
         parser.startNextMeasurement();
         recvBufStartOfMeasurement = parser.getBufferAddress();
@@ -234,6 +352,10 @@ class LineTcpConnectionContext extends AbstractMutableIOContext<LineTcpConnectio
     }
 
     protected boolean read() {
+        if (compression == COMPRESSION_ZLIB) {
+            return inflate();
+        }
+
         int bufferRemaining = (int) (recvBufEnd - recvBufPos);
         final int orig = bufferRemaining;
         if (bufferRemaining > 0 && !peerDisconnected) {
@@ -33,16 +33,22 @@ import io.questdb.std.Chars;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.FloatingDirectCharSink;
 
-import static io.questdb.cutlass.line.tcp.LineTcpUtils.utf8ToUtf16;
 import static io.questdb.cutlass.line.tcp.LineTcpUtils.utf8ToUtf16Unchecked;
 
+/**
+ * Strings, symbols and long256 values are stored as length followed by the chars. ASCII values are
+ * copied from the receive buffer byte for byte and stored with negative length, values with non-ASCII
+ * chars are decoded to UTF-16 and stored with positive length.
+ */
 public class LineTcpEventBuffer {
     private final long bufLo;
     private final long bufSize;
     private final FloatingDirectCharSink tempSink = new FloatingDirectCharSink();
+    private final DirectByteCharSequence tempAsciiSeq = new DirectByteCharSequence();
 
     public LineTcpEventBuffer(long bufLo, long bufSize) {
         this.bufLo = bufLo;
@@ -192,6 +198,17 @@ public class LineTcpEventBuffer {
     }
 
     public long addSymbol(long address, DirectByteCharSequence value, boolean hasNonAsciiChars, SymbolLookup symbolLookup) {
+        if (!hasNonAsciiChars) {
+            final int symIndex = symbolLookup.keyOf(value);
+            if (symIndex != SymbolTable.VALUE_NOT_FOUND) {
+                checkCapacity(address, Byte.BYTES + Integer.BYTES);
+                Unsafe.getUnsafe().putByte(address, LineTcpParser.ENTITY_TYPE_CACHED_TAG);
+                Unsafe.getUnsafe().putInt(address + Byte.BYTES, symIndex);
+                return address + Integer.BYTES + Byte.BYTES;
+            }
+            return addAsciiString(address, value, LineTcpParser.ENTITY_TYPE_TAG);
+        }
+
         final int maxLen = 2 * value.length();
         checkCapacity(address, Byte.BYTES + Integer.BYTES + maxLen);
         final long strPos = address + Byte.BYTES + Integer.BYTES; // skip field type and string length
@@ -199,10 +216,9 @@ public class LineTcpEventBuffer {
         // via temp string the utf8 decoder will be writing directly to our buffer
         tempSink.of(strPos, strPos + maxLen);
 
-        // this method will write column name to the buffer if it has to be utf8 decoded
-        // otherwise it will write nothing.
-        CharSequence columnValue = utf8ToUtf16(value, tempSink, hasNonAsciiChars);
-        final int symIndex = symbolLookup.keyOf(columnValue);
+        // the utf8 decoder writes symbol value to the buffer
+        utf8ToUtf16Unchecked(value, tempSink);
+        final int symIndex = symbolLookup.keyOf(tempSink);
         if (symIndex != SymbolTable.VALUE_NOT_FOUND) {
             // We know the symbol int value
             // Encode the int
@@ -212,9 +228,6 @@ public class LineTcpEventBuffer {
         } else {
             // Symbol value cannot be resolved at this point
             // Encode whole string value into the message
-            if (!hasNonAsciiChars) {
-                tempSink.put(columnValue);
-            }
             final int length = tempSink.length();
             Unsafe.getUnsafe().putByte(address, LineTcpParser.ENTITY_TYPE_TAG);
             Unsafe.getUnsafe().putInt(address + Byte.BYTES, length);
@@ -257,8 +270,17 @@ public class LineTcpEventBuffer {
         return Unsafe.getUnsafe().getShort(address);
     }
 
-    public CharSequence readUtf16Chars(long address) {
-        int len = readInt(address);
+    /**
+     * Reads string, symbol or long256 value stored at the address.
+     *
+     * @param address address of the value length
+     * @return flyweight char sequence, valid until the next read
+     */
+    public CharSequence readString(long address) {
+        final int len = readInt(address);
+        if (len < 0) {
+            return tempAsciiSeq.of(address + Integer.BYTES, address + Integer.BYTES - len);
+        }
         return readUtf16Chars(address + Integer.BYTES, len);
     }
 
@@ -267,16 +289,33 @@ public class LineTcpEventBuffer {
         return tempSink;
     }
 
+    /**
+     * @param address address of the value length
+     * @return address right after the string, symbol or long256 value stored at the address
+     */
+    public long skipString(long address) {
+        final int len = readInt(address);
+        return address + Integer.BYTES + (len < 0 ? -len : len * 2L);
+    }
+
+    private long addAsciiString(long address, DirectByteCharSequence value, byte entityType) {
+        final int length = value.length();
+        checkCapacity(address, Byte.BYTES + Integer.BYTES + length);
+        Unsafe.getUnsafe().putByte(address, entityType);
+        Unsafe.getUnsafe().putInt(address + Byte.BYTES, -length);
+        Vect.memcpy(address + Byte.BYTES + Integer.BYTES, value.getLo(), length);
+        return address + length + Integer.BYTES + Byte.BYTES;
+    }
+
     private long addString(long address, DirectByteCharSequence value, boolean hasNonAsciiChars, byte entityTypeString) {
+        if (!hasNonAsciiChars) {
+            return addAsciiString(address, value, entityTypeString);
+        }
         int maxLen = 2 * value.length();
         checkCapacity(address, Byte.BYTES + Integer.BYTES + maxLen);
         long strPos = address + Byte.BYTES + Integer.BYTES; // skip field type and string length
         tempSink.of(strPos, strPos + maxLen);
-        if (hasNonAsciiChars) {
-            utf8ToUtf16Unchecked(value, tempSink);
-        } else {
-            tempSink.put(value);
-        }
+        utf8ToUtf16Unchecked(value, tempSink);
         final int length = tempSink.length();
         Unsafe.getUnsafe().putByte(address, entityTypeString);
         Unsafe.getUnsafe().putInt(address + Byte.BYTES, length);
@@ -87,6 +87,18 @@ class LineTcpMeasurementEvent implements Closeable {
         return writerWorkerId;
     }
 
+    LineTcpEventBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return designated timestamp of the measurement, current time when the line did not have one
+     */
+    long getTimestamp() {
+        final long timestamp = buffer.readLong(buffer.getAddress());
+        return timestamp != LineTcpParser.NULL_TIMESTAMP ? timestamp : clock.getTicks();
+    }
+
     public void releaseWriter() {
         tableUpdateDetails.releaseWriter(commitOnWriterClose);
     }
@@ -95,12 +107,8 @@ class LineTcpMeasurementEvent implements Closeable {
         TableWriter.Row row = null;
         try {
             TableWriter writer = tableUpdateDetails.getWriter();
-            long offset = buffer.getAddress();
-            long timestamp = buffer.readLong(offset);
-            offset += Long.BYTES;
-            if (timestamp == LineTcpParser.NULL_TIMESTAMP) {
-                timestamp = clock.getTicks();
-            }
+            long offset = buffer.getAddress() + Long.BYTES;
+            final long timestamp = getTimestamp();
             row = writer.newRow(timestamp);
             int nEntities = buffer.readInt(offset);
             offset += Integer.BYTES;
@@ -140,12 +148,10 @@ class LineTcpMeasurementEvent implements Closeable {
                     }
                 }
 
-                CharSequence cs;
                 switch (entityType) {
                     case LineTcpParser.ENTITY_TYPE_TAG:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putSym(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
+                        row.putSym(colIndex, buffer.readString(offset));
+                        offset = buffer.skipString(offset);
                         break;
                     case LineTcpParser.ENTITY_TYPE_CACHED_TAG:
                         row.putSymIndex(colIndex, buffer.readInt(offset));
@@ -188,18 +194,16 @@ class LineTcpMeasurementEvent implements Closeable {
                         offset += Byte.BYTES;
                         break;
                     case LineTcpParser.ENTITY_TYPE_STRING:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putStr(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
+                        row.putStr(colIndex, buffer.readString(offset));
+                        offset = buffer.skipString(offset);
                         break;
                     case LineTcpParser.ENTITY_TYPE_CHAR:
                         row.putChar(colIndex, buffer.readChar(offset));
                         offset += Character.BYTES;
                         break;
                     case LineTcpParser.ENTITY_TYPE_LONG256:
-                        cs = buffer.readUtf16Chars(offset);
-                        row.putLong256(colIndex, cs);
-                        offset += cs.length() * 2L + Integer.BYTES;
+                        row.putLong256(colIndex, buffer.readString(offset));
+                        offset = buffer.skipString(offset);
                         break;
                     case LineTcpParser.ENTITY_TYPE_TIMESTAMP:
                         row.putTimestamp(colIndex, buffer.readLong(offset));
@@ -55,6 +55,16 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsUtf16;
     private final LowerCaseCharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsUtf16;
     private final long[] loadByWriterThread;
+    private final LineTcpWriterJob[] writerJobs;
+    private final long rebalanceLatencyThreshold;
+    private final double rebalanceLatencyRatio;
+    private final long rebalanceInterval;
+    private long nextRebalanceMillis;
+    // table which is being moved between writer threads, at most one table is moved at a time
+    private TableUpdateDetails rebalancedTable;
+    // tables of the busiest writer thread and their loads, reused by rebalancing
+    private final ObjList<TableUpdateDetails> rebalanceCandidates = new ObjList<>();
+    private final LongList rebalanceCandidateLoads = new LongList();
     private final long writerIdleTimeout;
     private final NetworkIOJob[] netIoJobs;
     private final StringSink[] tableNameSinks;
@@ -102,6 +112,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         long commitIntervalDefault = configuration.getCommitIntervalDefault();
         int nWriterThreads = writerWorkerPool.getWorkerCount();
         pubSeq = new MPSequence[nWriterThreads];
+        writerJobs = new LineTcpWriterJob[nWriterThreads];
         //noinspection unchecked
         queue = new RingQueue[nWriterThreads];
         for (int i = 0; i < nWriterThreads; i++) {
@@ -133,16 +144,24 @@ class LineTcpMeasurementScheduler implements Closeable {
                     i,
                     q,
                     subSeq,
+                    ps,
                     milliClock,
+                    lineConfiguration.getMicrosecondClock(),
                     commitIntervalDefault,
                     this,
-                    engine.getMetrics()
+                    engine.getMetrics(),
+                    lineConfiguration.isColumnarAppendEnabled()
             );
+            writerJobs[i] = lineTcpWriterJob;
             writerWorkerPool.assign(i, lineTcpWriterJob);
             writerWorkerPool.freeOnExit(lineTcpWriterJob);
         }
         this.tableStructureAdapter = new TableStructureAdapter(cairoConfiguration, defaultColumnTypes, configuration.getDefaultPartitionBy());
         writerIdleTimeout = lineConfiguration.getWriterIdleTimeout();
+        rebalanceLatencyThreshold = lineConfiguration.getWriterRebalanceLatencyThreshold();
+        rebalanceLatencyRatio = lineConfiguration.getWriterRebalanceLatencyRatio();
+        rebalanceInterval = lineConfiguration.getMaintenanceInterval();
+        nextRebalanceMillis = milliClock.getTicks() + rebalanceInterval;
     }
 
     @Override
@@ -168,12 +187,28 @@ class LineTcpMeasurementScheduler implements Closeable {
             int readerWorkerId,
             long millis
     ) {
+        if (rebalanceLatencyThreshold > 0 && millis >= nextRebalanceMillis) {
+            tableUpdateDetailsLock.writeLock().lock();
+            try {
+                if (millis >= nextRebalanceMillis) {
+                    nextRebalanceMillis = millis + rebalanceInterval;
+                    unsafeRebalance();
+                }
+            } finally {
+                tableUpdateDetailsLock.writeLock().unlock();
+            }
+        }
+
         for (int n = 0, sz = tableUpdateDetailsUtf8.size(); n < sz; n++) {
             final CharSequence tableNameUtf8 = tableUpdateDetailsUtf8.keys().get(n);
             final TableUpdateDetails tab = tableUpdateDetailsUtf8.get(tableNameUtf8);
             if (millis - tab.getLastMeasurementMillis() >= writerIdleTimeout) {
                 tableUpdateDetailsLock.writeLock().lock();
                 try {
+                    if (tab.isHandOverPending()) {
+                        // table is being moved between writer threads, it will be released later
+                        continue;
+                    }
                     if (tab.getNetworkIOOwnerCount() == 1) {
                         final int writerWorkerId = tab.getWriterThreadId();
                         final long seq = getNextPublisherEventSequence(writerWorkerId);
@@ -228,6 +263,32 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    /**
+     * Picks a table to move off the busiest writer thread. The move must not leave the receiving thread
+     * busier than the busiest thread was, of the tables that qualify the one that halves the load difference
+     * is the best fit. Table that is the only one on its thread is never moved, hence a single dominant table
+     * ends up on a thread of its own and its ingestion rate remains bound by that thread.
+     *
+     * @param tableLoads events processed by each table of the busiest thread since last reshuffle
+     * @param loadDiff   load difference between the busiest and the least busy thread
+     * @return index of the table to move or -1 when no table should be moved
+     */
+    static int selectTableToMove(LongList tableLoads, long loadDiff) {
+        if (tableLoads.size() < 2) {
+            return -1;
+        }
+        int index = -1;
+        long indexLoad = 0;
+        for (int i = 0, n = tableLoads.size(); i < n; i++) {
+            final long load = tableLoads.getQuick(i);
+            if (load < loadDiff && Math.abs(loadDiff - 2 * load) < Math.abs(loadDiff - 2 * indexLoad)) {
+                index = i;
+                indexLoad = load;
+            }
+        }
+        return index;
+    }
+
     private static long getEventSlotSize(int maxMeasurementSize) {
         return Numbers.ceilPow2((long) (maxMeasurementSize / 4) * (Integer.BYTES + Double.BYTES + 1));
     }
@@ -346,25 +407,35 @@ class LineTcpMeasurementScheduler implements Closeable {
             throw ex;
         }
 
-        final int writerThreadId = tab.getWriterThreadId();
-        long seq = getNextPublisherEventSequence(writerThreadId);
-        if (seq > -1) {
+        while (true) {
+            final int writerThreadId = tab.getWriterThreadId();
+            long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                return true;
+            }
+            // event is addressed to the writer thread the table is assigned to after the queue slot
+            // has been claimed, when the table has been moved in between the event is skipped by
+            // the previous writer thread and published again to the new one
+            final int eventWriterThreadId;
             try {
                 if (tab.isWriterInError()) {
                     throw CairoException.critical(0).put("writer is in error, aborting ILP pipeline");
                 }
-                queue[writerThreadId].get(seq).createMeasurementEvent(
+                final LineTcpMeasurementEvent event = queue[writerThreadId].get(seq);
+                event.createMeasurementEvent(
                         tab,
                         parser,
                         netIoJob.getWorkerId()
                 );
+                eventWriterThreadId = event.getWriterWorkerId();
             } finally {
                 pubSeq[writerThreadId].done(seq);
             }
-            tab.incrementEventsProcessedSinceReshuffle();
-            return false;
+            if (eventWriterThreadId == writerThreadId) {
+                tab.incrementEventsProcessedSinceReshuffle();
+                return false;
+            }
         }
-        return true;
     }
 
     @TestOnly
@@ -401,6 +472,85 @@ class LineTcpMeasurementScheduler implements Closeable {
         return tableUpdateDetails;
     }
 
+    /**
+     * Moves one table from the writer thread with the highest queue latency to the thread with the lowest
+     * one. Table that is the only one on its thread is never moved, so repeated rebalancing leaves a hot
+     * table on a thread of its own with the rest of the tables spread over the other threads.
+     * <p>
+     * The table is re-assigned before the publisher cursor of its current thread is read. Network IO threads
+     * check the assignment after claiming a queue slot, so only the events up to that cursor can still be
+     * addressed to the current thread. The new thread does not touch the table until the current thread
+     * processes these events and hands the table over.
+     */
+    private void unsafeRebalance() {
+        if (rebalancedTable != null) {
+            if (rebalancedTable.isHandOverPending()) {
+                return;
+            }
+            rebalancedTable = null;
+        }
+
+        final int n = writerJobs.length;
+        if (n < 2) {
+            return;
+        }
+
+        int busiestThreadId = 0;
+        int idlestThreadId = 0;
+        for (int i = 1; i < n; i++) {
+            final long latency = writerJobs[i].getQueueLatency();
+            if (latency > writerJobs[busiestThreadId].getQueueLatency()) {
+                busiestThreadId = i;
+            }
+            if (latency < writerJobs[idlestThreadId].getQueueLatency()) {
+                idlestThreadId = i;
+            }
+        }
+
+        final long busiestLatency = writerJobs[busiestThreadId].getQueueLatency();
+        final long idlestLatency = writerJobs[idlestThreadId].getQueueLatency();
+        if (busiestLatency < rebalanceLatencyThreshold || busiestLatency < rebalanceLatencyRatio * idlestLatency) {
+            return;
+        }
+
+        unsafeCalcThreadLoad();
+        final long loadDiff = loadByWriterThread[busiestThreadId] - loadByWriterThread[idlestThreadId];
+        rebalanceCandidates.clear();
+        rebalanceCandidateLoads.clear();
+        ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
+        for (int i = 0, sz = tableNames.size(); i < sz; i++) {
+            final TableUpdateDetails tab = tableUpdateDetailsUtf16.get(tableNames.getQuick(i));
+            if (tab != null && tab.getWriterThreadId() == busiestThreadId) {
+                rebalanceCandidates.add(tab);
+                rebalanceCandidateLoads.add(tab.getEventsProcessedSinceReshuffle());
+            }
+        }
+
+        final int index = selectTableToMove(rebalanceCandidateLoads, loadDiff);
+        final TableUpdateDetails tableToMove = index > -1 ? rebalanceCandidates.getQuick(index) : null;
+        rebalanceCandidates.clear();
+        if (tableToMove != null) {
+            tableToMove.setHandOverPending(true);
+            tableToMove.setWriterThreadId(idlestThreadId);
+            writerJobs[busiestThreadId].handOver(tableToMove, pubSeq[busiestThreadId].current());
+            rebalancedTable = tableToMove;
+
+            LOG.info().$("rebalancing writer threads [tableName=").$(tableToMove.getTableNameUtf16())
+                    .$(", fromThreadId=").$(busiestThreadId)
+                    .$(", fromThreadLatency=").$(busiestLatency)
+                    .$(", toThreadId=").$(idlestThreadId)
+                    .$(", toThreadLatency=").$(idlestLatency)
+                    .I$();
+
+            for (int i = 0, sz = tableNames.size(); i < sz; i++) {
+                final TableUpdateDetails tab = tableUpdateDetailsUtf16.get(tableNames.getQuick(i));
+                if (tab != null) {
+                    tab.resetEventsProcessedSinceReshuffle();
+                }
+            }
+        }
+    }
+
     private void unsafeCalcThreadLoad() {
         Arrays.fill(loadByWriterThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsUtf16.keys();
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.MetricsRegistry;
+
+public class LineTcpMetrics {
+
+    private final Counter compressedBytesCounter;
+    private final Counter inflatedBytesCounter;
+
+    public LineTcpMetrics(MetricsRegistry metricsRegistry) {
+        this.compressedBytesCounter = metricsRegistry.newCounter("line_tcp_compressed_bytes_received");
+        this.inflatedBytesCounter = metricsRegistry.newCounter("line_tcp_inflated_bytes");
+    }
+
+    /**
+     * Bytes received by connections that negotiated compression, as sent over the wire.
+     */
+    public Counter compressedBytesCounter() {
+        return compressedBytesCounter;
+    }
+
+    /**
+     * Bytes of line protocol text inflated from compressed connections.
+     */
+    public Counter inflatedBytesCounter() {
+        return inflatedBytesCounter;
+    }
+}
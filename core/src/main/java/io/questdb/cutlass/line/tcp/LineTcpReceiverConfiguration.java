@@ -70,6 +70,18 @@ public interface LineTcpReceiverConfiguration {
 
     long getWriterIdleTimeout();
 
+    /**
+     * Writer threads are rebalanced when queue latency of the busiest thread exceeds this many
+     * microseconds and is at least {@link #getWriterRebalanceLatencyRatio()} times the latency
+     * of the least busy thread. Zero disables rebalancing, tables then stay on the writer thread
+     * they were assigned to.
+     *
+     * @return latency threshold in microseconds
+     */
+    long getWriterRebalanceLatencyThreshold();
+
+    double getWriterRebalanceLatencyRatio();
+
     IODispatcherConfiguration getDispatcherConfiguration();
 
     int getNetMsgBufferSize();
@@ -84,6 +96,18 @@ public interface LineTcpReceiverConfiguration {
 
     boolean isEnabled();
 
+    /**
+     * When enabled, writer thread appends consecutive lines of the same table column at a time
+     * instead of row by row.
+     */
+    boolean isColumnarAppendEnabled();
+
+    /**
+     * When enabled, client can switch connection to zlib compressed stream by sending
+     * "zlib" line ahead of measurements.
+     */
+    boolean isCompressionEnabled();
+
     boolean getDisconnectOnError();
 
     long getSymbolCacheWaitUsBeforeReload();
@@ -25,14 +25,18 @@
 package io.questdb.cutlass.line.tcp;
 
 import io.questdb.Metrics;
+import io.questdb.cairo.CommitFailedException;
+import io.questdb.cairo.TableWriter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
 import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
 import io.questdb.mp.Sequence;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.Os;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.str.Path;
 
@@ -42,32 +46,49 @@ class LineTcpWriterJob implements Job, Closeable {
     private final static Log LOG = LogFactory.getLog(LineTcpWriterJob.class);
     private final int workerId;
     private final RingQueue<LineTcpMeasurementEvent> queue;
-    private final Sequence sequence;
+    private final SCSequence sequence;
+    private final Sequence pubSeq;
     private final Path path = new Path();
     private final ObjList<TableUpdateDetails> assignedTables = new ObjList<>();
     private final MillisecondClock millisecondClock;
+    private final MicrosecondClock microsecondClock;
     private final long commitIntervalDefault;
     private final LineTcpMeasurementScheduler scheduler;
     private long nextCommitTime;
     private final Metrics metrics;
+    private final LineTcpColumnarBatch batch;
+    // publisher cursor at the start of the current latency sampling round, -1 when there is no round
+    private long latencySampleSeq = -1;
+    private long latencySampleStart;
+    private volatile long queueLatency;
+    // table moved to another writer thread, it is handed over once this thread
+    // consumes the queue up to handOverSeq
+    private TableUpdateDetails handOverTable;
+    private volatile long handOverSeq = Long.MAX_VALUE;
 
     LineTcpWriterJob(
             int workerId,
             RingQueue<LineTcpMeasurementEvent> queue,
-            Sequence sequence,
+            SCSequence sequence,
+            Sequence pubSeq,
             MillisecondClock millisecondClock,
+            MicrosecondClock microsecondClock,
             long commitIntervalDefault,
             LineTcpMeasurementScheduler scheduler,
-            Metrics metrics
+            Metrics metrics,
+            boolean columnarAppendEnabled
     ) {
         this.workerId = workerId;
         this.queue = queue;
         this.sequence = sequence;
+        this.pubSeq = pubSeq;
         this.millisecondClock = millisecondClock;
+        this.microsecondClock = microsecondClock;
         this.commitIntervalDefault = commitIntervalDefault;
         this.nextCommitTime = millisecondClock.getTicks();
         this.scheduler = scheduler;
         this.metrics = metrics;
+        this.batch = columnarAppendEnabled ? new LineTcpColumnarBatch() : null;
     }
 
     @Override
@@ -85,9 +106,20 @@ class LineTcpWriterJob implements Job, Closeable {
         assignedTables.clear();
     }
 
+    /**
+     * Time in microseconds that events spend in the queue of this writer thread before they are
+     * processed, as measured by the most recent sampling round. Zero when the queue is drained.
+     */
+    public long getQueueLatency() {
+        return queueLatency;
+    }
+
     @Override
     public boolean run(int workerId) {
         assert this.workerId == workerId;
+        if (sequence.current() >= handOverSeq) {
+            handOverTable();
+        }
         boolean busy = drainQueue();
         // while ILP is hammering the database via multiple connections the writer
         // is likely to be very busy so commitTables() will run infrequently
@@ -128,18 +160,38 @@ class LineTcpWriterJob implements Job, Closeable {
         }
     }
 
+    /**
+     * Called by the scheduler when the table is re-assigned to another writer thread. Events published
+     * up to and including handOverSeq may still be addressed to this thread, the table is handed over
+     * once they are processed.
+     */
+    void handOver(TableUpdateDetails tab, long handOverSeq) {
+        this.handOverTable = tab;
+        this.handOverSeq = handOverSeq;
+    }
+
     private boolean drainQueue() {
         boolean busy = false;
         while (true) {
             long cursor;
             while ((cursor = sequence.next()) < 0) {
                 if (cursor == -1) {
+                    if (latencySampleSeq == -1 && queueLatency != 0) {
+                        queueLatency = 0;
+                    }
                     return busy;
                 }
                 Os.pause();
             }
             busy = true;
+            // last cursor consumed by this iteration, it is ahead of cursor when events are appended in batch
+            long hi = cursor;
             final LineTcpMeasurementEvent event = queue.get(cursor);
+            if (event.getWriterWorkerId() == workerId && event.getTableUpdateDetails().isHandOverPending()) {
+                // table has just been moved to this thread and the previous thread may still be
+                // appending to the writer, the event is retried once the table is handed over
+                return true;
+            }
 
             try {
                 // we check the event's writer thread ID to avoid consuming
@@ -161,7 +213,7 @@ class LineTcpWriterJob implements Job, Closeable {
                                         .$(", threadId=").$(workerId)
                                         .I$();
                             }
-                            event.append();
+                            hi = append(event, tab, cursor);
                         }
                     } catch (Throwable ex) {
                         tab.setWriterInError();
@@ -190,7 +242,102 @@ class LineTcpWriterJob implements Job, Closeable {
                 LOG.error().$("failed to process ILP event because of exception [ex=").$(ex).I$();
             }
 
-            sequence.done(cursor);
+            sequence.done(hi);
+            if (hi >= handOverSeq) {
+                handOverTable();
+            }
+            sampleQueueLatency(hi);
+        }
+    }
+
+    /**
+     * Appends the event to the table along with the events of the same table that directly follow
+     * it in the queue, so that they are written column at a time.
+     *
+     * @return cursor of the last appended event
+     */
+    private long append(LineTcpMeasurementEvent event, TableUpdateDetails tab, long cursor) throws CommitFailedException {
+        if (batch != null) {
+            final TableWriter writer = tab.getWriter();
+            // the batch must not overshoot max uncommitted rows, commit is checked once per batch
+            final long maxRows = writer.getMetadata().getMaxUncommittedRows() - writer.getUncommittedRowCount();
+            final long available = sequence.available();
+            if (maxRows > 1 && available > cursor + 1) {
+                batch.of(writer);
+                long hi = cursor;
+                if (batch.add(event)) {
+                    while (++hi < available && batch.getRowCount() < maxRows) {
+                        final LineTcpMeasurementEvent next = queue.get(hi);
+                        if (next.getWriterWorkerId() != workerId || next.getTableUpdateDetails() != tab || !batch.add(next)) {
+                            break;
+                        }
+                    }
+                }
+                final int rowCount = batch.getRowCount();
+                if (rowCount > 1) {
+                    hi = cursor + rowCount - 1;
+                    try {
+                        if (batch.append(writer)) {
+                            tab.commitIfMaxUncommittedRowsCountReached(rowCount);
+                            return hi;
+                        }
+                    } catch (CommitFailedException ex) {
+                        throw ex;
+                    } catch (Throwable th) {
+                        // batch is cancelled, rows are appended one by one so that
+                        // the offending line is skipped the same way it is outside of the batch
+                        LOG.error()
+                                .$("could not append line protocol batch, appending row by row [tableName=").$(tab.getTableNameUtf16())
+                                .$(", message=").$(th.getMessage())
+                                .$(th)
+                                .I$();
+                    } finally {
+                        batch.clear();
+                    }
+                    for (long c = cursor; c <= hi; c++) {
+                        queue.get(c).append();
+                    }
+                    return hi;
+                }
+                batch.clear();
+            }
+        }
+        event.append();
+        return cursor;
+    }
+
+    private void handOverTable() {
+        final TableUpdateDetails tab = handOverTable;
+        handOverTable = null;
+        handOverSeq = Long.MAX_VALUE;
+        if (tab.isAssignedToJob()) {
+            assignedTables.remove(tab);
+            tab.setAssignedToJob(false);
+            nextCommitTime = millisecondClock.getTicks();
+        }
+        // uncommitted rows travel with the writer, the new thread commits them on its own schedule
+        LOG.info()
+                .$("handed over table to writer thread [tableName=").$(tab.getTableNameUtf16())
+                .$(", fromThreadId=").$(workerId)
+                .$(", toThreadId=").$(tab.getWriterThreadId())
+                .I$();
+        tab.setHandOverPending(false);
+    }
+
+    private void sampleQueueLatency(long cursor) {
+        if (cursor >= latencySampleSeq) {
+            final long now = microsecondClock.getTicks();
+            if (latencySampleSeq > -1) {
+                // all events published before the round started have been processed by now
+                queueLatency = now - latencySampleStart;
+            }
+            final long published = pubSeq.current();
+            if (published > cursor) {
+                latencySampleSeq = published;
+                latencySampleStart = now;
+            } else {
+                latencySampleSeq = -1;
+            }
         }
     }
 
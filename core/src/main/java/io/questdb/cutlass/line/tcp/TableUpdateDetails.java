@@ -52,7 +52,12 @@ public class TableUpdateDetails implements Closeable {
     private final CairoEngine engine;
     private final MillisecondClock millisecondClock;
     private final long writerTickRowsCountMod;
-    private int writerThreadId;
+    // written by the scheduler when the table is moved to another writer thread, read by the network IO
+    // threads on every event
+    private volatile int writerThreadId;
+    // set while the previous writer thread still owns the table after a move, the new writer thread
+    // waits for the flag to clear before touching the writer
+    private volatile boolean handOverPending;
     // Number of rows processed since the last reshuffle, this is an estimate because it is incremented by
     // multiple threads without synchronisation
     private long eventsProcessedSinceReshuffle = 0;
@@ -171,10 +176,18 @@ public class TableUpdateDetails implements Closeable {
         return assignedToJob;
     }
 
+    public boolean isHandOverPending() {
+        return handOverPending;
+    }
+
     public void setAssignedToJob(boolean assignedToJob) {
         this.assignedToJob = assignedToJob;
     }
 
+    public void setHandOverPending(boolean handOverPending) {
+        this.handOverPending = handOverPending;
+    }
+
     public void removeReference(int workerId) {
         networkIOOwnerCount--;
         localDetailsArray[workerId].clear();
@@ -185,6 +198,14 @@ public class TableUpdateDetails implements Closeable {
                 .I$();
     }
 
+    public void resetEventsProcessedSinceReshuffle() {
+        eventsProcessedSinceReshuffle = 0;
+    }
+
+    public void setWriterThreadId(int writerThreadId) {
+        this.writerThreadId = writerThreadId;
+    }
+
     public void tick() {
         if (writer != null) {
             writer.tick();
@@ -226,9 +247,17 @@ public class TableUpdateDetails implements Closeable {
     }
 
     void commitIfMaxUncommittedRowsCountReached() throws CommitFailedException {
+        commitIfMaxUncommittedRowsCountReached(1);
+    }
+
+    /**
+     * @param rowsAppended number of rows appended to the writer since the previous check
+     */
+    void commitIfMaxUncommittedRowsCountReached(long rowsAppended) throws CommitFailedException {
         final long rowsSinceCommit = writer.getUncommittedRowCount();
         if (rowsSinceCommit < writer.getMetadata().getMaxUncommittedRows()) {
-            if ((rowsSinceCommit & writerTickRowsCountMod) == 0) {
+            // writerTickRowsCountMod is a mask, tick when appended rows crossed its boundary
+            if (((rowsSinceCommit - rowsAppended) | writerTickRowsCountMod) != (rowsSinceCommit | writerTickRowsCountMod)) {
                 // Tick without commit. Some tick commands may force writer to commit though.
                 writer.tick();
             }
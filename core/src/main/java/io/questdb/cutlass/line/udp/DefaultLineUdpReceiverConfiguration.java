@@ -67,6 +67,16 @@ public class DefaultLineUdpReceiverConfiguration implements LineUdpReceiverConfi
         return 10000;
     }
 
+    @Override
+    public int getReceiverCount() {
+        return 1;
+    }
+
+    @Override
+    public int getWriterQueueCapacity() {
+        return 1024;
+    }
+
     @Override
     public NetworkFacade getNetworkFacade() {
         return NetworkFacadeImpl.INSTANCE;
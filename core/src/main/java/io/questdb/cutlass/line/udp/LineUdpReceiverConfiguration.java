@@ -54,6 +54,19 @@ public interface LineUdpReceiverConfiguration {
 
     int getReceiveBufferSize();
 
+    /**
+     * Number of sockets that receive unicast datagrams on the port, they are bound with SO_REUSEPORT
+     * and read by jobs of the shared worker pool. Lines are then written by as many writer jobs,
+     * each table is written by one of them. Multicast is always received by a single socket.
+     */
+    int getReceiverCount();
+
+    /**
+     * Capacity of the queue between receiver and writer jobs, in datagrams. Used when there
+     * is more than one receiver.
+     */
+    int getWriterQueueCapacity();
+
     CairoSecurityContext getCairoSecurityContext();
 
     boolean isEnabled();
@@ -0,0 +1,393 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.*;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.network.NetworkFacade;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSinkBase;
+
+import java.io.Closeable;
+
+/**
+ * UDP receiver that reads several sockets bound to the same port with SO_REUSEPORT, so that
+ * the kernel spreads datagrams between them and each socket is drained by its own worker.
+ * <p>
+ * Receive jobs split datagrams into lines and route them by measurement name to writer jobs.
+ * A table is always routed to the same writer job, that job owns lexer, parser and table writers
+ * and is the only one appending to the table. Lines travel between the jobs via ring queues, one
+ * queue per writer job. When the queue is full the receive job stops reading its socket and
+ * resumes from the same line on the next run, so that excess datagrams stay in the socket
+ * receive buffer rather than being dropped by the receiver.
+ */
+public class LineUdpShardedReceiver implements Closeable {
+    private static final Log LOG = LogFactory.getLog(LineUdpShardedReceiver.class);
+    private final ObjList<ReceiveJob> receiveJobs = new ObjList<>();
+    private final ObjList<WriteJob> writeJobs = new ObjList<>();
+
+    public LineUdpShardedReceiver(
+            LineUdpReceiverConfiguration configuration,
+            CairoEngine engine,
+            WorkerPool workerPool
+    ) {
+        final int receiverCount = configuration.getReceiverCount();
+        final int queueCapacity = Numbers.ceilPow2(configuration.getWriterQueueCapacity());
+        try {
+            for (int i = 0; i < receiverCount; i++) {
+                writeJobs.add(new WriteJob(configuration, engine, queueCapacity));
+            }
+            for (int i = 0; i < receiverCount; i++) {
+                receiveJobs.add(new ReceiveJob(configuration, writeJobs));
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+
+        final int workerCount = workerPool.getWorkerCount();
+        for (int i = 0; i < receiverCount; i++) {
+            workerPool.assign(i % workerCount, receiveJobs.getQuick(i));
+            workerPool.assign(i % workerCount, writeJobs.getQuick(i));
+        }
+        LOG.info()
+                .$("receiving unicast on ")
+                .$ip(configuration.getBindIPv4Address())
+                .$(':')
+                .$(configuration.getPort())
+                .$(" [receivers=").$(receiverCount)
+                .$(", commitRate=").$(configuration.getCommitRate())
+                .I$();
+    }
+
+    @Override
+    public void close() {
+        // receivers are closed first, so that nothing is published while writers drain their queues
+        Misc.freeObjListAndClear(receiveJobs);
+        Misc.freeObjListAndClear(writeJobs);
+    }
+
+    /**
+     * Index of writer job for the line, it is derived from the measurement name. Table names
+     * are case-insensitive, so the hash is taken over the unescaped UTF-8 decoded name,
+     * lower-cased char by char as table name maps do, see {@link Chars#lowerCaseHashCode(CharSequence)}.
+     *
+     * @return index of the writer job
+     */
+    static int writerIndex(long lo, long hi, int writerCount, LowerCaseHashSink hashSink) {
+        hashSink.clear();
+        for (long p = lo; p < hi; p++) {
+            byte b = Unsafe.getUnsafe().getByte(p);
+            if (b == '\\') {
+                if (++p == hi) {
+                    break;
+                }
+                b = Unsafe.getUnsafe().getByte(p);
+            } else if (b == ',' || b == ' ' || isLineBreak(b)) {
+                break;
+            }
+            if (b < 0) {
+                final int n = Chars.utf8DecodeMultiByte(p, hi, b, hashSink);
+                if (n > 0) {
+                    p += n - 1;
+                    continue;
+                }
+                // malformed UTF-8, parser rejects the line, raw byte is good enough for routing
+            }
+            hashSink.put((char) b);
+        }
+        return (hashSink.hash & Integer.MAX_VALUE) % writerCount;
+    }
+
+    /**
+     * Line ends with new line or carriage return character that is not escaped,
+     * line end includes all line breaks that follow.
+     *
+     * @return address of the next line or hi
+     */
+    static long lineEnd(long lo, long hi) {
+        long p = lo;
+        while (p < hi) {
+            final byte b = Unsafe.getUnsafe().getByte(p++);
+            if (b == '\\') {
+                p++;
+            } else if (isLineBreak(b)) {
+                while (p < hi && isLineBreak(Unsafe.getUnsafe().getByte(p))) {
+                    p++;
+                }
+                return p;
+            }
+        }
+        return hi;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    static class LowerCaseHashSink implements CharSinkBase {
+        private int hash;
+
+        @Override
+        public LowerCaseHashSink put(char c) {
+            hash = 31 * hash + Character.toLowerCase(c);
+            return this;
+        }
+
+        void clear() {
+            hash = 0;
+        }
+    }
+
+    private static class QueueEntry {
+        private final long buf;
+        private int len;
+        private int lineCount;
+
+        private QueueEntry(long buf) {
+            this.buf = buf;
+        }
+    }
+
+    private static class WriteJob implements Job, Closeable {
+        private final RingQueue<QueueEntry> queue;
+        private final MPSequence pubSeq;
+        private final SCSequence subSeq;
+        private final LineUdpLexer lexer;
+        private final LineUdpParserImpl parser;
+        private final int commitMode;
+        private final int commitRate;
+        private long totalCount;
+
+        private WriteJob(LineUdpReceiverConfiguration configuration, CairoEngine engine, int queueCapacity) {
+            this.commitMode = configuration.getCommitMode();
+            this.commitRate = configuration.getCommitRate();
+            this.queue = new RingQueue<>(
+                    (address, addressSize) -> new QueueEntry(address),
+                    configuration.getMsgBufferSize(),
+                    queueCapacity,
+                    MemoryTag.NATIVE_ILP_RSS
+            );
+            this.pubSeq = new MPSequence(queueCapacity);
+            this.subSeq = new SCSequence();
+            pubSeq.then(subSeq).then(pubSeq);
+            this.lexer = new LineUdpLexer(configuration.getMsgBufferSize());
+            this.parser = new LineUdpParserImpl(engine, configuration);
+            lexer.withParser(parser);
+        }
+
+        @Override
+        public void close() {
+            run(-1);
+            parser.commitAll(commitMode);
+            parser.close();
+            Misc.free(lexer);
+            Misc.free(queue);
+        }
+
+        @Override
+        public boolean run(int workerId) {
+            boolean busy = false;
+            long cursor;
+            while ((cursor = subSeq.next()) != -1) {
+                if (cursor < 0) {
+                    continue;
+                }
+                final QueueEntry entry = queue.get(cursor);
+                lexer.parse(entry.buf, entry.buf + entry.len);
+                lexer.parseLast();
+                totalCount += entry.lineCount;
+                subSeq.done(cursor);
+                busy = true;
+
+                if (totalCount > commitRate) {
+                    totalCount = 0;
+                    parser.commitAll(commitMode);
+                }
+            }
+            if (busy) {
+                parser.commitAll(commitMode);
+            }
+            return busy;
+        }
+
+        /**
+         * Copies lines into the queue.
+         *
+         * @return false when the queue is full
+         */
+        private boolean publish(long lo, long hi, int lineCount) {
+            long cursor;
+            while ((cursor = pubSeq.next()) < 0) {
+                if (cursor == -1) {
+                    return false;
+                }
+                Os.pause();
+            }
+            final QueueEntry entry = queue.get(cursor);
+            entry.len = (int) (hi - lo);
+            entry.lineCount = lineCount;
+            Vect.memcpy(entry.buf, lo, entry.len);
+            pubSeq.done(cursor);
+            return true;
+        }
+    }
+
+    private static class ReceiveJob extends SynchronizedJob implements Closeable {
+        private final NetworkFacade nf;
+        private final ObjList<WriteJob> writeJobs;
+        private final int msgCount;
+        private final int msgBufferSize;
+        private final boolean mmsg;
+        private final LowerCaseHashSink tableNameHash = new LowerCaseHashSink();
+        private long fd;
+        private long msgVec;
+        private long buf;
+        // datagrams received by recvmmsg() and index of the next one to route
+        private int pendingCount;
+        private int pendingIndex;
+        // unrouted part of the current datagram
+        private long pendingLo;
+        private long pendingHi;
+
+        private ReceiveJob(LineUdpReceiverConfiguration configuration, ObjList<WriteJob> writeJobs) {
+            this.nf = configuration.getNetworkFacade();
+            this.writeJobs = writeJobs;
+            this.msgCount = configuration.getMsgCount();
+            this.msgBufferSize = configuration.getMsgBufferSize();
+            this.mmsg = Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64;
+            this.fd = nf.socketUdp();
+            if (fd < 0) {
+                int errno = nf.errno();
+                LOG.error().$("cannot open UDP socket [errno=").$(errno).$(']').$();
+                throw NetworkError.instance(errno, "Cannot open UDP socket");
+            }
+            try {
+                if (nf.setReusePort(fd) != 0) {
+                    throw NetworkError.instance(nf.errno()).put("could not set SO_REUSEPORT [fd=").put(fd).put(']');
+                }
+                if (!nf.bindUdp(fd, configuration.getBindIPv4Address(), configuration.getPort())) {
+                    throw NetworkError.instance(nf.errno()).couldNotBindSocket("udp-line-server", configuration.getBindIPv4Address(), configuration.getPort());
+                }
+                if (configuration.getReceiveBufferSize() != -1 && nf.setRcvBuf(fd, configuration.getReceiveBufferSize()) != 0) {
+                    LOG.error()
+                            .$("could not set receive buffer size [fd=").$(fd)
+                            .$(", size=").$(configuration.getReceiveBufferSize())
+                            .$(", errno=").$(nf.errno())
+                            .I$();
+                }
+                if (mmsg) {
+                    msgVec = nf.msgHeaders(msgBufferSize, msgCount);
+                } else {
+                    buf = Unsafe.malloc(msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+                }
+            } catch (Throwable e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (fd > -1) {
+                if (nf.close(fd) != 0) {
+                    LOG.error().$("could not close [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+                } else {
+                    LOG.info().$("closed [fd=").$(fd).$(']').$();
+                }
+                fd = -1;
+            }
+            if (msgVec != 0) {
+                nf.freeMsgHeaders(msgVec);
+                msgVec = 0;
+            }
+            if (buf != 0) {
+                Unsafe.free(buf, msgBufferSize, MemoryTag.NATIVE_ILP_RSS);
+                buf = 0;
+            }
+        }
+
+        @Override
+        protected boolean runSerially() {
+            boolean ran = false;
+            while (true) {
+                if (pendingLo < pendingHi && !route()) {
+                    return ran;
+                }
+                if (pendingIndex < pendingCount) {
+                    final long msg = msgVec + (long) pendingIndex++ * Net.MMSGHDR_SIZE;
+                    pendingLo = nf.getMMsgBuf(msg);
+                    pendingHi = pendingLo + nf.getMMsgBufLen(msg);
+                    continue;
+                }
+                final int count = mmsg ? nf.recvmmsg(fd, msgVec, msgCount) : nf.recv(fd, buf, msgBufferSize);
+                if (count < 1) {
+                    return ran;
+                }
+                ran = true;
+                if (mmsg) {
+                    pendingCount = count;
+                    pendingIndex = 0;
+                } else {
+                    pendingLo = buf;
+                    pendingHi = buf + count;
+                }
+            }
+        }
+
+        /**
+         * Publishes lines of the current datagram to writer queues. Consecutive lines that belong
+         * to the same writer are published as one queue entry.
+         *
+         * @return false when writer queue is full, routing resumes from the first unpublished line
+         */
+        private boolean route() {
+            final int writerCount = writeJobs.size();
+            long lo = pendingLo;
+            int index = writerIndex(lo, pendingHi, writerCount, tableNameHash);
+            while (lo < pendingHi) {
+                long hi = lineEnd(lo, pendingHi);
+                int lineCount = 1;
+                int nextIndex = index;
+                while (hi < pendingHi && (nextIndex = writerIndex(hi, pendingHi, writerCount, tableNameHash)) == index) {
+                    hi = lineEnd(hi, pendingHi);
+                    lineCount++;
+                }
+                if (!writeJobs.getQuick(index).publish(lo, hi, lineCount)) {
+                    pendingLo = lo;
+                    return false;
+                }
+                lo = hi;
+                index = nextIndex;
+            }
+            pendingLo = pendingHi;
+            return true;
+        }
+    }
+}
@@ -69,6 +69,11 @@ public class DefaultPGWireConfiguration implements PGWireConfiguration {
         return 4;
     }
 
+    @Override
+    public int getCopyBatchSize() {
+        return 100_000;
+    }
+
     @Override
     public String getDefaultPassword() {
         return "quest";
@@ -30,12 +30,14 @@ import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
-import io.questdb.cutlass.text.TextLoader;
+import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.griffin.engine.ops.AbstractOperation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -100,6 +102,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private static final byte MESSAGE_TYPE_CLOSE_COMPLETE = '3';
     private static final byte MESSAGE_TYPE_NO_DATA = 'n';
     private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_COPY_OUT_RESPONSE = 'H';
+    private static final byte MESSAGE_TYPE_COPY_DATA = 'd';
+    private static final byte MESSAGE_TYPE_COPY_DONE = 'c';
     private static final byte MESSAGE_TYPE_PORTAL_SUSPENDED = 's';
 
     private static final int NO_TRANSACTION = 0;
@@ -142,13 +147,14 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     //pg clients (like asyncpg) fail when format sent by server is not the same as requested in bind message
     private final IntList bindSelectColumnFormats;
     private final BatchCallback batchCallback;
+    private final int copyBatchSize;
     private long recvBuffer;
     private long sendBuffer;
     private BindVariableService bindVariableService;
     private long sendBufferLimit;
     private SqlExecutionContextImpl sqlExecutionContext;
     private WeakSelfReturningObjectPool<TypesAndUpdate> typesAndUpdatePool;
-    private AssociativeCache<TypesAndUpdate> typesAndUpdateCache;
+    private PGStatementCache<TypesAndUpdate> typesAndUpdateCache;
     //list of pair: column types (with format flag stored in first bit) AND additional type flag
     private IntList activeSelectColumnTypes;
     private int parsePhaseBindVariableCount;
@@ -186,7 +192,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private int transactionState = NO_TRANSACTION;
     private final PGResumeProcessor resumeQueryCompleteRef = this::resumeQueryComplete;
     private NamedStatementWrapper wrapper;
-    private AssociativeCache<TypesAndSelect> typesAndSelectCache;
+    private PGStatementCache<TypesAndSelect> typesAndSelectCache;
     private WeakSelfReturningObjectPool<TypesAndSelect> typesAndSelectPool;
     // this is a reference to types either from the context or named statement, where it is provided
     private IntList activeBindVariableTypes;
@@ -196,6 +202,17 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private final PGResumeProcessor resumeCursorExecuteRef = this::resumeCursorExecute;
     private final PGResumeProcessor resumeCursorQueryRef = this::resumeCursorQuery;
     private boolean sendRNQ = true;
+    // created on first COPY FROM STDIN, holds the table writer while connection is in copy-in mode
+    private PGCopyInProcessor copyInProcessor;
+    private boolean copyIn;
+    // insert of the current extended protocol pipeline, its method holds the writer until the statement changes
+    private InsertOperation pipelinedInsert;
+    private InsertMethod pipelinedInsertMethod;
+    // set when a pipelined insert fails, messages are then discarded up to the next Sync
+    private boolean pipelineFailed;
+    // created on first COPY TO STDOUT, holds the factory and cursor of the exported query
+    private PGCopyOutProcessor copyOutProcessor;
+    private final PGResumeProcessor resumeCopyOutRef = this::resumeCopyOut;
 
     public PGConnectionContext(CairoEngine engine, PGWireConfiguration configuration, SqlExecutionContextImpl sqlExecutionContext) {
         this.engine = engine;
@@ -230,6 +247,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         this.batchCallback = new PGConnectionBatchCallback();
         this.bindSelectColumnFormats = new IntList();
         this.queryTag = TAG_OK;
+        this.copyBatchSize = configuration.getCopyBatchSize();
     }
 
     public static int getInt(long address, long msgLimit, CharSequence errorMessage) throws BadProtocolException {
@@ -315,6 +333,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         typesAndUpdateIsCached = false;
         statementTimeout = -1L;
         circuitBreaker.resetMaxTimeToDefault();
+        abortCopyIn();
+        if (copyOutProcessor != null) {
+            copyOutProcessor.clear();
+        }
     }
 
     @Override
@@ -339,6 +361,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     public void clearWriters() {
+        pipelinedInsertMethod = Misc.free(pipelinedInsertMethod);
+        pipelinedInsert = null;
+        pipelineFailed = false;
         for (int i = 0, n = pendingWriters.size(); i < n; i++) {
             Misc.free(pendingWriters.valueQuick(i));
         }
@@ -356,6 +381,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         Misc.free(path);
         Misc.free(utf8Sink);
         Misc.free(circuitBreaker);
+        copyInProcessor = Misc.free(copyInProcessor);
+        copyOutProcessor = Misc.free(copyOutProcessor);
         freeBuffers();
     }
 
@@ -370,9 +397,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
     public void handleClientOperation(
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<TypesAndSelect> selectAndTypesCache,
+            @Transient PGStatementCache<TypesAndSelect> selectAndTypesCache,
             @Transient WeakSelfReturningObjectPool<TypesAndSelect> selectAndTypesPool,
-            @Transient AssociativeCache<TypesAndUpdate> typesAndUpdateCache,
+            @Transient PGStatementCache<TypesAndUpdate> typesAndUpdateCache,
             @Transient WeakSelfReturningObjectPool<TypesAndUpdate> typesAndUpdatePool,
             int operation
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, PeerIsSlowToWriteException, BadProtocolException {
@@ -571,6 +598,13 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void abortCopyIn() {
+        if (copyIn) {
+            copyInProcessor.clear();
+            copyIn = false;
+        }
+    }
+
     private void appendBinColumn(Record record, int i) throws SqlException {
         BinarySequence sequence = record.getBin(i);
         if (sequence == null) {
@@ -635,7 +669,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void appendDateColumnBin(Record record, int columnIndex) {
-        final long longValue = record.getLong(columnIndex);
+        final long longValue = record.getDate(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
             responseAsciiSink.putNetworkInt(Long.BYTES);
             // PG epoch starts at 2000 rather than 1970
@@ -836,18 +870,23 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                     appendLong256Column(record, i);
                     break;
                 case ColumnType.GEOBYTE:
+                case BINARY_TYPE_GEOBYTE:
                     putGeoHashStringByteValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOSHORT:
+                case BINARY_TYPE_GEOSHORT:
                     putGeoHashStringShortValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOINT:
+                case BINARY_TYPE_GEOINT:
                     putGeoHashStringIntValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.GEOLONG:
+                case BINARY_TYPE_GEOLONG:
                     putGeoHashStringLongValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
                     break;
                 case ColumnType.NULL:
+                case BINARY_TYPE_NULL:
                     responseAsciiSink.setNullValue();
                     break;
                 default:
@@ -917,7 +956,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void appendTimestampColumnBin(Record record, int columnIndex) {
-        final long longValue = record.getLong(columnIndex);
+        final long longValue = record.getTimestamp(columnIndex);
         if (longValue == Numbers.LONG_NaN) {
             responseAsciiSink.setNullValue();
         } else {
@@ -1113,6 +1152,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
             // not cached - compile to see what it is
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext); //here
+            if (cc.getType() == CompiledQuery.COPY_REMOTE) {
+                Misc.free(cc.getRecordCursorFactory());
+                throw SqlException.$(0, "COPY FROM STDIN and COPY TO STDOUT are supported by simple query protocol only");
+            }
             processCompiledQuery(cc);
         } else {
             isEmptyQuery = true;
@@ -1302,6 +1345,90 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    /**
+     * Executes prepared insert that arrives via extended query protocol outside of explicit transaction.
+     * Such inserts are pipelined: the insert method is created once for consecutive Executes of the same
+     * statement and keeps its writer, other writers of the pipeline wait in pendingWriters. All the inserts
+     * up to the next Sync are committed as one transaction.
+     * <p>
+     * A failed insert fails the whole pipeline, as does implicit transaction in PostgreSQL. The pending
+     * writers are rolled back and the messages that follow are discarded up to the next Sync.
+     */
+    private void executePipelinedInsert() throws SqlException {
+        final InsertOperation insert = typesAndInsert.getInsert();
+        try {
+            if (pipelinedInsert != insert) {
+                parkPipelinedInsert();
+                pipelinedInsertMethod = insert.createMethod(sqlExecutionContext, this);
+                pipelinedInsert = insert;
+                // the method owns the writer now, even if an earlier statement has parked it
+                final int index = pendingWriters.keyIndex(insert.getTableName());
+                if (index < 0) {
+                    pendingWriters.removeAt(index);
+                }
+            }
+            rowCount = pipelinedInsertMethod.execute();
+            prepareCommandComplete(true);
+        } catch (SqlException e) {
+            failPipeline();
+            prepareNonCriticalError(e.getPosition(), e.getFlyweightMessage());
+        } catch (ImplicitCastException e) {
+            failPipeline();
+            prepareNonCriticalError(-1, e.getFlyweightMessage());
+        } catch (CairoException e) {
+            if (e.isInterruption()) {
+                rollbackPipelinedInserts();
+                throw e;
+            }
+            failPipeline();
+            prepareError(e);
+        } catch (Throwable e) {
+            rollbackPipelinedInserts();
+            throw e;
+        }
+    }
+
+    private void failPipeline() {
+        rollbackPipelinedInserts();
+        pipelineFailed = true;
+    }
+
+    /**
+     * Moves writer of the current pipelined insert to pendingWriters, so that it can be
+     * committed or rolled back together with the other writers of the pipeline.
+     */
+    private void parkPipelinedInsert() {
+        if (pipelinedInsertMethod != null) {
+            final TableWriter writer = pipelinedInsertMethod.popWriter();
+            pipelinedInsertMethod = null;
+            pipelinedInsert = null;
+            if (writer != null) {
+                pendingWriters.put(writer.getTableName(), writer);
+            }
+        }
+    }
+
+    private void commitPipelinedInserts() {
+        if (transactionState != NO_TRANSACTION) {
+            return;
+        }
+        parkPipelinedInsert();
+        if (pendingWriters.size() == 0) {
+            return;
+        }
+        try {
+            for (int i = 0, n = pendingWriters.size(); i < n; i++) {
+                pendingWriters.valueQuick(i).commit();
+            }
+        } finally {
+            // writers go back to the pool whether commit succeeded or not
+            for (int i = 0, n = pendingWriters.size(); i < n; i++) {
+                Misc.free(pendingWriters.valueQuick(i));
+            }
+            pendingWriters.clear();
+        }
+    }
+
     private void executeTag() {
         LOG.debug().$("executing [tag=").$(queryTag).$(']').$();
         if (queryTag != null && TAG_OK != queryTag) {  //do not run this for OK tag (i.e.: create table)
@@ -1340,6 +1467,23 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void rollbackPipelinedInserts() {
+        if (transactionState != NO_TRANSACTION) {
+            return;
+        }
+        parkPipelinedInsert();
+        try {
+            for (int i = 0, n = pendingWriters.size(); i < n; i++) {
+                pendingWriters.valueQuick(i).rollback();
+            }
+        } finally {
+            for (int i = 0, n = pendingWriters.size(); i < n; i++) {
+                Misc.free(pendingWriters.valueQuick(i));
+            }
+            pendingWriters.clear();
+        }
+    }
+
     private void executeUpdate(SqlCompiler compiler) throws SqlException {
         boolean recompileStale = true;
         for (int retries = 0; recompileStale; retries++) {
@@ -1541,6 +1685,15 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             doAuthentication(msgLo, msgLimit);
             return;
         }
+        if (copyIn) {
+            processCopyInMessage(type, msgLo, msgLimit);
+            return;
+        }
+        if (pipelineFailed && type != 'S' && type != 'H' && type != 'X') {
+            // PostgreSQL discards messages of the failed pipeline up to the next Sync
+            LOG.debug().$("discarded message of failed pipeline [type=").$((char) type).I$();
+            return;
+        }
         switch (type) {
             case 'P':
                 sendRNQ = true;
@@ -1568,7 +1721,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 processExec(msgLo, msgLimit, compiler);
                 break;
             case 'S': // sync
+                pipelineFailed = false;
                 processSyncActions();
+                commitPipelinedInserts();
                 prepareReadyForQuery();
                 prepareForNewQuery();
                 sendRNQ = true;
@@ -1581,6 +1736,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                     processSyncActions();
                     prepareForNewQuery();
                 }
+                // pipelined inserts are committed on sync only, flush does not end the implicit transaction
                 sendAndReset();
                 break;
             case 'D': // describe
@@ -1591,7 +1747,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 sendRNQ = true;
                 processQuery(msgLo, msgLimit, compiler);
                 break;
-            case 'd':
+            case 'd': // copy data
+            case 'c': // copy done
+            case 'f': // copy fail
+                // ignore copy messages that follow failed COPY, as PostgreSQL does
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).$(']').$();
@@ -1646,6 +1805,32 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void prepareCopyInResponse() {
+        final short formatCode = (short) (copyInProcessor.getFormat() == CopyModel.FORMAT_BINARY ? 1 : 0);
+        final int columnCount = copyInProcessor.getColumnCount();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        long addr = responseAsciiSink.skip();
+        responseAsciiSink.put((byte) formatCode);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort(formatCode);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
+    private void prepareCopyOutResponse() {
+        final short formatCode = (short) (copyOutProcessor.getFormat() == CopyModel.FORMAT_BINARY ? 1 : 0);
+        final int columnCount = copyOutProcessor.getColumnCount();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_OUT_RESPONSE);
+        long addr = responseAsciiSink.skip();
+        responseAsciiSink.put((byte) formatCode);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort(formatCode);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
     private void prepareDescribePortalResponse() {
         if (typesAndSelect != null) {
             try {
@@ -1925,7 +2110,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                             final short code = getShortUnsafe(lo);
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
                             bindSelectColumnFormats.setQuick(i, code);
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
+                            activeSelectColumnTypes.setQuick(2 * i + 1, GeoHashes.getBitFlags(m.getColumnType(i)));
                         }
                     } else if (columnFormatCodeCount == 1) {
                         lo += Short.BYTES;
@@ -1933,7 +2118,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                         for (int i = 0; i < columnCount; i++) {
                             activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType(code, m.getColumnType(i)));
                             bindSelectColumnFormats.setQuick(i, code);
-                            activeSelectColumnTypes.setQuick(2 * i + 1, 0);
+                            activeSelectColumnTypes.setQuick(2 * i + 1, GeoHashes.getBitFlags(m.getColumnType(i)));
                         }
                     } else {
                         LOG.error()
@@ -2041,6 +2226,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 }
                 queryTag = TAG_COPY;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                queryTag = TAG_COPY;
+                break;
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -2077,6 +2265,59 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void processCopyInMessage(byte type, long lo, long msgLimit)
+            throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException {
+        switch (type) {
+            case 'd':
+                // CopyData, rows may span message boundaries
+                try {
+                    copyInProcessor.onData(lo, msgLimit);
+                } catch (CairoException e) {
+                    abortCopyIn();
+                    prepareError(e);
+                    sendReadyForNewQuery();
+                }
+                break;
+            case 'c':
+                // CopyDone
+                try {
+                    rowCount = copyInProcessor.onDone();
+                    queryTag = TAG_COPY;
+                    prepareCommandComplete(true);
+                } catch (CairoException e) {
+                    prepareError(e);
+                } finally {
+                    abortCopyIn();
+                }
+                sendReadyForNewQuery();
+                break;
+            case 'f':
+                // CopyFail, client aborts the copy with an error message
+                final long hi = getStringLength(lo, msgLimit, "bad copy fail message length");
+                final CharacterStoreEntry entry = characterStore.newEntry();
+                entry.put("COPY from stdin failed: ");
+                if (!Chars.utf8Decode(lo, hi, entry)) {
+                    LOG.error().$("invalid UTF8 bytes in copy fail message").$();
+                    throw BadProtocolException.INSTANCE;
+                }
+                abortCopyIn();
+                prepareNonCriticalError(-1, characterStore.toImmutable().toString());
+                sendReadyForNewQuery();
+                break;
+            case 'H':
+            case 'S':
+                // Flush and Sync are ignored in copy-in mode
+                break;
+            case 'X':
+                // 'Terminate'
+                throw PeerDisconnectedException.INSTANCE;
+            default:
+                LOG.error().$("unexpected message in copy-in mode [type=").$((char) type).I$();
+                abortCopyIn();
+                throw BadProtocolException.INSTANCE;
+        }
+    }
+
     private void processDescribe(long lo, long msgLimit, @Transient SqlCompiler compiler)
             throws SqlException, BadProtocolException {
 
@@ -2129,13 +2370,21 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void processExecute(int maxRows, SqlCompiler compiler) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        if (typesAndInsert == null) {
+            // anything but insert ends the pipeline, so that statement sees inserted rows
+            commitPipelinedInserts();
+        }
         if (typesAndSelect != null) {
             LOG.debug().$("executing query").$();
             setupFactoryAndCursor(compiler);
             sendCursor(maxRows, resumeCursorExecuteRef, resumeCommandCompleteRef);
         } else if (typesAndInsert != null) {
             LOG.debug().$("executing insert").$();
-            executeInsert();
+            if (transactionState == NO_TRANSACTION) {
+                executePipelinedInsert();
+            } else {
+                executeInsert();
+            }
         } else if (typesAndUpdate != null) {
             LOG.debug().$("executing update").$();
             executeUpdate(compiler);
@@ -2311,6 +2560,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     //process one or more queries (batch/script) . "Simple Query" in PostgreSQL docs.
     private void processQuery(long lo, long limit, @Transient SqlCompiler compiler)
             throws BadProtocolException, PeerDisconnectedException, PeerIsSlowToReadException {
+        commitPipelinedInserts();
         prepareForNewQuery();
         CharacterStoreEntry e = characterStore.newEntry();
 
@@ -2321,8 +2571,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 // we need to continue parsing receive buffer even if we errored out
                 // this is because PG client might expect separate responses to everything it sent
             } catch (SqlException ex) {
+                abortCopyIn();
                 prepareNonCriticalError(ex.getPosition(), ex.getFlyweightMessage());
             } catch (CairoException ex) {
+                abortCopyIn();
                 if (ex.isInterruption()) {
                     prepareQueryCanceled(ex.getFlyweightMessage());
                 } else {
@@ -2333,7 +2585,13 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             LOG.error().$("invalid UTF8 bytes in parse query").$();
             throw BadProtocolException.INSTANCE;
         }
-        sendReadyForNewQuery();
+        if (copyIn) {
+            // client sends CopyData next, ReadyForQuery follows CopyDone or CopyFail
+            prepareCopyInResponse();
+            sendAndReset();
+        } else {
+            sendReadyForNewQuery();
+        }
     }
 
     private void processSyncActions() {
@@ -2426,6 +2684,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void reportError(CairoException ex) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackPipelinedInserts();
         prepareError(ex);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2433,6 +2692,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
     private void reportNonCriticalError(int position, CharSequence flyweightMessage)
             throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackPipelinedInserts();
         prepareNonCriticalError(position, flyweightMessage);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2440,6 +2700,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
     private void reportQueryCancelled(CharSequence flyweightMessage)
             throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackPipelinedInserts();
         prepareQueryCanceled(flyweightMessage);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2449,6 +2710,11 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         prepareCommandComplete(true);
     }
 
+    private void resumeCopyOut() throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
+        sendCopyOut();
+        sendReadyForNewQuery();
+    }
+
     private void resumeCursorExecute() throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         final Record record = currentCursor.getRecord();
         final int columnCount = currentFactory.getMetadata().getColumnCount();
@@ -2480,33 +2746,52 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         responseAsciiSink.reset();
     }
 
-    // This method is currently unused. it's used for the COPY sub-protocol, which is currently not implemented.
-    // It's left here so when we add the sub-protocol later we won't need to reimplemented it.
-    // We could keep it just in git history, but chances are nobody would recall to search for it there
-    private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        if (
-                TableUtils.TABLE_EXISTS == engine.getStatus(
-                        sqlExecutionContext.getCairoSecurityContext(),
-                        path,
-                        textLoader.getTableName()
-                )) {
-            responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
-            long addr = responseAsciiSink.skip();
-            responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName(), WRITER_LOCK_REASON)) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseAsciiSink.putNetworkShort((short) PGOids.getTypeOid(metadata.getColumnType(i)));
+    private void sendCopyOut() throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        resumeProcessor = resumeCopyOutRef;
+        boolean done;
+        do {
+            if (sendBufferLimit - sendBufferPtr < PROTOCOL_TAIL_COMMAND_LENGTH) {
+                sendAndReset();
+            }
+            // each CopyData message carries as many rows as fit into the send buffer
+            responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+            final long addr = responseAsciiSink.skip();
+            try {
+                done = copyOutProcessor.putRows(responseAsciiSink);
+            } catch (Throwable th) {
+                // rows encoded so far are sent ahead of the error
+                responseAsciiSink.putLen(addr);
+                resumeProcessor = null;
+                copyOutProcessor.clear();
+                throw th;
+            }
+            if (sendBufferPtr == addr + Integer.BYTES) {
+                // nothing was written
+                sendBufferPtr = addr - 1;
+                if (!done) {
+                    LOG.error().$("not enough space in buffer for row data [buffer=").$(sendBufferSize).I$();
+                    resumeProcessor = null;
+                    copyOutProcessor.clear();
+                    throw CairoException.critical(0).put("server configuration error: not enough space in send buffer for row data");
                 }
+            } else {
+                responseAsciiSink.putLen(addr);
             }
-            responseAsciiSink.putLen(addr);
-        } else {
-            final SqlException e = SqlException.$(0, "table does not exist [table=").put(textLoader.getTableName()).put(']');
-            prepareNonCriticalError(e.getPosition(), e.getFlyweightMessage());
-            prepareReadyForQuery();
+            if (!done) {
+                sendAndReset();
+            }
+        } while (!done);
+
+        if (sendBufferLimit - sendBufferPtr < PROTOCOL_TAIL_COMMAND_LENGTH) {
+            sendAndReset();
         }
-        sendAndReset();
+        resumeProcessor = null;
+        rowCount = copyOutProcessor.getRowCount();
+        copyOutProcessor.clear();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_DONE);
+        responseAsciiSink.putIntDirect(INT_BYTES_X);
+        queryTag = TAG_COPY;
+        prepareCommandComplete(true);
     }
 
     private void sendCursor(
@@ -2630,6 +2915,56 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         recvBufferReadOffset = 0;
     }
 
+    private void startCopyIn(CopyModel model) throws SqlException {
+        final ExpressionNode target = model.getTarget();
+        final CharSequence tableName = GenericLexer.unquote(target.token);
+        if (engine.getStatus(sqlExecutionContext.getCairoSecurityContext(), path, tableName) != TableUtils.TABLE_EXISTS) {
+            throw SqlException.$(target.position, "table does not exist [table=").put(tableName).put(']');
+        }
+        if (copyInProcessor == null) {
+            copyInProcessor = new PGCopyInProcessor(engine.getConfiguration(), copyBatchSize);
+        }
+        final TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), tableName, WRITER_LOCK_REASON);
+        try {
+            copyInProcessor.of(
+                    writer,
+                    model.getFormat() == -1 ? CopyModel.FORMAT_TEXT : model.getFormat(),
+                    model.getDelimiter(),
+                    model.isHeader(),
+                    model.getAtomicity() == -1 ? Atomicity.SKIP_ALL : model.getAtomicity()
+            );
+        } catch (Throwable th) {
+            // the processor owns the writer at this point
+            copyInProcessor.clear();
+            throw th;
+        }
+        copyIn = true;
+        LOG.info().$("copy in [table=").$(tableName).$(", format=").$(copyInProcessor.getFormat()).I$();
+    }
+
+    private void startCopyOut(CompiledQuery cq) throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
+        final CopyModel model = cq.getCopyModel();
+        if (copyOutProcessor == null) {
+            copyOutProcessor = new PGCopyOutProcessor();
+        }
+        try {
+            copyOutProcessor.of(
+                    cq.getRecordCursorFactory(),
+                    sqlExecutionContext,
+                    model.getFormat() == -1 ? CopyModel.FORMAT_TEXT : model.getFormat(),
+                    model.getDelimiter(),
+                    model.isHeader()
+            );
+        } catch (Throwable th) {
+            // the processor owns the factory at this point
+            copyOutProcessor.clear();
+            throw th;
+        }
+        LOG.info().$("copy out [format=").$(copyOutProcessor.getFormat()).I$();
+        prepareCopyOutResponse();
+        sendCopyOut();
+    }
+
     private void validateParameterCounts(short parameterFormatCount, short parameterValueCount, int parameterTypeCount) throws BadProtocolException {
         if (parameterValueCount > 0) {
             if (parameterValueCount < parameterTypeCount) {
@@ -2696,6 +3031,12 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             } else if (cq.getType() == CompiledQuery.INSERT_AS_SELECT ||
                     cq.getType() == CompiledQuery.CREATE_TABLE_AS_SELECT) {
                 prepareCommandComplete(true);
+            } else if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                if (cq.getRecordCursorFactory() != null) {
+                    startCopyOut(cq);
+                } else {
+                    startCopyIn(cq.getCopyModel());
+                }
             } else {
                 executeTag();
                 prepareCommandComplete(false);
@@ -2703,7 +3044,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
 
         @Override
-        public void preCompile(SqlCompiler compiler) {
+        public void preCompile(SqlCompiler compiler) throws SqlException {
+            if (copyIn) {
+                throw SqlException.$(0, "COPY FROM STDIN must be the last statement in the query");
+            }
             sendRNQ = true;
             prepareForNewBatchQuery();
             PGConnectionContext.this.typesAndInsert = null;
@@ -0,0 +1,833 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.TextConfiguration;
+import io.questdb.cutlass.text.TextLexer;
+import io.questdb.cutlass.text.TextUtil;
+import io.questdb.cutlass.text.Utf8Exception;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.DirectCharSink;
+
+import java.io.Closeable;
+
+/**
+ * Appends the payload of COPY FROM STDIN CopyData messages to a table. CSV is split by
+ * {@link TextLexer}, PostgreSQL text format lines are split and unescaped in place and
+ * binary tuples are decoded straight from the PGCOPY stream. Values go directly into
+ * {@link TableWriter} rows. With {@link Atomicity#SKIP_ALL}, i.e. ON ERROR ABORT, rows are
+ * committed once the copy is done, so any failure rolls back the whole copy. Other modes
+ * commit every "pg.copy.batch.size" rows and a failure rolls back the last batch only.
+ * <p>
+ * CopyData message boundaries are arbitrary, incomplete lines and tuples are carried over
+ * to the next message.
+ */
+class PGCopyInProcessor implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(PGCopyInProcessor.class);
+    // "PGCOPY\n\377\r\n\0" followed by int32 flags and int32 header extension length
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final int BINARY_HEADER_LEN = BINARY_SIGNATURE.length + 2 * Integer.BYTES;
+    private final int batchSize;
+    private final int carryLimit;
+    private final TextLexer textLexer;
+    private final DirectCharSink utf8Sink;
+    private final ObjList<DirectByteCharSequence> fields = new ObjList<>();
+    // address and length pairs of binary tuple fields, length is -1 for NULL
+    private final LongList binaryFields = new LongList();
+    private final TextLexer.Listener csvListener = this::onCsvFields;
+    private TableWriter writer;
+    private RecordMetadata metadata;
+    private int columnCount;
+    private int timestampIndex;
+    private int format;
+    private byte delimiter;
+    private int atomicity;
+    private boolean headerPending;
+    private boolean endOfData;
+    private long lineCount;
+    private long rowCount;
+    private long uncommittedRowCount;
+    private long errorCount;
+    private long carryBuf;
+    private long carryCapacity;
+    private long carrySize;
+
+    PGCopyInProcessor(CairoConfiguration configuration, int batchSize) {
+        final TextConfiguration textConfiguration = configuration.getTextConfiguration();
+        this.batchSize = batchSize;
+        this.carryLimit = textConfiguration.getRollBufferLimit();
+        this.textLexer = new TextLexer(textConfiguration);
+        this.textLexer.setSkipLinesWithExtraValues(true);
+        this.utf8Sink = new DirectCharSink(textConfiguration.getUtf8SinkSize());
+    }
+
+    @Override
+    public void clear() {
+        if (writer != null) {
+            // no-op when the last batch is committed already
+            writer.rollback();
+            writer = Misc.free(writer);
+        }
+        metadata = null;
+        textLexer.clear();
+        carrySize = 0;
+        lineCount = 0;
+        rowCount = 0;
+        uncommittedRowCount = 0;
+        errorCount = 0;
+        endOfData = false;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(textLexer);
+        Misc.free(utf8Sink);
+        if (carryBuf != 0) {
+            Unsafe.free(carryBuf, carryCapacity, MemoryTag.NATIVE_PGW_CONN);
+            carryBuf = 0;
+            carryCapacity = 0;
+        }
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    int getFormat() {
+        return format;
+    }
+
+    /**
+     * Prepares to receive data for the table. Takes ownership of the writer, the writer
+     * is released by {@link #clear()}.
+     */
+    void of(TableWriter writer, int format, byte delimiter, boolean header, int atomicity) {
+        clear();
+        this.writer = writer;
+        this.metadata = writer.getMetadata();
+        this.columnCount = metadata.getColumnCount();
+        this.timestampIndex = metadata.getTimestampIndex();
+        this.format = format;
+        this.atomicity = atomicity;
+        for (int i = 0; i < columnCount; i++) {
+            if (!isSupported(metadata.getColumnType(i))) {
+                throw CairoException.nonCritical()
+                        .put("COPY FROM STDIN does not support column type [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(metadata.getColumnType(i)))
+                        .put(']');
+            }
+        }
+        switch (format) {
+            case CopyModel.FORMAT_CSV:
+                this.delimiter = delimiter > 0 ? delimiter : (byte) ',';
+                textLexer.of(this.delimiter);
+                textLexer.restart(header);
+                this.headerPending = false;
+                break;
+            case CopyModel.FORMAT_BINARY:
+                this.headerPending = true;
+                break;
+            default:
+                this.delimiter = delimiter > 0 ? delimiter : (byte) '\t';
+                this.headerPending = header;
+                break;
+        }
+    }
+
+    /**
+     * Appends rows from the payload of a CopyData message.
+     *
+     * @throws CairoException when data is malformed and atomicity is {@link Atomicity#SKIP_ALL},
+     *                        the caller is expected to roll back
+     */
+    void onData(long lo, long hi) {
+        if (endOfData) {
+            return;
+        }
+        if (format == CopyModel.FORMAT_CSV) {
+            textLexer.parse(lo, hi, Integer.MAX_VALUE, csvListener);
+            return;
+        }
+        if (carrySize > 0) {
+            appendCarry(lo, hi);
+            final long consumed = parse(carryBuf, carryBuf + carrySize) - carryBuf;
+            if (consumed > 0) {
+                carrySize -= consumed;
+                Vect.memmove(carryBuf, carryBuf + consumed, carrySize);
+            }
+        } else {
+            final long p = parse(lo, hi);
+            if (p < hi) {
+                appendCarry(p, hi);
+            }
+        }
+    }
+
+    /**
+     * Processes the remaining data on CopyDone and commits.
+     *
+     * @return number of rows appended by COPY
+     */
+    long onDone() {
+        if (format == CopyModel.FORMAT_CSV) {
+            textLexer.parseLast();
+            if (textLexer.getErrorCount() > 0) {
+                errorCount += textLexer.getErrorCount();
+                if (atomicity == Atomicity.SKIP_ALL) {
+                    throw CairoException.nonCritical().put("extra fields [lines=").put(textLexer.getErrorCount()).put(']');
+                }
+            }
+        } else if (carrySize > 0 && !endOfData) {
+            if (format == CopyModel.FORMAT_BINARY) {
+                throw CairoException.nonCritical().put("incomplete COPY binary tuple [size=").put(carrySize).put(']');
+            }
+            // the last line is not terminated by a new line
+            long hi = carryBuf + carrySize;
+            if (Unsafe.getUnsafe().getByte(hi - 1) == '\r') {
+                hi--;
+            }
+            onTextLine(carryBuf, hi);
+            carrySize = 0;
+        }
+        commit();
+        LOG.info().$("copy done [table=").$(writer.getTableName())
+                .$(", lines=").$(lineCount)
+                .$(", rows=").$(rowCount)
+                .$(", errors=").$(errorCount)
+                .I$();
+        return rowCount;
+    }
+
+    void rollback() {
+        if (writer != null) {
+            writer.rollback();
+            uncommittedRowCount = 0;
+        }
+    }
+
+    private static long getBinaryInteger(long address, int len) throws NumericException {
+        switch (len) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(address);
+            case Short.BYTES:
+                return getShort(address);
+            case Integer.BYTES:
+                return getInt(address);
+            case Long.BYTES:
+                return getLong(address);
+            default:
+                throw NumericException.INSTANCE;
+        }
+    }
+
+    private static long getBinaryTimestamp(long address, int len) throws NumericException {
+        switch (len) {
+            case Integer.BYTES:
+                // DATE, days since 2000-01-01
+                return getInt(address) * Timestamps.DAY_MICROS + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            case Long.BYTES:
+                // TIMESTAMP, micros since 2000-01-01
+                return getLong(address) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+            default:
+                throw NumericException.INSTANCE;
+        }
+    }
+
+    private static int getInt(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getInt(address));
+    }
+
+    private static long getLong(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getLong(address));
+    }
+
+    private static short getShort(long address) {
+        return Numbers.bswap(Unsafe.getUnsafe().getShort(address));
+    }
+
+    private static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.BINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean parseBoolean(CharSequence value) throws NumericException {
+        if (value.length() == 1) {
+            switch (value.charAt(0) | 32) {
+                case 't':
+                case '1':
+                    return true;
+                case 'f':
+                case '0':
+                    return false;
+                default:
+                    throw NumericException.INSTANCE;
+            }
+        }
+        if (SqlKeywords.isTrueKeyword(value)) {
+            return true;
+        }
+        if (SqlKeywords.isFalseKeyword(value)) {
+            return false;
+        }
+        throw NumericException.INSTANCE;
+    }
+
+    // decodes bytea hex format, e.g. \x0a0b, in place and returns the number of bytes
+    private static long unhex(long lo, long hi) throws NumericException {
+        if (hi - lo < 2 || Unsafe.getUnsafe().getByte(lo) != '\\' || Unsafe.getUnsafe().getByte(lo + 1) != 'x' || ((hi - lo) & 1) != 0) {
+            throw NumericException.INSTANCE;
+        }
+        long w = lo;
+        for (long p = lo + 2; p < hi; p += 2) {
+            final int h = Numbers.hexToDecimal(Unsafe.getUnsafe().getByte(p));
+            final int l = Numbers.hexToDecimal(Unsafe.getUnsafe().getByte(p + 1));
+            Unsafe.getUnsafe().putByte(w++, (byte) ((h << 4) | l));
+        }
+        return w - lo;
+    }
+
+    // resolves text format escape sequences in place and returns the new end of the value
+    private static long unescape(long lo, long hi) {
+        long p = lo;
+        while (p < hi && Unsafe.getUnsafe().getByte(p) != '\\') {
+            p++;
+        }
+        long w = p;
+        while (p < hi) {
+            byte b = Unsafe.getUnsafe().getByte(p++);
+            if (b == '\\' && p < hi) {
+                b = Unsafe.getUnsafe().getByte(p++);
+                switch (b) {
+                    case 'b':
+                        b = '\b';
+                        break;
+                    case 'f':
+                        b = '\f';
+                        break;
+                    case 'n':
+                        b = '\n';
+                        break;
+                    case 'r':
+                        b = '\r';
+                        break;
+                    case 't':
+                        b = '\t';
+                        break;
+                    case 'v':
+                        b = 0x0b;
+                        break;
+                    case 'x': {
+                        int v = 0;
+                        int n = 0;
+                        int d;
+                        while (n < 2 && p < hi && (d = Character.digit(Unsafe.getUnsafe().getByte(p), 16)) > -1) {
+                            v = (v << 4) | d;
+                            p++;
+                            n++;
+                        }
+                        if (n > 0) {
+                            b = (byte) v;
+                        }
+                        break;
+                    }
+                    default:
+                        if (b >= '0' && b <= '7') {
+                            int v = b - '0';
+                            for (int n = 1; n < 3 && p < hi; n++) {
+                                final byte c = Unsafe.getUnsafe().getByte(p);
+                                if (c < '0' || c > '7') {
+                                    break;
+                                }
+                                v = (v << 3) | (c - '0');
+                                p++;
+                            }
+                            b = (byte) v;
+                        }
+                        break;
+                }
+            }
+            Unsafe.getUnsafe().putByte(w++, b);
+        }
+        return w;
+    }
+
+    private void appendCarry(long lo, long hi) {
+        final long len = hi - lo;
+        if (carrySize + len > carryCapacity) {
+            final long capacity = Math.max(Numbers.ceilPow2(carrySize + len), 4096);
+            if (capacity > carryLimit) {
+                throw CairoException.nonCritical()
+                        .put("COPY line or tuple is too long [size=").put(carrySize + len)
+                        .put(", limit=").put(carryLimit)
+                        .put(']');
+            }
+            carryBuf = Unsafe.realloc(carryBuf, carryCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            carryCapacity = capacity;
+        }
+        Vect.memcpy(carryBuf + carrySize, lo, len);
+        carrySize += len;
+    }
+
+    private void commit() {
+        if (uncommittedRowCount > 0) {
+            writer.commit();
+            uncommittedRowCount = 0;
+        }
+    }
+
+    private DirectByteCharSequence field(int index) {
+        if (index < fields.size()) {
+            return fields.getQuick(index);
+        }
+        final DirectByteCharSequence field = new DirectByteCharSequence();
+        fields.extendAndSet(index, field);
+        return field;
+    }
+
+    private void onBadRow(int fieldCount) {
+        errorCount++;
+        LOG.error().$("column count mismatch [table=").$(writer.getTableName())
+                .$(", line=").$(lineCount)
+                .$(", expected=").$(columnCount)
+                .$(", actual=").$(fieldCount)
+                .I$();
+        if (atomicity == Atomicity.SKIP_ALL) {
+            throw CairoException.nonCritical()
+                    .put("column count mismatch [line=").put(lineCount)
+                    .put(", expected=").put(columnCount)
+                    .put(", actual=").put(fieldCount)
+                    .put(']');
+        }
+    }
+
+    /**
+     * @param row null when the designated timestamp is bad and there is no row yet
+     * @return true when the row is cancelled
+     */
+    private boolean onBadValue(TableWriter.Row row, int columnIndex) {
+        LOG.error().$("bad value [table=").$(writer.getTableName())
+                .$(", line=").$(lineCount)
+                .$(", column=").$(metadata.getColumnName(columnIndex))
+                .I$();
+        if (atomicity == Atomicity.SKIP_COL && row != null) {
+            return false;
+        }
+        errorCount++;
+        if (row != null) {
+            row.cancel();
+        }
+        if (atomicity == Atomicity.SKIP_ALL) {
+            throw CairoException.nonCritical()
+                    .put("bad value [line=").put(lineCount)
+                    .put(", column=").put(metadata.getColumnName(columnIndex))
+                    .put(']');
+        }
+        return true;
+    }
+
+    private void onCsvFields(long line, ObjList<DirectByteCharSequence> values, int valueCount) {
+        if (valueCount == 1 && Chars.equals(values.getQuick(0), "\\.")) {
+            // end of data marker sent by older clients
+            endOfData = true;
+            return;
+        }
+        writeTextRow(values, valueCount, true);
+    }
+
+    private void onRowAppended() {
+        rowCount++;
+        if (++uncommittedRowCount >= batchSize && atomicity != Atomicity.SKIP_ALL) {
+            commit();
+        }
+    }
+
+    private void onTextLine(long lo, long hi) {
+        if (headerPending) {
+            headerPending = false;
+            return;
+        }
+        if (hi - lo == 2 && Unsafe.getUnsafe().getByte(lo) == '\\' && Unsafe.getUnsafe().getByte(lo + 1) == '.') {
+            endOfData = true;
+            return;
+        }
+        int fieldCount = 0;
+        long fieldLo = lo;
+        for (long p = lo; p < hi; p++) {
+            final byte b = Unsafe.getUnsafe().getByte(p);
+            if (b == '\\') {
+                // escaped character, it can be the delimiter
+                p++;
+            } else if (b == delimiter) {
+                setTextField(fieldCount++, fieldLo, p);
+                fieldLo = p + 1;
+            }
+        }
+        setTextField(fieldCount++, fieldLo, hi);
+        writeTextRow(fields, fieldCount, false);
+    }
+
+    private long parse(long lo, long hi) {
+        return format == CopyModel.FORMAT_BINARY ? parseBinary(lo, hi) : parseText(lo, hi);
+    }
+
+    private long parseBinary(long lo, long hi) {
+        long p = lo;
+        if (headerPending) {
+            if (hi - p < BINARY_HEADER_LEN) {
+                return p;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw CairoException.nonCritical().put("invalid COPY binary signature");
+                }
+            }
+            final int extensionLen = getInt(p + BINARY_SIGNATURE.length + Integer.BYTES);
+            if (hi - p < BINARY_HEADER_LEN + extensionLen) {
+                return p;
+            }
+            p += BINARY_HEADER_LEN + extensionLen;
+            headerPending = false;
+        }
+
+        while (p + Short.BYTES <= hi) {
+            final short fieldCount = getShort(p);
+            if (fieldCount == -1) {
+                // trailer
+                endOfData = true;
+                return hi;
+            }
+            binaryFields.clear();
+            long q = p + Short.BYTES;
+            for (int i = 0; i < fieldCount; i++) {
+                if (q + Integer.BYTES > hi) {
+                    return p;
+                }
+                final int len = getInt(q);
+                q += Integer.BYTES;
+                if (len > 0) {
+                    if (q + len > hi) {
+                        return p;
+                    }
+                }
+                binaryFields.add(q, len);
+                q += Math.max(len, 0);
+            }
+            writeBinaryRow(fieldCount);
+            p = q;
+        }
+        return p;
+    }
+
+    private long parseText(long lo, long hi) {
+        long p = lo;
+        while (p < hi) {
+            long eol = p;
+            while (eol < hi && Unsafe.getUnsafe().getByte(eol) != '\n') {
+                eol++;
+            }
+            if (eol == hi) {
+                return p;
+            }
+            long lineHi = eol;
+            if (lineHi > p && Unsafe.getUnsafe().getByte(lineHi - 1) == '\r') {
+                lineHi--;
+            }
+            onTextLine(p, lineHi);
+            if (endOfData) {
+                return hi;
+            }
+            p = eol + 1;
+        }
+        return p;
+    }
+
+    private void putBinaryValue(TableWriter.Row row, int columnIndex, long address, int len) throws NumericException, Utf8Exception {
+        final int columnType = metadata.getColumnType(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                if (len != 1) {
+                    throw NumericException.INSTANCE;
+                }
+                row.putBool(columnIndex, Unsafe.getUnsafe().getByte(address) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, SqlUtil.implicitCastLongAsByte(getBinaryInteger(address, len)));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, SqlUtil.implicitCastLongAsShort(getBinaryInteger(address, len)));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, SqlUtil.implicitCastLongAsInt(getBinaryInteger(address, len)));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, getBinaryInteger(address, len));
+                break;
+            case ColumnType.FLOAT:
+                if (len == Integer.BYTES) {
+                    row.putFloat(columnIndex, Float.intBitsToFloat(getInt(address)));
+                } else if (len == Long.BYTES) {
+                    row.putFloat(columnIndex, SqlUtil.implicitCastDoubleAsFloat(Double.longBitsToDouble(getLong(address))));
+                } else {
+                    throw NumericException.INSTANCE;
+                }
+                break;
+            case ColumnType.DOUBLE:
+                if (len == Long.BYTES) {
+                    row.putDouble(columnIndex, Double.longBitsToDouble(getLong(address)));
+                } else if (len == Integer.BYTES) {
+                    row.putDouble(columnIndex, Float.intBitsToFloat(getInt(address)));
+                } else {
+                    throw NumericException.INSTANCE;
+                }
+                break;
+            case ColumnType.DATE:
+                row.putDate(columnIndex, getBinaryTimestamp(address, len) / 1000);
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, getBinaryTimestamp(address, len));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(columnIndex, address, len);
+                break;
+            default:
+                // the remaining types are sent as text
+                utf8Sink.clear();
+                if (!Chars.utf8Decode(address, address + len, utf8Sink)) {
+                    throw Utf8Exception.INSTANCE;
+                }
+                putTextValue(row, columnIndex, columnType, utf8Sink);
+                break;
+        }
+    }
+
+    private void putTextValue(TableWriter.Row row, int columnIndex, int columnType, CharSequence value) throws NumericException {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, parseBoolean(value));
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, SqlUtil.implicitCastStrAsByte(value));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, SqlUtil.implicitCastStrAsShort(value));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(columnIndex, SqlUtil.implicitCastStrAsChar(value));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, SqlUtil.implicitCastStrAsInt(value));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, SqlUtil.implicitCastStrAsLong(value));
+                break;
+            case ColumnType.DATE:
+                row.putDate(columnIndex, SqlUtil.implicitCastStrAsDate(value));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, SqlUtil.implicitCastStrAsTimestamp(value));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(columnIndex, SqlUtil.implicitCastStrAsFloat(value));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(columnIndex, SqlUtil.implicitCastStrAsDouble(value));
+                break;
+            case ColumnType.STRING:
+                row.putStr(columnIndex, value);
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(columnIndex, value);
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(columnIndex, value);
+                break;
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                row.putGeoStr(columnIndex, value);
+                break;
+            default:
+                throw NumericException.INSTANCE;
+        }
+    }
+
+    private void putTextValue(TableWriter.Row row, int columnIndex, DirectByteCharSequence value, boolean csv) throws NumericException, Utf8Exception {
+        final int columnType = metadata.getColumnType(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+                utf8Sink.clear();
+                if (csv) {
+                    TextUtil.utf8DecodeEscConsecutiveQuotes(value.getLo(), value.getHi(), utf8Sink);
+                } else if (!Chars.utf8Decode(value.getLo(), value.getHi(), utf8Sink)) {
+                    throw Utf8Exception.INSTANCE;
+                }
+                putTextValue(row, columnIndex, columnType, utf8Sink);
+                break;
+            case ColumnType.BINARY:
+                row.putBin(columnIndex, value.getLo(), unhex(value.getLo(), value.getHi()));
+                break;
+            default:
+                // ASCII values are parsed straight from the message
+                putTextValue(row, columnIndex, columnType, value);
+                break;
+        }
+    }
+
+    private void setTextField(int index, long lo, long hi) {
+        if (hi - lo == 2 && Unsafe.getUnsafe().getByte(lo) == '\\' && Unsafe.getUnsafe().getByte(lo + 1) == 'N') {
+            // NULL
+            field(index).of(lo, lo);
+        } else {
+            field(index).of(lo, unescape(lo, hi));
+        }
+    }
+
+    private void writeBinaryRow(int fieldCount) {
+        lineCount++;
+        if (fieldCount != columnCount) {
+            onBadRow(fieldCount);
+            return;
+        }
+
+        final TableWriter.Row row;
+        if (timestampIndex > -1) {
+            final int len = (int) binaryFields.getQuick(2 * timestampIndex + 1);
+            long timestamp = Numbers.LONG_NaN;
+            if (len > -1) {
+                try {
+                    timestamp = getBinaryTimestamp(binaryFields.getQuick(2 * timestampIndex), len);
+                } catch (NumericException ignore) {
+                }
+            }
+            if (timestamp == Numbers.LONG_NaN) {
+                onBadValue(null, timestampIndex);
+                return;
+            }
+            row = writer.newRow(timestamp);
+        } else {
+            row = writer.newRow();
+        }
+
+        for (int i = 0; i < fieldCount; i++) {
+            final int len = (int) binaryFields.getQuick(2 * i + 1);
+            if (i == timestampIndex || len < 0) {
+                continue;
+            }
+            try {
+                putBinaryValue(row, i, binaryFields.getQuick(2 * i), len);
+            } catch (Exception e) {
+                if (onBadValue(row, i)) {
+                    return;
+                }
+            }
+        }
+        row.append();
+        onRowAppended();
+    }
+
+    private void writeTextRow(ObjList<DirectByteCharSequence> values, int valueCount, boolean csv) {
+        lineCount++;
+        if (valueCount != columnCount) {
+            onBadRow(valueCount);
+            return;
+        }
+
+        // empty values are NULLs, as in CSV import
+        final TableWriter.Row row;
+        if (timestampIndex > -1) {
+            final DirectByteCharSequence value = values.getQuick(timestampIndex);
+            long timestamp = Numbers.LONG_NaN;
+            if (value.length() > 0) {
+                try {
+                    timestamp = SqlUtil.implicitCastStrAsTimestamp(value);
+                } catch (ImplicitCastException ignore) {
+                }
+            }
+            if (timestamp == Numbers.LONG_NaN) {
+                onBadValue(null, timestampIndex);
+                return;
+            }
+            row = writer.newRow(timestamp);
+        } else {
+            row = writer.newRow();
+        }
+
+        for (int i = 0; i < valueCount; i++) {
+            final DirectByteCharSequence value = values.getQuick(i);
+            if (i == timestampIndex || value.length() == 0) {
+                continue;
+            }
+            try {
+                putTextValue(row, i, value, csv);
+            } catch (Exception e) {
+                if (onBadValue(row, i)) {
+                    return;
+                }
+            }
+        }
+        row.append();
+        onRowAppended();
+    }
+}
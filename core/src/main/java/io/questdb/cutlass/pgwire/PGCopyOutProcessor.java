@@ -0,0 +1,583 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.network.NoSpaceLeftInResponseBufferException;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+
+import java.io.Closeable;
+
+import static io.questdb.std.datetime.millitime.DateFormatUtils.PG_DATE_MILLI_TIME_Z_PRINT_FORMAT;
+
+/**
+ * Encodes the result of COPY ... TO STDOUT into the payload of CopyData messages. Rows are
+ * written back to back, as many as fit in the send buffer, so that each CopyData message
+ * carries a large chunk of data rather than a single row. Encoders are resolved from the
+ * metadata once per query.
+ */
+class PGCopyOutProcessor implements Closeable, Mutable {
+    // "PGCOPY\n\377\r\n\0" followed by int32 flags and int32 header extension length
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    // column type tags and geohash bit flags
+    private final IntList columnTypes = new IntList();
+    private RecordCursorFactory factory;
+    private RecordCursor cursor;
+    private Record record;
+    private RecordMetadata metadata;
+    private int columnCount;
+    private int format;
+    private char delimiter;
+    private boolean headerPending;
+    private boolean rowPending;
+    private boolean trailerPending;
+    private boolean finished;
+    private long rowCount;
+
+    @Override
+    public void clear() {
+        cursor = Misc.free(cursor);
+        factory = Misc.free(factory);
+        record = null;
+        metadata = null;
+        columnTypes.clear();
+        rowPending = false;
+        finished = false;
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    int getFormat() {
+        return format;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Opens the cursor of the exported query. Takes ownership of the factory, the factory
+     * is released by {@link #clear()}.
+     */
+    void of(
+            RecordCursorFactory factory,
+            SqlExecutionContext executionContext,
+            int format,
+            byte delimiter,
+            boolean header
+    ) throws SqlException {
+        clear();
+        this.factory = factory;
+        this.metadata = factory.getMetadata();
+        this.columnCount = metadata.getColumnCount();
+        this.format = format;
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!isSupported(columnType)) {
+                throw CairoException.nonCritical()
+                        .put("COPY TO STDOUT does not support column type [column=").put(metadata.getColumnName(i))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+            }
+            columnTypes.add(ColumnType.tagOf(columnType));
+            columnTypes.add(GeoHashes.getBitFlags(columnType));
+        }
+        switch (format) {
+            case CopyModel.FORMAT_BINARY:
+                if (header) {
+                    throw CairoException.nonCritical().put("HEADER is not supported in binary format");
+                }
+                headerPending = true;
+                trailerPending = true;
+                break;
+            case CopyModel.FORMAT_CSV:
+                this.delimiter = delimiter > 0 ? (char) delimiter : ',';
+                headerPending = header;
+                trailerPending = false;
+                break;
+            default:
+                this.delimiter = delimiter > 0 ? (char) delimiter : '\t';
+                headerPending = header;
+                trailerPending = false;
+                break;
+        }
+        this.cursor = factory.getCursor(executionContext);
+        this.record = cursor.getRecord();
+    }
+
+    /**
+     * Writes as many rows as fit into the sink. A row that does not fit is written
+     * on the next call.
+     *
+     * @return true when all rows are written, false when the sink is full
+     */
+    boolean putRows(PGConnectionContext.ResponseAsciiSink sink) throws SqlException {
+        if (finished) {
+            return true;
+        }
+        try {
+            if (headerPending) {
+                sink.bookmark();
+                putHeader(sink);
+                headerPending = false;
+            }
+            if (rowPending) {
+                sink.bookmark();
+                putRecord(sink);
+                rowPending = false;
+                rowCount++;
+            }
+            while (cursor.hasNext()) {
+                rowPending = true;
+                sink.bookmark();
+                putRecord(sink);
+                rowPending = false;
+                rowCount++;
+            }
+            if (trailerPending) {
+                sink.bookmark();
+                sink.putNetworkShort((short) -1);
+                trailerPending = false;
+            }
+            finished = true;
+            return true;
+        } catch (NoSpaceLeftInResponseBufferException e) {
+            sink.resetToBookmark();
+            return false;
+        } catch (Throwable th) {
+            if (rowPending) {
+                // do not send partially encoded row
+                sink.resetToBookmark();
+            }
+            throw th;
+        }
+    }
+
+    private static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.BINARY:
+            case ColumnType.NULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void putGeoHash(PGConnectionContext.ResponseAsciiSink sink, long value, int bitFlags) {
+        if (bitFlags < 0) {
+            GeoHashes.appendCharsUnsafe(value, -bitFlags, sink);
+        } else {
+            GeoHashes.appendBinaryStringUnsafe(value, bitFlags, sink);
+        }
+    }
+
+    private static void putHex(PGConnectionContext.ResponseAsciiSink sink, BinarySequence sequence) {
+        for (long i = 0, n = sequence.length(); i < n; i++) {
+            final int b = sequence.byteAt(i) & 0xff;
+            sink.put(Numbers.hexDigits[b >> 4]).put(Numbers.hexDigits[b & 0xf]);
+        }
+    }
+
+    private long getGeoHash(int columnIndex, int typeTag) {
+        switch (typeTag) {
+            case ColumnType.GEOBYTE:
+                return record.getGeoByte(columnIndex);
+            case ColumnType.GEOSHORT:
+                return record.getGeoShort(columnIndex);
+            case ColumnType.GEOINT:
+                return record.getGeoInt(columnIndex);
+            default:
+                return record.getGeoLong(columnIndex);
+        }
+    }
+
+    private boolean isNull(int columnIndex, int typeTag) {
+        switch (typeTag) {
+            case ColumnType.CHAR:
+                return record.getChar(columnIndex) == 0;
+            case ColumnType.INT:
+                return record.getInt(columnIndex) == Numbers.INT_NaN;
+            case ColumnType.LONG:
+                return record.getLong(columnIndex) == Numbers.LONG_NaN;
+            case ColumnType.DATE:
+                return record.getDate(columnIndex) == Numbers.LONG_NaN;
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(columnIndex) == Numbers.LONG_NaN;
+            case ColumnType.FLOAT:
+                return Float.isNaN(record.getFloat(columnIndex));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(record.getDouble(columnIndex));
+            case ColumnType.STRING:
+                return record.getStr(columnIndex) == null;
+            case ColumnType.SYMBOL:
+                return record.getSym(columnIndex) == null;
+            case ColumnType.BINARY:
+                return record.getBin(columnIndex) == null;
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(columnIndex);
+                return value.getLong0() == Numbers.LONG_NaN &&
+                        value.getLong1() == Numbers.LONG_NaN &&
+                        value.getLong2() == Numbers.LONG_NaN &&
+                        value.getLong3() == Numbers.LONG_NaN;
+            }
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return getGeoHash(columnIndex, typeTag) == GeoHashes.NULL;
+            case ColumnType.NULL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void putBinaryValue(PGConnectionContext.ResponseAsciiSink sink, int columnIndex) {
+        final int typeTag = columnTypes.getQuick(2 * columnIndex);
+        switch (typeTag) {
+            case ColumnType.BOOLEAN:
+                sink.putNetworkInt(Byte.BYTES);
+                sink.put(record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+                break;
+            case ColumnType.BYTE:
+                sink.putNetworkInt(Short.BYTES);
+                sink.putNetworkShort(record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                sink.putNetworkInt(Short.BYTES);
+                sink.putNetworkShort(record.getShort(columnIndex));
+                break;
+            case ColumnType.INT: {
+                final int value = record.getInt(columnIndex);
+                if (value != Numbers.INT_NaN) {
+                    sink.putNetworkInt(Integer.BYTES);
+                    sink.putNetworkInt(value);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.LONG: {
+                final long value = record.getLong(columnIndex);
+                if (value != Numbers.LONG_NaN) {
+                    sink.putNetworkInt(Long.BYTES);
+                    sink.putNetworkLong(value);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.FLOAT: {
+                final float value = record.getFloat(columnIndex);
+                if (value == value) {
+                    sink.putNetworkInt(Float.BYTES);
+                    sink.putNetworkFloat(value);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.DOUBLE: {
+                final double value = record.getDouble(columnIndex);
+                if (value == value) {
+                    sink.putNetworkInt(Double.BYTES);
+                    sink.putNetworkDouble(value);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.DATE: {
+                final long value = record.getDate(columnIndex);
+                if (value != Numbers.LONG_NaN) {
+                    sink.putNetworkInt(Long.BYTES);
+                    // PG epoch starts at 2000 rather than 1970
+                    sink.putNetworkLong(value * 1000 - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.TIMESTAMP: {
+                final long value = record.getTimestamp(columnIndex);
+                if (value != Numbers.LONG_NaN) {
+                    sink.putNetworkInt(Long.BYTES);
+                    sink.putNetworkLong(value - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.BINARY: {
+                final BinarySequence value = record.getBin(columnIndex);
+                if (value != null) {
+                    sink.put(value);
+                } else {
+                    sink.setNullValue();
+                }
+                break;
+            }
+            case ColumnType.NULL:
+                sink.setNullValue();
+                break;
+            default:
+                // the remaining types are sent as UTF-8 text
+                if (isNull(columnIndex, typeTag)) {
+                    sink.setNullValue();
+                } else {
+                    final long a = sink.skip();
+                    putTextValue(sink, columnIndex, typeTag);
+                    sink.putLenEx(a);
+                }
+                break;
+        }
+    }
+
+    private void putChar(PGConnectionContext.ResponseAsciiSink sink, char c) {
+        if (format == CopyModel.FORMAT_CSV) {
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                sink.put('"');
+                if (c == '"') {
+                    sink.put('"');
+                }
+                sink.put(c).put('"');
+                return;
+            }
+        } else if (format != CopyModel.FORMAT_BINARY && c < 128) {
+            putTextChar(sink, c);
+            return;
+        }
+        sink.putUtf8(c);
+    }
+
+    private void putCsvString(PGConnectionContext.ResponseAsciiSink sink, CharSequence value) {
+        boolean quote = value.length() == 0;
+        for (int i = 0, n = value.length(); i < n && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            sink.encodeUtf8(value);
+            return;
+        }
+        sink.put('"');
+        for (int i = 0, n = value.length(); i < n; ) {
+            final char c = value.charAt(i++);
+            if (c < 128) {
+                if (c == '"') {
+                    sink.put('"');
+                }
+                sink.put(c);
+            } else {
+                i = sink.putUtf8Internal(value, n, i, c);
+            }
+        }
+        sink.put('"');
+    }
+
+    private void putHeader(PGConnectionContext.ResponseAsciiSink sink) {
+        if (format == CopyModel.FORMAT_BINARY) {
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                sink.put(BINARY_SIGNATURE[i]);
+            }
+            sink.putNetworkInt(0);
+            sink.putNetworkInt(0);
+            return;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                sink.put(delimiter);
+            }
+            putString(sink, metadata.getColumnName(i));
+        }
+        sink.put('\n');
+    }
+
+    private void putRecord(PGConnectionContext.ResponseAsciiSink sink) {
+        if (format == CopyModel.FORMAT_BINARY) {
+            sink.putNetworkShort((short) columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                putBinaryValue(sink, i);
+            }
+            return;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                sink.put(delimiter);
+            }
+            final int typeTag = columnTypes.getQuick(2 * i);
+            if (isNull(i, typeTag)) {
+                if (format != CopyModel.FORMAT_CSV) {
+                    sink.put('\\').put('N');
+                }
+            } else {
+                putTextValue(sink, i, typeTag);
+            }
+        }
+        sink.put('\n');
+    }
+
+    private void putString(PGConnectionContext.ResponseAsciiSink sink, CharSequence value) {
+        if (format == CopyModel.FORMAT_CSV) {
+            putCsvString(sink, value);
+        } else if (format == CopyModel.FORMAT_BINARY) {
+            sink.encodeUtf8(value);
+        } else {
+            putTextString(sink, value);
+        }
+    }
+
+    private void putTextChar(PGConnectionContext.ResponseAsciiSink sink, char c) {
+        switch (c) {
+            case '\\':
+                sink.put('\\').put('\\');
+                break;
+            case '\n':
+                sink.put('\\').put('n');
+                break;
+            case '\r':
+                sink.put('\\').put('r');
+                break;
+            case '\t':
+                sink.put('\\').put('t');
+                break;
+            default:
+                if (c == delimiter) {
+                    sink.put('\\');
+                }
+                sink.put(c);
+                break;
+        }
+    }
+
+    private void putTextString(PGConnectionContext.ResponseAsciiSink sink, CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; ) {
+            final char c = value.charAt(i++);
+            if (c < 128) {
+                putTextChar(sink, c);
+            } else {
+                i = sink.putUtf8Internal(value, n, i, c);
+            }
+        }
+    }
+
+    private void putTextValue(PGConnectionContext.ResponseAsciiSink sink, int columnIndex, int typeTag) {
+        switch (typeTag) {
+            case ColumnType.BOOLEAN:
+                sink.put(record.getBool(columnIndex) ? 't' : 'f');
+                break;
+            case ColumnType.BYTE:
+                sink.put((int) record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                sink.put((int) record.getShort(columnIndex));
+                break;
+            case ColumnType.CHAR:
+                putChar(sink, record.getChar(columnIndex));
+                break;
+            case ColumnType.INT:
+                sink.put(record.getInt(columnIndex));
+                break;
+            case ColumnType.LONG:
+                sink.put(record.getLong(columnIndex));
+                break;
+            case ColumnType.DATE:
+                PG_DATE_MILLI_TIME_Z_PRINT_FORMAT.format(record.getDate(columnIndex), null, null, sink);
+                break;
+            case ColumnType.TIMESTAMP:
+                TimestampFormatUtils.PG_TIMESTAMP_FORMAT.format(record.getTimestamp(columnIndex), null, null, sink);
+                break;
+            case ColumnType.FLOAT:
+                sink.put(record.getFloat(columnIndex), 3);
+                break;
+            case ColumnType.DOUBLE:
+                sink.put(record.getDouble(columnIndex));
+                break;
+            case ColumnType.STRING:
+                putString(sink, record.getStr(columnIndex));
+                break;
+            case ColumnType.SYMBOL:
+                putString(sink, record.getSym(columnIndex));
+                break;
+            case ColumnType.LONG256: {
+                final Long256 value = record.getLong256A(columnIndex);
+                Numbers.appendLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3(), sink);
+                break;
+            }
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                putGeoHash(sink, getGeoHash(columnIndex, typeTag), columnTypes.getQuick(2 * columnIndex + 1));
+                break;
+            case ColumnType.BINARY:
+                // bytea hex format, the backslash is escaped in text format
+                if (format != CopyModel.FORMAT_CSV) {
+                    sink.put('\\');
+                }
+                sink.put('\\').put('x');
+                putHex(sink, record.getBin(columnIndex));
+                break;
+            default:
+                break;
+        }
+    }
+}
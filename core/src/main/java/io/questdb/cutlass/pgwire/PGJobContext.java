@@ -32,7 +32,6 @@ import io.questdb.griffin.SqlCompiler;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.network.PeerIsSlowToWriteException;
-import io.questdb.std.AssociativeCache;
 import io.questdb.std.Misc;
 import io.questdb.std.WeakSelfReturningObjectPool;
 
@@ -41,39 +40,69 @@ import java.io.Closeable;
 public class PGJobContext implements Closeable {
 
     private final SqlCompiler compiler;
-    private final AssociativeCache<TypesAndSelect> typesAndSelectCache;
+    private final PGStatementCache<TypesAndSelect> typesAndSelectCache;
     private final WeakSelfReturningObjectPool<TypesAndSelect> typesAndSelectPool;
-    private final AssociativeCache<TypesAndUpdate> typesAndUpdateCache;
+    private final PGStatementCache<TypesAndUpdate> typesAndUpdateCache;
     private final WeakSelfReturningObjectPool<TypesAndUpdate> typesAndUpdatePool;
 
     public PGJobContext(
             PGWireConfiguration configuration,
             CairoEngine engine,
             FunctionFactoryCache functionFactoryCache,
-            DatabaseSnapshotAgent snapshotAgent
+            DatabaseSnapshotAgent snapshotAgent,
+            PGStatementCache<TypesAndSelect> typesAndSelectCache,
+            PGStatementCache<TypesAndUpdate> typesAndUpdateCache
     ) {
         this.compiler = new SqlCompiler(engine, functionFactoryCache, snapshotAgent);
-
-        final Metrics metrics = engine.getMetrics();
+        // caches are shared by all workers, pools stay local to the worker. Cached containers
+        // may be closed by another worker and return to the pool that created them, which is thread-safe
+        this.typesAndSelectCache = typesAndSelectCache;
+        this.typesAndUpdateCache = typesAndUpdateCache;
 
         final boolean enableSelectCache = configuration.isSelectCacheEnabled();
         final int blockCount = enableSelectCache ? configuration.getSelectCacheBlockCount() : 1;
         final int rowCount = enableSelectCache ? configuration.getSelectCacheRowCount() : 1;
-        typesAndSelectCache = new AssociativeCache<>(blockCount, rowCount, metrics.pgWire().cachedSelectsGauge());
         typesAndSelectPool = new WeakSelfReturningObjectPool<>(TypesAndSelect::new, blockCount * rowCount);
 
         final boolean enabledUpdateCache = configuration.isUpdateCacheEnabled();
         final int updateBlockCount = enabledUpdateCache ? configuration.getUpdateCacheBlockCount() : 1; // 8
         final int updateRowCount = enabledUpdateCache ? configuration.getUpdateCacheRowCount() : 1; // 8
-        typesAndUpdateCache = new AssociativeCache<>(updateBlockCount, updateRowCount, metrics.pgWire().cachedUpdatesGauge());
         typesAndUpdatePool = new WeakSelfReturningObjectPool<>(parent -> new TypesAndUpdate(parent, engine), updateBlockCount * updateRowCount);
     }
 
+    public static PGStatementCache<TypesAndSelect> createSelectCache(PGWireConfiguration configuration, Metrics metrics, int workerCount) {
+        final boolean enableSelectCache = configuration.isSelectCacheEnabled();
+        final int blockCount = enableSelectCache ? configuration.getSelectCacheBlockCount() : 1;
+        final int rowCount = enableSelectCache ? configuration.getSelectCacheRowCount() : 1;
+        final PGWireMetrics pgWireMetrics = metrics.pgWire();
+        return new PGStatementCache<>(
+                blockCount * rowCount,
+                // there is rarely more statements executing at once than there are workers
+                enableSelectCache ? workerCount : 1,
+                pgWireMetrics.cachedSelectsGauge(),
+                pgWireMetrics.selectCacheHitCounter(),
+                pgWireMetrics.selectCacheMissCounter()
+        );
+    }
+
+    public static PGStatementCache<TypesAndUpdate> createUpdateCache(PGWireConfiguration configuration, Metrics metrics, int workerCount) {
+        final boolean enabledUpdateCache = configuration.isUpdateCacheEnabled();
+        final int updateBlockCount = enabledUpdateCache ? configuration.getUpdateCacheBlockCount() : 1;
+        final int updateRowCount = enabledUpdateCache ? configuration.getUpdateCacheRowCount() : 1;
+        final PGWireMetrics pgWireMetrics = metrics.pgWire();
+        return new PGStatementCache<>(
+                updateBlockCount * updateRowCount,
+                enabledUpdateCache ? workerCount : 1,
+                pgWireMetrics.cachedUpdatesGauge(),
+                pgWireMetrics.updateCacheHitCounter(),
+                pgWireMetrics.updateCacheMissCounter()
+        );
+    }
+
     @Override
     public void close() {
+        // shared caches are closed by the server
         Misc.free(compiler);
-        Misc.free(typesAndSelectCache);
-        Misc.free(typesAndUpdateCache);
     }
 
     public void handleClientOperation(PGConnectionContext context, int operation)
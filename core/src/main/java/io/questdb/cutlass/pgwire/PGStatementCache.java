@@ -0,0 +1,234 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.Gauge;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Compiled statements shared by all PostgreSQL wire connections of the server.
+ * <p>
+ * Statements are keyed by SQL text. Compiled parameter types are derived from the text alone
+ * and travel with the statement. Compiled statements are not thread-safe, hence they are
+ * checked out by {@link #poll(CharSequence)} for exclusive use and checked back in by
+ * {@link #put(CharSequence, AbstractTypeContainer)} when connection is done with them.
+ * The same SQL text can have several idle instances, so that connections running the same
+ * statement concurrently do not evict each other's instances. Statements compiled against
+ * an older table structure are detected on execution and recompiled by the connection.
+ * <p>
+ * The number of distinct statements is bounded, least recently used statements are
+ * evicted first.
+ */
+public class PGStatementCache<T extends AbstractTypeContainer<?>> implements Closeable, Mutable {
+    private final CharSequenceObjHashMap<Entry<T>> entries = new CharSequenceObjHashMap<>();
+    private final int maxStatements;
+    private final int maxIdleInstances;
+    private final Gauge cachedGauge;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    // most recently used entry
+    private Entry<T> head;
+    // least recently used entry
+    private Entry<T> tail;
+    private boolean closed;
+
+    /**
+     * @param maxStatements    maximum number of distinct SQL texts
+     * @param maxIdleInstances maximum number of checked in instances per SQL text
+     * @param cachedGauge      number of checked in instances
+     * @param hitCounter       number of successful check outs
+     * @param missCounter      number of check outs that found no idle instance
+     */
+    public PGStatementCache(int maxStatements, int maxIdleInstances, Gauge cachedGauge, Counter hitCounter, Counter missCounter) {
+        this.maxStatements = Math.max(1, maxStatements);
+        this.maxIdleInstances = Math.max(1, maxIdleInstances);
+        this.cachedGauge = cachedGauge;
+        this.hitCounter = hitCounter;
+        this.missCounter = missCounter;
+    }
+
+    @Override
+    public void clear() {
+        final Entry<T> evicted;
+        synchronized (this) {
+            evicted = evictAll();
+        }
+        freeEvicted(evicted);
+    }
+
+    @Override
+    public void close() {
+        Entry<T> evicted = null;
+        synchronized (this) {
+            if (!closed) {
+                closed = true;
+                evicted = evictAll();
+            }
+        }
+        freeEvicted(evicted);
+    }
+
+    /**
+     * Checks out idle instance of the statement.
+     *
+     * @param sql query text
+     * @return instance for exclusive use of the caller or null when there is no idle instance
+     */
+    public synchronized T poll(CharSequence sql) {
+        final Entry<T> entry = entries.get(sql);
+        if (entry != null && entry.idle.size() > 0) {
+            final int last = entry.idle.size() - 1;
+            final T value = entry.idle.getQuick(last);
+            entry.idle.setQuick(last, null);
+            entry.idle.setPos(last);
+            cachedGauge.dec();
+            hitCounter.inc();
+            moveToHead(entry);
+            return value;
+        }
+        missCounter.inc();
+        return null;
+    }
+
+    /**
+     * Checks in the statement. Cache takes ownership of the instance, instance that cannot be
+     * cached is closed. Rejected and evicted instances are closed after the cache lock is
+     * released, so that other connections are not blocked by closing them.
+     */
+    public void put(CharSequence sql, T value) {
+        T rejected = value;
+        Entry<T> evicted = null;
+        synchronized (this) {
+            if (!closed) {
+                Entry<T> entry = entries.get(sql);
+                if (entry == null) {
+                    while (entries.size() >= maxStatements && tail != null) {
+                        evicted = evict(tail, evicted);
+                    }
+                    entry = new Entry<>(Chars.toString(sql));
+                    entries.put(entry.sql, entry);
+                } else {
+                    unlink(entry);
+                }
+                link(entry);
+
+                if (entry.idle.size() < maxIdleInstances) {
+                    entry.idle.add(value);
+                    cachedGauge.inc();
+                    rejected = null;
+                }
+            }
+        }
+        Misc.free(rejected);
+        freeEvicted(evicted);
+    }
+
+    /**
+     * Removes entry from the cache without closing its instances, they are closed
+     * by {@link #freeEvicted(Entry)} outside of the cache lock.
+     *
+     * @param entry   entry to remove
+     * @param evicted previously evicted entries
+     * @return evicted entries chained via their next links
+     */
+    private Entry<T> evict(Entry<T> entry, Entry<T> evicted) {
+        unlink(entry);
+        entries.remove(entry.sql);
+        cachedGauge.add(-entry.idle.size());
+        entry.next = evicted;
+        return entry;
+    }
+
+    private Entry<T> evictAll() {
+        Entry<T> evicted = null;
+        while (tail != null) {
+            evicted = evict(tail, evicted);
+        }
+        return evicted;
+    }
+
+    private static <T extends AbstractTypeContainer<?>> void freeEvicted(Entry<T> evicted) {
+        while (evicted != null) {
+            final ObjList<T> idle = evicted.idle;
+            for (int i = 0, n = idle.size(); i < n; i++) {
+                Misc.free(idle.getQuick(i));
+            }
+            idle.clear();
+            evicted = evicted.next;
+        }
+    }
+
+    private void link(Entry<T> entry) {
+        entry.next = head;
+        entry.prev = null;
+        if (head != null) {
+            head.prev = entry;
+        }
+        head = entry;
+        if (tail == null) {
+            tail = entry;
+        }
+    }
+
+    private void moveToHead(Entry<T> entry) {
+        if (head != entry) {
+            unlink(entry);
+            link(entry);
+        }
+    }
+
+    private void unlink(Entry<T> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private static class Entry<T> {
+        private final String sql;
+        private final ObjList<T> idle = new ObjList<>();
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -40,6 +40,12 @@ public interface PGWireConfiguration extends WorkerPoolConfiguration {
 
     int getConnectionPoolInitialCapacity();
 
+    /**
+     * Number of rows COPY FROM STDIN appends to the table between commits. Does not apply
+     * to ON ERROR ABORT, which commits once all rows are appended.
+     */
+    int getCopyBatchSize();
+
     String getDefaultPassword();
 
     String getDefaultUsername();
@@ -24,6 +24,7 @@
 
 package io.questdb.cutlass.pgwire;
 
+import io.questdb.metrics.Counter;
 import io.questdb.metrics.Gauge;
 import io.questdb.metrics.MetricsRegistry;
 
@@ -31,10 +32,18 @@ public class PGWireMetrics {
 
     private final Gauge cachedSelectsGauge;
     private final Gauge cachedUpdatesGauge;
+    private final Counter selectCacheHitCounter;
+    private final Counter selectCacheMissCounter;
+    private final Counter updateCacheHitCounter;
+    private final Counter updateCacheMissCounter;
 
     public PGWireMetrics(MetricsRegistry metricsRegistry) {
         this.cachedSelectsGauge = metricsRegistry.newGauge("pg_wire_select_queries_cached");
         this.cachedUpdatesGauge = metricsRegistry.newGauge("pg_wire_update_queries_cached");
+        this.selectCacheHitCounter = metricsRegistry.newCounter("pg_wire_select_cache_hits");
+        this.selectCacheMissCounter = metricsRegistry.newCounter("pg_wire_select_cache_misses");
+        this.updateCacheHitCounter = metricsRegistry.newCounter("pg_wire_update_cache_hits");
+        this.updateCacheMissCounter = metricsRegistry.newCounter("pg_wire_update_cache_misses");
     }
 
     public Gauge cachedSelectsGauge() {
@@ -44,4 +53,20 @@ public class PGWireMetrics {
     public Gauge cachedUpdatesGauge() {
         return cachedUpdatesGauge;
     }
+
+    public Counter selectCacheHitCounter() {
+        return selectCacheHitCounter;
+    }
+
+    public Counter selectCacheMissCounter() {
+        return selectCacheMissCounter;
+    }
+
+    public Counter updateCacheHitCounter() {
+        return updateCacheHitCounter;
+    }
+
+    public Counter updateCacheMissCounter() {
+        return updateCacheMissCounter;
+    }
 }
@@ -52,6 +52,8 @@ public class PGWireServer implements Closeable {
     private final IODispatcher<PGConnectionContext> dispatcher;
     private final Metrics metrics;
     private final WorkerPool workerPool;
+    private final PGStatementCache<TypesAndSelect> typesAndSelectCache;
+    private final PGStatementCache<TypesAndUpdate> typesAndUpdateCache;
 
     public PGWireServer(
             PGWireConfiguration configuration,
@@ -70,8 +72,20 @@ public class PGWireServer implements Closeable {
 
         workerPool.assign(dispatcher);
 
-        for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
-            final PGJobContext jobContext = new PGJobContext(configuration, engine, functionFactoryCache, snapshotAgent);
+        // compiled statements are shared by all workers and connections
+        final int workerCount = workerPool.getWorkerCount();
+        this.typesAndSelectCache = PGJobContext.createSelectCache(configuration, metrics, workerCount);
+        this.typesAndUpdateCache = PGJobContext.createUpdateCache(configuration, metrics, workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            final PGJobContext jobContext = new PGJobContext(
+                    configuration,
+                    engine,
+                    functionFactoryCache,
+                    snapshotAgent,
+                    typesAndSelectCache,
+                    typesAndUpdateCache
+            );
 
             final SCSequence queryCacheEventSubSeq = new SCSequence();
             final FanOut queryCacheEventFanOut = engine.getMessageBus().getQueryCacheEventFanOut();
@@ -120,6 +134,8 @@ public class PGWireServer implements Closeable {
                 queryCacheEventSubSeq.clear();
             });
         }
+        workerPool.freeOnExit(typesAndSelectCache);
+        workerPool.freeOnExit(typesAndUpdateCache);
     }
 
     @TestOnly
@@ -130,6 +146,8 @@ public class PGWireServer implements Closeable {
     @Override
     public void close() {
         Misc.free(dispatcher);
+        Misc.free(typesAndSelectCache);
+        Misc.free(typesAndUpdateCache);
     }
 
     public int getPort() {
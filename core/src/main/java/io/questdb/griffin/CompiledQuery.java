@@ -27,11 +27,11 @@ package io.questdb.griffin;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.engine.ops.AbstractOperation;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.OperationDispatcher;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 
 public interface CompiledQuery {
@@ -64,7 +64,11 @@ public interface CompiledQuery {
 
     RecordCursorFactory getRecordCursorFactory();
 
-    TextLoader getTextLoader();
+    /**
+     * Returns COPY FROM STDIN or COPY TO STDOUT model. The model is owned by the compiler and is valid until
+     * the next compilation. COPY TO STDOUT also provides the factory of the exported query.
+     */
+    CopyModel getCopyModel();
 
     InsertOperation getInsertOperation();
 
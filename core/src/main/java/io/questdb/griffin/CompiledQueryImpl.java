@@ -28,8 +28,8 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.engine.ops.*;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Chars;
 import org.jetbrains.annotations.Nullable;
@@ -39,7 +39,7 @@ public class CompiledQueryImpl implements CompiledQuery {
     private InsertOperation insertOperation;
     private UpdateOperation updateOperation;
     private AlterOperation alterOperation;
-    private TextLoader textLoader;
+    private CopyModel copyModel;
     private short type;
     private SqlExecutionContext sqlExecutionContext;
     private final DoneOperationFuture doneFuture = new DoneOperationFuture();
@@ -67,8 +67,8 @@ public class CompiledQueryImpl implements CompiledQuery {
     }
 
     @Override
-    public TextLoader getTextLoader() {
-        return textLoader;
+    public CopyModel getCopyModel() {
+        return copyModel;
     }
 
     @Override
@@ -191,11 +191,16 @@ public class CompiledQueryImpl implements CompiledQuery {
         return this;
     }
 
-    CompiledQuery ofCopyRemote(TextLoader textLoader) {
-        this.textLoader = textLoader;
+    CompiledQuery ofCopyRemote(CopyModel copyModel) {
+        this.copyModel = copyModel;
         return of(COPY_REMOTE);
     }
 
+    CompiledQuery ofCopyRemote(CopyModel copyModel, RecordCursorFactory factory) {
+        this.copyModel = copyModel;
+        return of(COPY_REMOTE, factory);
+    }
+
     CompiledQuery ofCreateTable() {
         return of(CREATE_TABLE);
     }
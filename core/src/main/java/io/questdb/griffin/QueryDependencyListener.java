@@ -0,0 +1,47 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+
+/**
+ * Observes what a query depends on while its cursor is being opened and iterated.
+ * Used by result caches to learn which tables (and at which transaction) a result
+ * was derived from and whether the result can be reproduced at all.
+ */
+public interface QueryDependencyListener {
+
+    /**
+     * Query relies on a value that may differ between executions, such as
+     * current time or random numbers.
+     */
+    void onNonDeterministicValue();
+
+    /**
+     * Reader has been acquired on behalf of the query. Reader is already positioned
+     * at the transaction query is going to read.
+     */
+    void onTableReader(TableReader reader);
+}
@@ -29,7 +29,6 @@ import io.questdb.cairo.map.RecordValueSink;
 import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
-import io.questdb.cairo.sql.async.PageFrameReduceTask;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
@@ -50,6 +49,8 @@ import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
 import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.ParallelSortRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.SortRun;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -62,6 +63,7 @@ import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.Timestamps;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -122,9 +124,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final IntList groupByFunctionPositions = new IntList();
     private final LongList prefixes = new LongList();
     private final ObjectPool<ExpressionNode> expressionNodePool;
-    private final WeakClosableObjectPool<PageFrameReduceTask> reduceTaskPool;
     private final ObjList<TableColumnMetadata> deferredAnalyticMetadata = new ObjList<>();
     private final ObjectPool<IntList> intListPool = new ObjectPool<>(IntList::new, 4);
+    private final ObjList<Function> partitionFilterValues = new ObjList<>();
     private boolean enableJitNullChecks = true;
     private boolean fullFatJoins = false;
 
@@ -145,10 +147,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         jitIRMem.putByte((byte) 0);
         jitIRMem.truncate();
         this.expressionNodePool = expressionNodePool;
-        this.reduceTaskPool = new WeakClosableObjectPool<>(
-                () -> new PageFrameReduceTask(configuration),
-                configuration.getPageFrameReduceTaskPoolCapacity()
-        );
     }
 
     @Override
@@ -160,7 +158,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     @Override
     public void close() {
         Misc.free(jitIRMem);
-        Misc.free(reduceTaskPool);
     }
 
     @NotNull
@@ -211,6 +208,21 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return new LtJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex);
     }
 
+    private static int flipPartitionFilterOp(int op) {
+        switch (op) {
+            case PartitionSummaryFilter.OP_LT:
+                return PartitionSummaryFilter.OP_GT;
+            case PartitionSummaryFilter.OP_LE:
+                return PartitionSummaryFilter.OP_GE;
+            case PartitionSummaryFilter.OP_GT:
+                return PartitionSummaryFilter.OP_LT;
+            case PartitionSummaryFilter.OP_GE:
+                return PartitionSummaryFilter.OP_LE;
+            default:
+                return op;
+        }
+    }
+
     private static int getOrderByDirectionOrDefault(QueryModel model, int index) {
         IntList direction = model.getOrderByDirectionAdvice();
         if (index >= direction.size()) {
@@ -219,6 +231,53 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+    // true for expressions that do not reference columns or sub-queries
+    private static boolean isConstantExpression(ExpressionNode node) {
+        if (node == null) {
+            return true;
+        }
+        switch (node.type) {
+            case ExpressionNode.CONSTANT:
+            case ExpressionNode.BIND_VARIABLE:
+                return true;
+            case ExpressionNode.OPERATION:
+            case FUNCTION:
+                if (node.queryModel != null) {
+                    return false;
+                }
+                if (node.paramCount < 3) {
+                    return isConstantExpression(node.lhs) && isConstantExpression(node.rhs);
+                }
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isConstantExpression(node.args.getQuick(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int partitionFilterOp(CharSequence token) {
+        if (Chars.equals(token, '=')) {
+            return PartitionSummaryFilter.OP_EQ;
+        }
+        if (Chars.equals(token, '<')) {
+            return PartitionSummaryFilter.OP_LT;
+        }
+        if (Chars.equals(token, "<=")) {
+            return PartitionSummaryFilter.OP_LE;
+        }
+        if (Chars.equals(token, '>')) {
+            return PartitionSummaryFilter.OP_GT;
+        }
+        if (Chars.equals(token, ">=")) {
+            return PartitionSummaryFilter.OP_GE;
+        }
+        return -1;
+    }
+
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
         final ObjList<QueryColumn> columns = model.getColumns();
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -358,6 +417,95 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return false;
     }
 
+    private void addPartitionFilterPredicate(
+            PartitionSummaryFilter partitionFilter,
+            QueryModel model,
+            ExpressionNode column,
+            int op,
+            ExpressionNode value,
+            ObjList<ExpressionNode> values,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) {
+        if (column.type != LITERAL) {
+            return;
+        }
+        final int columnIndex = readerMeta.getColumnIndexQuiet(model.translateAlias(column.token));
+        if (columnIndex < 0 || columnIndex == readerMeta.getTimestampIndex()) {
+            return;
+        }
+        final int columnType = readerMeta.getColumnType(columnIndex);
+        if (PartitionSummary.getKind(columnType) == PartitionSummary.KIND_NONE) {
+            return;
+        }
+
+        partitionFilterValues.clear();
+        try {
+            final int n = value != null ? 1 : values.size() - 1;
+            for (int i = 0; i < n; i++) {
+                final ExpressionNode valueNode = value != null ? value : values.getQuick(i);
+                if (!isConstantExpression(valueNode)) {
+                    Misc.freeObjList(partitionFilterValues);
+                    return;
+                }
+                final Function valueFunction = functionParser.parseFunction(valueNode, readerMeta, executionContext);
+                partitionFilterValues.add(valueFunction);
+                if (!(valueFunction.isConstant() || valueFunction.isRuntimeConstant())
+                        || !PartitionSummaryFilter.isSupported(columnType, valueFunction.getType(), op)) {
+                    Misc.freeObjList(partitionFilterValues);
+                    return;
+                }
+            }
+        } catch (SqlException e) {
+            // the query filter reports errors, partition filter is optional
+            Misc.freeObjList(partitionFilterValues);
+            return;
+        } catch (Throwable th) {
+            Misc.freeObjList(partitionFilterValues);
+            throw th;
+        }
+        partitionFilter.add(columnIndex, columnType, op, partitionFilterValues);
+        partitionFilterValues.clear();
+    }
+
+    private void addPartitionFilterPredicates(
+            PartitionSummaryFilter partitionFilter,
+            QueryModel model,
+            ExpressionNode node,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) {
+        if (node == null || node.queryModel != null) {
+            return;
+        }
+        if (node.paramCount == 2 && isAndKeyword(node.token)) {
+            addPartitionFilterPredicates(partitionFilter, model, node.lhs, readerMeta, executionContext);
+            addPartitionFilterPredicates(partitionFilter, model, node.rhs, readerMeta, executionContext);
+            return;
+        }
+        if (isInKeyword(node.token)) {
+            if (node.paramCount == 2) {
+                addPartitionFilterPredicate(partitionFilter, model, node.lhs, PartitionSummaryFilter.OP_EQ, node.rhs, null, readerMeta, executionContext);
+            } else if (node.paramCount > 2) {
+                // the column is the last argument, values precede it
+                addPartitionFilterPredicate(partitionFilter, model, node.args.getLast(), PartitionSummaryFilter.OP_EQ, null, node.args, readerMeta, executionContext);
+            }
+            return;
+        }
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return;
+        }
+        final int op = partitionFilterOp(node.token);
+        if (op < 0) {
+            return;
+        }
+        if (node.lhs.type == LITERAL) {
+            addPartitionFilterPredicate(partitionFilter, model, node.lhs, op, node.rhs, null, readerMeta, executionContext);
+        } else if (node.rhs.type == LITERAL) {
+            addPartitionFilterPredicate(partitionFilter, model, node.rhs, flipPartitionFilterOp(op), node.lhs, null, readerMeta, executionContext);
+        }
+    }
+
     @Nullable
     private Function compileFilter(
             IntrinsicModel intrinsicModel,
@@ -591,7 +739,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -626,6 +775,37 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
+                final int workerCount = executionContext.getSharedWorkerCount();
+                if (configuration.isSqlParallelHashJoinEnabled() && workerCount > 0) {
+                    final boolean stealFilter = master.supportsFilterStealing() && master.getBaseFactory().supportPageFrameCursor();
+                    if (stealFilter || master.supportPageFrameCursor()) {
+                        Function filter = null;
+                        ObjList<Function> perWorkerFilters = null;
+                        if (stealFilter) {
+                            // evaluate the filter as a part of the probe
+                            final RecordCursorFactory filterFactory = master;
+                            filter = filterFactory.getFilter();
+                            perWorkerFilters = filterFactory.getPerWorkerFilters();
+                            master = filterFactory.getBaseFactory();
+                            filterFactory.halfClose();
+                        }
+                        return new AsyncHashJoinLightRecordCursorFactory(
+                                configuration,
+                                executionContext.getMessageBus(),
+                                metadata,
+                                master,
+                                slave,
+                                keyTypes,
+                                valueTypes,
+                                masterKeySink,
+                                slaveKeySink,
+                                filter,
+                                perWorkerFilters,
+                                masterMetadata.getColumnCount(),
+                                workerCount
+                        );
+                    }
+                }
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -1321,7 +1501,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     executionContext
                             ),
                             jitFilter,
-                            reduceTaskPool,
                             limitLoFunction,
                             limitLoPos,
                             preTouchColumns
@@ -1353,7 +1532,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     executionContext.getMessageBus(),
                     factory,
                     filter,
-                    reduceTaskPool,
                     compileWorkerFilterConditionally(
                             !filter.isReadThreadSafe(),
                             executionContext.getSharedWorkerCount(),
@@ -1571,7 +1749,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                         master,
                                         slave,
-                                        joinType
+                                        joinType,
+                                        executionContext
                                 );
                                 masterAlias = null;
                                 break;
@@ -1602,7 +1781,6 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 executionContext.getMessageBus(),
                                 master,
                                 filter,
-                                reduceTaskPool,
                                 compileWorkerFilterConditionally(
                                         !filter.isReadThreadSafe(),
                                         executionContext.getSharedWorkerCount(),
@@ -2054,20 +2232,38 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                 loFunc,
                                 hiFunc
                         );
-                    } else {
-                        return new SortedLightRecordCursorFactory(
-                                configuration,
-                                orderedMetadata,
-                                recordCursorFactory,
-                                recordComparatorCompiler.compile(metadata, listColumnFilterA)
-                        );
                     }
+                    if (configuration.isSqlParallelSortEnabled()) {
+                        return generateParallelLightSort(recordCursorFactory, metadata, orderedMetadata, executionContext);
+                    }
+                    return new SortedLightRecordCursorFactory(
+                            configuration,
+                            orderedMetadata,
+                            recordCursorFactory,
+                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                    );
                 }
 
                 // when base record cursor does not support random access
                 // we have to copy entire record into ordered structure
 
                 entityColumnFilter.of(orderedMetadata.getColumnCount());
+                if (configuration.isSqlParallelSortEnabled()) {
+                    return generateParallelSort(
+                            recordCursorFactory,
+                            orderedMetadata,
+                            orderedMetadata,
+                            listColumnFilterA,
+                            RecordSinkFactory.getInstance(
+                                    asm,
+                                    orderedMetadata,
+                                    entityColumnFilter,
+                                    false
+                            ),
+                            -1,
+                            executionContext
+                    );
+                }
                 return new SortedRecordCursorFactory(
                         configuration,
                         orderedMetadata,
@@ -2089,6 +2285,124 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    private RecordCursorFactory generateParallelLightSort(
+            RecordCursorFactory recordCursorFactory,
+            RecordMetadata metadata,
+            RecordMetadata orderedMetadata,
+            SqlExecutionContext executionContext
+    ) {
+        // runs hold order by columns followed by row id of the base record, symbols
+        // are copied as strings, so that runs can be sorted without base symbol tables
+        final ArrayColumnTypes runColumnTypes = new ArrayColumnTypes();
+        listColumnFilterB.clear();
+        tempKeyIndex.clear();
+        for (int i = 0, n = listColumnFilterA.size(); i < n; i++) {
+            final int key = listColumnFilterA.getQuick(i);
+            final int index = Math.abs(key) - 1;
+            final int type = metadata.getColumnType(index);
+            runColumnTypes.add(ColumnType.isSymbol(type) ? ColumnType.STRING : type);
+            listColumnFilterB.add(index + 1);
+            tempKeyIndex.add(key > 0 ? i + 1 : -i - 1);
+        }
+        final int rowIdColumnIndex = runColumnTypes.getColumnCount();
+        runColumnTypes.add(ColumnType.LONG);
+
+        final RecordSink keySink = RecordSinkFactory.getInstance(asm, metadata, listColumnFilterB, true);
+        return generateParallelSort(
+                recordCursorFactory,
+                orderedMetadata,
+                runColumnTypes,
+                tempKeyIndex,
+                (record, sink) -> {
+                    keySink.copy(record, sink);
+                    sink.putLong(record.getRowId());
+                },
+                rowIdColumnIndex,
+                executionContext
+        );
+    }
+
+    private RecordCursorFactory generateParallelSort(
+            RecordCursorFactory recordCursorFactory,
+            RecordMetadata orderedMetadata,
+            ColumnTypes runColumnTypes,
+            IntList runKeys,
+            RecordSink recordSink,
+            int rowIdColumnIndex,
+            SqlExecutionContext executionContext
+    ) {
+        // single integer key is radix sorted, other keys are sorted with compiled comparator
+        int keyColumnIndex = -1;
+        int keyColumnType = ColumnType.UNDEFINED;
+        boolean keyDescending = false;
+        if (runKeys.size() == 1) {
+            final int index = Math.abs(runKeys.getQuick(0)) - 1;
+            final int type = runColumnTypes.getColumnType(index);
+            if (SortRun.isRadixSortable(type)) {
+                keyColumnIndex = index;
+                keyColumnType = type;
+                keyDescending = runKeys.getQuick(0) < 0;
+            }
+        }
+
+        // symbol tables of the base cursor are not thread-safe, so comparator
+        // reading symbols has to stay on the query thread
+        boolean parallel = true;
+        if (keyColumnIndex == -1) {
+            for (int i = 0, n = runKeys.size(); i < n; i++) {
+                if (ColumnType.isSymbol(runColumnTypes.getColumnType(Math.abs(runKeys.getQuick(i)) - 1))) {
+                    parallel = false;
+                    break;
+                }
+            }
+        }
+
+        // comparator caches left record values, so runs sorted at the same time
+        // need their own instances, one per worker plus one for the query thread
+        final int comparatorCount = parallel && keyColumnIndex == -1 ? executionContext.getSharedWorkerCount() + 1 : 1;
+        final ObjList<RecordComparator> comparators = new ObjList<>(comparatorCount);
+        for (int i = 0; i < comparatorCount; i++) {
+            comparators.add(recordComparatorCompiler.compile(runColumnTypes, runKeys));
+        }
+
+        return new ParallelSortRecordCursorFactory(
+                configuration,
+                executionContext.getMessageBus(),
+                orderedMetadata,
+                recordCursorFactory,
+                runColumnTypes,
+                recordSink,
+                comparators,
+                keyColumnIndex,
+                keyColumnType,
+                keyDescending,
+                parallel,
+                rowIdColumnIndex
+        );
+    }
+
+    // Builds filter of partitions from top level "and" conjuncts of the query filter, which
+    // compare a column with a constant. The query filter itself is left as is.
+    private @Nullable PartitionSummaryFilter generatePartitionFilter(
+            QueryModel model,
+            ExpressionNode filter,
+            RecordMetadata readerMeta,
+            SqlExecutionContext executionContext
+    ) {
+        final PartitionSummaryFilter partitionFilter = new PartitionSummaryFilter();
+        try {
+            addPartitionFilterPredicates(partitionFilter, model, filter, readerMeta, executionContext);
+        } catch (Throwable th) {
+            Misc.free(partitionFilter);
+            throw th;
+        }
+        if (partitionFilter.getPredicateCount() > 0) {
+            return partitionFilter;
+        }
+        Misc.free(partitionFilter);
+        return null;
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
@@ -2174,7 +2488,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 throw SqlException.$(offsetFuncPos, "offset must be a constant expression of STRING or CHAR type");
             }
 
-            final RecordCursorFactory factory = generateSubQuery(model, executionContext);
+            RecordCursorFactory factory = generateSubQuery(model, executionContext);
 
             // We require timestamp with asc order.
             final int timestampIndex;
@@ -2358,6 +2672,56 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
 
                 if (isFillNone) {
+                    final int workerCount = executionContext.getSharedWorkerCount();
+                    if (
+                            configuration.isSqlParallelGroupByEnabled()
+                                    && workerCount > 0
+                                    && AsyncSampleByRecordCursorFactory.isSamplerSupported(timestampSampler)
+                                    && GroupByUtils.isParallelismSupported(groupByFunctions)
+                                    // time zones with daylight savings make bucket boundaries depend on previous buckets
+                                    && timezoneNameFunc.isConstant()
+                                    && timezoneNameFunc.getStr(null) == null
+                                    && offsetFunc.isConstant()
+                    ) {
+                        final long fixedOffset = getSampleByFixedOffset(offsetFunc, offsetFuncPos);
+                        // buckets aligned to the first observation need the first row that passes
+                        // the filter before the aggregation starts, so the filter stays in place
+                        final boolean stealFilter = fixedOffset != Long.MIN_VALUE
+                                && factory.supportsFilterStealing()
+                                && factory.getBaseFactory().supportPageFrameCursor();
+                        if (stealFilter || factory.supportPageFrameCursor()) {
+                            Function filter = null;
+                            ObjList<Function> perWorkerFilters = null;
+                            if (stealFilter) {
+                                // evaluate the filter as a part of the aggregation
+                                final RecordCursorFactory filterFactory = factory;
+                                filter = filterFactory.getFilter();
+                                perWorkerFilters = filterFactory.getPerWorkerFilters();
+                                factory = filterFactory.getBaseFactory();
+                                filterFactory.halfClose();
+                            }
+                            Misc.free(timezoneNameFunc);
+                            Misc.free(offsetFunc);
+                            return new AsyncSampleByRecordCursorFactory(
+                                    configuration,
+                                    executionContext.getMessageBus(),
+                                    factory,
+                                    groupByMetadata,
+                                    listColumnFilterA,
+                                    asm,
+                                    keyTypes,
+                                    valueTypes,
+                                    groupByFunctions,
+                                    recordFunctions,
+                                    filter,
+                                    perWorkerFilters,
+                                    timestampSampler,
+                                    timestampIndex,
+                                    fixedOffset,
+                                    workerCount
+                            );
+                        }
+                    }
 
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
@@ -3151,6 +3515,42 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 );
             }
 
+            final int workerCount = executionContext.getSharedWorkerCount();
+            if (
+                    configuration.isSqlParallelGroupByEnabled()
+                            && workerCount > 0
+                            && GroupByUtils.isParallelismSupported(groupByFunctions)
+            ) {
+                Function filter = null;
+                ObjList<Function> perWorkerFilters = null;
+                if (factory.supportsFilterStealing() && factory.getBaseFactory().supportPageFrameCursor()) {
+                    // evaluate the filter as a part of the aggregation
+                    final RecordCursorFactory filterFactory = factory;
+                    filter = filterFactory.getFilter();
+                    perWorkerFilters = filterFactory.getPerWorkerFilters();
+                    factory = filterFactory.getBaseFactory();
+                    filterFactory.halfClose();
+                }
+
+                if (factory.supportPageFrameCursor()) {
+                    return new AsyncGroupByRecordCursorFactory(
+                            configuration,
+                            executionContext.getMessageBus(),
+                            factory,
+                            groupByMetadata,
+                            listColumnFilterA,
+                            asm,
+                            keyTypes,
+                            valueTypes,
+                            groupByFunctions,
+                            recordFunctions,
+                            filter,
+                            perWorkerFilters,
+                            workerCount
+                    );
+                }
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -3587,7 +3987,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     return new EmptyTableRecordCursorFactory(myMeta);
                 }
 
-                DataFrameCursorFactory dfcFactory;
+                AbstractDataFrameCursorFactory dfcFactory;
 
                 if (latestByColumnCount > 0) {
                     Function f = compileFilter(intrinsicModel, myMeta, executionContext);
@@ -3851,6 +4251,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     rowFactory = new DataFrameRowCursorFactory();
                 }
 
+                if (intrinsicModel.filter != null && configuration.isPartitionSummaryEnabled()) {
+                    dfcFactory.setPartitionFilter(generatePartitionFilter(model, intrinsicModel.filter, readerMeta, executionContext));
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(
                         configuration,
@@ -4015,6 +4419,21 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return toLimitFunction(executionContext, model.getLimitLo(), LongConstant.ZERO);
     }
 
+    /**
+     * Returns SAMPLE BY offset in micros or Long.MIN_VALUE when buckets are aligned to the first observation.
+     */
+    private static long getSampleByFixedOffset(Function offsetFunc, int offsetFuncPos) throws SqlException {
+        final CharSequence offset = offsetFunc.getStr(null);
+        if (offset == null) {
+            return Long.MIN_VALUE;
+        }
+        final long val = Timestamps.parseOffset(offset);
+        if (val == Numbers.LONG_NaN) {
+            throw SqlException.$(offsetFuncPos, "invalid offset: ").put(offset);
+        }
+        return Numbers.decodeLowInt(val) * Timestamps.MINUTE_MICROS;
+    }
+
     private int getTimestampIndex(QueryModel model, RecordCursorFactory factory) throws SqlException {
         return getTimestampIndex(model, factory.getMetadata());
     }
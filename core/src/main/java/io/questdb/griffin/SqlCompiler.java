@@ -27,6 +27,7 @@ package io.questdb.griffin;
 import io.questdb.MessageBus;
 import io.questdb.PropServerConfiguration;
 import io.questdb.cairo.*;
+import io.questdb.cairo.mv.MatViewDefinition;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
@@ -34,6 +35,7 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cutlass.text.*;
 import io.questdb.griffin.engine.functions.catalogue.*;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
 import io.questdb.griffin.engine.ops.CopyFactory;
 import io.questdb.griffin.engine.ops.InsertOperationImpl;
@@ -47,6 +49,7 @@ import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.*;
 import io.questdb.std.datetime.DateFormat;
+import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.Path;
 import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
@@ -100,11 +103,11 @@ public class SqlCompiler implements Closeable {
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final FunctionParser functionParser;
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
-    private final TextLoader textLoader;
     private final FilesFacade ff;
     private final TimestampValueRecord partitionFunctionRec = new TimestampValueRecord();
     private final IndexBuilder rebuildIndex = new IndexBuilder();
     private final VacuumColumnVersions vacuumColumnVersions;
+    private final MatViewDefinition matViewDefinition = new MatViewDefinition();
     //determines how compiler parses query text
     //true - compiler treats whole input as single query and doesn't stop on ';'. Default mode.
     //false - compiler treats input as list of statements and stops processing statement on ';'. Used in batch processing.
@@ -163,6 +166,7 @@ public class SqlCompiler implements Closeable {
         final KeywordBasedExecutor vacuumTable = this::vacuum;
         final KeywordBasedExecutor snapshotDatabase = this::snapshotDatabase;
         final KeywordBasedExecutor compileDeallocate = this::compileDeallocate;
+        final KeywordBasedExecutor createMatViewOrTable = this::createMatViewOrTable;
 
         keywordBasedExecutors.put("truncate", truncateTables);
         keywordBasedExecutors.put("TRUNCATE", truncateTables);
@@ -200,6 +204,8 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("SNAPSHOT", snapshotDatabase);
         keywordBasedExecutors.put("deallocate", compileDeallocate);
         keywordBasedExecutors.put("DEALLOCATE", compileDeallocate);
+        keywordBasedExecutors.put("create", createMatViewOrTable);
+        keywordBasedExecutors.put("CREATE", createMatViewOrTable);
 
         configureLexer(lexer);
 
@@ -225,7 +231,6 @@ public class SqlCompiler implements Closeable {
                 queryModelPool,
                 postOrderTreeTraversalAlgo
         );
-        this.textLoader = new TextLoader(engine);
         alterOperationBuilder = new AlterOperationBuilder();
     }
 
@@ -241,13 +246,29 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    /**
+     * Validates SAMPLE BY query of a materialized view and populates view definition from it.
+     *
+     * @param query            materialized view query text
+     * @param executionContext execution context used to look up base table
+     * @param definition       definition to populate
+     * @throws SqlException when the query cannot be maintained incrementally
+     */
+    public void analyseMatViewQuery(
+            CharSequence query,
+            SqlExecutionContext executionContext,
+            MatViewDefinition definition
+    ) throws SqlException {
+        clear();
+        analyseMatViewQuery0(query, 0, query.length(), executionContext, definition);
+    }
+
     @Override
     public void close() {
         backupAgent.close();
         vacuumColumnVersions.close();
         Misc.free(path);
         Misc.free(renamePath);
-        Misc.free(textLoader);
         Misc.free(rebuildIndex);
         Misc.free(codeGenerator);
         Misc.free(mem);
@@ -359,6 +380,32 @@ public class SqlCompiler implements Closeable {
         return castGroups.getQuick(ColumnType.tagOf(from)) == castGroups.getQuick(ColumnType.tagOf(to));
     }
 
+    // aggregate values of materialized view are updated in place, see UpdateOperator
+    private static boolean isMatViewValueType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG128:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private static void expectKeyword(GenericLexer lexer, CharSequence keyword) throws SqlException {
         CharSequence tok = SqlUtil.fetchNext(lexer);
 
@@ -1018,6 +1065,109 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void analyseMatViewQuery0(
+            CharSequence content,
+            int lo,
+            int hi,
+            SqlExecutionContext executionContext,
+            MatViewDefinition definition
+    ) throws SqlException {
+        definition.clear();
+        lexer.of(content, lo, hi);
+        final ExecutionModel executionModel = parser.parse(lexer, executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(lo, "materialized view query must be a SELECT");
+        }
+        // select columns are in the outer model, FROM clause is in the nested one
+        final QueryModel model = (QueryModel) executionModel;
+        final QueryModel nested = model.getNestedModel();
+        if (
+                nested == null
+                        || model.getWithClauses().size() > 0
+                        || model.getUnionModel() != null
+                        || nested.getJoinModels().size() > 1
+                        || nested.getTableName() == null
+                        || nested.getTableName().type != ExpressionNode.LITERAL
+        ) {
+            throw SqlException.$(lo, "materialized view query must select from a single table");
+        }
+        final ExpressionNode tableNameExpr = nested.getTableName();
+        final ExpressionNode sampleBy = nested.getSampleBy();
+        if (sampleBy == null || nested.getSampleByUnit() != null) {
+            throw SqlException.$(lo, "materialized view query must use SAMPLE BY with a constant interval");
+        }
+        final ObjList<ExpressionNode> fill = nested.getSampleByFill();
+        if (fill.size() > 1 || (fill.size() == 1 && !Chars.equalsLowerCaseAscii(fill.getQuick(0).token, "none"))) {
+            throw SqlException.$(fill.getQuick(0).position, "FILL is not supported by materialized views");
+        }
+        final ExpressionNode offsetExpr = nested.getSampleByOffset();
+        if (offsetExpr == null) {
+            throw SqlException.$(sampleBy.position, "materialized view query must use ALIGN TO CALENDAR");
+        }
+        if (nested.getSampleByTimezoneName() != null) {
+            throw SqlException.$(nested.getSampleByTimezoneName().position, "time zone is not supported by materialized views");
+        }
+        final long offset = Timestamps.parseOffset(GenericLexer.unquote(offsetExpr.token));
+        if (offset == Numbers.LONG_NaN) {
+            throw SqlException.$(offsetExpr.position, "invalid offset: ").put(offsetExpr.token);
+        }
+        // validates sampling interval
+        TimestampSamplerFactory.getInstance(sampleBy.token, sampleBy.position);
+        if (nested.getLatestBy().size() > 0 || nested.getOrderBy().size() > 0 || model.getLimitLo() != null || nested.getTimestamp() != null) {
+            throw SqlException.$(lo, "LATEST BY, ORDER BY, LIMIT and TIMESTAMP are not supported by materialized views");
+        }
+
+        final CharSequence baseTableName = GenericLexer.unquote(tableNameExpr.token);
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, baseTableName) != TableUtils.TABLE_EXISTS) {
+            throw SqlException.$(tableNameExpr.position, "table does not exist [table=").put(baseTableName).put(']');
+        }
+        final String baseTimestampName;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableName)) {
+            final int timestampIndex = reader.getMetadata().getTimestampIndex();
+            if (timestampIndex == -1) {
+                throw SqlException.$(tableNameExpr.position, "base table of materialized view must have designated timestamp");
+            }
+            baseTimestampName = reader.getMetadata().getColumnName(timestampIndex);
+        }
+
+        // every column that is not an aggregate is a key of the bucket row
+        final ObjList<QueryColumn> columns = model.getBottomUpColumns();
+        final IntList keyColumnIndexes = definition.getKeyColumnIndexes();
+        int timestampIndex = -1;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode ast = columns.getQuick(i).getAst();
+            if (ast.type == ExpressionNode.LITERAL) {
+                if (Chars.endsWith(ast.token, '*')) {
+                    throw SqlException.$(ast.position, "materialized view query must list its columns");
+                }
+                final int dot = Chars.indexOf(ast.token, '.');
+                final CharSequence columnName = dot == -1 ? ast.token : ast.token.subSequence(dot + 1, ast.token.length());
+                if (Chars.equalsIgnoreCase(columnName, baseTimestampName)) {
+                    timestampIndex = i;
+                }
+            }
+            if (!hasGroupByFunction(ast)) {
+                keyColumnIndexes.add(i);
+            }
+        }
+        if (timestampIndex == -1) {
+            throw SqlException.$(lo, "materialized view query must select designated timestamp [column=").put(baseTimestampName).put(']');
+        }
+        if (keyColumnIndexes.size() == columns.size()) {
+            throw SqlException.$(lo, "materialized view query must have at least one aggregate");
+        }
+
+        definition.ofBaseTable(
+                Chars.toString(baseTableName),
+                tableNameExpr.position - lo,
+                tableNameExpr.position - lo + tableNameExpr.token.length(),
+                baseTimestampName,
+                nested.getAlias() != null
+        );
+        definition.ofSampling(Chars.toString(sampleBy.token), Numbers.decodeLowInt(offset) * Timestamps.MINUTE_MICROS);
+        definition.setTimestampIndex(timestampIndex);
+    }
+
     private void cancelTextImport(CopyModel model) throws SqlException {
         assert model.isCancel();
 
@@ -1387,6 +1537,126 @@ public class SqlCompiler implements Closeable {
         return rowCount;
     }
 
+    // expected syntax: CREATE MATERIALIZED VIEW [IF NOT EXISTS] name AS (query) [PARTITION BY unit] [;]
+    private CompiledQuery createMatView(SqlExecutionContext executionContext) throws SqlException {
+        executionContext.getCairoSecurityContext().checkWritePermission();
+        expectKeyword(lexer, "view");
+        CharSequence tok = expectToken(lexer, "view name");
+        boolean ifNotExists = false;
+        if (SqlKeywords.isIfKeyword(tok)) {
+            expectKeyword(lexer, "not");
+            expectKeyword(lexer, "exists");
+            ifNotExists = true;
+            tok = expectToken(lexer, "view name");
+        }
+        final int viewNamePosition = lexer.lastTokenPosition();
+        final String viewName = Chars.toString(GenericLexer.assertNoDotsAndSlashes(GenericLexer.unquote(tok), viewNamePosition));
+        expectKeyword(lexer, "as");
+        expectKeyword(lexer, "(");
+
+        final int queryLo = lexer.getPosition();
+        int queryHi;
+        int depth = 1;
+        while (true) {
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok == null) {
+                throw SqlException.$(lexer.getPosition(), "')' expected");
+            }
+            if (Chars.equals(tok, '(')) {
+                depth++;
+            } else if (Chars.equals(tok, ')') && --depth == 0) {
+                queryHi = lexer.lastTokenPosition();
+                break;
+            }
+        }
+
+        int partitionBy = -1;
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && isPartitionKeyword(tok)) {
+            expectKeyword(lexer, "by");
+            tok = expectToken(lexer, "partition unit");
+            partitionBy = PartitionBy.fromString(tok);
+            if (partitionBy == -1) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+            }
+            if (partitionBy == PartitionBy.NONE) {
+                throw SqlException.$(lexer.lastTokenPosition(), "materialized view must be partitioned");
+            }
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        // statement end is where batch compilation resumes
+        final int statementHi = tok != null ? lexer.lastTokenPosition() : lexer.getPosition();
+        if (tok != null && !Chars.equals(tok, ';')) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token [").put(tok).put("]");
+        }
+
+        if (engine.getStatus(executionContext.getCairoSecurityContext(), path, viewName) != TableUtils.TABLE_DOES_NOT_EXIST) {
+            if (ifNotExists) {
+                return compiledQuery.ofCreateTable();
+            }
+            throw SqlException.$(viewNamePosition, "table already exists");
+        }
+
+        final CharSequence content = lexer.getContent();
+        final String query = Chars.toString(content, queryLo, queryHi);
+        analyseMatViewQuery0(content, queryLo, queryHi, executionContext, matViewDefinition);
+        final String baseTableName = matViewDefinition.getBaseTableName();
+
+        // rows committed after this transaction are picked up by refresh
+        final long baseTxn;
+        try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), baseTableName)) {
+            baseTxn = reader.getTxn();
+            if (partitionBy == -1) {
+                partitionBy = reader.getPartitionedBy() != PartitionBy.NONE ? reader.getPartitionedBy() : PartitionBy.DAY;
+            }
+        }
+
+        final boolean singleQueryMode = isSingleQueryMode;
+        final String timestampName;
+        try (RecordCursorFactory factory = compile(query, executionContext).getRecordCursorFactory()) {
+            final RecordMetadata metadata = factory.getMetadata();
+            final int timestampIndex = matViewDefinition.getTimestampIndex();
+            if (metadata.getTimestampIndex() != timestampIndex) {
+                throw SqlException.$(queryLo, "materialized view query must return designated timestamp");
+            }
+            final IntList keyColumnIndexes = matViewDefinition.getKeyColumnIndexes();
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                final int columnType = metadata.getColumnType(i);
+                if (keyColumnIndexes.indexOf(i, 0, keyColumnIndexes.size()) == -1 && !isMatViewValueType(columnType)) {
+                    throw SqlException.$(queryLo, "unsupported materialized view column type [column=")
+                            .put(metadata.getColumnName(i))
+                            .put(", type=").put(ColumnType.nameOf(columnType))
+                            .put(']');
+                }
+            }
+            timestampName = metadata.getColumnName(timestampIndex);
+        }
+
+        final StringSink createSql = new StringSink();
+        createSql.put("create table \"").put(viewName).put("\" as (").put(query).put(") timestamp(\"")
+                .put(timestampName).put("\") partition by ").put(PartitionBy.toString(partitionBy));
+        compile(createSql, executionContext);
+        engine.getMatViewRegistry().createView(path, viewName, baseTableName, query, baseTxn);
+        LOG.info().$("materialized view created [view=").$(viewName).$(", base=").$(baseTableName).I$();
+
+        // nested compilation has replaced the lexer content
+        isSingleQueryMode = singleQueryMode;
+        lexer.of(content);
+        lexer.backTo(statementHi, null);
+        return compiledQuery;
+    }
+
+    private CompiledQuery createMatViewOrTable(SqlExecutionContext executionContext) throws SqlException {
+        final int createPosition = lexer.lastTokenPosition();
+        final CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok != null && isMaterializedKeyword(tok)) {
+            return createMatView(executionContext);
+        }
+        // CREATE TABLE is parsed into a model
+        lexer.backTo(createPosition, null);
+        return compileUsingModel(executionContext);
+    }
+
     private CompiledQuery createTable(final ExecutionModel model, SqlExecutionContext executionContext) throws
             SqlException {
         final CreateTableModel createTableModel = (CreateTableModel) model;
@@ -1530,11 +1800,14 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
+        if (executionModel.getQueryModel() != null) {
+            // rows are streamed to the client, e.g. over PostgreSQL wire protocol
+            return compiledQuery.ofCopyRemote(executionModel, generate(executionModel.getQueryModel(), executionContext));
+        }
         executionContext.getCairoSecurityContext().checkWritePermission();
         if (!executionModel.isCancel() && Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
-            // no-op implementation
-            setupTextLoaderFromModel(executionModel);
-            return compiledQuery.ofCopyRemote(textLoader);
+            // data is streamed by the client, e.g. over PostgreSQL wire protocol
+            return compiledQuery.ofCopyRemote(executionModel);
         }
         RecordCursorFactory copyFactory = executeCopy0(executionModel);
         return compiledQuery.ofCopyLocal(copyFactory);
@@ -1547,6 +1820,9 @@ public class SqlCompiler implements Closeable {
                 cancelTextImport(model);
                 return null;
             } else {
+                if (model.getFormat() != -1 && model.getFormat() != CopyModel.FORMAT_CSV) {
+                    throw SqlException.$(model.getFileName().position, "only CSV format is supported for file import");
+                }
                 if (model.getTimestampColumnName() == null &&
                         ((model.getPartitionBy() != -1 && model.getPartitionBy() != PartitionBy.NONE))) {
                     throw SqlException.$(-1, "invalid option used for import without a designated timestamp (format or partition by)");
@@ -1638,6 +1914,24 @@ public class SqlCompiler implements Closeable {
         return lexer.getPosition();
     }
 
+    private boolean hasGroupByFunction(ExpressionNode node) {
+        if (node == null) {
+            return false;
+        }
+        if (node.type == ExpressionNode.FUNCTION && functionParser.getFunctionFactoryCache().isGroupBy(node.token)) {
+            return true;
+        }
+        if (node.paramCount < 3) {
+            return hasGroupByFunction(node.lhs) || hasGroupByFunction(node.rhs);
+        }
+        for (int i = 0, n = node.args.size(); i < n; i++) {
+            if (hasGroupByFunction(node.args.getQuick(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private CompiledQuery insert(ExecutionModel executionModel, SqlExecutionContext executionContext) throws SqlException {
         final InsertModel model = (InsertModel) executionModel;
         final ExpressionNode name = model.getTableName();
@@ -2098,19 +2392,6 @@ public class SqlCompiler implements Closeable {
         codeGenerator.setFullFatJoins(value);
     }
 
-    private void setupTextLoaderFromModel(CopyModel model) {
-        textLoader.clear();
-        textLoader.setState(TextLoader.ANALYZE_STRUCTURE);
-        // todo: configure the following
-        //   - what happens when data row errors out, max errors may be?
-        //   - we should be able to skip X rows from top, dodgy headers etc.
-
-        textLoader.configureDestination(model.getTarget().token, false, false,
-                model.getAtomicity() != -1 ? model.getAtomicity() : Atomicity.SKIP_ROW,
-                model.getPartitionBy() < 0 ? PartitionBy.NONE : model.getPartitionBy(),
-                model.getTimestampColumnName(), model.getTimestampFormat());
-    }
-
     private CompiledQuery snapshotDatabase(SqlExecutionContext executionContext) throws SqlException {
         executionContext.getCairoSecurityContext().checkWritePermission();
         CharSequence tok = expectToken(lexer, "'prepare' or 'complete'");
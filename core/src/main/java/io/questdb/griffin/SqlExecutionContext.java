@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoSecurityContext;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.SqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.VirtualRecord;
@@ -75,6 +76,10 @@ public interface SqlExecutionContext extends Closeable {
 
     @NotNull CairoEngine getCairoEngine();
 
+    default TableReader getReader(CharSequence tableName, int tableId, long version) {
+        return getCairoEngine().getReader(getCairoSecurityContext(), tableName, tableId, version);
+    }
+
     long getRequestFd();
 
     @NotNull SqlExecutionCircuitBreaker getCircuitBreaker();
@@ -95,6 +100,14 @@ public interface SqlExecutionContext extends Closeable {
 
     long getNow();
 
+    /**
+     * Notifies that the query result differs between executions for reasons that cannot
+     * be tracked via table readers, e.g. query reads wall clock directly, bypassing
+     * {@link #getNow()}, or reads engine state such as table list, pools or metrics.
+     */
+    default void markNonDeterministic() {
+    }
+
     int getJitMode();
 
     void setJitMode(int jitMode);
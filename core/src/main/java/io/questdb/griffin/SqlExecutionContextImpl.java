@@ -61,6 +61,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private long now;
     private int jitMode;
     private boolean cloneSymbolTables = false;
+    private QueryDependencyListener dependencyListener;
 
     public SqlExecutionContextImpl(CairoEngine cairoEngine, int workerCount, int sharedWorkerCount) {
         this.cairoConfiguration = cairoEngine.getConfiguration();
@@ -126,6 +127,9 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
 
     @Override
     public Rnd getRandom() {
+        if (dependencyListener != null) {
+            dependencyListener.onNonDeterministicValue();
+        }
         return random != null ? random : SharedRandom.getRandom(cairoConfiguration);
     }
 
@@ -139,6 +143,15 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return cairoEngine;
     }
 
+    @Override
+    public TableReader getReader(CharSequence tableName, int tableId, long version) {
+        final TableReader reader = cairoEngine.getReader(cairoSecurityContext, tableName, tableId, version);
+        if (dependencyListener != null) {
+            dependencyListener.onTableReader(reader);
+        }
+        return reader;
+    }
+
     @Override
     public long getRequestFd() {
         return requestFd;
@@ -184,9 +197,19 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
 
     @Override
     public long getNow() {
+        if (dependencyListener != null) {
+            dependencyListener.onNonDeterministicValue();
+        }
         return now;
     }
 
+    @Override
+    public void markNonDeterministic() {
+        if (dependencyListener != null) {
+            dependencyListener.onNonDeterministicValue();
+        }
+    }
+
     @Override
     public int getJitMode() {
         return jitMode;
@@ -208,6 +231,10 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return this;
     }
 
+    public void setDependencyListener(@Nullable QueryDependencyListener dependencyListener) {
+        this.dependencyListener = dependencyListener;
+    }
+
     @Override
     public void setCloneSymbolTables(boolean cloneSymbolTables) {
         this.cloneSymbolTables = cloneSymbolTables;
@@ -146,6 +146,12 @@ public final class SqlParser {
         }
     }
 
+    private void assertCopyEnabled(int position) throws SqlException {
+        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+            throw SqlException.$(position, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        }
+    }
+
     private void assertNotDot(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (Chars.indexOf(tok, '.') != -1) {
             throw SqlException.$(lexer.lastTokenPosition(), "'.' is not allowed here");
@@ -398,7 +404,7 @@ public final class SqlParser {
         }
 
         if (isCopyKeyword(tok)) {
-            return parseCopy(lexer);
+            return parseCopy(lexer, executionContext);
         }
 
         if (isWithKeyword(tok)) {
@@ -425,94 +431,158 @@ public final class SqlParser {
         return model;
     }
 
-    private ExecutionModel parseCopy(GenericLexer lexer) throws SqlException {
-        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+    private ExecutionModel parseCopy(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
+        final int copyPosition = lexer.lastTokenPosition();
+        CharSequence tok = tok(lexer, "table name or '('");
+        if (Chars.equals(tok, '(')) {
+            // COPY (select ...) TO STDOUT
+            final QueryModel queryModel = optimiser.optimise(parseDml(lexer, null, lexer.getPosition()), executionContext);
+            expectTok(lexer, ')');
+            expectTok(lexer, "to");
+            return parseCopyToStdout(lexer, queryModel);
         }
+        lexer.unparseLast();
+
         ExpressionNode target = expectExpr(lexer);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
 
         if (isCancelKeyword(tok)) {
+            assertCopyEnabled(copyPosition);
             CopyModel model = copyModelPool.next();
             model.setCancel(true);
             model.setTarget(target);
             return model;
         }
 
+        if (isToKeyword(tok)) {
+            // COPY table TO STDOUT exports the whole table
+            final QueryModel queryModel = queryModelPool.next();
+            queryModel.setTableName(target);
+            queryModel.setModelPosition(target.position);
+            return parseCopyToStdout(lexer, optimiser.optimise(queryModel, executionContext));
+        }
+
         if (isFromKeyword(tok)) {
-            final ExpressionNode fileName = expectExpr(lexer);
-            if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
-                throw SqlException.$(fileName.position, "file name expected");
+            final ExpressionNode fileName;
+            tok = tok(lexer, "file name");
+            if (Chars.equalsLowerCaseAscii(tok, "stdin")) {
+                // COPY FROM STDIN streams data over the connection and does not need the copy root,
+                // stdin is taken as is to avoid parsing "stdin (format csv)" as a function call
+                fileName = nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition());
+            } else {
+                lexer.unparseLast();
+                fileName = expectExpr(lexer);
+                if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
+                    throw SqlException.$(fileName.position, "file name expected");
+                }
+                assertCopyEnabled(copyPosition);
             }
 
             CopyModel model = copyModelPool.next();
             model.setTarget(target);
             model.setFileName(fileName);
 
-            tok = optTok(lexer);
-            if (tok != null && isWithKeyword(tok)) {
+            parseCopyOptions(lexer, model);
+            return model;
+        }
+        throw SqlException.$(lexer.lastTokenPosition(), "'from' or 'to' expected");
+    }
+
+    private void parseCopyOptions(GenericLexer lexer, CopyModel model) throws SqlException {
+        CharSequence tok = optTok(lexer);
+        // WITH is optional before PostgreSQL style options, e.g. FROM STDIN (FORMAT csv) or FROM STDIN BINARY
+        if (tok != null && (isWithKeyword(tok) || Chars.equals(tok, '(') || isBinaryKeyword(tok) || isCsvKeyword(tok))) {
+            if (isWithKeyword(tok)) {
                 tok = tok(lexer, "copy option");
-                while (tok != null && !isSemicolon(tok)) {
-                    if (isHeaderKeyword(tok)) {
-                        model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
-                        tok = optTok(lexer);
-                    } else if (isPartitionKeyword(tok)) {
-                        expectTok(lexer, "by");
-                        tok = tok(lexer, "year month day hour");
-                        int partitionBy = PartitionBy.fromString(tok);
-                        if (partitionBy == -1) {
-                            throw SqlException.$(lexer.getPosition(), "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
-                        }
-                        model.setPartitionBy(partitionBy);
-                        tok = optTok(lexer);
-                    } else if (isTimestampKeyword(tok)) {
-                        tok = tok(lexer, "timestamp column name expected");
-                        CharSequence columnName = GenericLexer.immutableOf(GenericLexer.unquote(tok));
-                        if (!TableUtils.isValidColumnName(columnName, configuration.getMaxFileNameLength())) {
-                            throw SqlException.$(lexer.getPosition(), "timestamp column name contains invalid characters");
-                        }
-                        model.setTimestampColumnName(columnName);
-                        tok = optTok(lexer);
-                    } else if (isFormatKeyword(tok)) {
-                        tok = tok(lexer, "timestamp format expected");
+            }
+            while (tok != null && !isSemicolon(tok)) {
+                if (Chars.equals(tok, '(') || Chars.equals(tok, ',') || Chars.equals(tok, ')')) {
+                    // PostgreSQL style option list, e.g. WITH (FORMAT csv, HEADER true)
+                    tok = optTok(lexer);
+                } else if (isBinaryKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_BINARY);
+                    tok = optTok(lexer);
+                } else if (isCsvKeyword(tok)) {
+                    model.setFormat(CopyModel.FORMAT_CSV);
+                    tok = optTok(lexer);
+                } else if (isHeaderKeyword(tok)) {
+                    model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
+                    tok = optTok(lexer);
+                } else if (isPartitionKeyword(tok)) {
+                    expectTok(lexer, "by");
+                    tok = tok(lexer, "year month day hour");
+                    int partitionBy = PartitionBy.fromString(tok);
+                    if (partitionBy == -1) {
+                        throw SqlException.$(lexer.getPosition(), "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+                    }
+                    model.setPartitionBy(partitionBy);
+                    tok = optTok(lexer);
+                } else if (isTimestampKeyword(tok)) {
+                    tok = tok(lexer, "timestamp column name expected");
+                    CharSequence columnName = GenericLexer.immutableOf(GenericLexer.unquote(tok));
+                    if (!TableUtils.isValidColumnName(columnName, configuration.getMaxFileNameLength())) {
+                        throw SqlException.$(lexer.getPosition(), "timestamp column name contains invalid characters");
+                    }
+                    model.setTimestampColumnName(columnName);
+                    tok = optTok(lexer);
+                } else if (isFormatKeyword(tok)) {
+                    tok = tok(lexer, "timestamp format expected");
+                    // unquoted text, csv or binary is the data format, anything else is the timestamp format
+                    if (isTextKeyword(tok)) {
+                        model.setFormat(CopyModel.FORMAT_TEXT);
+                    } else if (isCsvKeyword(tok)) {
+                        model.setFormat(CopyModel.FORMAT_CSV);
+                    } else if (isBinaryKeyword(tok)) {
+                        model.setFormat(CopyModel.FORMAT_BINARY);
+                    } else {
                         CharSequence format = GenericLexer.immutableOf(GenericLexer.unquote(tok));
                         model.setTimestampFormat(format);
-                        tok = optTok(lexer);
-                    } else if (isOnKeyword(tok)) {
-                        expectTok(lexer, "error");
-                        tok = tok(lexer, "skip_column skip_row abort");
-                        if (Chars.equalsIgnoreCase(tok, "skip_column")) {
-                            model.setAtomicity(Atomicity.SKIP_COL);
-                        } else if (Chars.equalsIgnoreCase(tok, "skip_row")) {
-                            model.setAtomicity(Atomicity.SKIP_ROW);
-                        } else if (Chars.equalsIgnoreCase(tok, "abort")) {
-                            model.setAtomicity(Atomicity.SKIP_ALL);
-                        } else {
-                            throw SqlException.$(lexer.getPosition(), "invalid 'on error' copy option found");
-                        }
-                        tok = optTok(lexer);
-                    } else if (isDelimiterKeyword(tok)) {
-                        tok = tok(lexer, "timestamp character expected");
-                        CharSequence delimiter = GenericLexer.immutableOf(GenericLexer.unquote(tok));
-                        if (delimiter == null || delimiter.length() != 1) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
-                        }
-                        char delimiterChar = delimiter.charAt(0);
-                        if (delimiterChar > 127) {
-                            throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
-                        }
-                        model.setDelimiter((byte) delimiterChar);
-                        tok = optTok(lexer);
+                    }
+                    tok = optTok(lexer);
+                } else if (isOnKeyword(tok)) {
+                    expectTok(lexer, "error");
+                    tok = tok(lexer, "skip_column skip_row abort");
+                    if (Chars.equalsIgnoreCase(tok, "skip_column")) {
+                        model.setAtomicity(Atomicity.SKIP_COL);
+                    } else if (Chars.equalsIgnoreCase(tok, "skip_row")) {
+                        model.setAtomicity(Atomicity.SKIP_ROW);
+                    } else if (Chars.equalsIgnoreCase(tok, "abort")) {
+                        model.setAtomicity(Atomicity.SKIP_ALL);
                     } else {
-                        throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+                        throw SqlException.$(lexer.getPosition(), "invalid 'on error' copy option found");
                     }
+                    tok = optTok(lexer);
+                } else if (isDelimiterKeyword(tok)) {
+                    tok = tok(lexer, "timestamp character expected");
+                    CharSequence delimiter = GenericLexer.immutableOf(GenericLexer.unquote(tok));
+                    if (delimiter == null || delimiter.length() != 1) {
+                        throw SqlException.$(lexer.getPosition(), "delimiter is empty or contains more than 1 character");
+                    }
+                    char delimiterChar = delimiter.charAt(0);
+                    if (delimiterChar > 127) {
+                        throw SqlException.$(lexer.getPosition(), "delimiter is not an ascii character");
+                    }
+                    model.setDelimiter((byte) delimiterChar);
+                    tok = optTok(lexer);
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
                 }
-            } else if (tok != null && !SqlKeywords.isSemicolon(tok)) {
-                throw SqlException.$(lexer.lastTokenPosition(), "'with' expected");
             }
-            return model;
+        } else if (tok != null && !SqlKeywords.isSemicolon(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'with' expected");
         }
-        throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
+    }
+
+    private ExecutionModel parseCopyToStdout(GenericLexer lexer, QueryModel queryModel) throws SqlException {
+        final CharSequence tok = tok(lexer, "'stdout'");
+        if (!Chars.equalsLowerCaseAscii(tok, "stdout")) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'stdout' expected");
+        }
+        final CopyModel model = copyModelPool.next();
+        model.setFileName(nextLiteral(GenericLexer.immutableOf(tok), lexer.lastTokenPosition()));
+        model.setQueryModel(queryModel);
+        parseCopyOptions(lexer, model);
+        return model;
     }
 
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
@@ -1232,13 +1302,13 @@ public final class SqlParser {
                 if (isCalendarKeyword(tok)) {
                     tok = optTok(lexer);
 
-                    if (tok != null && !isSemicolon(tok)) {
+                    if (tok != null && !isSemicolon(tok) && !Chars.equals(tok, ')')) {
                         if (isTimeKeyword(tok)) {
                             expectZone(lexer);
                             model.setSampleByTimezoneName(expectExpr(lexer));
                             tok = optTok(lexer);
 
-                            if (tok != null) {
+                            if (tok != null && !isSemicolon(tok) && !Chars.equals(tok, ')')) {
                                 if (isWithKeyword(tok)) {
                                     tok = parseWithOffset(lexer, model);
                                 } else {
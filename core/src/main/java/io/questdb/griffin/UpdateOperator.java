@@ -222,6 +222,8 @@ public class UpdateOperator extends PurgingOperator implements QuietCloseable {
                 tableWriter.commit();
                 tableWriter.openLastPartition();
                 purgeOldColumnVersions();
+                // updated rows are not tracked by timestamp
+                tableWriter.notifyCommitListener(Long.MIN_VALUE, Long.MAX_VALUE);
             }
 
             LOG.info().$("update finished [table=").$(tableName)
@@ -54,10 +54,31 @@ public interface GroupByFunction extends Function, Mutable {
 
     void computeNext(MapValue mapValue, Record record);
 
+    /**
+     * Returns true if the function can be computed over disjoint subsets of rows
+     * and the partial results combined with {@link #merge(MapValue, MapValue)}.
+     * Parallel GROUP BY is used only when all the functions in the query support it.
+     */
+    default boolean isParallelismSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Combines partial aggregate value computed for the same key by another
+     * worker into the destination value. Both values are initialized, i.e.
+     * each of them went through {@link #computeFirst(MapValue, Record)}.
+     *
+     * @param destValue value to merge into
+     * @param srcValue  partial value computed by another worker
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
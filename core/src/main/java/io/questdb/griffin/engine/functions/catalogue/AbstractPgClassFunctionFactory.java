@@ -126,6 +126,7 @@ public abstract class AbstractPgClassFunctionFactory implements FunctionFactory
 
         @Override
         public RecordCursor getCursor(SqlExecutionContext executionContext) {
+            executionContext.markNonDeterministic();
             cursor.toTop();
             return cursor;
         }
@@ -0,0 +1,288 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Shared state of parallel keyed GROUP BY. Each page frame is aggregated into
+ * one of the partial maps; the maps are merged into the owner map once all
+ * frames are reduced.
+ * <p>
+ * The owner (query) thread always uses its own map, while worker threads and
+ * threads stealing work from other queries compete for the per-worker maps,
+ * in the same way as parallel filter threads compete for per-worker filters.
+ * A slot holds both the map and the copy of the filter, if the filter is not
+ * thread-safe.
+ */
+public class AsyncGroupByAtom implements StatefulAtom, Closeable {
+
+    private static final int OWNER_SLOT = -1;
+
+    private final Function filter;
+    private final ObjList<Function> perWorkerFilters;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ArrayColumnTypes valueTypes;
+    // copies key columns from base record to map key
+    private final RecordSink mapSink;
+    // copies key columns from partial map record to owner map key
+    private final RecordSink mergeSink;
+    private final Map ownerMap;
+    private final ObjList<Map> perWorkerMaps;
+    private final AtomicIntegerArray perWorkerLocks;
+    // maps are opened lazily, only the ones that took part in the aggregation have to be merged
+    private final boolean[] perWorkerMapsOpen;
+    // Used to randomize acquire attempts for work stealing threads. Accessed in a racy way, intentionally.
+    private final Rnd rnd = new Rnd();
+    private boolean ownerMapOpen;
+
+    public AsyncGroupByAtom(
+            @NotNull CairoConfiguration configuration,
+            @Nullable Function filter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @Transient @NotNull ColumnTypes keyTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink mapSink,
+            @NotNull RecordSink mergeSink,
+            int workerCount
+    ) {
+        assert perWorkerFilters == null || perWorkerFilters.size() == workerCount;
+        this.filter = filter;
+        this.perWorkerFilters = perWorkerFilters;
+        this.groupByFunctions = groupByFunctions;
+        this.valueTypes = new ArrayColumnTypes();
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            this.valueTypes.add(valueTypes.getColumnType(i));
+        }
+        this.mapSink = mapSink;
+        this.mergeSink = mergeSink;
+        this.ownerMap = MapFactory.createMap(configuration, keyTypes, valueTypes);
+        this.ownerMap.close();
+        this.perWorkerMaps = new ObjList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final Map map = MapFactory.createMap(configuration, keyTypes, valueTypes);
+            map.close();
+            perWorkerMaps.add(map);
+        }
+        this.perWorkerLocks = new AtomicIntegerArray(workerCount);
+        this.perWorkerMapsOpen = new boolean[workerCount];
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own map anytime.
+            return OWNER_SLOT;
+        }
+        final int size = perWorkerMaps.size();
+        workerId = workerId == -1 ? rnd.nextInt(size) : workerId;
+        while (true) {
+            for (int i = 0; i < size; i++) {
+                int id = (i + workerId) % size;
+                if (perWorkerLocks.compareAndSet(id, 0, 1)) {
+                    return id;
+                }
+            }
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            Os.pause();
+        }
+    }
+
+    public void release(int slot) {
+        if (slot != OWNER_SLOT) {
+            perWorkerLocks.set(slot, 0);
+        }
+    }
+
+    /**
+     * Returns map for the slot acquired via {@link #acquire(int, boolean, SqlExecutionCircuitBreaker)}.
+     * The map is opened on first access.
+     */
+    public Map getMap(int slot) {
+        if (slot == OWNER_SLOT) {
+            return getOwnerMap();
+        }
+        final Map map = perWorkerMaps.getQuick(slot);
+        if (!perWorkerMapsOpen[slot]) {
+            map.reopen();
+            perWorkerMapsOpen[slot] = true;
+        }
+        return map;
+    }
+
+    @Nullable
+    public Function getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns filter for the slot acquired via {@link #acquire(int, boolean, SqlExecutionCircuitBreaker)}.
+     */
+    @Nullable
+    public Function getFilter(int slot) {
+        if (slot == OWNER_SLOT || perWorkerFilters == null) {
+            return filter;
+        }
+        return perWorkerFilters.getQuick(slot);
+    }
+
+    public ObjList<GroupByFunction> getGroupByFunctions() {
+        return groupByFunctions;
+    }
+
+    public RecordSink getMapSink() {
+        return mapSink;
+    }
+
+    public Map getOwnerMap() {
+        if (!ownerMapOpen) {
+            ownerMap.reopen();
+            ownerMapOpen = true;
+        }
+        return ownerMap;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (filter != null) {
+            filter.init(symbolTableSource, executionContext);
+        }
+        if (perWorkerFilters != null) {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                Function.init(perWorkerFilters, symbolTableSource, executionContext);
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+        }
+    }
+
+    /**
+     * Merges partial per-worker maps into the owner map and releases the memory
+     * held by the partial maps. Must be called by the owner thread once all
+     * page frames are reduced.
+     *
+     * @return the owner map holding the final aggregation result
+     */
+    public Map mergeWorkerMaps() {
+        final Map destMap = getOwnerMap();
+        final int n = groupByFunctions.size();
+        for (int i = 0, k = perWorkerMaps.size(); i < k; i++) {
+            if (!perWorkerMapsOpen[i]) {
+                continue;
+            }
+            final Map srcMap = perWorkerMaps.getQuick(i);
+            final RecordCursor srcCursor = srcMap.getCursor();
+            final MapRecord srcRecord = (MapRecord) srcCursor.getRecord();
+            while (srcCursor.hasNext()) {
+                final MapValue srcValue = srcRecord.getValue();
+                final MapKey destKey = destMap.withKey();
+                destKey.put(srcRecord, mergeSink);
+                final MapValue destValue = destKey.createValue();
+                if (destValue.isNew()) {
+                    copyValue(srcValue, destValue);
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        groupByFunctions.getQuick(j).merge(destValue, srcValue);
+                    }
+                }
+            }
+            srcMap.close();
+            perWorkerMapsOpen[i] = false;
+        }
+        return destMap;
+    }
+
+    /**
+     * Releases memory held by all maps, including the owner map.
+     */
+    public void clear() {
+        ownerMap.close();
+        ownerMapOpen = false;
+        for (int i = 0, n = perWorkerMaps.size(); i < n; i++) {
+            perWorkerMaps.getQuick(i).close();
+            perWorkerMapsOpen[i] = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(filter);
+        Misc.freeObjList(perWorkerFilters);
+        Misc.free(ownerMap);
+        Misc.freeObjList(perWorkerMaps);
+    }
+
+    private void copyValue(MapValue srcValue, MapValue destValue) {
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            switch (ColumnType.tagOf(valueTypes.getColumnType(i))) {
+                case ColumnType.BOOLEAN:
+                    destValue.putBool(i, srcValue.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    destValue.putByte(i, srcValue.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    destValue.putShort(i, srcValue.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    destValue.putChar(i, srcValue.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    destValue.putInt(i, srcValue.getInt(i));
+                    break;
+                case ColumnType.FLOAT:
+                    destValue.putFloat(i, srcValue.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    destValue.putDouble(i, srcValue.getDouble(i));
+                    break;
+                case ColumnType.LONG256:
+                    destValue.putLong256(i, srcValue.getLong256A(i));
+                    break;
+                default:
+                    // LONG, DATE, TIMESTAMP
+                    destValue.putLong(i, srcValue.getLong(i));
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.ObjList;
+import io.questdb.std.Os;
+
+class AsyncGroupByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncGroupByRecordCursor.class);
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final ObjList<Function> recordFunctions;
+    private PageFrameSequence<? extends AsyncGroupByAtom> frameSequence;
+    private int frameLimit;
+    private boolean isOpen;
+
+    public AsyncGroupByRecordCursor(ObjList<Function> recordFunctions) {
+        this(recordFunctions, true);
+    }
+
+    protected AsyncGroupByRecordCursor(ObjList<Function> recordFunctions, boolean supportsRandomAccess) {
+        super(recordFunctions, supportsRandomAccess);
+        this.recordFunctions = recordFunctions;
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            LOG.debug()
+                    .$("closing [shard=").$(frameSequence.getShard())
+                    .$(", frameCount=").$(frameLimit + 1)
+                    .I$();
+
+            if (frameLimit > -1) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+            frameSequence.getAtom().clear();
+            isOpen = false;
+        }
+    }
+
+    void of(PageFrameSequence<? extends AsyncGroupByAtom> frameSequence, SqlExecutionContext executionContext) throws SqlException {
+        this.isOpen = true;
+        this.frameSequence = frameSequence;
+        this.frameLimit = frameSequence.getFrameCount() - 1;
+        try {
+            Function.init(recordFunctions, frameSequence.getSymbolTableSource(), executionContext);
+            aggregateFrames();
+            of(getResultCursor(frameSequence.getAtom().mergeWorkerMaps()));
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns cursor over the merged aggregation result.
+     */
+    protected RecordCursor getResultCursor(Map map) {
+        return map.getCursor();
+    }
+
+    private void aggregateFrames() {
+        if (frameLimit < 0) {
+            return;
+        }
+        boolean allFramesActive = true;
+        int frameIndex = -1;
+        do {
+            final long cursor = frameSequence.next();
+            if (cursor > -1) {
+                final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                LOG.debug()
+                        .$("collected [shard=").$(frameSequence.getShard())
+                        .$(", frameIndex=").$(task.getFrameIndex())
+                        .$(", frameCount=").$(frameSequence.getFrameCount())
+                        .$(", active=").$(frameSequence.isActive())
+                        .$(", cursor=").$(cursor)
+                        .I$();
+                allFramesActive &= frameSequence.isActive();
+                frameIndex = task.getFrameIndex();
+                frameSequence.collect(cursor, false);
+            } else {
+                Os.pause();
+            }
+        } while (frameIndex < frameLimit);
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+}
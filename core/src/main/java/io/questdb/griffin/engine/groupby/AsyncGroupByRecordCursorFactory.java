@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Keyed GROUP BY executed in parallel over page frames. Workers aggregate page frames
+ * into per-worker maps, which are then merged by the query thread using
+ * {@link GroupByFunction#merge(MapValue, MapValue)}. Optionally, the filter stolen
+ * from the base factory is evaluated as a part of the aggregation.
+ */
+public class AsyncGroupByRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncGroupByRecordCursorFactory::aggregate;
+
+    private final RecordCursorFactory base;
+    private final AsyncGroupByRecordCursor cursor;
+    private final AsyncGroupByAtom atom;
+    private final PageFrameSequence<AsyncGroupByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final int workerCount;
+
+    public AsyncGroupByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @NotNull RecordMetadata groupByMetadata,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<Function> recordFunctions,
+            @Nullable Function filter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int workerCount
+    ) {
+        super(groupByMetadata);
+        try {
+            this.base = base;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.workerCount = workerCount;
+            // sink will be storing record columns to map key
+            final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            // partial map records have values first and keys second,
+            // merge sink copies keys of partial maps to the owner map
+            final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+            final ListColumnFilter mapKeyFilter = new ListColumnFilter();
+            final int valueCount = valueTypes.getColumnCount();
+            for (int i = 0; i < valueCount; i++) {
+                mapRecordTypes.add(valueTypes.getColumnType(i));
+            }
+            for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+                mapRecordTypes.add(keyTypes.getColumnType(i));
+                mapKeyFilter.add(valueCount + i + 1);
+            }
+            final RecordSink mergeSink = RecordSinkFactory.getInstance(asm, mapRecordTypes, mapKeyFilter, false);
+            this.atom = new AsyncGroupByAtom(
+                    configuration,
+                    filter,
+                    perWorkerFilters,
+                    groupByFunctions,
+                    keyTypes,
+                    valueTypes,
+                    mapSink,
+                    mergeSink,
+                    workerCount
+            );
+            this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER);
+            this.cursor = new AsyncGroupByRecordCursor(recordFunctions);
+        } catch (Throwable e) {
+            Misc.free(filter);
+            Misc.freeObjList(perWorkerFilters);
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(base);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ASC), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Group By");
+        sink.meta("vectorized").val(false);
+        sink.meta("workers").val(workerCount);
+        sink.attr("groupByFunctions").val(groupByFunctions);
+        sink.attr("recordFunctions").val(recordFunctions);
+        final Function filter = atom.getFilter();
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.child(base);
+    }
+
+    private static void aggregate(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncGroupByAtom atom = task.getFrameSequence(AsyncGroupByAtom.class).getAtom();
+        final RecordSink mapSink = atom.getMapSink();
+        final ObjList<GroupByFunction> groupByFunctions = atom.getGroupByFunctions();
+        final int n = groupByFunctions.size();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slot = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            final Map map = atom.getMap(slot);
+            final Function filter = atom.getFilter(slot);
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                if (filter != null && !filter.getBool(record)) {
+                    continue;
+                }
+                final MapKey key = map.withKey();
+                key.put(record, mapSink);
+                final MapValue value = key.createValue();
+                GroupByUtils.updateFunctions(groupByFunctions, n, value, record);
+            }
+        } finally {
+            atom.release(slot);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Vect;
+
+/**
+ * Streams merged SAMPLE BY map in the ascending order of time buckets. Within a bucket,
+ * rows follow the order in which keys were merged into the owner map. That order depends
+ * on how page frames were distributed between threads, so it is not stable across runs.
+ * Queries that need a stable key order within a bucket have to sort the result.
+ */
+class AsyncSampleByRecordCursor extends AsyncGroupByRecordCursor {
+
+    // (bucket timestamp, map row id) pairs, sorted by timestamp; sign bit of the timestamp
+    // is flipped, so that unsigned order of the sort matches signed order of timestamps
+    private final DirectLongList rows;
+    private final int bucketColumnIndex;
+    private final SortedMapCursor sortedMapCursor = new SortedMapCursor();
+
+    public AsyncSampleByRecordCursor(ObjList<Function> recordFunctions, DirectLongList rows, int bucketColumnIndex) {
+        super(recordFunctions, false);
+        this.rows = rows;
+        this.bucketColumnIndex = bucketColumnIndex;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        rows.close();
+    }
+
+    @Override
+    protected RecordCursor getResultCursor(Map map) {
+        final RecordCursor mapCursor = map.getCursor();
+        final MapRecord mapRecord = (MapRecord) mapCursor.getRecord();
+        rows.reopen();
+        rows.clear();
+        while (mapCursor.hasNext()) {
+            rows.add(mapRecord.getTimestamp(bucketColumnIndex) ^ Long.MIN_VALUE);
+            rows.add(mapRecord.getRowId());
+        }
+        final long rowCount = rows.size() / 2;
+        if (rowCount > 1) {
+            // map is mostly ordered by bucket already, radix sort of large inputs
+            // is not sensitive to that, unlike quick sort
+            Vect.sortLongIndexAscInPlace(rows.getAddress(), rowCount);
+        }
+        return sortedMapCursor.of(mapCursor, rowCount);
+    }
+
+    private class SortedMapCursor implements RecordCursor {
+        private RecordCursor mapCursor;
+        private long rowCount;
+        private long index;
+
+        @Override
+        public void close() {
+            // map cursor is owned by the atom
+        }
+
+        @Override
+        public Record getRecord() {
+            return mapCursor.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return mapCursor.getRecordB();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < rowCount) {
+                mapCursor.recordAt(mapCursor.getRecord(), rows.get(index * 2 + 1));
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            mapCursor.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            // keep the SAMPLE BY cursor contract
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        private SortedMapCursor of(RecordCursor mapCursor, long rowCount) {
+            this.mapCursor = mapCursor;
+            this.rowCount = rowCount;
+            this.index = 0;
+            return this;
+        }
+    }
+}
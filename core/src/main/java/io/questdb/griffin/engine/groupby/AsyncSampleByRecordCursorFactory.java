@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.columns.TimestampColumn;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * SAMPLE BY FILL(NONE), keyed or not, executed in parallel over page frames.
+ * <p>
+ * Buckets of fixed-size samplers are time-aligned, so every row can be assigned to
+ * its bucket independently of the other rows. Time bucket is therefore made a part
+ * of the map key and page frames are aggregated the same way as in parallel GROUP BY.
+ * The merged result is streamed in the ascending order of buckets, key order within
+ * a bucket is not specified.
+ * <p>
+ * Unless the offset is fixed, buckets are aligned to the first row of the base cursor.
+ * The filter is therefore only evaluated as a part of the aggregation when the offset
+ * is fixed, the first row of the base cursor is then never looked up.
+ */
+public class AsyncSampleByRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncSampleByRecordCursorFactory::aggregate;
+
+    private final RecordCursorFactory base;
+    private final AsyncSampleByRecordCursor cursor;
+    private final AsyncSampleByAtom atom;
+    private final PageFrameSequence<AsyncSampleByAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ObjList<Function> recordFunctions;
+    private final DirectLongList rows;
+    private final int timestampIndex;
+    // Long.MIN_VALUE means that buckets are aligned to the first observation
+    private final long fixedOffset;
+    private final int workerCount;
+
+    public AsyncSampleByRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordCursorFactory base,
+            @NotNull RecordMetadata groupByMetadata,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<Function> recordFunctions,
+            @Nullable Function filter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            @NotNull TimestampSampler timestampSampler,
+            int timestampIndex,
+            long fixedOffset,
+            int workerCount
+    ) {
+        super(groupByMetadata);
+        assert filter == null || fixedOffset != Long.MIN_VALUE;
+        try {
+            this.base = base;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.timestampIndex = timestampIndex;
+            this.fixedOffset = fixedOffset;
+            this.workerCount = workerCount;
+            // sink will be storing record columns to map key, time bucket goes after them
+            final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            final ArrayColumnTypes mapKeyTypes = new ArrayColumnTypes();
+            final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+            final ListColumnFilter mapKeyFilter = new ListColumnFilter();
+            final int valueCount = valueTypes.getColumnCount();
+            final int keyCount = keyTypes.getColumnCount();
+            for (int i = 0; i < valueCount; i++) {
+                mapRecordTypes.add(valueTypes.getColumnType(i));
+            }
+            for (int i = 0; i < keyCount; i++) {
+                mapKeyTypes.add(keyTypes.getColumnType(i));
+                mapRecordTypes.add(keyTypes.getColumnType(i));
+                mapKeyFilter.add(valueCount + i + 1);
+            }
+            mapKeyTypes.add(ColumnType.TIMESTAMP);
+            mapRecordTypes.add(ColumnType.TIMESTAMP);
+            mapKeyFilter.add(valueCount + keyCount + 1);
+            final RecordSink mergeSink = RecordSinkFactory.getInstance(asm, mapRecordTypes, mapKeyFilter, false);
+
+            // timestamp column of the result is the time bucket
+            final int bucketColumnIndex = valueCount + keyCount;
+            for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                if (recordFunctions.getQuick(i) == null) {
+                    recordFunctions.setQuick(i, TimestampColumn.newInstance(bucketColumnIndex));
+                }
+            }
+
+            this.atom = new AsyncSampleByAtom(
+                    configuration,
+                    filter,
+                    perWorkerFilters,
+                    groupByFunctions,
+                    mapKeyTypes,
+                    valueTypes,
+                    mapSink,
+                    mergeSink,
+                    timestampSampler,
+                    timestampIndex,
+                    workerCount
+            );
+            this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER);
+            this.rows = new DirectLongList(64, MemoryTag.NATIVE_SAMPLE_BY_LONG_LIST);
+            this.cursor = new AsyncSampleByRecordCursor(recordFunctions, rows, bucketColumnIndex);
+        } catch (Throwable e) {
+            Misc.free(filter);
+            Misc.freeObjList(perWorkerFilters);
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    /**
+     * Parallel execution requires rows to be assigned to time buckets independently
+     * of each other, which only fixed-size samplers can do.
+     */
+    public static boolean isSamplerSupported(TimestampSampler timestampSampler) {
+        return timestampSampler instanceof MicroTimestampSampler;
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(base);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+        Misc.free(rows);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        // sampler must be positioned before page frames are dispatched to workers
+        atom.getTimestampSampler().setStart(fixedOffset != Long.MIN_VALUE ? fixedOffset : findFirstTimestamp(executionContext));
+        cursor.of(frameSequence.of(base, executionContext, collectSubSeq, atom, ORDER_ASC), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Sample By");
+        sink.meta("workers").val(workerCount);
+        sink.attr("groupByFunctions").val(groupByFunctions);
+        sink.attr("recordFunctions").val(recordFunctions);
+        final Function filter = atom.getFilter();
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.child(base);
+    }
+
+    private static void aggregate(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncSampleByAtom atom = task.getFrameSequence(AsyncSampleByAtom.class).getAtom();
+        final RecordSink mapSink = atom.getMapSink();
+        final TimestampSampler timestampSampler = atom.getTimestampSampler();
+        final int timestampIndex = atom.getTimestampIndex();
+        final ObjList<GroupByFunction> groupByFunctions = atom.getGroupByFunctions();
+        final int n = groupByFunctions.size();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slot = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            final Map map = atom.getMap(slot);
+            final Function filter = atom.getFilter(slot);
+            for (long r = 0; r < frameRowCount; r++) {
+                record.setRowIndex(r);
+                if (filter != null && !filter.getBool(record)) {
+                    continue;
+                }
+                final MapKey key = map.withKey();
+                key.put(record, mapSink);
+                key.putTimestamp(timestampSampler.round(record.getTimestamp(timestampIndex)));
+                final MapValue value = key.createValue();
+                GroupByUtils.updateFunctions(groupByFunctions, n, value, record);
+            }
+        } finally {
+            atom.release(slot);
+        }
+    }
+
+    /**
+     * Finds timestamp of the first row to align buckets to, the same way
+     * serial SAMPLE BY does. There is no filter to evaluate in this case,
+     * so only the first row of the base cursor is read.
+     */
+    private long findFirstTimestamp(SqlExecutionContext executionContext) throws SqlException {
+        try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+            if (baseCursor.hasNext()) {
+                return baseCursor.getRecord().getTimestamp(timestampIndex);
+            }
+        }
+        // no rows, bucket alignment does not matter
+        return 0;
+    }
+}
@@ -254,6 +254,16 @@ public class GroupByUtils {
         validateGroupByColumns(model, inferredKeyColumnCount);
     }
 
+    public static boolean isParallelismSupported(ObjList<GroupByFunction> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            final GroupByFunction function = groupByFunctions.getQuick(i);
+            if (!function.isParallelismSupported() || !function.isReadThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static void toTop(ObjList<? extends Function> args) {
         for (int i = 0, n = args.size(); i < n; i++) {
             args.getQuick(i).toTop();
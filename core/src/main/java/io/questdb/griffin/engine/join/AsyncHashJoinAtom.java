@@ -0,0 +1,251 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Shared state of parallel hash join. The query thread builds the slave side hash table
+ * before any page frame is dispatched. Once built, the table is read-only and threads
+ * probing master page frames look keys up through their own {@link FastMap.ProbeKey}.
+ * <p>
+ * The map holds the first and the last entry of the slave row id chain of each key.
+ * Chain entries are pairs of longs, the index of the next entry and the slave row id,
+ * kept in a flat list, so that they can be read from any thread.
+ * <p>
+ * The optional master filter is used by the owner thread. Other threads use
+ * per-worker copies of the filter unless the filter is thread-safe.
+ */
+public class AsyncHashJoinAtom implements StatefulAtom, Closeable {
+
+    private static final int INITIAL_CHAIN_CAPACITY = 16;
+    private static final int OWNER_SLOT = -1;
+
+    private final FastMap joinKeyMap;
+    private final DirectLongList slaveChain;
+    private final long maxChainSize;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final Function masterFilter;
+    private final ObjList<Function> perWorkerFilters;
+    private final FastMap.ProbeKey ownerKey;
+    private final ObjList<FastMap.ProbeKey> perWorkerKeys;
+    private final AtomicIntegerArray perWorkerLocks;
+    // Used to randomize acquire attempts for work stealing threads. Accessed in a racy way, intentionally.
+    private final Rnd rnd = new Rnd();
+    private final boolean descending;
+    private boolean isOpen;
+
+    public AsyncHashJoinAtom(
+            @NotNull CairoConfiguration configuration,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes,
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            @Nullable Function masterFilter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            boolean descending,
+            int workerCount
+    ) {
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        assert perWorkerFilters == null || perWorkerFilters.size() == workerCount;
+        this.masterFilter = masterFilter;
+        this.perWorkerFilters = perWorkerFilters;
+        this.descending = descending;
+        this.joinKeyMap = new FastMap(
+                configuration.getSqlMapPageSize(),
+                joinColumnTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        this.maxChainSize = (configuration.getSqlHashJoinLightValuePageSize() / Long.BYTES) * configuration.getSqlHashJoinLightValueMaxPages();
+        // start small, the chain grows on build and shrinks back on clear()
+        this.slaveChain = new DirectLongList(INITIAL_CHAIN_CAPACITY, MemoryTag.NATIVE_DEFAULT);
+        this.ownerKey = joinKeyMap.newProbeKey();
+        this.perWorkerKeys = new ObjList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            perWorkerKeys.add(joinKeyMap.newProbeKey());
+        }
+        this.perWorkerLocks = new AtomicIntegerArray(workerCount);
+        this.isOpen = true;
+    }
+
+    public int acquire(int workerId, boolean owner, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (workerId == -1 && owner) {
+            // Owner thread is free to use its own key anytime.
+            return OWNER_SLOT;
+        }
+        final int size = perWorkerKeys.size();
+        workerId = workerId == -1 ? rnd.nextInt(size) : workerId;
+        while (true) {
+            for (int i = 0; i < size; i++) {
+                int id = (i + workerId) % size;
+                if (perWorkerLocks.compareAndSet(id, 0, 1)) {
+                    return id;
+                }
+            }
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            Os.pause();
+        }
+    }
+
+    /**
+     * Builds the hash table of slave records. Must be called by the owner thread
+     * before the master page frames are dispatched.
+     */
+    public void build(RecordCursor slaveCursor, SqlExecutionCircuitBreaker circuitBreaker) {
+        if (!isOpen) {
+            joinKeyMap.reopen();
+            isOpen = true;
+        }
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            final MapKey key = joinKeyMap.withKey();
+            key.put(record, slaveKeySink);
+            final MapValue value = key.createValue();
+            final long entry = appendChainEntry(record.getRowId());
+            if (value.isNew()) {
+                value.putLong(0, entry);
+            } else {
+                slaveChain.set(value.getLong(1) << 1, entry);
+            }
+            value.putLong(1, entry);
+        }
+    }
+
+    /**
+     * Releases memory held by the hash table.
+     */
+    public void clear() {
+        if (isOpen) {
+            joinKeyMap.close();
+            slaveChain.clear();
+            slaveChain.resetCapacity();
+            isOpen = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(masterFilter);
+        Misc.freeObjList(perWorkerFilters);
+        Misc.free(joinKeyMap);
+        Misc.free(slaveChain);
+        Misc.free(ownerKey);
+        Misc.freeObjList(perWorkerKeys);
+    }
+
+    @Nullable
+    public Function getMasterFilter() {
+        return masterFilter;
+    }
+
+    /**
+     * Returns master filter for the slot acquired via {@link #acquire(int, boolean, SqlExecutionCircuitBreaker)}.
+     */
+    @Nullable
+    public Function getMasterFilter(int slot) {
+        if (slot == OWNER_SLOT || perWorkerFilters == null) {
+            return masterFilter;
+        }
+        return perWorkerFilters.getQuick(slot);
+    }
+
+    public RecordSink getMasterKeySink() {
+        return masterKeySink;
+    }
+
+    /**
+     * Returns probe key for the slot acquired via {@link #acquire(int, boolean, SqlExecutionCircuitBreaker)}.
+     */
+    public FastMap.ProbeKey getProbeKey(int slot) {
+        return slot == OWNER_SLOT ? ownerKey : perWorkerKeys.getQuick(slot);
+    }
+
+    public long getSlaveRowId(long entry) {
+        return slaveChain.get((entry << 1) + 1);
+    }
+
+    public long getNextEntry(long entry) {
+        return slaveChain.get(entry << 1);
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        if (masterFilter != null) {
+            masterFilter.init(symbolTableSource, executionContext);
+        }
+        if (perWorkerFilters != null) {
+            final boolean current = executionContext.getCloneSymbolTables();
+            executionContext.setCloneSymbolTables(true);
+            try {
+                Function.init(perWorkerFilters, symbolTableSource, executionContext);
+            } finally {
+                executionContext.setCloneSymbolTables(current);
+            }
+        }
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public void release(int slot) {
+        if (slot != OWNER_SLOT) {
+            perWorkerLocks.set(slot, 0);
+        }
+    }
+
+    private long appendChainEntry(long rowId) {
+        final long entry = slaveChain.size() >> 1;
+        if (slaveChain.size() + 2 > maxChainSize) {
+            throw LimitOverflowException.instance().put("limit of ").put(maxChainSize * Long.BYTES).put(" bytes exceeded in hash join value chain");
+        }
+        slaveChain.add(-1);
+        slaveChain.add(rowId);
+        return entry;
+    }
+}
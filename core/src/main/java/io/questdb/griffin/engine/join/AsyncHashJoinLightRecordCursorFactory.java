@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameReducer;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_DESC;
+
+/**
+ * Inner hash join that probes master page frames in parallel. The slave side hash table
+ * is built by the query thread, then master page frames are dispatched to the page frame
+ * reduce queue, where each frame is probed against the table. Optionally, the filter stolen
+ * from the master factory is evaluated before probing. Join results are returned in the
+ * same order as by {@link HashJoinLightRecordCursorFactory}.
+ */
+public class AsyncHashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+
+    private static final PageFrameReducer REDUCER = AsyncHashJoinLightRecordCursorFactory::probe;
+
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final AsyncHashJoinRecordCursor cursor;
+    private final AsyncHashJoinAtom atom;
+    private final PageFrameSequence<AsyncHashJoinAtom> frameSequence;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final int workerCount;
+
+    public AsyncHashJoinLightRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull MessageBus messageBus,
+            @NotNull RecordMetadata metadata,
+            @NotNull RecordCursorFactory masterFactory,
+            @NotNull RecordCursorFactory slaveFactory,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            @NotNull RecordSink masterKeySink,
+            @NotNull RecordSink slaveKeySink,
+            @Nullable Function masterFilter,
+            @Nullable ObjList<Function> perWorkerFilters,
+            int columnSplit,
+            int workerCount
+    ) {
+        super(metadata);
+        assert masterFactory.supportPageFrameCursor();
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.workerCount = workerCount;
+        this.atom = new AsyncHashJoinAtom(
+                configuration,
+                joinColumnTypes,
+                valueTypes,
+                masterKeySink,
+                slaveKeySink,
+                masterFilter,
+                perWorkerFilters,
+                masterFactory.hasDescendingOrder(),
+                workerCount
+        );
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER);
+        this.cursor = new AsyncHashJoinRecordCursor(columnSplit);
+    }
+
+    @Override
+    protected void _close() {
+        ((JoinRecordMetadata) getMetadata()).close();
+        Misc.free(masterFactory);
+        Misc.free(slaveFactory);
+        Misc.free(atom);
+        Misc.free(frameSequence);
+        cursor.freeRecords();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        try {
+            atom.build(slaveCursor, executionContext.getCircuitBreaker());
+            // page frames of a descending master come in reverse order, the reducer
+            // reverses rows within each frame
+            final int order = masterFactory.hasDescendingOrder() ? ORDER_DESC : ORDER_ASC;
+            cursor.of(frameSequence.of(masterFactory, executionContext, collectSubSeq, atom, order), slaveCursor);
+            return cursor;
+        } catch (Throwable e) {
+            atom.clear();
+            Misc.free(slaveCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return masterFactory.hasDescendingOrder();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return masterFactory.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Async Hash Join Light");
+        sink.meta("workers").val(workerCount);
+        final Function filter = atom.getMasterFilter();
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    private static void probe(
+            int workerId,
+            @NotNull PageAddressCacheRecord record,
+            @NotNull PageFrameReduceTask task,
+            @NotNull SqlExecutionCircuitBreaker circuitBreaker,
+            @Nullable PageFrameSequence<?> stealingFrameSequence
+    ) {
+        final DirectLongList rows = task.getRows();
+        final long frameRowCount = task.getFrameRowCount();
+        final AsyncHashJoinAtom atom = task.getFrameSequence(AsyncHashJoinAtom.class).getAtom();
+        final RecordSink masterKeySink = atom.getMasterKeySink();
+        final boolean descending = atom.isDescending();
+
+        rows.clear();
+
+        final boolean owner = stealingFrameSequence != null && stealingFrameSequence == task.getFrameSequence();
+        final int slot = atom.acquire(workerId, owner, circuitBreaker);
+        try {
+            final FastMap.ProbeKey key = atom.getProbeKey(slot);
+            final Function filter = atom.getMasterFilter(slot);
+            for (long i = 0; i < frameRowCount; i++) {
+                final long r = descending ? frameRowCount - i - 1 : i;
+                record.setRowIndex(r);
+                if (filter != null && !filter.getBool(record)) {
+                    continue;
+                }
+                key.init();
+                key.put(record, masterKeySink);
+                final MapValue value = key.findValue();
+                if (value != null) {
+                    long entry = value.getLong(0);
+                    while (entry != -1) {
+                        rows.add(r);
+                        rows.add(atom.getSlaveRowId(entry));
+                        entry = atom.getNextEntry(entry);
+                    }
+                }
+            }
+        } finally {
+            atom.release(slot);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+
+/**
+ * Streams join results produced by the page frame reducers in frame order. Each reduced
+ * frame holds a list of (master frame row, slave row id) pairs.
+ */
+class AsyncHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+
+    private static final Log LOG = LogFactory.getLog(AsyncHashJoinRecordCursor.class);
+    private static final String exceptionMessage = "timeout, query aborted";
+    private final int columnSplit;
+    private final JoinRecord record;
+    private final PageAddressCacheRecord masterRecord;
+    private RecordCursor slaveCursor;
+    private Record slaveRecord;
+    private DirectLongList rows;
+    private long cursor = -1;
+    private long frameRowIndex;
+    private long frameRowCount;
+    private int frameIndex;
+    private int frameLimit;
+    private PageFrameSequence<AsyncHashJoinAtom> frameSequence;
+    private boolean allFramesActive;
+    private boolean isOpen;
+
+    public AsyncHashJoinRecordCursor(int columnSplit) {
+        this.columnSplit = columnSplit;
+        this.record = new JoinRecord(columnSplit);
+        this.masterRecord = new PageAddressCacheRecord();
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            LOG.debug()
+                    .$("closing [shard=").$(frameSequence.getShard())
+                    .$(", frameIndex=").$(frameIndex)
+                    .$(", frameCount=").$(frameLimit)
+                    .$(", cursor=").$(cursor)
+                    .I$();
+
+            collectCursor(true);
+            if (frameLimit > -1) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+            frameSequence.getAtom().clear();
+            slaveCursor = Misc.free(slaveCursor);
+            isOpen = false;
+        }
+    }
+
+    public void freeRecords() {
+        Misc.free(masterRecord);
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().getSymbolTable(columnIndex);
+        }
+        return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        if (columnIndex < columnSplit) {
+            return frameSequence.getSymbolTableSource().newSymbolTable(columnIndex);
+        }
+        return slaveCursor.newSymbolTable(columnIndex - columnSplit);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // check for the first hasNext call
+        if (frameIndex == -1 && frameLimit > -1) {
+            fetchNextFrame();
+        }
+
+        // we have rows in the current frame we still need to dispatch
+        if (frameRowIndex < frameRowCount) {
+            nextRow();
+            return true;
+        }
+
+        // Release previous queue item.
+        collectCursor(false);
+
+        // do we have more frames?
+        if (frameIndex < frameLimit) {
+            fetchNextFrame();
+            if (frameRowIndex < frameRowCount) {
+                nextRow();
+                return true;
+            }
+        }
+
+        if (!allFramesActive) {
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+        return false;
+    }
+
+    @Override
+    public void toTop() {
+        // check if we at the top already and there is nothing to do
+        if (frameIndex == 0 && frameRowIndex == 0) {
+            return;
+        }
+        collectCursor(false);
+        frameSequence.toTop();
+        if (frameLimit > -1) {
+            frameIndex = -1;
+        }
+        frameRowIndex = frameRowCount = 0;
+        allFramesActive = true;
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    void of(PageFrameSequence<AsyncHashJoinAtom> frameSequence, RecordCursor slaveCursor) {
+        this.isOpen = true;
+        this.frameSequence = frameSequence;
+        this.slaveCursor = slaveCursor;
+        this.slaveRecord = slaveCursor.getRecordB();
+        this.frameIndex = -1;
+        this.frameLimit = frameSequence.getFrameCount() - 1;
+        this.frameRowIndex = frameRowCount = 0;
+        this.allFramesActive = true;
+        masterRecord.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        record.of(masterRecord, slaveRecord);
+    }
+
+    private void collectCursor(boolean forceCollect) {
+        if (cursor > -1) {
+            frameSequence.collect(cursor, forceCollect);
+            // It is necessary to clear 'cursor' value
+            // because we updated frameIndex and loop can exit due to lack of frames.
+            // Non-update of 'cursor' could cause double-free.
+            cursor = -1;
+        }
+    }
+
+    private void fetchNextFrame() {
+        try {
+            do {
+                this.cursor = frameSequence.next();
+                if (cursor > -1) {
+                    PageFrameReduceTask task = frameSequence.getTask(cursor);
+                    LOG.debug()
+                            .$("collected [shard=").$(frameSequence.getShard())
+                            .$(", frameIndex=").$(task.getFrameIndex())
+                            .$(", frameCount=").$(frameSequence.getFrameCount())
+                            .$(", active=").$(frameSequence.isActive())
+                            .$(", cursor=").$(cursor)
+                            .I$();
+                    this.allFramesActive &= frameSequence.isActive();
+                    this.rows = task.getRows();
+                    // rows hold (master row, slave row id) pairs
+                    this.frameRowCount = rows.size() >> 1;
+                    this.frameIndex = task.getFrameIndex();
+                    this.frameRowIndex = 0;
+                    if (this.frameRowCount > 0 && frameSequence.isActive()) {
+                        masterRecord.setFrameIndex(task.getFrameIndex());
+                        break;
+                    } else {
+                        this.frameRowCount = 0; // force reset frame size if frameSequence was canceled or failed
+                        collectCursor(false);
+                    }
+                } else {
+                    Os.pause();
+                }
+            } while (this.frameIndex < frameLimit);
+        } catch (Throwable e) {
+            LOG.critical().$("unexpected error [ex=").$(e).I$();
+            throw CairoException.nonCritical().put(exceptionMessage).setInterruption(true);
+        }
+    }
+
+    private void nextRow() {
+        final long p = frameRowIndex << 1;
+        masterRecord.setRowIndex(rows.get(p));
+        slaveCursor.recordAt(slaveRecord, rows.get(p + 1));
+        frameRowIndex++;
+    }
+}
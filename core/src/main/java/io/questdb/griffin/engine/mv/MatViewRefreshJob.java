@@ -0,0 +1,375 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.mv.MatViewDefinition;
+import io.questdb.cairo.mv.MatViewRegistry;
+import io.questdb.cairo.mv.MatViewState;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.*;
+import io.questdb.griffin.engine.groupby.TimestampSampler;
+import io.questdb.griffin.engine.groupby.TimestampSamplerFactory;
+import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Keeps materialized views in sync with their base tables. Base table commits mark the
+ * committed timestamp range of dependent views dirty, see {@link MatViewRegistry}, and this
+ * job recomputes SAMPLE BY buckets overlapping the range. Recomputed rows that exist in the
+ * view are updated in place, the rest are appended to the view.
+ * <p>
+ * When the whole base table could have changed, e.g. after truncate or when the view was
+ * not refreshed to the last base table transaction before restart, the view is rebuilt
+ * from scratch. Views that fail to refresh are disabled until restart.
+ */
+public class MatViewRefreshJob extends SynchronizedJob implements Closeable {
+    static final String MAT_VIEW_REFRESH_REASON = "materialized view refresh";
+    private static final Log LOG = LogFactory.getLog(MatViewRefreshJob.class);
+    private final CairoEngine engine;
+    private final MatViewRegistry registry;
+    private final SqlCompiler compiler;
+    private final SqlExecutionContextImpl executionContext;
+    private final Path path = new Path();
+    private final StringSink refreshSql = new StringSink();
+    private final StringSink viewSql = new StringSink();
+    private final BytecodeAssembler asm = new BytecodeAssembler();
+    private final ListColumnFilter keyColumnFilter = new ListColumnFilter();
+    private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+    private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+    private final IntList valueColumnIndexes = new IntList();
+    // row ids of view rows in the refreshed range
+    private final LongList rowIds = new LongList();
+    // chain offsets of recomputed rows matching view rows, -1 when view row is not recomputed
+    private final LongList updateOffsets = new LongList();
+    // chain offsets of recomputed rows that are new to the view
+    private final LongList appendOffsets = new LongList();
+
+    public MatViewRefreshJob(CairoEngine engine, FunctionFactoryCache functionFactoryCache) {
+        this.engine = engine;
+        this.registry = engine.getMatViewRegistry();
+        this.compiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.executionContext = new SqlExecutionContextImpl(engine, 1);
+        this.executionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+        this.valueTypes.add(ColumnType.INT);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(compiler);
+        Misc.free(executionContext);
+        Misc.free(path);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final ObjList<MatViewState> views = registry.getViews();
+        boolean useful = false;
+        for (int i = 0, n = views.size(); i < n; i++) {
+            final MatViewState state = views.getQuick(i);
+            if (!state.isInvalid() && (state.isDirty() || !state.isVerified())) {
+                useful |= refresh(state);
+            }
+        }
+        return useful;
+    }
+
+    private void append(TableWriter writer, RecordChain chain, int timestampIndex) {
+        final RecordToRowCopier copier = RecordToRowCopierUtils.generateCopier(asm, chainTypes, writer.getMetadata(), entityColumnFilterOf(writer.getMetadata()));
+        final Record record = chain.getRecord();
+        for (int i = 0, n = appendOffsets.size(); i < n; i++) {
+            chain.recordAt(record, appendOffsets.getQuick(i));
+            final TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+            copier.copy(record, row);
+            row.append();
+        }
+        writer.commit();
+    }
+
+    private static void appendTimestampFilter(StringSink sink, CharSequence timestampName, long lo, long hi) {
+        sink.put(" where \"").put(timestampName).put("\" >= '");
+        TimestampFormatUtils.appendDateTimeUSec(sink, lo);
+        sink.put("' and \"").put(timestampName).put("\" < '");
+        TimestampFormatUtils.appendDateTimeUSec(sink, hi);
+        sink.put('\'');
+    }
+
+    private EntityColumnFilter entityColumnFilterOf(RecordMetadata metadata) {
+        entityColumnFilter.of(metadata.getColumnCount());
+        return entityColumnFilter;
+    }
+
+    private void prepareColumns(MatViewState state, RecordMetadata metadata, TableWriterMetadata viewMetadata) {
+        final MatViewDefinition definition = state.getDefinition();
+        final IntList keyColumnIndexes = definition.getKeyColumnIndexes();
+        if (metadata.getColumnCount() != viewMetadata.getColumnCount()) {
+            throw CairoException.nonCritical().put("materialized view columns do not match its query [view=")
+                    .put(state.getViewName()).put(']');
+        }
+        chainTypes.clear();
+        valueColumnIndexes.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            if (type != viewMetadata.getColumnType(i) || !Chars.equalsIgnoreCase(metadata.getColumnName(i), viewMetadata.getColumnName(i))) {
+                throw CairoException.nonCritical().put("materialized view columns do not match its query [view=")
+                        .put(state.getViewName()).put(", column=").put(viewMetadata.getColumnName(i)).put(']');
+            }
+            chainTypes.add(ColumnType.isSymbol(type) ? ColumnType.STRING : type);
+            if (keyColumnIndexes.indexOf(i, 0, keyColumnIndexes.size()) == -1) {
+                valueColumnIndexes.add(i);
+            }
+        }
+        keyTypes.clear();
+        keyColumnFilter.clear();
+        for (int i = 0, n = keyColumnIndexes.size(); i < n; i++) {
+            final int index = keyColumnIndexes.getQuick(i);
+            keyTypes.add(chainTypes.getColumnType(index));
+            keyColumnFilter.add(index + 1);
+        }
+    }
+
+    private boolean refresh(MatViewState state) {
+        final String viewName = state.getViewName();
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, viewName, MAT_VIEW_REFRESH_REASON);
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("materialized view writer is busy, refresh is postponed [view=").utf8(viewName).I$();
+            return false;
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view, refresh is disabled [view=").utf8(viewName)
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            state.setInvalid(true);
+            return false;
+        }
+
+        try {
+            if (!state.isAnalysed()) {
+                compiler.analyseMatViewQuery(state.getQuery(), executionContext, state.getDefinition());
+                state.setAnalysed(true);
+            }
+
+            final long baseTxn;
+            try (TableReader baseReader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, state.getBaseTableName())) {
+                baseTxn = baseReader.getTxn();
+            }
+            if (!state.isVerified()) {
+                // commits between last refresh and restart are unknown
+                if (baseTxn != state.getRefreshedBaseTxn()) {
+                    state.markDirty(Long.MIN_VALUE, Long.MAX_VALUE);
+                }
+                state.setVerified(true);
+            }
+
+            if (!state.beginRefresh()) {
+                return false;
+            }
+            try {
+                if (state.getRefreshTimestampLo() == Long.MIN_VALUE) {
+                    if (!engine.lockReaders(viewName)) {
+                        LOG.info().$("materialized view is in use, rebuild is postponed [view=").utf8(viewName).I$();
+                        state.abortRefresh();
+                        return false;
+                    }
+                    try {
+                        writer.truncate();
+                    } finally {
+                        engine.unlockReaders(viewName);
+                    }
+                    refreshRange(state, writer, Long.MIN_VALUE, Long.MAX_VALUE);
+                } else {
+                    refreshRange(state, writer, state.getRefreshTimestampLo(), state.getRefreshTimestampHi());
+                }
+            } catch (Throwable th) {
+                state.abortRefresh();
+                throw th;
+            }
+
+            state.setRefreshedBaseTxn(baseTxn);
+            registry.writeRefreshedBaseTxn(path, state);
+            return true;
+        } catch (SqlException e) {
+            LOG.error().$("could not refresh materialized view, refresh is disabled [view=").utf8(viewName)
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .I$();
+            state.setInvalid(true);
+        } catch (CairoException e) {
+            LOG.error().$("could not refresh materialized view, refresh is disabled [view=").utf8(viewName)
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+            state.setInvalid(true);
+        } finally {
+            writer.close();
+        }
+        return false;
+    }
+
+    private void refreshRange(MatViewState state, TableWriter writer, long lo, long hi) throws SqlException {
+        final MatViewDefinition definition = state.getDefinition();
+        final String query = state.getQuery();
+        final boolean rebuild = lo == Long.MIN_VALUE;
+
+        // recompute whole buckets the range overlaps with
+        refreshSql.clear();
+        long bucketLo = Long.MIN_VALUE;
+        long bucketHi = Long.MAX_VALUE;
+        if (rebuild) {
+            refreshSql.put(query);
+        } else {
+            final TimestampSampler sampler = TimestampSamplerFactory.getInstance(definition.getSamplingInterval(), 0);
+            sampler.setStart(definition.getFixedOffset());
+            bucketLo = sampler.round(lo);
+            bucketHi = sampler.nextTimestamp(sampler.round(hi));
+
+            refreshSql.put(query, 0, definition.getBaseTableNameLo()).put('(');
+            refreshSql.put(query, definition.getBaseTableNameLo(), definition.getBaseTableNameHi());
+            appendTimestampFilter(refreshSql, definition.getBaseTimestampName(), bucketLo, bucketHi);
+            refreshSql.put(')');
+            if (!definition.isBaseTableAliased()) {
+                refreshSql.put(' ').put(query, definition.getBaseTableNameLo(), definition.getBaseTableNameHi());
+            }
+            refreshSql.put(query, definition.getBaseTableNameHi(), query.length());
+        }
+
+        final TableWriterMetadata viewMetadata = writer.getMetadata();
+        final CairoConfiguration configuration = engine.getConfiguration();
+        rowIds.clear();
+        updateOffsets.clear();
+        appendOffsets.clear();
+
+        try (RecordCursorFactory factory = compiler.compile(refreshSql, executionContext).getRecordCursorFactory()) {
+            final RecordMetadata metadata = factory.getMetadata();
+            prepareColumns(state, metadata, viewMetadata);
+            final RecordSink chainSink = RecordSinkFactory.getInstance(asm, metadata, entityColumnFilterOf(metadata), true);
+            final RecordSink keySink = RecordSinkFactory.getInstance(asm, metadata, keyColumnFilter, true);
+            try (
+                    RecordChain chain = new RecordChain(chainTypes, chainSink, configuration.getSqlSortValuePageSize(), configuration.getSqlSortValueMaxPages());
+                    Map map = MapFactory.createMap(configuration, keyTypes, valueTypes)
+            ) {
+                if (!rebuild) {
+                    // index view rows of recomputed buckets by their key
+                    viewSql.clear();
+                    viewSql.put("select * from \"").put(state.getViewName()).put('"');
+                    appendTimestampFilter(viewSql, viewMetadata.getColumnName(definition.getTimestampIndex()), bucketLo, bucketHi);
+                    try (
+                            RecordCursorFactory viewFactory = compiler.compile(viewSql, executionContext).getRecordCursorFactory();
+                            RecordCursor viewCursor = viewFactory.getCursor(executionContext)
+                    ) {
+                        final RecordSink viewKeySink = RecordSinkFactory.getInstance(asm, viewFactory.getMetadata(), keyColumnFilter, true);
+                        final Record record = viewCursor.getRecord();
+                        while (viewCursor.hasNext()) {
+                            final MapKey key = map.withKey();
+                            key.put(record, viewKeySink);
+                            final MapValue value = key.createValue();
+                            value.putInt(0, rowIds.size());
+                            rowIds.add(record.getRowId());
+                            updateOffsets.add(-1);
+                        }
+                    }
+                }
+
+                try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        final long offset = chain.put(record, -1);
+                        final MapKey key = map.withKey();
+                        key.put(record, keySink);
+                        final MapValue value = key.findValue();
+                        if (value != null) {
+                            updateOffsets.setQuick(value.getInt(0), offset);
+                        } else {
+                            appendOffsets.add(offset);
+                        }
+                    }
+                }
+
+                if (rowIds.size() > 0) {
+                    update(state, writer, chain);
+                }
+                if (appendOffsets.size() > 0) {
+                    append(writer, chain, definition.getTimestampIndex());
+                }
+            }
+        }
+
+        LOG.info().$("materialized view refreshed [view=").utf8(state.getViewName())
+                .$(", from=").$ts(bucketLo)
+                .$(", to=").$ts(bucketHi)
+                .$(", updated=").$(rowIds.size())
+                .$(", appended=").$(appendOffsets.size())
+                .I$();
+    }
+
+    private void update(MatViewState state, TableWriter writer, RecordChain chain) throws SqlException {
+        final TableWriterMetadata viewMetadata = writer.getMetadata();
+        final GenericRecordMetadata updateMetadata = new GenericRecordMetadata();
+        for (int i = 0, n = valueColumnIndexes.size(); i < n; i++) {
+            final int index = valueColumnIndexes.getQuick(i);
+            updateMetadata.add(new TableColumnMetadata(
+                    viewMetadata.getColumnName(index),
+                    0,
+                    viewMetadata.getColumnType(index),
+                    false,
+                    0,
+                    false,
+                    null
+            ));
+        }
+        final UpdateOperation op = new UpdateOperation(
+                state.getViewName(),
+                viewMetadata.getId(),
+                writer.getStructureVersion(),
+                0,
+                new MatViewUpdateRecordCursorFactory(updateMetadata, chain, valueColumnIndexes, rowIds, updateOffsets)
+        );
+        try {
+            op.withContext(executionContext);
+            writer.getUpdateOperator().executeUpdate(executionContext, op);
+        } finally {
+            op.close();
+        }
+    }
+}
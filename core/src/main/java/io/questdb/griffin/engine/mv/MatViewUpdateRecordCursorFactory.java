@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+
+/**
+ * Feeds recomputed aggregates of existing materialized view rows to UPDATE. Rows are
+ * returned in the order they were read from the view, i.e. in ascending row id order,
+ * and rows whose bucket has not been recomputed are skipped.
+ */
+class MatViewUpdateRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final MatViewUpdateRecordCursor cursor;
+
+    /**
+     * @param metadata           names and types of the updated view columns
+     * @param chain              recomputed rows
+     * @param valueColumnIndexes indexes of the updated columns in chain records
+     * @param rowIds             row ids of view rows
+     * @param chainOffsets       chain offsets of recomputed rows matching view rows, -1 when there is no match
+     */
+    MatViewUpdateRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordChain chain,
+            IntList valueColumnIndexes,
+            LongList rowIds,
+            LongList chainOffsets
+    ) {
+        super(metadata);
+        this.cursor = new MatViewUpdateRecordCursor(chain, valueColumnIndexes, rowIds, chainOffsets);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.toTop();
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private static class MatViewUpdateRecordCursor implements NoRandomAccessRecordCursor {
+        private final RecordChain chain;
+        private final LongList rowIds;
+        private final LongList chainOffsets;
+        private final MatViewUpdateRecord record;
+        private final Record chainRecord;
+        private int index;
+
+        private MatViewUpdateRecordCursor(RecordChain chain, IntList valueColumnIndexes, LongList rowIds, LongList chainOffsets) {
+            this.chain = chain;
+            this.rowIds = rowIds;
+            this.chainOffsets = chainOffsets;
+            this.chainRecord = chain.getRecordB();
+            this.record = new MatViewUpdateRecord(chainRecord, valueColumnIndexes);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (int n = rowIds.size(); ++index < n; ) {
+                final long offset = chainOffsets.getQuick(index);
+                if (offset != -1) {
+                    chain.recordAt(chainRecord, offset);
+                    record.rowId = rowIds.getQuick(index);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            index = -1;
+        }
+    }
+
+    private static class MatViewUpdateRecord implements Record {
+        private final Record base;
+        private final IntList columnIndexes;
+        private long rowId;
+
+        private MatViewUpdateRecord(Record base, IntList columnIndexes) {
+            this.base = base;
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return base.getGeoByte(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return base.getGeoInt(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return base.getGeoLong(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return base.getGeoShort(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public int getInt(int col) {
+            return base.getInt(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getLong128Hi(int col) {
+            return base.getLong128Hi(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getLong128Lo(int col) {
+            return base.getLong128Lo(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return base.getStr(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return base.getStrLen(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            // chain stores symbols as strings
+            return base.getStr(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(columnIndexes.getQuick(col));
+        }
+
+        @Override
+        public long getUpdateRowId() {
+            return rowId;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.SortRunTask;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies base cursor records into runs of configured size. Full runs are sorted
+ * on worker threads while the query thread keeps filling the next run. Once sorted
+ * runs hold more memory than allowed, they are spilled to disk. Runs that stay in
+ * memory are limited by sort key and value max pages, the same as the record tree
+ * chain sort. Sorted runs are then merged with a binary heap. Rows that compare
+ * equal come out in base cursor order, see {@link SortRun}.
+ * <p>
+ * When base cursor supports random access, runs hold only the order by key
+ * columns and the base row id. Sorted rows are then read from the base cursor.
+ */
+class ParallelSortRecordCursor implements DelegatingRecordCursor {
+    private static final Log LOG = LogFactory.getLog(ParallelSortRecordCursor.class);
+    private static final AtomicLong SPILL_ID = new AtomicLong();
+    private final ColumnTypes columnTypes;
+    private final RecordComparator comparator;
+    private final ObjList<RecordComparator> comparators;
+    private final FilesFacade ff;
+    private final IntList heap = new IntList();
+    private final boolean keyDescending;
+    private final int keyColumnIndex;
+    private final int keyColumnType;
+    private final int keyMaxPages;
+    private final long keyPageSize;
+    private final int maxPages;
+    private final long memoryLimit;
+    private final int mkDirMode;
+    private final long pageSize;
+    private final boolean parallel;
+    private final Path path = new Path();
+    private final LongList positions = new LongList();
+    private final Sequence pubSeq;
+    private final RingQueue<SortRunTask> queue;
+    private final SortedRecord recordA = new SortedRecord();
+    private final SortedRecord recordB = new SortedRecord();
+    private final int rowIdColumnIndex;
+    private final RecordSink recordSink;
+    private final long runSize;
+    private final ObjList<SortRun> runs = new ObjList<>();
+    private final CharSequence spillRoot;
+    private final Sequence subSeq;
+    private RecordCursor base;
+    private Record baseRecord;
+    private SqlExecutionCircuitBreaker circuitBreaker;
+    private int current;
+    private boolean isOpen;
+    private int runCount;
+    private long size;
+    private long spillId;
+
+    public ParallelSortRecordCursor(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            ObjList<RecordComparator> comparators,
+            int keyColumnIndex,
+            int keyColumnType,
+            boolean keyDescending,
+            boolean parallel,
+            int rowIdColumnIndex
+    ) {
+        this.columnTypes = columnTypes;
+        this.recordSink = recordSink;
+        this.comparators = comparators;
+        // runs are all sorted by the time they are merged
+        this.comparator = comparators.getQuick(0);
+        this.keyColumnIndex = keyColumnIndex;
+        this.keyColumnType = keyColumnType;
+        this.keyDescending = keyDescending;
+        this.parallel = parallel;
+        this.rowIdColumnIndex = rowIdColumnIndex;
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = configuration.getSqlSortValuePageSize();
+        this.maxPages = configuration.getSqlSortValueMaxPages();
+        this.keyPageSize = configuration.getSqlSortKeyPageSize();
+        this.keyMaxPages = configuration.getSqlSortKeyMaxPages();
+        this.runSize = configuration.getSqlSortRunSize();
+        this.memoryLimit = configuration.getSqlSortMemoryLimit();
+        this.spillRoot = configuration.getSqlSortSpillRoot();
+        this.queue = messageBus.getSortQueue();
+        this.pubSeq = messageBus.getSortPubSeq();
+        this.subSeq = messageBus.getSortSubSeq();
+    }
+
+    @Override
+    public void close() {
+        if (isOpen) {
+            isOpen = false;
+            for (int i = 0; i < runCount; i++) {
+                final SortRun run = runs.getQuick(i);
+                // worker may still be sorting the run when cursor is closed on error
+                awaitQuietly(run);
+                run.clear();
+            }
+            runCount = 0;
+            heap.clear();
+            base = Misc.free(base);
+            baseRecord = null;
+        }
+    }
+
+    public void free() {
+        close();
+        Misc.freeObjList(runs);
+        runs.clear();
+        Misc.free(path);
+    }
+
+    @Override
+    public Record getRecord() {
+        return rowIdColumnIndex == -1 ? recordA : baseRecord;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return rowIdColumnIndex == -1 ? recordB : base.getRecordB();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current != -1) {
+            // advance the run, which produced previous record
+            final long position = positions.getQuick(current) + 1;
+            if (position < runs.getQuick(current).size()) {
+                positions.setQuick(current, position);
+            } else {
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.setPos(last);
+            }
+            if (heap.size() > 0) {
+                siftDown(0);
+            }
+            current = -1;
+        }
+
+        if (heap.size() > 0) {
+            current = heap.getQuick(0);
+            final SortRun run = runs.getQuick(current);
+            final Record runRecord = run.getRecord();
+            run.recordAt(runRecord, run.getOffset(positions.getQuick(current)));
+            if (rowIdColumnIndex == -1) {
+                recordA.of(runRecord, current);
+            } else {
+                base.recordAt(baseRecord, runRecord.getLong(rowIdColumnIndex));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SymbolTable newSymbolTable(int columnIndex) {
+        return base.newSymbolTable(columnIndex);
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        close();
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        this.isOpen = true;
+        this.spillId = -1;
+        this.circuitBreaker = executionContext.getCircuitBreaker();
+        final boolean dispatch = parallel && executionContext.getSharedWorkerCount() > 0;
+        SortRun run = nextRun();
+        while (base.hasNext()) {
+            circuitBreaker.statefulThrowExceptionIfTripped();
+            run.put(baseRecord);
+            if (run.getDataSize() >= runSize) {
+                dispatch(run, dispatch);
+                checkMemory();
+                run = nextRun();
+            }
+        }
+
+        if (run.size() > 0) {
+            // query thread would be waiting for workers anyway
+            dispatch(run, false);
+            checkMemory();
+        } else {
+            run.clear();
+            runCount--;
+        }
+
+        size = 0;
+        for (int i = 0; i < runCount; i++) {
+            run = runs.getQuick(i);
+            await(run);
+            size += run.size();
+        }
+        if (runCount > 1) {
+            LOG.debug().$("sorted runs [count=").$(runCount).$(", rows=").$(size).I$();
+        }
+        toTop();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        if (rowIdColumnIndex != -1) {
+            base.recordAt(record, atRowId);
+            return;
+        }
+        final int runIndex = Rows.toPartitionIndex(atRowId);
+        final SortRun run = runs.getQuick(runIndex);
+        final SortedRecord sortedRecord = (SortedRecord) record;
+        final Record runRecord = sortedRecord == recordA ? run.getRecord() : run.getRecordB();
+        run.recordAt(runRecord, Rows.toLocalRowID(atRowId));
+        sortedRecord.of(runRecord, runIndex);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void toTop() {
+        heap.clear();
+        current = -1;
+        positions.setPos(runCount);
+        for (int i = 0; i < runCount; i++) {
+            positions.setQuick(i, 0);
+            if (runs.getQuick(i).size() > 0) {
+                heap.add(i);
+            }
+        }
+        for (int i = (heap.size() >> 1) - 1; i > -1; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void await(SortRun run) {
+        // sorting takes a while, query must remain cancellable
+        circuitBreaker.statefulThrowExceptionIfTripped();
+        while (run.isBusy()) {
+            if (!steal()) {
+                Os.pause();
+            }
+            circuitBreaker.statefulThrowExceptionIfTripped();
+        }
+        if (run.isFailed()) {
+            throw CairoException.critical(0).put("could not sort records [error=").put(run.getError()).put(']');
+        }
+    }
+
+    private void awaitQuietly(SortRun run) {
+        while (run.isBusy()) {
+            if (!steal()) {
+                Os.pause();
+            }
+        }
+    }
+
+    private void checkMemory() {
+        if (spillRoot != null) {
+            spillIfNeeded();
+        }
+
+        // spilled runs do not hold memory
+        long pages = 0;
+        long keyPages = 0;
+        for (int i = 0; i < runCount; i++) {
+            final SortRun run = runs.getQuick(i);
+            if (!run.isSpilled()) {
+                pages += (run.getDataSize() + pageSize - 1) / pageSize;
+                keyPages += (run.getIndexSize() + keyPageSize - 1) / keyPageSize;
+            }
+        }
+        if (pages > maxPages) {
+            throw LimitOverflowException.instance().put("Maximum number of pages (").put(maxPages).put(") breached in sorted runs");
+        }
+        if (keyPages > keyMaxPages) {
+            throw LimitOverflowException.instance().put("Maximum number of pages (").put(keyMaxPages).put(") breached in sorted run keys");
+        }
+    }
+
+    private void dispatch(SortRun run, boolean dispatch) {
+        // run shares comparator with the run created comparators.size() runs earlier
+        final int sharedIndex = runCount - 1 - comparators.size();
+        if (keyColumnIndex == -1 && sharedIndex > -1) {
+            await(runs.getQuick(sharedIndex));
+        }
+        if (dispatch) {
+            final long cursor = pubSeq.next();
+            if (cursor > -1) {
+                run.setBusy();
+                queue.get(cursor).of(run);
+                pubSeq.done(cursor);
+                return;
+            }
+        }
+        run.sort();
+        if (run.isFailed()) {
+            await(run);
+        }
+    }
+
+    private boolean less(int runIndexA, int runIndexB) {
+        final SortRun runA = runs.getQuick(runIndexA);
+        final SortRun runB = runs.getQuick(runIndexB);
+        final Record left = runA.getRecord();
+        final Record right = runB.getRecord();
+        runA.recordAt(left, runA.getOffset(positions.getQuick(runIndexA)));
+        runB.recordAt(right, runB.getOffset(positions.getQuick(runIndexB)));
+        comparator.setLeft(left);
+        final int cmp = comparator.compare(right);
+        // runs keep order of equal rows, so must the merge
+        return cmp < 0 || (cmp == 0 && runIndexA < runIndexB);
+    }
+
+    private SortRun nextRun() {
+        final SortRun run;
+        if (runCount < runs.size()) {
+            run = runs.getQuick(runCount);
+        } else {
+            // radix sort does not need comparator
+            final RecordComparator runComparator = keyColumnIndex > -1 ? null : comparators.getQuick(runs.size() % comparators.size());
+            run = new SortRun(columnTypes, recordSink, runComparator, keyColumnIndex, keyColumnType, keyDescending, pageSize, maxPages);
+            runs.add(run);
+        }
+        runCount++;
+        run.of(base);
+        return run;
+    }
+
+    private void siftDown(int i) {
+        final int size = heap.size();
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int smallest = left;
+            final int right = left + 1;
+            if (right < size && less(heap.getQuick(right), heap.getQuick(left))) {
+                smallest = right;
+            }
+            if (!less(heap.getQuick(smallest), heap.getQuick(i))) {
+                break;
+            }
+            final int tmp = heap.getQuick(i);
+            heap.setQuick(i, heap.getQuick(smallest));
+            heap.setQuick(smallest, tmp);
+            i = smallest;
+        }
+    }
+
+    private void spillIfNeeded() {
+        long memoryUsage = 0;
+        for (int i = 0; i < runCount; i++) {
+            memoryUsage += runs.getQuick(i).getMemoryUsage();
+        }
+        if (memoryUsage <= memoryLimit) {
+            return;
+        }
+
+        if (spillId == -1) {
+            path.of(spillRoot).slash$();
+            if (!ff.exists(path) && ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.critical(ff.errno()).put("could not create sort spill directory [path=").put(path).put(']');
+            }
+            spillId = SPILL_ID.incrementAndGet();
+        }
+
+        // oldest runs are most likely to be sorted already
+        for (int i = 0; i < runCount && memoryUsage > memoryLimit; i++) {
+            final SortRun run = runs.getQuick(i);
+            if (!run.isSpilled()) {
+                await(run);
+                memoryUsage -= run.getMemoryUsage();
+                path.of(spillRoot).concat("sort_").put(spillId).put('_').put(i).put(".d").$();
+                run.spill(ff, path);
+            }
+        }
+    }
+
+    private boolean steal() {
+        // help out while waiting, this also guarantees progress when there are no workers
+        final long cursor = subSeq.next();
+        if (cursor > -1) {
+            queue.get(cursor).run();
+            subSeq.done(cursor);
+            return true;
+        }
+        return false;
+    }
+
+    private static class SortedRecord extends DelegatingRecord {
+        private int runIndex;
+
+        @Override
+        public long getRowId() {
+            return Rows.toRowID(runIndex, base.getRowId());
+        }
+
+        private void of(Record base, int runIndex) {
+            of(base);
+            this.runIndex = runIndex;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.ObjList;
+
+public class ParallelSortRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ParallelSortRecordCursor cursor;
+
+    /**
+     * @param runColumnTypes   types of columns copied into runs by record sink
+     * @param comparators      instances of the same comparator, runs sorted at the same time use different instances
+     * @param keyColumnIndex   index of the only order by column when it can be radix sorted, -1 otherwise
+     * @param parallel         false when runs must be sorted on query thread, e.g. when comparator reads symbols
+     * @param rowIdColumnIndex index of base row id in runs when runs hold only keys, -1 when runs hold entire records
+     */
+    public ParallelSortRecordCursorFactory(
+            CairoConfiguration configuration,
+            MessageBus messageBus,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ColumnTypes runColumnTypes,
+            RecordSink recordSink,
+            ObjList<RecordComparator> comparators,
+            int keyColumnIndex,
+            int keyColumnType,
+            boolean keyDescending,
+            boolean parallel,
+            int rowIdColumnIndex
+    ) {
+        super(metadata);
+        this.base = base;
+        this.cursor = new ParallelSortRecordCursor(
+                configuration,
+                messageBus,
+                runColumnTypes,
+                recordSink,
+                comparators,
+                keyColumnIndex,
+                keyColumnType,
+                keyDescending,
+                parallel,
+                rowIdColumnIndex
+        );
+    }
+
+    @Override
+    protected void _close() {
+        base.close();
+        cursor.free();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (Throwable ex) {
+            baseCursor.close();
+            cursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+}
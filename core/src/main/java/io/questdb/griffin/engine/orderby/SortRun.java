@@ -0,0 +1,400 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Run of records sorted independently of other runs. Records are copied into a
+ * record chain and sorted by reordering the index of (key, record offset) pairs.
+ * Runs ordered by single integer column are sorted with radix sort, all other
+ * runs are sorted with stable merge sort driven by the compiled comparator.
+ * Records that compare equal come out in insertion order, same as with the
+ * record tree chain sort.
+ * <p>
+ * Sorted run can be spilled to disk, which releases its memory. Records and
+ * the index are then read from the mapped spill file.
+ * <p>
+ * Run is sorted either by the query thread or by a worker. The query thread
+ * must not touch the run while it is busy.
+ */
+public class SortRun implements Closeable, Mutable, Runnable {
+    private static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+    private static final int INITIAL_INDEX_CAPACITY = 16;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final Log LOG = LogFactory.getLog(SortRun.class);
+    private final RecordChain chain;
+    private final RecordComparator comparator;
+    private final StringSink error = new StringSink();
+    private final DirectLongList index;
+    private final boolean keyDescending;
+    private final int keyColumnIndex;
+    private final int keyColumnType;
+    private final Record recordA;
+    private final Record recordB;
+    private final DirectLongList sortBuffer;
+    private final MemoryCMR spillMem = Vm.getCMRInstance();
+    private volatile boolean busy;
+    private boolean failed;
+    private FilesFacade ff;
+    private long indexOffset;
+    private long rowCount;
+    private Path spillPath;
+    private boolean spilled;
+
+    /**
+     * @param keyColumnIndex index of the column for radix sort or -1 when comparator should be used
+     * @param keyColumnType  type of the radix sort column, see {@link #isRadixSortable(int)}
+     * @param keyDescending  true when radix sort column is sorted in descending order
+     */
+    public SortRun(
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator,
+            int keyColumnIndex,
+            int keyColumnType,
+            boolean keyDescending,
+            long pageSize,
+            int maxPages
+    ) {
+        this.chain = new RecordChain(columnTypes, recordSink, pageSize, maxPages);
+        this.comparator = comparator;
+        this.keyColumnIndex = keyColumnIndex;
+        this.keyColumnType = keyColumnType;
+        this.keyDescending = keyDescending;
+        this.index = new DirectLongList(INITIAL_INDEX_CAPACITY, MemoryTag.NATIVE_LONG_LIST);
+        this.sortBuffer = new DirectLongList(INITIAL_INDEX_CAPACITY, MemoryTag.NATIVE_LONG_LIST);
+        this.recordA = chain.getRecord();
+        this.recordB = chain.getRecordB();
+    }
+
+    public static boolean isRadixSortable(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public void clear() {
+        chain.clear();
+        index.close();
+        sortBuffer.close();
+        if (spilled) {
+            spillMem.close();
+            spilled = false;
+        }
+        if (ff != null) {
+            if (!ff.remove(spillPath)) {
+                LOG.error().$("could not remove sort spill file [path=").$(spillPath).$(", errno=").$(ff.errno()).I$();
+            }
+            ff = null;
+        }
+        rowCount = 0;
+        failed = false;
+        error.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        spillPath = Misc.free(spillPath);
+    }
+
+    public CharSequence getError() {
+        return error;
+    }
+
+    public long getMemoryUsage() {
+        return spilled ? 0 : chain.getDataSize() + index.size() * Long.BYTES;
+    }
+
+    /**
+     * @param row position of the row in sorted order
+     * @return offset of the row in the record chain
+     */
+    public long getOffset(long row) {
+        if (spilled) {
+            return spillMem.getLong(indexOffset + row * INDEX_ENTRY_SIZE + Long.BYTES);
+        }
+        return index.get(2 * row + 1);
+    }
+
+    public long getDataSize() {
+        return chain.getDataSize();
+    }
+
+    public long getIndexSize() {
+        return index.size() * Long.BYTES;
+    }
+
+    public Record getRecord() {
+        return recordA;
+    }
+
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    public boolean isBusy() {
+        return busy;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public boolean isSpilled() {
+        return spilled;
+    }
+
+    public void of(SymbolTableSource symbolTableSource) {
+        chain.setSymbolTableResolver(symbolTableSource);
+        index.reopen();
+    }
+
+    public void put(Record record) {
+        final long offset = chain.put(record, -1);
+        index.add(0);
+        index.add(offset);
+        rowCount++;
+    }
+
+    public void recordAt(Record record, long offset) {
+        chain.recordAt(record, offset);
+    }
+
+    @Override
+    public void run() {
+        sort();
+    }
+
+    public void setBusy() {
+        busy = true;
+    }
+
+    public long size() {
+        return rowCount;
+    }
+
+    public void sort() {
+        try {
+            if (rowCount > 1) {
+                if (keyColumnIndex > -1) {
+                    radixSort();
+                } else {
+                    mergeSort();
+                }
+            }
+        } catch (Throwable th) {
+            LOG.error().$("could not sort run [rows=").$(rowCount).$(", error=").$(th).I$();
+            if (th instanceof FlyweightMessageContainer) {
+                error.put(((FlyweightMessageContainer) th).getFlyweightMessage());
+            } else {
+                error.put(th.toString());
+            }
+            failed = true;
+        } finally {
+            sortBuffer.close();
+            busy = false;
+        }
+    }
+
+    /**
+     * Writes sorted run to the given file and maps it back in place of the run memory.
+     * File layout is chain data followed by the index, aligned to 8 bytes.
+     */
+    public void spill(FilesFacade ff, Path path) {
+        assert !busy && !spilled;
+        final long dataSize = chain.getDataSize();
+        final long indexOffset = (dataSize + Long.BYTES - 1) & -Long.BYTES;
+        final long indexSize = rowCount * INDEX_ENTRY_SIZE;
+
+        if (spillPath == null) {
+            spillPath = new Path();
+        }
+        spillPath.of(path).$();
+        final long fd = ff.openRW(spillPath, CairoConfiguration.O_NONE);
+        if (fd < 0) {
+            throw CairoException.critical(ff.errno()).put("could not open sort spill file [path=").put(spillPath).put(']');
+        }
+        // from now on the file is removed on clear()
+        this.ff = ff;
+        try {
+            if (ff.write(fd, chain.getDataAddress(), dataSize, 0) != dataSize
+                    || ff.write(fd, index.getAddress(), indexSize, indexOffset) != indexSize) {
+                throw CairoException.critical(ff.errno())
+                        .put("could not write sort spill file [path=").put(spillPath)
+                        .put(", size=").put(indexOffset + indexSize)
+                        .put(']');
+            }
+        } finally {
+            ff.close(fd);
+        }
+
+        spillMem.of(ff, spillPath, ff.getPageSize(), indexOffset + indexSize, MemoryTag.MMAP_DEFAULT);
+        chain.ofReadOnly(spillMem);
+        index.close();
+        this.indexOffset = indexOffset;
+        this.spilled = true;
+    }
+
+    private static void copyEntry(long src, long srcIndex, long dst, long dstIndex) {
+        final long s = src + srcIndex * INDEX_ENTRY_SIZE;
+        final long d = dst + dstIndex * INDEX_ENTRY_SIZE;
+        Unsafe.getUnsafe().putLong(d, Unsafe.getUnsafe().getLong(s));
+        Unsafe.getUnsafe().putLong(d + Long.BYTES, Unsafe.getUnsafe().getLong(s + Long.BYTES));
+    }
+
+    private static long offsetAt(long address, long i) {
+        return Unsafe.getUnsafe().getLong(address + i * INDEX_ENTRY_SIZE + Long.BYTES);
+    }
+
+    private void insertionSort(long address, long lo, long hi) {
+        for (long i = lo + 1; i < hi; i++) {
+            final long offset = offsetAt(address, i);
+            chain.recordAt(recordA, offset);
+            comparator.setLeft(recordA);
+            long j = i - 1;
+            // equal rows stay in insertion order
+            while (j >= lo) {
+                chain.recordAt(recordB, offsetAt(address, j));
+                if (comparator.compare(recordB) >= 0) {
+                    break;
+                }
+                copyEntry(address, j, address, j + 1);
+                j--;
+            }
+            Unsafe.getUnsafe().putLong(address + (j + 1) * INDEX_ENTRY_SIZE + Long.BYTES, offset);
+        }
+    }
+
+    private void merge(long src, long dst, long lo, long mid, long hi) {
+        long i = lo;
+        long j = mid;
+        long k = lo;
+        if (i < mid && j < hi) {
+            chain.recordAt(recordA, offsetAt(src, i));
+            comparator.setLeft(recordA);
+            while (true) {
+                chain.recordAt(recordB, offsetAt(src, j));
+                if (comparator.compare(recordB) <= 0) {
+                    copyEntry(src, i++, dst, k++);
+                    if (i == mid) {
+                        break;
+                    }
+                    chain.recordAt(recordA, offsetAt(src, i));
+                    comparator.setLeft(recordA);
+                } else {
+                    copyEntry(src, j++, dst, k++);
+                    if (j == hi) {
+                        break;
+                    }
+                }
+            }
+        }
+        Vect.memcpy(dst + k * INDEX_ENTRY_SIZE, src + i * INDEX_ENTRY_SIZE, (mid - i) * INDEX_ENTRY_SIZE);
+        k += mid - i;
+        Vect.memcpy(dst + k * INDEX_ENTRY_SIZE, src + j * INDEX_ENTRY_SIZE, (hi - j) * INDEX_ENTRY_SIZE);
+    }
+
+    private void mergeSort() {
+        final long n = rowCount;
+        for (long lo = 0; lo < n; lo += INSERTION_SORT_THRESHOLD) {
+            insertionSort(index.getAddress(), lo, Math.min(lo + INSERTION_SORT_THRESHOLD, n));
+        }
+        if (n <= INSERTION_SORT_THRESHOLD) {
+            return;
+        }
+
+        sortBuffer.setCapacity(2 * n);
+        long src = index.getAddress();
+        long dst = sortBuffer.getAddress();
+        for (long width = INSERTION_SORT_THRESHOLD; width < n; width <<= 1) {
+            for (long lo = 0; lo < n; lo += width << 1) {
+                merge(src, dst, lo, Math.min(lo + width, n), Math.min(lo + (width << 1), n));
+            }
+            final long tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != index.getAddress()) {
+            Vect.memcpy(index.getAddress(), src, n * INDEX_ENTRY_SIZE);
+        }
+    }
+
+    private void radixSort() {
+        final long address = index.getAddress();
+        for (long i = 0; i < rowCount; i++) {
+            final long p = address + i * INDEX_ENTRY_SIZE;
+            chain.recordAt(recordA, Unsafe.getUnsafe().getLong(p + Long.BYTES));
+            // flip the sign bit to sort signed values as unsigned, nulls go first
+            final long key = readKey(recordA) ^ Long.MIN_VALUE;
+            Unsafe.getUnsafe().putLong(p, keyDescending ? ~key : key);
+        }
+        sortBuffer.setCapacity(2 * rowCount);
+        Vect.radixSortLongIndexAscInPlace(address, rowCount, sortBuffer.getAddress());
+    }
+
+    private long readKey(Record record) {
+        switch (ColumnType.tagOf(keyColumnType)) {
+            case ColumnType.BYTE:
+                return record.getByte(keyColumnIndex);
+            case ColumnType.SHORT:
+                return record.getShort(keyColumnIndex);
+            case ColumnType.CHAR:
+                return record.getChar(keyColumnIndex);
+            case ColumnType.INT:
+                return record.getInt(keyColumnIndex);
+            case ColumnType.DATE:
+                return record.getDate(keyColumnIndex);
+            case ColumnType.TIMESTAMP:
+                return record.getTimestamp(keyColumnIndex);
+            default:
+                return record.getLong(keyColumnIndex);
+        }
+    }
+}
@@ -112,6 +112,11 @@ public class AsyncFilterAtom implements StatefulAtom, Closeable {
         return perWorkerFilters.getQuick(filterId);
     }
 
+    @Nullable
+    public ObjList<Function> getPerWorkerFilters() {
+        return perWorkerFilters;
+    }
+
     public void releaseFilter(int filterId) {
         if (filterId == -1) {
             return;
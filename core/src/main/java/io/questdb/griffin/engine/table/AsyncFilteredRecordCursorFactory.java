@@ -62,7 +62,6 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
             @NotNull MessageBus messageBus,
             @NotNull RecordCursorFactory base,
             @NotNull Function filter,
-            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
             @Nullable ObjList<Function> perWorkerFilters,
             @Nullable Function limitLoFunction,
             int limitLoPos,
@@ -82,7 +81,7 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
             }
         }
         this.filterAtom = new AsyncFilterAtom(filter, perWorkerFilters, preTouchColumnTypes);
-        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER);
         this.limitLoFunction = limitLoFunction;
         this.limitLoPos = limitLoPos;
         this.maxNegativeLimit = configuration.getSqlMaxNegativeLimit();
@@ -98,6 +97,35 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         negativeLimitCursor.freeRecords();
     }
 
+    @Override
+    public boolean supportsFilterStealing() {
+        // limit is not carried over to the stealing factory
+        return limitLoFunction == null;
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public Function getFilter() {
+        return filterAtom.getFilter(-1);
+    }
+
+    @Override
+    public ObjList<Function> getPerWorkerFilters() {
+        return filterAtom.getPerWorkerFilters();
+    }
+
+    @Override
+    public void halfClose() {
+        Misc.free(frameSequence);
+        Misc.free(negativeLimitRows);
+        cursor.freeRecords();
+        negativeLimitCursor.freeRecords();
+    }
+
     @Override
     public boolean followedLimitAdvice() {
         return limitLoFunction != null;
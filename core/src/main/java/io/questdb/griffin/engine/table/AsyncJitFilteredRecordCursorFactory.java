@@ -69,7 +69,6 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             @NotNull Function filter,
             @Nullable ObjList<Function> perWorkerFilters,
             @NotNull CompiledFilter compiledFilter,
-            @NotNull @Transient WeakClosableObjectPool<PageFrameReduceTask> localTaskPool,
             @Nullable Function limitLoFunction,
             int limitLoPos,
             boolean preTouchColumns
@@ -91,7 +90,7 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             }
         }
         this.filterAtom = new AsyncJitFilterAtom(filter, perWorkerFilters, compiledFilter, bindVarMemory, bindVarFunctions, preTouchColumnTypes);
-        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER, localTaskPool);
+        this.frameSequence = new PageFrameSequence<>(configuration, messageBus, REDUCER);
         this.limitLoFunction = limitLoFunction;
         this.limitLoPos = limitLoPos;
         this.maxNegativeLimit = configuration.getSqlMaxNegativeLimit();
@@ -107,6 +106,36 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         negativeLimitCursor.freeRecords();
     }
 
+    @Override
+    public boolean supportsFilterStealing() {
+        // limit is not carried over to the stealing factory
+        return limitLoFunction == null;
+    }
+
+    @Override
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public Function getFilter() {
+        return filterAtom.getFilter(-1);
+    }
+
+    @Override
+    public ObjList<Function> getPerWorkerFilters() {
+        return filterAtom.getPerWorkerFilters();
+    }
+
+    @Override
+    public void halfClose() {
+        filterAtom.halfClose();
+        Misc.free(frameSequence);
+        Misc.free(negativeLimitRows);
+        cursor.freeRecords();
+        negativeLimitCursor.freeRecords();
+    }
+
     @Override
     public boolean followedLimitAdvice() {
         return limitLoFunction != null;
@@ -271,6 +300,16 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
             Misc.freeObjList(bindVarFunctions);
         }
 
+        /**
+         * Frees compiled filter state. The Java filter and its per-worker copies
+         * are now owned by another factory.
+         */
+        public void halfClose() {
+            Misc.free(compiledFilter);
+            Misc.free(bindVarMemory);
+            Misc.freeObjList(bindVarFunctions);
+        }
+
         private void prepareBindVarMemory(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
             //don't trigger memory allocation if there are no variables 
             if (bindVarFunctions.size() > 0) {
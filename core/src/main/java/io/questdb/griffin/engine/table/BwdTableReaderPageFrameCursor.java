@@ -215,6 +215,11 @@ public class BwdTableReaderPageFrameCursor implements PageFrameCursor {
             destColumnAddresses.add(columnPageAddress);
         }
 
+        @Override
+        public void copyColumnFileRangesTo(LongList destFileRanges) {
+            FwdTableReaderPageFrameCursor.copyColumnFileRanges(reader, columnIndexes, this, destFileRanges);
+        }
+
         @Override
         public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
             return reader.getBitmapIndexReader(partitionIndex, columnIndexes.getQuick(columnIndex), direction);
@@ -28,6 +28,7 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.NullMemoryMR;
+import io.questdb.cairo.vm.api.MemoryM;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.std.*;
 import org.jetbrains.annotations.Nullable;
@@ -134,6 +135,42 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
         return this;
     }
 
+    static void copyColumnFileRanges(TableReader reader, IntList columnIndexes, PageFrame frame, LongList destFileRanges) {
+        final int base = reader.getColumnBase(frame.getPartitionIndex());
+        final long rowCount = frame.getPartitionHi() - frame.getPartitionLo();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final long address = frame.getPageAddress(i);
+            if (address == 0) {
+                // column top, there is nothing on disk
+                continue;
+            }
+            final int readerColIndex = TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i));
+            final MemoryR col = reader.getColumn(readerColIndex);
+            if (frame.getColumnShiftBits(i) > -1) {
+                addFileRange(destFileRanges, col, address - col.getPageAddress(0), frame.getPageSize(i));
+            } else {
+                // frames are split at column tops, so all rows of the frame have index entries;
+                // the extra entry is the end offset of the last value
+                final MemoryR fixCol = reader.getColumn(readerColIndex + 1);
+                final long indexAddress = frame.getIndexPageAddress(i);
+                addFileRange(destFileRanges, fixCol, indexAddress - fixCol.getPageAddress(0), (rowCount + 1) << 3);
+                // var page size is the end offset of the frame's data
+                final long dataOffset = Unsafe.getUnsafe().getLong(indexAddress);
+                addFileRange(destFileRanges, col, dataOffset, frame.getPageSize(i) - dataOffset);
+            }
+        }
+    }
+
+    private static void addFileRange(LongList destFileRanges, MemoryR mem, long offset, long len) {
+        if (len > 0 && mem instanceof MemoryM) {
+            final long fd = ((MemoryM) mem).getFd();
+            if (fd != -1) {
+                destFileRanges.add(fd, offset);
+                destFileRanges.add(len);
+            }
+        }
+    }
+
     private TableReaderPageFrame computeFrame(final long partitionLo, final long partitionHi) {
         final int base = reader.getColumnBase(reenterPartitionIndex);
 
@@ -215,6 +252,11 @@ public class FwdTableReaderPageFrameCursor implements PageFrameCursor {
             destColumnAddresses.add(columnPageAddress);
         }
 
+        @Override
+        public void copyColumnFileRangesTo(LongList destFileRanges) {
+            copyColumnFileRanges(reader, columnIndexes, this, destFileRanges);
+        }
+
         @Override
         public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
             return reader.getBitmapIndexReader(partitionIndex, columnIndexes.getQuick(columnIndex), direction);
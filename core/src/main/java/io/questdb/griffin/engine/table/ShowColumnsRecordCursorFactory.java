@@ -105,7 +105,8 @@ public class ShowColumnsRecordCursorFactory extends AbstractRecordCursorFactory
         }
 
         private ShowColumnsCursor of(SqlExecutionContext executionContext) {
-            reader = executionContext.getCairoEngine().getReader(executionContext.getCairoSecurityContext(), tableName);
+            // reader is acquired via context, so that result caches can track table version
+            reader = executionContext.getReader(tableName, TableUtils.ANY_TABLE_ID, TableUtils.ANY_TABLE_VERSION);
             toTop();
             return this;
         }
@@ -60,6 +60,7 @@ public class TableListRecordCursorFactory extends AbstractRecordCursorFactory {
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        executionContext.markNonDeterministic();
         return cursor.of();
     }
 
@@ -59,6 +59,7 @@ public final class TableWriterMetricsRecordCursorFactory extends AbstractRecordC
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        executionContext.markNonDeterministic();
         Metrics metrics = executionContext.getCairoEngine().getMetrics();
         if (metrics.isEnabled()) {
             TableWriterMetrics tableWriterMetrics = metrics.tableWriter();
@@ -31,6 +31,10 @@ import io.questdb.std.str.CharSink;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
+    // data formats of COPY FROM STDIN and COPY TO STDOUT, file imports are always CSV
+    public static final int FORMAT_TEXT = 0;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_BINARY = 2;
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
     private ExpressionNode fileName;
     private boolean header;
@@ -41,6 +45,8 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private int partitionBy;
     private byte delimiter;
     private int atomicity;
+    private int format;
+    private QueryModel queryModel; // query exported by COPY TO STDOUT
 
     public CopyModel() {
     }
@@ -56,6 +62,8 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        format = -1;
+        queryModel = null;
     }
 
     public int getAtomicity() {
@@ -66,6 +74,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return delimiter;
     }
 
+    public int getFormat() {
+        return format;
+    }
+
     public ExpressionNode getFileName() {
         return fileName;
     }
@@ -74,6 +86,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return partitionBy;
     }
 
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
     public CharSequence getTimestampColumnName() {
         return timestampColumnName;
     }
@@ -90,6 +106,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.delimiter = delimiter;
     }
 
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
     public void setFileName(ExpressionNode fileName) {
         this.fileName = fileName;
     }
@@ -107,6 +127,10 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.partitionBy = partitionBy;
     }
 
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
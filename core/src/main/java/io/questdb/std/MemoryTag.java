@@ -77,8 +77,9 @@ public final class MemoryTag {
     public static final int NATIVE_IO_DISPATCHER_RSS = 49;
     public static final int NATIVE_FUNC_RSS = 50;
     public static final int NATIVE_DIRECT_CHAR_SINK = 51;
+    public static final int NATIVE_QUERY_RESULT_CACHE = 52;
 
-    public static final int SIZE = NATIVE_DIRECT_CHAR_SINK + 1;
+    public static final int SIZE = NATIVE_QUERY_RESULT_CACHE + 1;
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
     public static String nameOf(int tag) {
@@ -138,5 +139,6 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(NATIVE_IO_DISPATCHER_RSS, "NATIVE_IO_DISPATCHER_RSS");
         tagNameMap.extendAndSet(NATIVE_FUNC_RSS, "NATIVE_FUNC_RSS");
         tagNameMap.extendAndSet(NATIVE_DIRECT_CHAR_SINK, "NATIVE_DIRECT_CHAR_SINK");
+        tagNameMap.extendAndSet(NATIVE_QUERY_RESULT_CACHE, "NATIVE_QUERY_RESULT_CACHE");
     }
 }
@@ -31,6 +31,9 @@ import org.jetbrains.annotations.NotNull;
  * objects return themselves to the pool on close() method call. Note that the push()
  * method is not exposed by this class - the only way an object returns to the pool is
  * a close() call.
+ * <p>
+ * Objects always return to the pool that created them, even when they are closed by
+ * another thread, e.g. after being shared through a cache. Hence this pool is thread-safe.
  */
 public class WeakSelfReturningObjectPool<T extends AbstractSelfReturningObject<?>> extends WeakObjectPoolBase<T> {
     private final SelfReturningObjectFactory<T> factory;
@@ -41,6 +44,16 @@ public class WeakSelfReturningObjectPool<T extends AbstractSelfReturningObject<?
         fill();
     }
 
+    @Override
+    public synchronized T pop() {
+        return super.pop();
+    }
+
+    @Override
+    synchronized boolean push(T obj) {
+        return super.push(obj);
+    }
+
     @Override
     T newInstance() {
         return factory.newInstance(this);
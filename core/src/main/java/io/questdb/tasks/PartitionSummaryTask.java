@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.tasks;
+
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+/**
+ * Partition, which table writer is no longer appending to, along with the columns
+ * to be summarised. Column details are captured by the writer at the time of partition
+ * switch, so that the summary can be written without access to the writer.
+ */
+public class PartitionSummaryTask implements Mutable {
+    private final LongList columnNameTxns = new LongList();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final LongList columnTops = new LongList();
+    private final IntList columnTypes = new IntList();
+    private int partitionBy;
+    private long partitionNameTxn;
+    private long partitionSize;
+    private long partitionTimestamp;
+    private String tableName;
+
+    public PartitionSummaryTask() {
+    }
+
+    public void addColumn(String columnName, int columnType, long columnNameTxn, long columnTop) {
+        columnNames.add(columnName);
+        columnTypes.add(columnType);
+        columnNameTxns.add(columnNameTxn);
+        columnTops.add(columnTop);
+    }
+
+    @Override
+    public void clear() {
+        columnNames.clear();
+        columnTypes.clear();
+        columnNameTxns.clear();
+        columnTops.clear();
+        tableName = null;
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public String getColumnName(int index) {
+        return columnNames.getQuick(index);
+    }
+
+    public long getColumnNameTxn(int index) {
+        return columnNameTxns.getQuick(index);
+    }
+
+    public long getColumnTop(int index) {
+        return columnTops.getQuick(index);
+    }
+
+    public int getColumnType(int index) {
+        return columnTypes.getQuick(index);
+    }
+
+    public int getPartitionBy() {
+        return partitionBy;
+    }
+
+    public long getPartitionNameTxn() {
+        return partitionNameTxn;
+    }
+
+    public long getPartitionSize() {
+        return partitionSize;
+    }
+
+    public long getPartitionTimestamp() {
+        return partitionTimestamp;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void of(String tableName, int partitionBy, long partitionTimestamp, long partitionNameTxn, long partitionSize) {
+        clear();
+        this.tableName = tableName;
+        this.partitionBy = partitionBy;
+        this.partitionTimestamp = partitionTimestamp;
+        this.partitionNameTxn = partitionNameTxn;
+        this.partitionSize = partitionSize;
+    }
+}
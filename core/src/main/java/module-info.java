@@ -44,6 +44,7 @@ open module io.questdb {
     exports io.questdb.cairo.pool;
     exports io.questdb.cairo.pool.ex;
     exports io.questdb.cairo.security;
+    exports io.questdb.cairo.mv;
 
     exports io.questdb.cutlass.http;
     exports io.questdb.cutlass.http.processors;
@@ -94,6 +95,7 @@ open module io.questdb {
     exports io.questdb.cairo.mig;
     exports io.questdb.griffin.engine.join;
     exports io.questdb.griffin.engine.ops;
+    exports io.questdb.griffin.engine.mv;
     exports io.questdb.cairo.sql.async;
     exports io.questdb.client;
     exports io.questdb.griffin.engine.functions.long128;
@@ -94,6 +94,15 @@ public class AbstractCairoTest {
     protected static Boolean snapshotRecoveryEnabled = null;
     protected static Boolean enableParallelFilter = null;
     protected static Boolean enableColumnPreTouch = null;
+    protected static Boolean enableParallelGroupBy = null;
+    protected static Boolean enableParallelHashJoin = null;
+    protected static Boolean enableParallelSort = null;
+    protected static long sortRunSize = -1;
+    protected static long sortMemoryLimit = -1;
+    protected static String sortSpillRoot = null;
+    protected static int sortValueMaxPages = -1;
+    protected static Boolean enablePartitionSummary = null;
+    protected static Boolean enablePageFrameReadAhead = null;
     protected static int queryCacheEventQueueCapacity = -1;
     protected static int pageFrameReduceShardCount = -1;
     protected static int pageFrameReduceQueueCapacity = -1;
@@ -343,11 +352,56 @@ public class AbstractCairoTest {
                 return columnVersionPurgeQueueCapacity < 0 ? super.getColumnPurgeQueueCapacity() : columnVersionPurgeQueueCapacity;
             }
 
+            @Override
+            public boolean isPageFrameReadAheadEnabled() {
+                return enablePageFrameReadAhead != null ? enablePageFrameReadAhead : super.isPageFrameReadAheadEnabled();
+            }
+
+            @Override
+            public boolean isPartitionSummaryEnabled() {
+                return enablePartitionSummary != null ? enablePartitionSummary : super.isPartitionSummaryEnabled();
+            }
+
             @Override
             public boolean isSqlParallelFilterEnabled() {
                 return enableParallelFilter != null ? enableParallelFilter : super.isSqlParallelFilterEnabled();
             }
 
+            @Override
+            public boolean isSqlParallelGroupByEnabled() {
+                return enableParallelGroupBy != null ? enableParallelGroupBy : super.isSqlParallelGroupByEnabled();
+            }
+
+            @Override
+            public boolean isSqlParallelHashJoinEnabled() {
+                return enableParallelHashJoin != null ? enableParallelHashJoin : super.isSqlParallelHashJoinEnabled();
+            }
+
+            @Override
+            public boolean isSqlParallelSortEnabled() {
+                return enableParallelSort != null ? enableParallelSort : super.isSqlParallelSortEnabled();
+            }
+
+            @Override
+            public long getSqlSortMemoryLimit() {
+                return sortMemoryLimit > -1 ? sortMemoryLimit : super.getSqlSortMemoryLimit();
+            }
+
+            @Override
+            public long getSqlSortRunSize() {
+                return sortRunSize > -1 ? sortRunSize : super.getSqlSortRunSize();
+            }
+
+            @Override
+            public CharSequence getSqlSortSpillRoot() {
+                return sortSpillRoot;
+            }
+
+            @Override
+            public int getSqlSortValueMaxPages() {
+                return sortValueMaxPages > -1 ? sortValueMaxPages : super.getSqlSortValueMaxPages();
+            }
+
             @Override
             public boolean isSqlParallelFilterPreTouchEnabled() {
                 return enableColumnPreTouch != null ? enableColumnPreTouch : super.isSqlParallelFilterPreTouchEnabled();
@@ -449,6 +503,15 @@ public class AbstractCairoTest {
         snapshotRecoveryEnabled = null;
         enableParallelFilter = null;
         enableColumnPreTouch = null;
+        enableParallelGroupBy = null;
+        enableParallelHashJoin = null;
+        enableParallelSort = null;
+        sortRunSize = -1;
+        sortMemoryLimit = -1;
+        sortSpillRoot = null;
+        sortValueMaxPages = -1;
+        enablePartitionSummary = null;
+        enablePageFrameReadAhead = null;
         hideTelemetryTable = false;
         writerCommandQueueCapacity = 4;
         queryCacheEventQueueCapacity = -1;
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.Misc;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ApplyWal2TableJobTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAppliedTxnSurvivesWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (a int, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            try (WalWriter walWriter = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                addRows(walWriter, 0, 5, 0);
+                walWriter.commit();
+            }
+
+            try (ApplyWal2TableJob job = new ApplyWal2TableJob(engine)) {
+                Assert.assertEquals(1, job.applyOutstandingTransactions("x"));
+                engine.releaseAllWriters();
+                // nothing to apply, transactions must not be applied twice
+                Assert.assertEquals(1, job.applyOutstandingTransactions("x"));
+            }
+
+            assertSql("select count() from x", "count\n5\n");
+        });
+    }
+
+    @Test
+    public void testBusyWriterNotificationIsRepublished() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (a int, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            currentMicros = 0;
+            ApplyWal2TableJob job = new ApplyWal2TableJob(engine);
+            try {
+                try (TableWriter ignore = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x", "testing")) {
+                    try (WalWriter walWriter = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                        addRows(walWriter, 0, 4, 0);
+                        walWriter.commit();
+                    }
+                    //noinspection StatementWithEmptyBody
+                    while (job.run(0)) {
+                    }
+                }
+                assertSql("select count() from x", "count\n0\n");
+
+                // notification has been consumed while writer was busy, it must be re-published
+                // by the pending tables check rather than lost
+                currentMicros += 1_000_000L;
+                //noinspection StatementWithEmptyBody
+                while (job.run(0)) {
+                }
+            } finally {
+                Misc.free(job);
+            }
+            assertSql("select count(), max(a) from x", "count\tmax\n4\t3\n");
+        });
+    }
+
+    @Test
+    public void testCoalescesTransactionsOfSameSegment() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (a int, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            try (WalWriter walWriter = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                for (int i = 0; i < 10; i++) {
+                    addRows(walWriter, i * 3, 3, i * 3_000_000L);
+                    walWriter.commit();
+                }
+            }
+
+            long commits = engine.getMetrics().tableWriter().getCommitCount();
+            try (ApplyWal2TableJob job = new ApplyWal2TableJob(engine)) {
+                Assert.assertEquals(10, job.applyOutstandingTransactions("x"));
+            }
+            Assert.assertEquals(commits + 1, engine.getMetrics().tableWriter().getCommitCount());
+
+            assertSql(
+                    "select count(), count_distinct(s), sum(a) from x",
+                    "count\tcount_distinct\tsum\n" +
+                            "30\t7\t435\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInterleavedWalWritersAndAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (a int, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            try (
+                    WalWriter walWriter1 = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x");
+                    WalWriter walWriter2 = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x")
+            ) {
+                addRows(walWriter1, 0, 2, 10_000_000L);
+                walWriter1.commit();
+
+                // out of order in relation to the first WAL
+                addRows(walWriter2, 100, 2, 0);
+                walWriter2.commit();
+
+                walWriter1.addColumn("b", ColumnType.LONG);
+                TableWriter.Row row = walWriter1.newRow(20_000_000L);
+                row.putInt(0, 200);
+                row.putSym(1, "s200");
+                row.putLong(3, 42);
+                row.append();
+                walWriter1.commit();
+            }
+
+            try (ApplyWal2TableJob job = new ApplyWal2TableJob(engine)) {
+                Assert.assertEquals(4, job.applyOutstandingTransactions("x"));
+            }
+
+            assertSql(
+                    "x",
+                    "a\ts\tts\tb\n" +
+                            "100\ts2\t1970-01-01T00:00:00.000000Z\tNaN\n" +
+                            "101\ts3\t1970-01-01T00:00:01.000000Z\tNaN\n" +
+                            "0\ts0\t1970-01-01T00:00:10.000000Z\tNaN\n" +
+                            "1\ts1\t1970-01-01T00:00:11.000000Z\tNaN\n" +
+                            "200\ts200\t1970-01-01T00:00:20.000000Z\t42\n"
+            );
+        });
+    }
+
+    @Test
+    public void testJobAppliesNotifiedTransactions() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (a int, s symbol, ts timestamp) timestamp(ts) partition by DAY WAL");
+            try (WalWriter walWriter = engine.getWalWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                addRows(walWriter, 0, 4, 0);
+                walWriter.commit();
+                addRows(walWriter, 4, 4, 4_000_000L);
+                walWriter.commit();
+            }
+
+            ApplyWal2TableJob job = new ApplyWal2TableJob(engine);
+            try {
+                //noinspection StatementWithEmptyBody
+                while (job.run(0)) {
+                }
+            } finally {
+                Misc.free(job);
+            }
+
+            assertSql("select count(), max(a) from x", "count\tmax\n8\t7\n");
+        });
+    }
+
+    private static void addRows(WalWriter walWriter, int start, int count, long timestamp) {
+        for (int i = start, n = start + count; i < n; i++) {
+            TableWriter.Row row = walWriter.newRow(timestamp);
+            row.putInt(0, i);
+            row.putSym(1, "s" + i % 7);
+            row.append();
+            timestamp += 1_000_000L;
+        }
+    }
+}
@@ -415,7 +415,8 @@ public class WalTableWriterTest extends AbstractGriffinTest {
                             dataInfo.getEndRowID(),
                             dataInfo.getMinTimestamp(),
                             dataInfo.getMaxTimestamp() + 1,
-                            dataInfo
+                            dataInfo,
+                            waleCursor.getTxn()
                     );
                 }
             } else {
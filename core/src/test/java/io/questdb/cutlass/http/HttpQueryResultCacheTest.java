@@ -0,0 +1,227 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.test.TestLatchedCounterFunctionFactory;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HttpQueryResultCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void testResultInvalidatedByCommit() throws Exception {
+        testQueryResultCache(1024 * 1024, engine -> {
+            execute(engine, "create table x as (select x id, cast(x as string) s, timestamp_sequence(0, 1000000) ts from long_sequence(2)) timestamp(ts) partition by day");
+            final String sql = "select id, s from x";
+
+            assertSelect(sql, "{\"query\":\"select id, s from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"STRING\"}],\"dataset\":[[1,\"1\"],[2,\"2\"]],\"count\":2}");
+            Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE) > 0);
+
+            // served from the cache
+            assertSelect(sql, "{\"query\":\"select id, s from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"STRING\"}],\"dataset\":[[1,\"1\"],[2,\"2\"]],\"count\":2}");
+
+            execute(engine, "insert into x values (3, null, 3000000)");
+            assertSelect(sql, "{\"query\":\"select id, s from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"STRING\"}],\"dataset\":[[1,\"1\"],[2,\"2\"],[3,null]],\"count\":3}");
+
+            // structure change invalidates the result too
+            execute(engine, "alter table x drop column s");
+            execute(engine, "alter table x add column s symbol");
+            assertSelect(sql, "{\"query\":\"select id, s from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"SYMBOL\"}],\"dataset\":[[1,null],[2,null],[3,null]],\"count\":3}");
+        });
+    }
+
+    @Test
+    public void testResultLargerThanBudgetIsNotCached() throws Exception {
+        // fits the aggregate below, but not ten rows of the table
+        testQueryResultCache(150, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts) partition by day");
+            final String sql = "select sum(id) s, count() c from x where id > 5";
+            assertSelect(sql, "{\"query\":\"select sum(id) s, count() c from x where id > 5\",\"columns\":[{\"name\":\"s\",\"type\":\"LONG\"},{\"name\":\"c\",\"type\":\"LONG\"}],\"dataset\":[[40,5]],\"count\":1}");
+            final long memUsed = Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE);
+            Assert.assertEquals(2 * Long.BYTES, memUsed);
+
+            final String largeSql = "select * from x";
+            assertSelect(largeSql, "{\"query\":\"select * from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"}],\"dataset\":[[1,\"1970-01-01T00:00:00.000000Z\"],[2,\"1970-01-01T00:00:01.000000Z\"],[3,\"1970-01-01T00:00:02.000000Z\"],[4,\"1970-01-01T00:00:03.000000Z\"],[5,\"1970-01-01T00:00:04.000000Z\"],[6,\"1970-01-01T00:00:05.000000Z\"],[7,\"1970-01-01T00:00:06.000000Z\"],[8,\"1970-01-01T00:00:07.000000Z\"],[9,\"1970-01-01T00:00:08.000000Z\"],[10,\"1970-01-01T00:00:09.000000Z\"]],\"count\":10}");
+            assertSelect(largeSql, "{\"query\":\"select * from x\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"}],\"dataset\":[[1,\"1970-01-01T00:00:00.000000Z\"],[2,\"1970-01-01T00:00:01.000000Z\"],[3,\"1970-01-01T00:00:02.000000Z\"],[4,\"1970-01-01T00:00:03.000000Z\"],[5,\"1970-01-01T00:00:04.000000Z\"],[6,\"1970-01-01T00:00:05.000000Z\"],[7,\"1970-01-01T00:00:06.000000Z\"],[8,\"1970-01-01T00:00:07.000000Z\"],[9,\"1970-01-01T00:00:08.000000Z\"],[10,\"1970-01-01T00:00:09.000000Z\"]],\"count\":10}");
+            // large result is not kept, small one is still cached
+            Assert.assertEquals(memUsed, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+        });
+    }
+
+    @Test
+    public void testResultLargerThanBudgetIsStreamedWithoutRerun() throws Exception {
+        // ten rows fit the budget, the rest is streamed from the query cursor
+        testQueryResultCache(150, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(25)) timestamp(ts) partition by day");
+            final String sql = "select id from x where test_latched_counter()";
+            final StringBuilder dataset = new StringBuilder();
+            for (int i = 1; i <= 25; i++) {
+                dataset.append(i > 1 ? ",[" : "[").append(i).append(']');
+            }
+            final String expected = "{\"query\":\"select id from x where test_latched_counter()\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[" + dataset + "],\"count\":25}";
+
+            TestLatchedCounterFunctionFactory.reset(null);
+            assertSelect(sql, expected);
+            // query ran once, rows that did not fit were not computed again
+            Assert.assertEquals(25, TestLatchedCounterFunctionFactory.getCount());
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+
+            // tombstone stops the query from being materialized again
+            assertSelect(sql, expected);
+            Assert.assertEquals(50, TestLatchedCounterFunctionFactory.getCount());
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+        });
+    }
+
+    @Test
+    public void testTableColumnsInvalidatedBySchemaChange() throws Exception {
+        testQueryResultCache(1024 * 1024, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(2)) timestamp(ts) partition by day");
+            final String sql = "select column from table_columns('x')";
+            assertSelect(sql, "{\"query\":\"select column from table_columns('x')\",\"columns\":[{\"name\":\"column\",\"type\":\"STRING\"}],\"dataset\":[[\"id\"],[\"ts\"]],\"count\":2}");
+            Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE) > 0);
+
+            execute(engine, "alter table x add column v int");
+            assertSelect(sql, "{\"query\":\"select column from table_columns('x')\",\"columns\":[{\"name\":\"column\",\"type\":\"STRING\"}],\"dataset\":[[\"id\"],[\"ts\"],[\"v\"]],\"count\":3}");
+        });
+    }
+
+    @Test
+    public void testTableListIsNotCached() throws Exception {
+        testQueryResultCache(1024 * 1024, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(2)) timestamp(ts) partition by day");
+            final String sql = "select count() from all_tables()";
+            assertSelect(sql, "{\"query\":\"select count() from all_tables()\",\"columns\":[{\"name\":\"count\",\"type\":\"LONG\"}],\"dataset\":[[1]],\"count\":1}");
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+
+            // table list is not tracked by table versions, new table must show up
+            execute(engine, "create table y (id long)");
+            assertSelect(sql, "{\"query\":\"select count() from all_tables()\",\"columns\":[{\"name\":\"count\",\"type\":\"LONG\"}],\"dataset\":[[2]],\"count\":1}");
+        });
+    }
+
+    @Test
+    public void testNonDeterministicResultIsNotCached() throws Exception {
+        testQueryResultCache(1024 * 1024, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts) partition by day");
+            final String sql = "select id from x where ts < now()";
+            assertSelect(sql, "{\"query\":\"select id from x where ts < now()\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            assertSelect(sql, "{\"query\":\"select id from x where ts < now()\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+        });
+    }
+
+    @Test
+    public void testEntryLargerThanBudgetDoesNotEvictOthers() throws Exception {
+        testQueryResultCache(150, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(10)) timestamp(ts) partition by day");
+            final String sql = "select sum(id) s, count() c from x where id > 5";
+            assertSelect(sql, "{\"query\":\"select sum(id) s, count() c from x where id > 5\",\"columns\":[{\"name\":\"s\",\"type\":\"LONG\"},{\"name\":\"c\",\"type\":\"LONG\"}],\"dataset\":[[40,5]],\"count\":1}");
+            final long memUsed = Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE);
+            Assert.assertEquals(2 * Long.BYTES, memUsed);
+
+            // tombstone of this query alone is larger than the budget because of the SQL text
+            final String largeSql = "select * from x where id > 0 and id < 1000 and id != 12345 and id != 54321 and id != 99999";
+            assertSelect(largeSql, "{\"query\":\"select * from x where id > 0 and id < 1000 and id != 12345 and id != 54321 and id != 99999\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"},{\"name\":\"ts\",\"type\":\"TIMESTAMP\"}],\"dataset\":[[1,\"1970-01-01T00:00:00.000000Z\"],[2,\"1970-01-01T00:00:01.000000Z\"],[3,\"1970-01-01T00:00:02.000000Z\"],[4,\"1970-01-01T00:00:03.000000Z\"],[5,\"1970-01-01T00:00:04.000000Z\"],[6,\"1970-01-01T00:00:05.000000Z\"],[7,\"1970-01-01T00:00:06.000000Z\"],[8,\"1970-01-01T00:00:07.000000Z\"],[9,\"1970-01-01T00:00:08.000000Z\"],[10,\"1970-01-01T00:00:09.000000Z\"]],\"count\":10}");
+            Assert.assertEquals(memUsed, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+        });
+    }
+
+    @Test
+    public void testWallClockResultIsNotCached() throws Exception {
+        testQueryResultCache(1024 * 1024, engine -> {
+            execute(engine, "create table x as (select x id, timestamp_sequence(0, 1000000) ts from long_sequence(3)) timestamp(ts) partition by day");
+            final String sql1 = "select id from x where ts < systimestamp()";
+            assertSelect(sql1, "{\"query\":\"select id from x where ts < systimestamp()\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            assertSelect(sql1, "{\"query\":\"select id from x where ts < systimestamp()\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+
+            final String sql2 = "select id from x where cast(sysdate() as long) > 0";
+            assertSelect(sql2, "{\"query\":\"select id from x where cast(sysdate() as long) > 0\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            assertSelect(sql2, "{\"query\":\"select id from x where cast(sysdate() as long) > 0\",\"columns\":[{\"name\":\"id\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3]],\"count\":3}");
+            Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_QUERY_RESULT_CACHE));
+        });
+    }
+
+    private static void assertSelect(String sql, String expectedJson) throws InterruptedException {
+        // chunk size is sent as hex number with even count of digits
+        String chunkSize = Integer.toHexString(expectedJson.length());
+        if ((chunkSize.length() & 1) == 1) {
+            chunkSize = "0" + chunkSize;
+        }
+        new SendAndReceiveRequestBuilder()
+                .withNetworkFacade(NetworkFacadeImpl.INSTANCE)
+                .withExpectDisconnect(false)
+                .withRequestCount(1)
+                .execute(
+                        "GET /exec?query=" + HttpUtils.urlEncodeQuery(sql) + "&count=true HTTP/1.1\r\n" +
+                                "Host: localhost:9000\r\n" +
+                                "Connection: keep-alive\r\n" +
+                                "Accept: */*\r\n" +
+                                "\r\n",
+                        "HTTP/1.1 200 OK\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "Keep-Alive: timeout=5, max=10000\r\n" +
+                                "\r\n" +
+                                chunkSize + "\r\n" +
+                                expectedJson + "\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                );
+    }
+
+    private static void execute(CairoEngine engine, String ddl) throws SqlException {
+        try (
+                SqlCompiler compiler = new SqlCompiler(engine);
+                SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1)
+        ) {
+            compiler.compile(ddl, executionContext).execute(null).await();
+        }
+    }
+
+    private void testQueryResultCache(long size, HttpQueryTestBuilder.HttpClientCode code) throws Exception {
+        new HttpQueryTestBuilder()
+                .withWorkerCount(2)
+                .withTempFolder(temp)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .withQueryResultCache(size)
+                .run(code);
+    }
+}
@@ -66,6 +66,7 @@ public class HttpQueryTestBuilder {
     private QueryFutureUpdateListener queryFutureUpdateListener;
     private String copyInputRoot;
     private MicrosecondClock microsecondClock;
+    private long queryResultCacheSize;
 
     public int getWorkerCount() {
         return this.workerCount;
@@ -122,7 +123,8 @@ public class HttpQueryTestBuilder {
             }
             try (
                     CairoEngine engine = new CairoEngine(cairoConfiguration, metrics);
-                    HttpServer httpServer = new HttpServer(httpConfiguration, engine.getMessageBus(), metrics, workerPool)
+                    HttpServer httpServer = new HttpServer(httpConfiguration, engine.getMessageBus(), metrics, workerPool);
+                    QueryResultCache resultCache = queryResultCacheSize > 0 ? new QueryResultCache(engine, queryResultCacheSize) : null
             ) {
                 TelemetryJob telemetryJob = null;
                 if (telemetry) {
@@ -170,7 +172,8 @@ public class HttpQueryTestBuilder {
                                 httpConfiguration.getJsonQueryProcessorConfiguration(),
                                 engine,
                                 new SqlCompiler(engine),
-                                sqlExecutionContext
+                                sqlExecutionContext,
+                                resultCache
                         );
                     }
 
@@ -211,7 +214,15 @@ public class HttpQueryTestBuilder {
                 httpServer.bind(new HttpRequestProcessorFactory() {
                     @Override
                     public HttpRequestProcessor newInstance() {
-                        return new JsonQueryProcessor(httpConfiguration.getJsonQueryProcessorConfiguration(), engine, 1);
+                        return new JsonQueryProcessor(
+                                httpConfiguration.getJsonQueryProcessorConfiguration(),
+                                engine,
+                                1,
+                                1,
+                                null,
+                                null,
+                                resultCache
+                        );
                     }
 
                     @Override
@@ -287,6 +298,11 @@ public class HttpQueryTestBuilder {
         return this;
     }
 
+    public HttpQueryTestBuilder withQueryResultCache(long queryResultCacheSize) {
+        this.queryResultCacheSize = queryResultCacheSize;
+        return this;
+    }
+
     public HttpQueryTestBuilder withQueryFutureUpdateListener(QueryFutureUpdateListener queryFutureUpdateListener) {
         this.queryFutureUpdateListener = queryFutureUpdateListener;
         return this;
@@ -74,6 +74,8 @@ abstract class AbstractLineTcpReceiverFuzzTest extends AbstractLineTcpReceiverTe
     protected int numOfTables;
     protected long waitBetweenIterationsMillis;
     protected boolean pinTablesToThreads;
+    // percentage of lines sent to the first table on top of its uniform share, 0 to spread lines evenly
+    protected int dominantTablePercent;
 
     private SOCountDownLatch threadPushFinished;
     protected LowerCaseCharSequenceObjHashMap<TableData> tables;
@@ -347,7 +349,13 @@ abstract class AbstractLineTcpReceiverFuzzTest extends AbstractLineTcpReceiverTe
     }
 
     protected CharSequence pickTableName(int threadId) {
-        return getTableName(pinTablesToThreads ? threadId : random.nextInt(numOfTables), true);
+        if (pinTablesToThreads) {
+            return getTableName(threadId, true);
+        }
+        if (dominantTablePercent > 0 && random.nextInt(100) < dominantTablePercent) {
+            return getTableName(0, true);
+        }
+        return getTableName(random.nextInt(numOfTables), true);
     }
 
     void runTest() throws Exception {
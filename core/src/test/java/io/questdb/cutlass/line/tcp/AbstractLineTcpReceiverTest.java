@@ -88,6 +88,10 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     protected int msgBufferSize = 256 * 1024;
     protected long minIdleMsBeforeWriterRelease = 30000;
     protected long maintenanceInterval = 25;
+    protected long writerRebalanceLatencyThreshold = 0;
+    protected double writerRebalanceLatencyRatio = 2.0;
+    protected boolean columnarAppendEnabled = true;
+    protected boolean compressionEnabled = false;
     protected double commitIntervalFraction = 0.5;
     protected long commitIntervalDefault = 2000;
     protected boolean disconnectOnError = false;
@@ -154,11 +158,31 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
             return minIdleMsBeforeWriterRelease;
         }
 
+        @Override
+        public double getWriterRebalanceLatencyRatio() {
+            return writerRebalanceLatencyRatio;
+        }
+
+        @Override
+        public long getWriterRebalanceLatencyThreshold() {
+            return writerRebalanceLatencyThreshold;
+        }
+
         @Override
         public boolean isSymbolAsFieldSupported() {
             return symbolAsFieldSupported;
         }
 
+        @Override
+        public boolean isColumnarAppendEnabled() {
+            return columnarAppendEnabled;
+        }
+
+        @Override
+        public boolean isCompressionEnabled() {
+            return compressionEnabled;
+        }
+
         @Override
         public NetworkFacade getNetworkFacade() {
             return nf;
@@ -277,7 +301,10 @@ public class AbstractLineTcpReceiverTest extends AbstractCairoTest {
     }
 
     protected void sendToSocket(Socket socket, String lineData) {
-        byte[] lineDataBytes = lineData.getBytes(StandardCharsets.UTF_8);
+        sendToSocket(socket, lineData.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected void sendToSocket(Socket socket, byte[] lineDataBytes) {
         long bufaddr = Unsafe.malloc(lineDataBytes.length, MemoryTag.NATIVE_DEFAULT);
         try {
             for (int n = 0; n < lineDataBytes.length; n++) {
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.std.LongList;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LineTcpMeasurementSchedulerTest {
+
+    @Test
+    public void testDominantTableEndsUpAloneOnItsThread() {
+        // one table gets 60% of events, eight tables share the rest,
+        // tables are initially assigned to 4 writer threads round-robin
+        final long[] tableLoads = {60, 5, 5, 5, 5, 5, 5, 5, 5};
+        final int threadCount = 4;
+        final int[] threadIds = new int[tableLoads.length];
+        for (int i = 0; i < tableLoads.length; i++) {
+            threadIds[i] = i % threadCount;
+        }
+
+        int moves = 0;
+        while (rebalance(tableLoads, threadIds, threadCount)) {
+            moves++;
+            Assert.assertTrue(moves < tableLoads.length);
+            // the dominant table is never moved
+            Assert.assertEquals(0, threadIds[0]);
+        }
+        Assert.assertEquals(2, moves);
+
+        // the dominant table has its thread to itself, the thread remains the busiest one
+        // since a single table is not split between writer threads
+        final long[] threadLoads = threadLoads(tableLoads, threadIds, threadCount);
+        for (int i = 1; i < tableLoads.length; i++) {
+            Assert.assertNotEquals(0, threadIds[i]);
+        }
+        Assert.assertEquals(60, threadLoads[0]);
+        for (int i = 1; i < threadCount; i++) {
+            Assert.assertTrue(threadLoads[i] >= 10 && threadLoads[i] <= 15);
+        }
+    }
+
+    @Test
+    public void testSelectTableToMove() {
+        final LongList loads = new LongList();
+        // table alone on its thread is never moved
+        loads.add(100);
+        Assert.assertEquals(-1, LineTcpMeasurementScheduler.selectTableToMove(loads, 100));
+
+        // table that halves the difference is the best fit
+        loads.add(10);
+        loads.add(40);
+        loads.add(55);
+        Assert.assertEquals(2, LineTcpMeasurementScheduler.selectTableToMove(loads, 80));
+
+        // no table is moved if receiving thread would end up busier than the current one
+        loads.clear();
+        loads.add(60);
+        loads.add(60);
+        Assert.assertEquals(-1, LineTcpMeasurementScheduler.selectTableToMove(loads, 50));
+    }
+
+    private static boolean rebalance(long[] tableLoads, int[] threadIds, int threadCount) {
+        final long[] threadLoads = threadLoads(tableLoads, threadIds, threadCount);
+        int busiest = 0;
+        int idlest = 0;
+        for (int i = 1; i < threadCount; i++) {
+            if (threadLoads[i] > threadLoads[busiest]) {
+                busiest = i;
+            }
+            if (threadLoads[i] < threadLoads[idlest]) {
+                idlest = i;
+            }
+        }
+
+        final LongList candidateLoads = new LongList();
+        final LongList candidates = new LongList();
+        for (int i = 0; i < tableLoads.length; i++) {
+            if (threadIds[i] == busiest) {
+                candidates.add(i);
+                candidateLoads.add(tableLoads[i]);
+            }
+        }
+        final int index = LineTcpMeasurementScheduler.selectTableToMove(candidateLoads, threadLoads[busiest] - threadLoads[idlest]);
+        if (index > -1) {
+            threadIds[(int) candidates.getQuick(index)] = idlest;
+            return true;
+        }
+        return false;
+    }
+
+    private static long[] threadLoads(long[] tableLoads, int[] threadIds, int threadCount) {
+        final long[] threadLoads = new long[threadCount];
+        for (int i = 0; i < tableLoads.length; i++) {
+            threadLoads[threadIds[i]] += tableLoads[i];
+        }
+        return threadLoads;
+    }
+}
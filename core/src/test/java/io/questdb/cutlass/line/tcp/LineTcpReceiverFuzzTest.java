@@ -93,6 +93,28 @@ public class LineTcpReceiverFuzzTest extends AbstractLineTcpReceiverFuzzTest {
         runTest();
     }
 
+    @Test
+    public void testLoadWithWriterRebalancingAndDominantTable() throws Exception {
+        // most of the lines go to a single table, which is never split between writer threads,
+        // the rest of the tables keep moving around it
+        writerRebalanceLatencyThreshold = 1;
+        writerRebalanceLatencyRatio = 1.0;
+        maintenanceInterval = 1;
+        dominantTablePercent = 60;
+        initLoadParameters(100, Os.type == Os.WINDOWS ? 3 : 5, 7, 12, 20);
+        runTest();
+    }
+
+    @Test
+    public void testLoadWithWriterRebalancing() throws Exception {
+        // tables move between writer threads whenever one of the threads has any queue latency
+        writerRebalanceLatencyThreshold = 1;
+        writerRebalanceLatencyRatio = 1.0;
+        maintenanceInterval = 1;
+        initLoadParameters(100, Os.type == Os.WINDOWS ? 3 : 5, 7, 12, 20);
+        runTest();
+    }
+
     @Test
     public void testReorderingAddSkipDuplicateColumnsWithNonAsciiNoTagsStringsAsSymbol() throws Exception {
         initLoadParameters(100, Os.type == Os.WINDOWS ? 3 : 5, 5, 5, 50);
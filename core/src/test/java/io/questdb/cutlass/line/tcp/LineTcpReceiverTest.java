@@ -56,6 +56,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
@@ -65,6 +67,7 @@ import java.security.interfaces.ECPublicKey;
 import java.util.Base64;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
+import java.util.zip.Deflater;
 
 import static io.questdb.cutlass.line.tcp.AuthDb.EC_ALGORITHM;
 
@@ -163,6 +166,157 @@ public class LineTcpReceiverTest extends AbstractLineTcpReceiverTest {
         }, false, 250);
     }
 
+    @Test
+    public void testColumnarAppendAllColumnTypes() throws Exception {
+        // every entity type the row by row path writes goes through the columnar batch too
+        try (TableModel m = new TableModel(configuration, "all_types", PartitionBy.DAY)) {
+            m.col("sym", ColumnType.SYMBOL)
+                    .col("b", ColumnType.BOOLEAN)
+                    .col("bt", ColumnType.BYTE)
+                    .col("sh", ColumnType.SHORT)
+                    .col("ch", ColumnType.CHAR)
+                    .col("i", ColumnType.INT)
+                    .col("l", ColumnType.LONG)
+                    .col("dt", ColumnType.DATE)
+                    .col("ts", ColumnType.TIMESTAMP)
+                    .col("f", ColumnType.FLOAT)
+                    .col("d", ColumnType.DOUBLE)
+                    .col("s", ColumnType.STRING)
+                    .col("l256", ColumnType.LONG256)
+                    .col("g1", ColumnType.getGeoHashTypeWithBits(5))
+                    .col("g2", ColumnType.getGeoHashTypeWithBits(10))
+                    .col("g4", ColumnType.getGeoHashTypeWithBits(20))
+                    .col("g7", ColumnType.getGeoHashTypeWithBits(35))
+                    .timestamp();
+            CairoTestUtils.createTable(m, ColumnType.VERSION);
+        }
+
+        final String lines = "all_types,sym=a b=true,bt=1i,sh=2i,ch=\"c\",i=3i,l=4i,dt=100i,ts=100t,f=1.5,d=2.5,s=\"str\",l256=0x0150i,g1=\"q\",g2=\"qu\",g4=\"ques\",g7=\"questdb\" 1000000000\n" +
+                "all_types,sym=a b=false,bt=-1i,sh=-2i,ch=\"d\",i=-3i,l=-4i,dt=200i,ts=200t,f=-1.5,d=-2.5,s=\"str2\",l256=0x0250i,g1=\"u\",g2=\"ue\",g4=\"uest\",g7=\"uestdbq\" 2000000000\n";
+        final String expected = "sym\tb\tbt\tsh\tch\ti\tl\tdt\tts\tf\td\ts\tl256\tg1\tg2\tg4\tg7\ttimestamp\n" +
+                "a\ttrue\t1\t2\tc\t3\t4\t1970-01-01T00:00:00.100Z\t1970-01-01T00:00:00.000100Z\t1.5000\t2.5\tstr\t0x0150\tq\tqu\tques\tquestdb\t1970-01-01T00:00:01.000000Z\n" +
+                "a\tfalse\t-1\t-2\td\t-3\t-4\t1970-01-01T00:00:00.200Z\t1970-01-01T00:00:00.000200Z\t-1.5000\t-2.5\tstr2\t0x0250\tu\tue\tuest\tuestdbq\t1970-01-01T00:00:02.000000Z\n";
+        runInContext((receiver) -> {
+            sendLinger(receiver, lines, "all_types");
+            assertTable(expected, "all_types");
+        });
+    }
+
+    @Test
+    public void testColumnarAppendWideTable() throws Exception {
+        final int columnCount = 60;
+        final int rowCount = 500;
+        maxMeasurementSize = 4096;
+        try (TableModel m = new TableModel(configuration, "wide", PartitionBy.DAY)) {
+            m.col("tag", ColumnType.SYMBOL);
+            for (int c = 0; c < columnCount; c++) {
+                switch (c % 3) {
+                    case 0:
+                        m.col("l" + c, ColumnType.LONG);
+                        break;
+                    case 1:
+                        m.col("d" + c, ColumnType.DOUBLE);
+                        break;
+                    default:
+                        m.col("s" + c, ColumnType.STRING);
+                        break;
+                }
+            }
+            m.timestamp();
+            CairoTestUtils.createTable(m, ColumnType.VERSION);
+        }
+
+        final StringSink lines = new StringSink();
+        final StringSink expected = new StringSink();
+        expected.put("tag");
+        for (int c = 0; c < columnCount; c++) {
+            expected.put('\t').put("lds".charAt(c % 3)).put(c);
+        }
+        expected.put("\ttimestamp\n");
+        for (int i = 0; i < rowCount; i++) {
+            // consecutive lines repeat the tag, every line misses some of the fields
+            final String tag = "tag" + (i / 10) % 3;
+            lines.put("wide,tag=").put(tag);
+            expected.put(tag);
+            char separator = ' ';
+            for (int c = 0; c < columnCount; c++) {
+                expected.put('\t');
+                if ((i + c) % 7 == 0) {
+                    expected.put(c % 3 == 2 ? "" : "NaN");
+                    continue;
+                }
+                lines.put(separator).put("lds".charAt(c % 3)).put(c).put('=');
+                separator = ',';
+                switch (c % 3) {
+                    case 0:
+                        lines.put(i * 100L + c).put('i');
+                        expected.put(i * 100L + c);
+                        break;
+                    case 1:
+                        lines.put(i + 0.5);
+                        expected.put(i + 0.5);
+                        break;
+                    default:
+                        lines.put('"').put("v").put(i).put('_').put(c).put('"');
+                        expected.put("v").put(i).put('_').put(c);
+                        break;
+                }
+            }
+            lines.put(' ').put(i * Timestamps.SECOND_MICROS * 1000L).put('\n');
+            expected.put('\t');
+            TimestampFormatUtils.appendDateTimeUSec(expected, i * Timestamps.SECOND_MICROS);
+            expected.put('\n');
+        }
+
+        runInContext((receiver) -> {
+            sendLinger(receiver, lines.toString(), "wide");
+            assertTable(expected, "wide");
+        });
+    }
+
+    @Test
+    public void testCompressedStream() throws Exception {
+        compressionEnabled = true;
+        final int rowCount = 1000;
+        final StringSink lines = new StringSink();
+        final StringSink expected = new StringSink();
+        expected.put("location\ttemperature\ttimestamp\n");
+        for (int i = 0; i < rowCount; i++) {
+            final String location = i % 2 == 0 ? "us-midwest" : "eu-west";
+            lines.put("weather,location=").put(location)
+                    .put(" temperature=").put(i).put(".5 ")
+                    .put(i * Timestamps.SECOND_MICROS * 1000L).put('\n');
+            expected.put(location).put('\t').put(i).put(".5\t");
+            TimestampFormatUtils.appendDateTimeUSec(expected, i * Timestamps.SECOND_MICROS);
+            expected.put('\n');
+        }
+
+        final byte[] raw = lines.toString().getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        // sender finishes zlib stream in the middle of a line and starts new one
+        deflate(compressed, raw, 0, raw.length / 2);
+        deflate(compressed, raw, raw.length / 2, raw.length - raw.length / 2);
+        final byte[] handshake = LineTcpConnectionContext.COMPRESSION_HANDSHAKE.getBytes(StandardCharsets.UTF_8);
+        final byte[] data = new byte[handshake.length + compressed.size()];
+        System.arraycopy(handshake, 0, data, 0, handshake.length);
+        System.arraycopy(compressed.toByteArray(), 0, data, handshake.length, compressed.size());
+
+        final long compressedBytes = metrics.lineTcp().compressedBytesCounter().getValue();
+        final long inflatedBytes = metrics.lineTcp().inflatedBytesCounter().getValue();
+        runInContext((receiver) -> {
+            send(receiver, "weather", WAIT_ENGINE_TABLE_RELEASE, () -> {
+                try (Socket socket = getSocket()) {
+                    sendToSocket(socket, data);
+                } catch (Exception e) {
+                    Assert.fail("Data sending failed [e=" + e + "]");
+                }
+            });
+            assertTable(expected, "weather");
+        });
+        Assert.assertEquals(compressed.size(), metrics.lineTcp().compressedBytesCounter().getValue() - compressedBytes);
+        Assert.assertEquals(raw.length, metrics.lineTcp().inflatedBytesCounter().getValue() - inflatedBytes);
+    }
+
     @Test
     public void testCrossingSymbolBoundary() throws Exception {
         String tableName = "punk";
@@ -1015,6 +1169,20 @@ public class LineTcpReceiverTest extends AbstractLineTcpReceiverTest {
         });
     }
 
+    private static void deflate(ByteArrayOutputStream out, byte[] bytes, int offset, int len) {
+        final Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes, offset, len);
+            deflater.finish();
+            final byte[] buf = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
     private void send(LineTcpReceiver receiver, String lineData, String tableName, int wait) {
         send(receiver, tableName, wait, () -> sendToSocket(lineData));
     }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.LineUdpSender;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class LineUdpShardedReceiverTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(LineUdpShardedReceiverTest.class);
+
+    @Test
+    public void testLinesAreRoutedByTable() {
+        final String lines = "tab,colour=blue size=1.0 1\n" +
+                "TAB,colour=red size=2.0 2\r\n" +
+                "t\\ ab,colour=blue size=3.0 3\n" +
+                "tab,colour=\"a\\\nb\" size=4.0 4";
+        final byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        final long lo = Unsafe.malloc(bytes.length, MemoryTag.NATIVE_DEFAULT);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(lo + i, bytes[i]);
+            }
+            final long hi = lo + bytes.length;
+
+            final long line2 = LineUdpShardedReceiver.lineEnd(lo, hi);
+            final long line3 = LineUdpShardedReceiver.lineEnd(line2, hi);
+            final long line4 = LineUdpShardedReceiver.lineEnd(line3, hi);
+            Assert.assertEquals(lines.indexOf("TAB"), line2 - lo);
+            // both line breaks belong to the second line
+            Assert.assertEquals(lines.indexOf("t\\ ab"), line3 - lo);
+            Assert.assertEquals(lines.lastIndexOf("tab"), line4 - lo);
+            // escaped line break does not end the line
+            Assert.assertEquals(hi, LineUdpShardedReceiver.lineEnd(line4, hi));
+
+            // table names are case-insensitive
+            final LineUdpShardedReceiver.LowerCaseHashSink hashSink = new LineUdpShardedReceiver.LowerCaseHashSink();
+            for (int writerCount = 1; writerCount < 16; writerCount++) {
+                final int index = LineUdpShardedReceiver.writerIndex(lo, hi, writerCount, hashSink);
+                Assert.assertTrue(index < writerCount);
+                Assert.assertEquals(index, LineUdpShardedReceiver.writerIndex(line2, hi, writerCount, hashSink));
+                Assert.assertEquals(index, LineUdpShardedReceiver.writerIndex(line4, hi, writerCount, hashSink));
+            }
+        } finally {
+            Unsafe.free(lo, bytes.length, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    @Test
+    public void testNonAsciiTableNamesAreRoutedCaseInsensitive() {
+        final String lines = "таблица_Ä,colour=blue size=1.0 1\n" +
+                "ТАБЛИЦА_ä,colour=red size=2.0 2\n" +
+                "Таблица\\ _ä,colour=red size=3.0 3\n";
+        final byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        final long lo = Unsafe.malloc(bytes.length, MemoryTag.NATIVE_DEFAULT);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(lo + i, bytes[i]);
+            }
+            final long hi = lo + bytes.length;
+            final long line2 = LineUdpShardedReceiver.lineEnd(lo, hi);
+            final long line3 = LineUdpShardedReceiver.lineEnd(line2, hi);
+
+            final LineUdpShardedReceiver.LowerCaseHashSink hashSink = new LineUdpShardedReceiver.LowerCaseHashSink();
+            final int hash = Chars.lowerCaseHashCode("таблица_ä");
+            Assert.assertEquals(hash & Integer.MAX_VALUE, LineUdpShardedReceiver.writerIndex(lo, hi, Integer.MAX_VALUE, hashSink));
+            Assert.assertEquals(hash & Integer.MAX_VALUE, LineUdpShardedReceiver.writerIndex(line2, hi, Integer.MAX_VALUE, hashSink));
+            Assert.assertEquals(
+                    Chars.lowerCaseHashCode("таблица _ä") & Integer.MAX_VALUE,
+                    LineUdpShardedReceiver.writerIndex(line3, hi, Integer.MAX_VALUE, hashSink)
+            );
+        } finally {
+            Unsafe.free(lo, bytes.length, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    @Test
+    public void testReceive() throws Exception {
+        final int tableCount = 4;
+        final int rowCount = 100;
+        final LineUdpReceiverConfiguration receiverCfg = new DefaultLineUdpReceiverConfiguration() {
+            @Override
+            public int getReceiverCount() {
+                return 2;
+            }
+
+            @Override
+            public boolean isUnicast() {
+                return true;
+            }
+        };
+
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                for (int t = 0; t < tableCount; t++) {
+                    try (TableModel model = new TableModel(configuration, "tab" + t, PartitionBy.NONE)
+                            .col("colour", ColumnType.SYMBOL)
+                            .col("size", ColumnType.DOUBLE)
+                            .timestamp()) {
+                        CairoTestUtils.create(model);
+                    }
+                }
+
+                final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                    @Override
+                    public int getWorkerCount() {
+                        return 2;
+                    }
+                }, metrics.health());
+
+                try (LineUdpShardedReceiver ignored = new LineUdpShardedReceiver(receiverCfg, engine, workerPool)) {
+                    workerPool.start(LOG);
+                    try {
+                        try (LineUdpSender sender = new LineUdpSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("127.0.0.1"), receiverCfg.getPort(), 1400, 1)) {
+                            // lines of different tables share datagrams
+                            for (int i = 0; i < rowCount; i++) {
+                                sender.metric("tab" + (i % tableCount)).tag("colour", "blue").field("size", 3.4).$(100000000000L);
+                            }
+                            sender.flush();
+                        }
+
+                        for (int t = 0; t < tableCount; t++) {
+                            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "tab" + t)) {
+                                int count = 1000000;
+                                while (count-- > 0 && reader.size() < rowCount / tableCount) {
+                                    Os.pause();
+                                    reader.reload();
+                                }
+                                Assert.assertEquals(rowCount / tableCount, reader.size());
+                            }
+                        }
+                    } finally {
+                        workerPool.halt();
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.text.Atomicity;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class PGCopyInProcessorTest extends AbstractGriffinTest {
+
+    @Test
+    public void testBinary() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final ByteBuffer buf = ByteBuffer.allocate(256);
+            buf.put("PGCOPY\n".getBytes(StandardCharsets.US_ASCII)).put((byte) 0xff).put((byte) '\r').put((byte) '\n').put((byte) 0);
+            buf.putInt(0).putInt(0);
+            // int4, text and timestamp
+            buf.putShort((short) 3);
+            buf.putInt(4).putInt(42);
+            buf.putInt(3).put("abc".getBytes(StandardCharsets.UTF_8));
+            buf.putInt(8).putLong(1_000_000L - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+            // int8 and NULL
+            buf.putShort((short) 3);
+            buf.putInt(8).putLong(7);
+            buf.putInt(-1);
+            buf.putInt(8).putLong(2_000_000L - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+            buf.putShort((short) -1);
+            final byte[] bytes = new byte[buf.position()];
+            buf.flip();
+            buf.get(bytes);
+
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                processor.of(getWriter(), CopyModel.FORMAT_BINARY, (byte) -1, false, Atomicity.SKIP_ALL);
+                Assert.assertEquals(2, copy(processor, bytes, 5));
+                processor.clear();
+            }
+            assertSql(
+                    "a\tb\tts\n" +
+                            "42\tabc\t1970-01-01T00:00:01.000000Z\n" +
+                            "7\t\t1970-01-01T00:00:02.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCsvWithHeader() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                processor.of(getWriter(), CopyModel.FORMAT_CSV, (byte) -1, true, Atomicity.SKIP_ALL);
+                Assert.assertEquals(
+                        2,
+                        copy(
+                                processor,
+                                "a,b,ts\r\n1,\"x,\"\"y\"\"\",1970-01-01T00:00:01.000000Z\r\n,,1970-01-01T00:00:02.000000Z",
+                                3
+                        )
+                );
+                processor.clear();
+            }
+            assertSql(
+                    "a\tb\tts\n" +
+                            "1\tx,\"y\"\t1970-01-01T00:00:01.000000Z\n" +
+                            "NaN\t\t1970-01-01T00:00:02.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testSkipAllRollsBack() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                processor.of(getWriter(), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ALL);
+                try {
+                    copy(processor, "1\tx\t1970-01-01T00:00:01.000000Z\nabc\ty\t1970-01-01T00:00:02.000000Z\n", 7);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "bad value [line=2, column=a]");
+                }
+                processor.clear();
+            }
+            assertSql("a\tb\tts\n");
+        });
+    }
+
+    @Test
+    public void testSkipAllRollsBackPastBatchSize() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 25; i++) {
+                text.append(i).append('\t').append("s").append(i).append('\t').append(i).append('\n');
+            }
+            text.append("abc\tz\t25\n");
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 10)) {
+                processor.of(getWriter(), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ALL);
+                try {
+                    copy(processor, text.toString(), 16);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "bad value [line=26, column=a]");
+                }
+                processor.clear();
+            }
+            assertSql("select count() from x", "count\n0\n");
+        });
+    }
+
+    @Test
+    public void testSkipRow() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                processor.of(getWriter(), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ROW);
+                Assert.assertEquals(
+                        2,
+                        copy(
+                                processor,
+                                "1\tx\t1970-01-01T00:00:01.000000Z\n" +
+                                        "abc\ty\t1970-01-01T00:00:02.000000Z\n" +
+                                        "2\ty\n" +
+                                        "3\tz\tbad\n" +
+                                        "4\tw\t1970-01-01T00:00:03.000000Z\n",
+                                4
+                        )
+                );
+                processor.clear();
+            }
+            assertSql(
+                    "a\tb\tts\n" +
+                            "1\tx\t1970-01-01T00:00:01.000000Z\n" +
+                            "4\tw\t1970-01-01T00:00:03.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testTextBatchCommit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 25; i++) {
+                text.append(i).append('\t').append("s").append(i).append('\t').append(i).append('\n');
+            }
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 10)) {
+                // ON ERROR ABORT commits once at the end, skip modes commit in batches
+                processor.of(getWriter(), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ROW);
+                final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+                final long mem = Unsafe.malloc(bytes.length, MemoryTag.NATIVE_DEFAULT);
+                try {
+                    for (int i = 0; i < bytes.length; i++) {
+                        Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+                    }
+                    processor.onData(mem, mem + bytes.length);
+                    // two batches are committed already, the rest is rolled back
+                    processor.clear();
+                } finally {
+                    Unsafe.free(mem, bytes.length, MemoryTag.NATIVE_DEFAULT);
+                }
+            }
+            assertSql("select count() from x", "count\n20\n");
+        });
+    }
+
+    @Test
+    public void testTextEscapesAndNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                processor.of(getWriter(), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ALL);
+                Assert.assertEquals(
+                        3,
+                        copy(
+                                processor,
+                                "1\ta\\tb\\\\c\\nd\t1970-01-01T00:00:01.000000Z\n" +
+                                        "\\N\t\\N\t1970-01-01T00:00:02.000000Z\r\n" +
+                                        "3\tжц\t1970-01-01T00:00:03.000000Z\n" +
+                                        "\\.\n" +
+                                        "4\tignored\t1970-01-01T00:00:04.000000Z\n",
+                                2
+                        )
+                );
+                processor.clear();
+            }
+            assertSql(
+                    "a\tb\tts\n" +
+                            "1\ta\tb\\c\nd\t1970-01-01T00:00:01.000000Z\n" +
+                            "NaN\t\t1970-01-01T00:00:02.000000Z\n" +
+                            "3\tжц\t1970-01-01T00:00:03.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedColumnType() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (a int, l long128)", sqlExecutionContext);
+            try (PGCopyInProcessor processor = new PGCopyInProcessor(configuration, 1000)) {
+                try {
+                    processor.of(engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "y", "test"), CopyModel.FORMAT_TEXT, (byte) -1, false, Atomicity.SKIP_ALL);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "COPY FROM STDIN does not support column type [column=l");
+                }
+                processor.clear();
+            }
+        });
+    }
+
+    private static void assertSql(String expected) throws Exception {
+        assertSql("x", expected);
+    }
+
+    private static void assertSql(String sql, String expected) throws Exception {
+        TestUtils.assertSql(compiler, sqlExecutionContext, sql, sink, expected);
+    }
+
+    private static long copy(PGCopyInProcessor processor, String text, int chunkSize) {
+        return copy(processor, text.getBytes(StandardCharsets.UTF_8), chunkSize);
+    }
+
+    // sends data in small chunks to make rows span CopyData messages
+    private static long copy(PGCopyInProcessor processor, byte[] bytes, int chunkSize) {
+        final long mem = Unsafe.malloc(bytes.length, MemoryTag.NATIVE_DEFAULT);
+        try {
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(mem + i, bytes[i]);
+            }
+            for (int lo = 0; lo < bytes.length; lo += chunkSize) {
+                processor.onData(mem + lo, mem + Math.min(lo + chunkSize, bytes.length));
+            }
+            return processor.onDone();
+        } finally {
+            Unsafe.free(mem, bytes.length, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private static void createTable() throws Exception {
+        compiler.compile("create table x (a int, b string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+
+    private static TableWriter getWriter() {
+        return engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test");
+    }
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cutlass.NetUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.network.NetworkFacadeImpl;
+import org.junit.Test;
+
+public class PGCopyOutTest extends BasePGTest {
+    private static final Log LOG = LogFactory.getLog(PGCopyOutTest.class);
+    // startup as admin/quest followed by the login response
+    private static final String LOGIN_SCRIPT = ">0000003900030000636c69656e745f656e636f64696e6700277574662d382700757365720061646d696e006461746162617365007164620000\n" +
+            "<520000000800000003\n" +
+            ">700000000a717565737400\n" +
+            "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638005a0000000549\n";
+
+    @Test
+    public void testCopyQueryToStdoutBinary() throws Exception {
+        // copy (select * from x where ts < '2022-01-01T00:00:02') to stdout (format binary)
+        assertCopyOut(
+                ">5100000056636f7079202873656c656374202a2066726f6d2078207768657265207473203c2027323032322d30312d30315430303a30303a3032272920746f207374646f75742028666f726d61742062696e6172792900\n" +
+                        "<480000000d010003000100010001640000004e5047434f50590aff0d0a00000000000000000000030000000400000001000000056109625c630000000800027778bcc180000003ffffffffffffffff0000000800027778bcd0c240ffff6300000004430000000b434f50592032005a0000000549\n",
+                getStdPgWireConfig()
+        );
+    }
+
+    @Test
+    public void testCopyQueryToStdoutInChunks() throws Exception {
+        // copy (select x from long_sequence(100)) to stdout
+        // rows do not fit into the send buffer and are sent in two CopyData messages
+        assertCopyOut(
+                ">5100000036636f7079202873656c65637420782066726f6d206c6f6e675f73657175656e636528313030292920746f207374646f757400\n" +
+                        "<4800000009000001000064000000f4310a320a330a340a350a360a370a380a390a31300a31310a31320a31330a31340a31350a31360a31370a31380a31390a32300a32310a32320a32330a32340a32350a32360a32370a32380a32390a33300a33310a33320a33330a33340a33350a33360a33370a33380a33390a34300a34310a34320a34330a34340a34350a34360a34370a34380a34390a35300a35310a35320a35330a35340a35350a35360a35370a35380a35390a36300a36310a36320a36330a36340a36350a36360a36370a36380a36390a37300a37310a37320a37330a37340a37350a37360a37370a37380a37390a38300a38310a38320a38330a\n" +
+                        "<640000003838340a38350a38360a38370a38380a38390a39300a39310a39320a39330a39340a39350a39360a39370a39380a39390a3130300a6300000004430000000d434f50592031303000" +
+                        "5a0000000549\n",
+                new Port0PGWireConfiguration() {
+                    @Override
+                    public int getSendBufferSize() {
+                        return 256;
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testCopyQueryToStdoutText() throws Exception {
+        // copy (select * from x) to stdout
+        assertCopyOut(
+                ">5100000025636f7079202873656c656374202a2066726f6d20782920746f207374646f757400\n" +
+                        "<480000000d000003000000000000640000006d3109615c74625c5c6309323032322d30312d30312030303a30303a30302e3030303030300a5c4e095c4e09323032322d30312d30312030303a30303a30312e3030303030300a3309782c22792209323032322d30312d30312030303a30303a30322e3030303030300a6300000004430000000b434f50592033005a0000000549\n",
+                getStdPgWireConfig()
+        );
+    }
+
+    @Test
+    public void testCopyTableToStdoutCsvWithHeader() throws Exception {
+        // copy x to stdout with (format csv, header true)
+        assertCopyOut(
+                ">5100000034636f7079207820746f207374646f757420776974682028666f726d6174206373762c2068656164657220747275652900\n" +
+                        "<480000000d0000030000000000006400000072612c622c74730a312c6109625c632c323032322d30312d30312030303a30303a30302e3030303030300a2c2c323032322d30312d30312030303a30303a30312e3030303030300a332c22782c2222792222222c323032322d30312d30312030303a30303a30322e3030303030300a6300000004430000000b434f50592033005a0000000549\n",
+                getStdPgWireConfig()
+        );
+    }
+
+    private void assertCopyOut(String script, PGWireConfiguration configuration) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (a int, b string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values (1, 'a\tb\\c', '2022-01-01T00:00:00.000000Z')");
+            executeInsert("insert into x values (null, null, '2022-01-01T00:00:01.000000Z')");
+            executeInsert("insert into x values (3, 'x,\"y\"', '2022-01-01T00:00:02.000000Z')");
+            try (
+                    PGWireServer server = createPGServer(configuration);
+                    WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                NetUtils.playScript(NetworkFacadeImpl.INSTANCE, LOGIN_SCRIPT + script, "127.0.0.1", server.getPort());
+            }
+        });
+    }
+}
@@ -61,8 +61,10 @@ import org.postgresql.core.BaseConnection;
 import org.postgresql.util.PGTimestamp;
 import org.postgresql.util.PSQLException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.GregorianCalendar;
@@ -1256,6 +1258,108 @@ if __name__ == "__main__":
         });
     }
 
+    @Test
+    public void testBatchInsertPipelineDiscardsExecutesAfterFailure() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL & ~(CONN_AWARE_SIMPLE_TEXT | CONN_AWARE_SIMPLE_BINARY), (connection, binary) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test (id long, ts timestamp) timestamp(ts)");
+                statement.executeUpdate("create table test2 (id long, ts timestamp) timestamp(ts) partition by DAY");
+            }
+
+            // the second insert fails, the inserts before and after it must not be committed
+            try (
+                    PreparedStatement insert = connection.prepareStatement("insert into test(id,ts) values(?,?)");
+                    PreparedStatement insert2 = connection.prepareStatement("insert into test2(id,ts) values(?,?)")
+            ) {
+                insert2.setLong(1, 0L);
+                insert2.setTimestamp(2, new Timestamp(1_000L));
+                insert2.executeUpdate();
+
+                insert.setLong(1, 1L);
+                insert.setTimestamp(2, new Timestamp(2_000L));
+                insert.addBatch();
+                // out of order row in not partitioned table
+                insert.setLong(1, 2L);
+                insert.setTimestamp(2, new Timestamp(1_000L));
+                insert.addBatch();
+                insert.setLong(1, 3L);
+                insert.setTimestamp(2, new Timestamp(3_000L));
+                insert.addBatch();
+                insert.setLong(1, 4L);
+                insert.setTimestamp(2, new Timestamp(4_000L));
+                insert.addBatch();
+                try {
+                    insert.executeBatch();
+                    Assert.fail();
+                } catch (BatchUpdateException e) {
+                    LOG.error().$(e).$();
+                }
+
+                // the connection is usable after Sync
+                insert2.setLong(1, 5L);
+                insert2.setTimestamp(2, new Timestamp(5_000L));
+                insert2.executeUpdate();
+            }
+
+            StringSink sink = new StringSink();
+            try (ResultSet rs = connection.createStatement().executeQuery("select count() from test")) {
+                assertResultSet("count[BIGINT]\n0\n", sink, rs);
+            }
+            sink.clear();
+            try (ResultSet rs = connection.createStatement().executeQuery("select id from test2")) {
+                assertResultSet("id[BIGINT]\n0\n5\n", sink, rs);
+            }
+        });
+    }
+
+    @Test
+    public void testBatchInsertPipelinedWithAutoCommit() throws Exception {
+        assertWithPgServer(CONN_AWARE_ALL & ~(CONN_AWARE_SIMPLE_TEXT | CONN_AWARE_SIMPLE_BINARY), (connection, binary) -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("create table test (id long, ts timestamp) timestamp(ts) partition by DAY");
+                statement.executeUpdate("create table test2 (id long, ts timestamp) timestamp(ts)");
+            }
+
+            // inserts up to Sync are committed as one transaction, out of order rows included
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test(id,ts) values(?,?)")) {
+                for (int i = 0; i < 100; i++) {
+                    batchInsert.setLong(1, i);
+                    batchInsert.setTimestamp(2, new Timestamp((i % 2 == 0 ? 100 - i : i) * 1000L));
+                    batchInsert.addBatch();
+                }
+                int[] a = batchInsert.executeBatch();
+                Assert.assertEquals(100, a.length);
+                for (int i = 0; i < a.length; i++) {
+                    Assert.assertEquals(1, a[i]);
+                }
+            }
+
+            StringSink sink = new StringSink();
+            try (ResultSet rs = connection.createStatement().executeQuery("select count() from test")) {
+                assertResultSet("count[BIGINT]\n100\n", sink, rs);
+            }
+
+            // out of order row fails the whole pipeline
+            try (PreparedStatement batchInsert = connection.prepareStatement("insert into test2(id,ts) values(?,?)")) {
+                batchInsert.setLong(1, 1L);
+                batchInsert.setTimestamp(2, new Timestamp(2_000L));
+                batchInsert.addBatch();
+                batchInsert.setLong(1, 2L);
+                batchInsert.setTimestamp(2, new Timestamp(1_000L));
+                batchInsert.addBatch();
+                batchInsert.executeBatch();
+                Assert.fail();
+            } catch (SQLException e) {
+                LOG.error().$(e).$();
+            }
+
+            sink.clear();
+            try (ResultSet rs = connection.createStatement().executeQuery("select count() from test2")) {
+                assertResultSet("count[BIGINT]\n0\n", sink, rs);
+            }
+        });
+    }
+
     @Test
     public void testBatchInsertWithTransaction() throws Exception {
         assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
@@ -1855,29 +1959,66 @@ if __name__ == "__main__":
     }
 
     @Test
-    @Ignore
-    public void testCopyIn() throws SQLException {
-        try (
-                final PGWireServer server = createPGServer(2);
-                final WorkerPool workerPool = server.getWorkerPool()
-        ) {
-            workerPool.start(LOG);
-            try (final Connection connection = getConnection(server.getPort(), false, true)) {
-                PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
-                stmt.execute();
-
-                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+    public void testCopyIn() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), true, false)) {
+                    compiler.compile("create table tab (a int, b string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+                    final CopyManager copyManager = new CopyManager((BaseConnection) connection);
+                    Assert.assertEquals(
+                            2,
+                            copyManager.copyIn(
+                                    "copy tab from stdin",
+                                    new ByteArrayInputStream("10\tx\\ty\t2022-01-01T00:00:00.000000Z\n\\N\t\\N\t2022-01-01T00:00:01.000000Z\n".getBytes(StandardCharsets.UTF_8))
+                            )
+                    );
+                    Assert.assertEquals(
+                            2,
+                            copyManager.copyIn(
+                                    "copy tab from stdin with (format csv, header true)",
+                                    new ByteArrayInputStream("a,b,ts\r\n20,\"a,\"\"b\"\"\",2022-01-02T00:00:00.000000Z\r\n30,,2022-01-02T00:00:01.000000Z".getBytes(StandardCharsets.UTF_8))
+                            )
+                    );
 
-                CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+                    // with the default ON ERROR ABORT a bad value rolls back the whole copy, not just the last batch
+                    try {
+                        copyManager.copyIn(
+                                "copy tab from stdin",
+                                new ByteArrayInputStream("40\tz\t2022-01-03T00:00:00.000000Z\nabc\tz\t2022-01-03T00:00:01.000000Z\n".getBytes(StandardCharsets.UTF_8))
+                        );
+                        Assert.fail();
+                    } catch (PSQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "bad value [line=2, column=a]");
+                    }
 
-                String text = "a,b\r\n" +
-                        "10,20";
+                    final CopyIn copyIn = copyManager.copyIn("copy tab from stdin");
+                    final byte[] bytes = "50\tz\t2022-01-04T00:00:00.000000Z\n".getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                    copyIn.cancelCopy();
 
-                byte[] bytes = text.getBytes();
-                copyIn.writeToCopy(bytes, 0, bytes.length);
-                copyIn.endCopy();
+                    try (
+                            Statement statement = connection.createStatement();
+                            ResultSet rs = statement.executeQuery("tab")
+                    ) {
+                        sink.clear();
+                        assertResultSet(
+                                "a[INTEGER],b[VARCHAR],ts[TIMESTAMP]\n" +
+                                        "10,x\ty,2022-01-01 00:00:00.0\n" +
+                                        "null,null,2022-01-01 00:00:01.0\n" +
+                                        "20,a,\"b\",2022-01-02 00:00:00.0\n" +
+                                        "30,null,2022-01-02 00:00:01.0\n",
+                                sink,
+                                rs
+                        );
+                    }
+                }
             }
-        }
+        });
     }
 
     @Test
@@ -2181,6 +2322,43 @@ if __name__ == "__main__":
         testGeoHashSelect(false, true);
     }
 
+    @Test
+    public void testGeoHashSelectBinaryVarchar() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                Properties properties = new Properties();
+                properties.setProperty("user", "admin");
+                properties.setProperty("password", "quest");
+                properties.setProperty("sslmode", "disable");
+                properties.setProperty("binaryTransfer", "true");
+                // request binary format for VARCHAR, which geohashes are sent as
+                properties.setProperty("binaryTransferEnable", "VARCHAR");
+                properties.setProperty("prepareThreshold", "-1");
+                final TimeZone defaultTimeZone = TimeZone.getDefault();
+                TimeZone.setDefault(TimeZone.getTimeZone("EDT"));
+                final String url = String.format("jdbc:postgresql://127.0.0.1:%d/qdb", server.getPort());
+                try (
+                        final Connection connection = DriverManager.getConnection(url, properties);
+                        final PreparedStatement statement = connection.prepareStatement(
+                                "select x, ##101 hash3b, #u33d hash4c, null n from long_sequence(2)"
+                        );
+                        final ResultSet rs = statement.executeQuery()
+                ) {
+                    final String expected = "x[BIGINT],hash3b[VARCHAR],hash4c[VARCHAR],n[VARCHAR]\n" +
+                            "1,101,u33d,null\n" +
+                            "2,101,u33d,null\n";
+                    assertResultSet(expected, new StringSink(), rs);
+                } finally {
+                    TimeZone.setDefault(defaultTimeZone);
+                }
+            }
+        });
+    }
+
     @Test
     public void testGeoHashSelectSimpleBin() throws Exception {
         testGeoHashSelect(true, true);
@@ -2957,6 +3135,34 @@ if __name__ == "__main__":
         assertHexScript(NetworkFacadeImpl.INSTANCE, script, getHexPgWireConfig());
     }
 
+    @Test
+    public void testInsertFlushedPipelineIsRolledBackOnErrorHex() throws Exception {
+        // Parse/Bind/Execute/Flush of an insert, then a Bind that fails before Sync;
+        // Flush must not commit the pipeline, the failure rolls back the flushed row
+        final String script = ">0000006900030000757365720078797a006461746162617365006e6162755f61707000636c69656e745f656e636f64696e67005554463800446174655374796c650049534f0054696d655a6f6e6500474d540065787472615f666c6f61745f64696769747300320000\n" +
+                "<520000000800000003\n" +
+                ">70000000076f6800\n" +
+                "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638005a0000000549\n" +
+                ">500000002800494e5345525420494e544f20746573742056414c5545532824312c202432293b000000420000001a00000000000200000003616263000000033132330000\n" +
+                ">44000000065000450000000900000000004800000004\n" +
+                "<310000000432000000046e00000004430000000f494e534552542030203100\n" +
+                ">420000001a000000000002000000036465660000000378797a0000450000000900000000005300000004\n" +
+                "<450000003f433030303030004d696e636f6e7665727469626c652076616c75653a206078797a60205b535452494e47202d3e20494e545d00534552524f5200005a0000000549\n" +
+                ">5800000004\n";
+
+        assertMemoryLeak(() -> {
+            compiler.compile("create table test (id string, number int)", sqlExecutionContext);
+            try (
+                    final PGWireServer server = createPGServer(getHexPgWireConfig());
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                NetUtils.playScript(NetworkFacadeImpl.INSTANCE, script, "127.0.0.1", server.getPort());
+            }
+            assertSql("select count() from test", "count\n0\n");
+        });
+    }
+
     /*
 nodejs code:
 ------------------
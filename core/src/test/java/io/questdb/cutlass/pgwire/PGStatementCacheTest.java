@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.Metrics;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.WeakSelfReturningObjectPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.questdb.test.tools.TestUtils.assertEventually;
+
+public class PGStatementCacheTest extends BasePGTest {
+
+    @Test
+    public void testCheckOutAndCheckIn() {
+        final PGWireMetrics m = Metrics.enabled().pgWire();
+        final WeakSelfReturningObjectPool<TypesAndSelect> pool = new WeakSelfReturningObjectPool<>(TypesAndSelect::new, 2);
+        try (PGStatementCache<TypesAndSelect> cache = new PGStatementCache<>(4, 2, m.cachedSelectsGauge(), m.selectCacheHitCounter(), m.selectCacheMissCounter())) {
+            Assert.assertNull(cache.poll("select 1"));
+
+            final TypesAndSelect a = pool.pop();
+            final TypesAndSelect b = pool.pop();
+            final TypesAndSelect c = pool.pop();
+            cache.put("select 1", a);
+            cache.put("select 1", b);
+            // only two idle instances are kept per statement
+            cache.put("select 1", c);
+            Assert.assertEquals(2, m.cachedSelectsGauge().getValue());
+
+            // checked out instance is not handed out twice
+            final TypesAndSelect x = cache.poll("select 1");
+            final TypesAndSelect y = cache.poll("select 1");
+            Assert.assertNotNull(x);
+            Assert.assertNotNull(y);
+            Assert.assertNotSame(x, y);
+            Assert.assertNull(cache.poll("select 1"));
+            Assert.assertEquals(0, m.cachedSelectsGauge().getValue());
+
+            cache.put("select 1", x);
+            cache.put("select 1", y);
+            Assert.assertEquals(2, m.selectCacheHitCounter().getValue());
+            Assert.assertEquals(2, m.selectCacheMissCounter().getValue());
+        }
+        Assert.assertEquals(0, m.cachedSelectsGauge().getValue());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() {
+        final PGWireMetrics m = Metrics.enabled().pgWire();
+        final WeakSelfReturningObjectPool<TypesAndSelect> pool = new WeakSelfReturningObjectPool<>(TypesAndSelect::new, 2);
+        try (PGStatementCache<TypesAndSelect> cache = new PGStatementCache<>(2, 1, m.cachedSelectsGauge(), m.selectCacheHitCounter(), m.selectCacheMissCounter())) {
+            cache.put("select 1", pool.pop());
+            cache.put("select 2", pool.pop());
+            // touch "select 1", so that "select 2" becomes the eldest
+            cache.put("select 1", cache.poll("select 1"));
+            cache.put("select 3", pool.pop());
+
+            Assert.assertEquals(2, m.cachedSelectsGauge().getValue());
+            Assert.assertNull(cache.poll("select 2"));
+            Assert.assertNotNull(cache.poll("select 1"));
+            Assert.assertNotNull(cache.poll("select 3"));
+        }
+    }
+
+    @Test
+    public void testStatementIsSharedBetweenConnections() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (
+                        Connection connection1 = getConnection(server.getPort(), false, true);
+                        Connection connection2 = getConnection(server.getPort(), false, true)
+                ) {
+                    try (Statement statement = connection1.createStatement()) {
+                        statement.execute("create table test as (select x id from long_sequence(10))");
+                    }
+
+                    final String sql = "select id from test where id = ?";
+                    final long hits = metrics.pgWire().selectCacheHitCounter().getValue();
+                    assertQuery(connection1, sql);
+                    assertEventually(() -> Assert.assertEquals(1, metrics.pgWire().cachedSelectsGauge().getValue()));
+
+                    // the other connection uses statement compiled by the first one
+                    assertQuery(connection2, sql);
+                    Assert.assertTrue(metrics.pgWire().selectCacheHitCounter().getValue() > hits);
+                    assertEventually(() -> Assert.assertEquals(1, metrics.pgWire().cachedSelectsGauge().getValue()));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testStatementsAreClosedOutsideOfCacheLock() {
+        final PGWireMetrics m = Metrics.enabled().pgWire();
+        final AtomicInteger closeCount = new AtomicInteger();
+        final AtomicInteger closeUnderLockCount = new AtomicInteger();
+        try (PGStatementCache<TypesAndSelect> cache = new PGStatementCache<>(1, 1, m.cachedSelectsGauge(), m.selectCacheHitCounter(), m.selectCacheMissCounter())) {
+            final WeakSelfReturningObjectPool<TypesAndSelect> pool = new WeakSelfReturningObjectPool<>(parentPool -> new TypesAndSelect(parentPool) {
+                @Override
+                public void close() {
+                    closeCount.incrementAndGet();
+                    if (Thread.holdsLock(cache)) {
+                        closeUnderLockCount.incrementAndGet();
+                    }
+                    super.close();
+                }
+            }, 2);
+            cache.put("select 1", pool.pop());
+            // only one idle instance is kept per statement, the second one is rejected
+            cache.put("select 1", pool.pop());
+            Assert.assertEquals(1, closeCount.get());
+            // only one statement is kept, "select 1" is evicted
+            cache.put("select 2", pool.pop());
+            Assert.assertEquals(2, closeCount.get());
+            cache.clear();
+            Assert.assertEquals(3, closeCount.get());
+        }
+        Assert.assertEquals(0, closeUnderLockCount.get());
+    }
+
+    private static void assertQuery(Connection connection, String sql) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 5);
+            try (ResultSet rs = statement.executeQuery()) {
+                Assert.assertTrue(rs.next());
+                Assert.assertEquals(5, rs.getLong(1));
+                Assert.assertFalse(rs.next());
+            }
+        }
+    }
+}
@@ -222,6 +222,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getWallEnabledDefault();
     }
 
+    @Override
+    public int getWalTxnNotificationQueueCapacity() {
+        return conf.getWalTxnNotificationQueueCapacity();
+    }
+
     @Override
     public int getDoubleToStrCastScale() {
         return conf.getDoubleToStrCastScale();
@@ -302,6 +307,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getLatestByQueueCapacity();
     }
 
+    @Override
+    public int getSortQueueCapacity() {
+        return conf.getSortQueueCapacity();
+    }
+
     @Override
     public int getMaxFileNameLength() {
         return conf.getMaxFileNameLength();
@@ -377,6 +387,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getO3PurgeDiscoveryQueueCapacity();
     }
 
+    @Override
+    public int getPageFrameReadAheadQueueDepth() {
+        return conf.getPageFrameReadAheadQueueDepth();
+    }
+
     @Override
     public int getPageFrameReduceColumnListCapacity() {
         return conf.getPageFrameReduceColumnListCapacity();
@@ -397,11 +412,6 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getPageFrameReduceShardCount();
     }
 
-    @Override
-    public int getPageFrameReduceTaskPoolCapacity() {
-        return conf.getPageFrameReduceTaskPoolCapacity();
-    }
-
     @Override
     public int getParallelIndexThreshold() {
         return conf.getParallelIndexThreshold();
@@ -412,6 +422,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getPartitionPurgeListCapacity();
     }
 
+    @Override
+    public int getPartitionSummaryQueueCapacity() {
+        return conf.getPartitionSummaryQueueCapacity();
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return conf.getQueryCacheEventQueueCapacity();
@@ -702,6 +717,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlSortValuePageSize();
     }
 
+    @Override
+    public long getSqlSortMemoryLimit() {
+        return conf.getSqlSortMemoryLimit();
+    }
+
+    @Override
+    public long getSqlSortRunSize() {
+        return conf.getSqlSortRunSize();
+    }
+
+    @Override
+    public CharSequence getSqlSortSpillRoot() {
+        return conf.getSqlSortSpillRoot();
+    }
+
     @Override
     public CharSequence getSystemTableNamePrefix() {
         return conf.getSystemTableNamePrefix();
@@ -777,6 +807,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isParallelIndexingEnabled();
     }
 
+    @Override
+    public boolean isPageFrameReadAheadEnabled() {
+        return conf.isPageFrameReadAheadEnabled();
+    }
+
+    @Override
+    public boolean isPartitionSummaryEnabled() {
+        return conf.isPartitionSummaryEnabled();
+    }
+
     @Override
     public boolean isSnapshotRecoveryEnabled() {
         return conf.isSnapshotRecoveryEnabled();
@@ -797,6 +837,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isSqlParallelFilterPreTouchEnabled();
     }
 
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return conf.isSqlParallelGroupByEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return conf.isSqlParallelHashJoinEnabled();
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return conf.isSqlParallelSortEnabled();
+    }
+
     @Override
     public int getSqlCopyLogRetentionDays() {
         return conf.getSqlCopyLogRetentionDays();
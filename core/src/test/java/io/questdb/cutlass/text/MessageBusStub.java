@@ -189,6 +189,36 @@ public class MessageBusStub implements MessageBus {
         return null;
     }
 
+    @Override
+    public MPSequence getPartitionSummaryPubSeq() {
+        return null;
+    }
+
+    @Override
+    public RingQueue<PartitionSummaryTask> getPartitionSummaryQueue() {
+        return null;
+    }
+
+    @Override
+    public MCSequence getPartitionSummarySubSeq() {
+        return null;
+    }
+
+    @Override
+    public Sequence getSortPubSeq() {
+        return null;
+    }
+
+    @Override
+    public RingQueue<SortRunTask> getSortQueue() {
+        return null;
+    }
+
+    @Override
+    public Sequence getSortSubSeq() {
+        return null;
+    }
+
     @Override
     public FanOut getTableWriterEventFanOut() {
         return null;
@@ -263,4 +293,19 @@ public class MessageBusStub implements MessageBus {
     public Sequence getTextImportRequestSubSeq() {
         return null;
     }
+
+    @Override
+    public MPSequence getWalTxnNotificationPubSequence() {
+        return null;
+    }
+
+    @Override
+    public RingQueue<WalTxnNotificationTask> getWalTxnNotificationQueue() {
+        return null;
+    }
+
+    @Override
+    public MCSequence getWalTxnNotificationSubSequence() {
+        return null;
+    }
 }
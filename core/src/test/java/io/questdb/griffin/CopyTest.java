@@ -113,6 +113,41 @@ public class CopyTest extends AbstractGriffinTest {
         }
     }
 
+    @Test
+    public void testCopyFromStdinOptions() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy x from stdin;", sqlExecutionContext);
+        assertEquals("stdin", model.getFileName().token.toString());
+        assertEquals(-1, model.getFormat());
+
+        model = (CopyModel) compiler.testCompileModel("copy x from STDIN with (format csv, header true, delimiter ';');", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+        assertTrue(model.isHeader());
+        assertEquals(';', model.getDelimiter());
+        assertNull(model.getTimestampFormat());
+
+        model = (CopyModel) compiler.testCompileModel("copy x from stdin (format text);", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_TEXT, model.getFormat());
+
+        model = (CopyModel) compiler.testCompileModel("copy x from stdin binary;", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+
+        model = (CopyModel) compiler.testCompileModel("copy x from stdin with csv format 'yyyy-MM-dd';", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+        assertEquals("yyyy-MM-dd", model.getTimestampFormat().toString());
+    }
+
+    @Test
+    public void testCopyFileRejectsBinaryFormat() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                runAndFetchImportId("copy x from 'test-quotes-big.csv' with format binary;", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                MatcherAssert.assertThat(e.getMessage(), CoreMatchers.containsString("only CSV format is supported for file import"));
+            }
+        });
+    }
+
     @Test
     public void testCopyEmptyFileName() throws Exception {
         assertMemoryLeak(() -> assertFailure(
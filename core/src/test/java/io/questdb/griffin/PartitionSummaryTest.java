@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.PartitionSummaryJob;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PartitionSummaryTest extends AbstractGriffinTest {
+
+    private final AtomicInteger idOpenCount = new AtomicInteger();
+
+    @Override
+    @Before
+    public void setUp() {
+        enablePartitionSummary = true;
+        ff = new FilesFacadeImpl() {
+            @Override
+            public long openRO(LPSZ name) {
+                if (Chars.endsWith(name, Files.SEPARATOR + "id.d")) {
+                    idOpenCount.incrementAndGet();
+                }
+                return super.openRO(name);
+            }
+        };
+        super.setUp();
+    }
+
+    @Test
+    public void testBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            bindVariableService.setLong(0, 27);
+            assertScan("select id, s from x where id = $1", "id\ts\n27\tk27\n", 2);
+            bindVariableService.setLong(0, 3);
+            assertScan("select id, s from x where id = $1", "id\ts\n3\tk3\n", 2);
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("alter table x add column j long", sqlExecutionContext);
+            compiler.compile("insert into x select 100 + x, concat('k', 100 + x), cast('sym9' as symbol), 0.0, " +
+                    "timestamp_sequence(4 * 86400000000L, 8640000000L), x from long_sequence(10)", sqlExecutionContext);
+            compiler.compile("insert into x select 200 + x, concat('k', 200 + x), cast('sym9' as symbol), 0.0, " +
+                    "timestamp_sequence(5 * 86400000000L, 8640000000L), 10 + x from long_sequence(10)", sqlExecutionContext);
+            drainSummaryQueue();
+            // partitions written before the column was added are scanned, the partition
+            // where j is all nulls and the one holding j in 1..10 are pruned
+            assertScan("select id, j from x where j = 15", "id\tj\n205\t15\n", 4);
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        enablePartitionSummary = false;
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSummaryFile("1970-01-01", false);
+            assertScan("select id, s from x where id = 15", "id\ts\n15\tk15\n", 4);
+        });
+    }
+
+    @Test
+    public void testDoubleRange() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertScan("select id, d from x where d >= 58.5", "id\td\n39\t58.5\n40\t60.0\n", 1);
+            assertScan("select id, d from x where 3.0 > d", "id\td\n1\t1.5\n", 2);
+        });
+    }
+
+    @Test
+    public void testEquality() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertScan("select id, s from x where id = 15", "id\ts\n15\tk15\n", 2);
+            assertScan("select id, s from x where 15 = id and s = 'k15'", "id\ts\n15\tk15\n", 2);
+            assertScan("select id, s from x where id = 1000", "id\ts\n", 1);
+        });
+    }
+
+    @Test
+    public void testInList() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertScan("select id, s from x where s in ('k5', 'k25')", "id\ts\n5\tk5\n25\tk25\n", 3);
+            assertScan("select id, sym from x where sym in ('sym1')", "id\tsym\n11\tsym1\n12\tsym1\n" +
+                    "13\tsym1\n14\tsym1\n15\tsym1\n16\tsym1\n17\tsym1\n18\tsym1\n19\tsym1\n20\tsym1\n", 2);
+        });
+    }
+
+    @Test
+    public void testLongRangeBeyondDoublePrecision() throws Exception {
+        assertMemoryLeak(() -> {
+            // 2^53 + x, the smallest value of the second partition rounds up to 2^53 + 12 as double
+            compiler.compile("create table x as (select" +
+                    " 9007199254740992 + x id," +
+                    " timestamp_sequence(0, 8640000000L) ts" +
+                    " from long_sequence(40)" +
+                    ") timestamp(ts) partition by " + PartitionBy.toString(PartitionBy.DAY), sqlExecutionContext);
+            drainSummaryQueue();
+            assertScan(
+                    "select id from x where id < 9007199254741004 and id > 9007199254741001",
+                    "id\n9007199254741002\n9007199254741003\n",
+                    3
+            );
+        });
+    }
+
+    @Test
+    public void testOrIsNotPruned() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertScan("select id from x where id = 5 or id = 25", "id\n5\n25\n", 4);
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertDropsSummary() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSummaryFile("1970-01-01", true);
+            executeInsert("insert into x values (1000, 'k1000', 'sym0', 0.0, 3600000000L)");
+            assertScan("select id, s from x where id = 1000", "id\ts\n1000\tk1000\n", 2);
+        });
+    }
+
+    @Test
+    public void testSummariesAreWrittenByJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTableNoSummaries();
+            // writer only queues closed partitions, it does not scan them
+            assertSummaryFile("1970-01-01", false);
+            assertScan("select id, s from x where id = 15", "id\ts\n15\tk15\n", 4);
+            drainSummaryQueue();
+            assertSummaryFile("1970-01-01", true);
+            assertScan("select id, s from x where id = 15", "id\ts\n15\tk15\n", 2);
+        });
+    }
+
+    @Test
+    public void testSummaryFiles() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSummaryFile("1970-01-01", true);
+            assertSummaryFile("1970-01-03", true);
+            // the active partition is not summarised
+            assertSummaryFile("1970-01-04", false);
+        });
+    }
+
+    private void assertScan(String query, String expected, int expectedPartitionOpens) throws SqlException {
+        engine.releaseAllReaders();
+        idOpenCount.set(0);
+        assertSql(query, expected);
+        Assert.assertEquals(expectedPartitionOpens, idOpenCount.get());
+    }
+
+    private void assertSummaryFile(String partition, boolean exists) {
+        try (Path path = new Path()) {
+            path.of(root).concat("x").concat(partition).concat("id.ps").$();
+            Assert.assertEquals(exists, ff.exists(path));
+        }
+    }
+
+    private void createTable() throws SqlException {
+        createTableNoSummaries();
+        drainSummaryQueue();
+    }
+
+    private void createTableNoSummaries() throws SqlException {
+        // 4 daily partitions with 10 rows each and non-overlapping values
+        compiler.compile("create table x as (select" +
+                " x id," +
+                " concat('k', x) s," +
+                " cast(concat('sym', (x - 1) / 10) as symbol) sym," +
+                " x * 1.5 d," +
+                " timestamp_sequence(0, 8640000000L) ts" +
+                " from long_sequence(40)" +
+                ") timestamp(ts) partition by " + PartitionBy.toString(PartitionBy.DAY), sqlExecutionContext);
+    }
+
+    private void drainSummaryQueue() {
+        try (PartitionSummaryJob job = new PartitionSummaryJob(configuration, engine.getMessageBus())) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) {
+            }
+        }
+    }
+}
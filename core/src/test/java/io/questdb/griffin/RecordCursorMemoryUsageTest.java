@@ -72,8 +72,14 @@ public class RecordCursorMemoryUsageTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testAsyncSampleByRecordCursorReleasesMemoryOnClose() throws Exception {
+        testSampleByCursorReleasesMemoryOnClose("", AsyncSampleByRecordCursorFactory.class);
+    }
+
     @Test
     public void testSampleByFillNoneRecordCursorReleasesMemoryOnClose() throws Exception {
+        enableParallelGroupBy = false;
         testSampleByCursorReleasesMemoryOnClose("", SampleByFillNoneRecordCursorFactory.class);
     }
 
@@ -100,7 +106,7 @@ public class RecordCursorMemoryUsageTest extends AbstractGriffinTest {
                     " timestamp_sequence(0, 1000000000) ts" +
                     " from long_sequence(10000)) timestamp(ts)");
 
-            try (AbstractSampleByRecordCursorFactory factory = (AbstractSampleByRecordCursorFactory) compile("select sym1, sum(d) from tab SAMPLE BY 1d " + fill)
+            try (RecordCursorFactory factory = compile("select sym1, sum(d) from tab SAMPLE BY 1d " + fill)
                     .getRecordCursorFactory()) {
                 assertThat(factory, isA(expectedFactoryClass));
 
@@ -1169,6 +1169,33 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "partition by MONTH");
     }
 
+    @Test
+    public void testCreateTableAsSampleByTimeZone() throws SqlException {
+        assertCreateTable(
+                "create table X as (select-group-by first(ts) first from (select [ts] from t1) sample by 15m align to calendar time zone 'CET' with offset '00:00')",
+                "create table X as (SELECT first(ts) FROM t1 SAMPLE BY 15m ALIGN TO CALENDAR TIME ZONE 'CET')",
+                modelOf("t1").col("ts", ColumnType.TIMESTAMP).col("x", ColumnType.INT)
+        );
+    }
+
+    @Test
+    public void testCreateTableAsSampleByTimeZoneWithOffset() throws SqlException {
+        assertCreateTable(
+                "create table X as (select-group-by first(ts) first from (select [ts] from t1) sample by 15m align to calendar time zone 'CET' with offset '00:30')",
+                "create table X as (SELECT first(ts) FROM t1 SAMPLE BY 15m ALIGN TO CALENDAR TIME ZONE 'CET' WITH OFFSET '00:30')",
+                modelOf("t1").col("ts", ColumnType.TIMESTAMP).col("x", ColumnType.INT)
+        );
+    }
+
+    @Test
+    public void testCreateTableAsSampleByWithOffset() throws SqlException {
+        assertCreateTable(
+                "create table X as (select-group-by first(ts) first from (select [ts] from t1) sample by 15m align to calendar with offset '00:30')",
+                "create table X as (SELECT first(ts) FROM t1 SAMPLE BY 15m ALIGN TO CALENDAR WITH OFFSET '00:30')",
+                modelOf("t1").col("ts", ColumnType.TIMESTAMP).col("x", ColumnType.INT)
+        );
+    }
+
     @Test
     public void testCreateTableAsSelect() throws SqlException {
         assertCreateTable(
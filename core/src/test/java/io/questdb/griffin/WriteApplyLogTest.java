@@ -197,6 +197,6 @@ public class WriteApplyLogTest extends AbstractGriffinTest {
     }
 
     private void applyWal(TableWriter writer, Path walPath, int rowLo, int count1, boolean inOrder, long timestampLo, long timestampHi) {
-        writer.processWalCommit(walPath, -1L, inOrder, rowLo, count1, timestampLo, timestampHi, null);
+        writer.processWalCommit(walPath, -1L, inOrder, rowLo, count1, timestampLo, timestampHi, null, writer.getSeqTxn() + 1);
     }
 }
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncGroupByTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    public void testFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_symbol('A','B','C') s, rnd_long(0, 100, 0) l, timestamp_sequence(0, 100000000) ts " +
+                            "from long_sequence(10000)" +
+                            ") timestamp(ts) partition by day",
+                    context
+            );
+
+            final String sql = "select s, count(), sum(l) from x where l > 42 order by s";
+            try (RecordCursorFactory factory = compiler.compile("select s, count(), sum(l) from x where l > 42", context).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncGroupByRecordCursorFactory.class, factory.getClass());
+            }
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testNonThreadSafeFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_symbol('A','B','C') s, rnd_str('foo','bar','baz','qux') str, rnd_long(0, 100, 0) l, " +
+                            "timestamp_sequence(0, 100000000) ts " +
+                            "from long_sequence(10000)" +
+                            ") timestamp(ts) partition by day",
+                    context
+            );
+
+            // regex matcher is not thread-safe, workers have to evaluate their own copies of the filter
+            final String sql = "select s, count(), sum(l) from x where str ~ '^ba' and s != 'C'";
+            try (RecordCursorFactory factory = compiler.compile(sql, context).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncGroupByRecordCursorFactory.class, factory.getClass());
+            }
+            assertParallelEqualsSerial(sql + " order by s", context);
+        });
+    }
+
+    @Test
+    public void testKeyedAggregatesMatchSerialExecution() throws Exception {
+        withPool(context -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select rnd_symbol('A','B','C','D','E') s, rnd_int(-1000, 1000, 2) i, rnd_long(-1000, 1000, 2) l, " +
+                            "rnd_int(0, 100, 0) d, timestamp_sequence(0, 100000000) ts " +
+                            "from long_sequence(10000)" +
+                            ") timestamp(ts) partition by day",
+                    context
+            );
+
+            assertParallelEqualsSerial(
+                    "select s, count(), sum(i), sum(l), avg(d), min(i), max(i), min(l), max(l), min(ts), max(ts) from x order by s",
+                    context
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedFunctionFallsBackToSerial() throws Exception {
+        withPool(context -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B') s, rnd_double() d from long_sequence(100))", context);
+            try (RecordCursorFactory factory = compiler.compile("select s, first(d) from x", context).getRecordCursorFactory()) {
+                Assert.assertEquals(GroupByRecordCursorFactory.class, factory.getClass());
+            }
+        });
+    }
+
+    private static void assertParallelEqualsSerial(String sql, SqlExecutionContext context) throws SqlException {
+        final StringSink serialSink = new StringSink();
+        enableParallelGroupBy = false;
+        try {
+            TestUtils.printSql(compiler, context, sql, serialSink);
+        } finally {
+            enableParallelGroupBy = null;
+        }
+        // run a few times to give the workers a chance to steal frames
+        for (int i = 0; i < 5; i++) {
+            TestUtils.assertSql(compiler, context, sql, sink, serialSink);
+        }
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+            try {
+                final SqlExecutionContext context = new SqlExecutionContextImpl(engine, WORKER_COUNT).with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        bindVariableService,
+                        null,
+                        -1,
+                        null
+                );
+                runnable.run(context);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlExecutionContext context) throws Exception;
+    }
+}
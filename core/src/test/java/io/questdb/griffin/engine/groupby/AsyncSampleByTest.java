@@ -0,0 +1,234 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncSampleByTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    public void testAlignToCalendarMatchesSerialExecution() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            assertParallelEqualsSerial(
+                    "select ts, count(), sum(l), max(d) from x sample by 1h align to calendar with offset '00:15'",
+                    context
+            );
+        });
+    }
+
+    @Test
+    public void testBucketBefore1970() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            // with the offset the first bucket starts before 1970, buckets are ordered by their signed value
+            assertParallelEqualsSerial(
+                    "select ts, count(), sum(l) from x sample by 1h align to calendar with offset '00:40'",
+                    context
+            );
+        });
+    }
+
+    @Test
+    public void testFilterIsNotStolenWhenAlignedToFirstObservation() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            // buckets depend on the first row passing the filter, which is not known upfront
+            final String sql = "select ts, s, count(), min(l) from x where l > 42 sample by 1h";
+            assertFactory(sql, SampleByFillNoneRecordCursorFactory.class, context);
+            assertParallelEqualsSerial("select * from (" + sql + ") order by ts, s", context);
+        });
+    }
+
+    @Test
+    public void testFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            final String sql = "select ts, s, count(), min(l) from x where l > 42 sample by 1h align to calendar";
+            assertFactory(sql, AsyncSampleByRecordCursorFactory.class, context);
+            assertParallelEqualsSerial("select * from (" + sql + ") order by ts, s", context);
+        });
+    }
+
+    @Test
+    public void testManyOrderedBuckets() throws Exception {
+        withPool(context -> {
+            // one row per bucket, merged map comes back in bucket order, which used
+            // to be the worst case of the sort that orders the buckets
+            compiler.compile(
+                    "create table x as (" +
+                            "select x l, timestamp_sequence(0, 1000000) ts from long_sequence(1000000)" +
+                            ") timestamp(ts) partition by day",
+                    context
+            );
+            final String sql = "select ts, count() c, sum(l) s from x sample by 1s";
+            assertFactory(sql, AsyncSampleByRecordCursorFactory.class, context);
+            TestUtils.assertSql(
+                    compiler,
+                    context,
+                    "select count(), sum(c), min(ts), max(ts) from (" + sql + ")",
+                    sink,
+                    "count\tsum\tmin\tmax\n" +
+                            "1000000\t1000000\t1970-01-01T00:00:00.000000Z\t1970-01-12T13:46:39.000000Z\n"
+            );
+            TestUtils.assertSql(
+                    compiler,
+                    context,
+                    "select * from (" + sql + ") limit 2",
+                    sink,
+                    "ts\tc\ts\n" +
+                            "1970-01-01T00:00:00.000000Z\t1\t1\n" +
+                            "1970-01-01T00:00:01.000000Z\t1\t2\n"
+            );
+            TestUtils.assertSql(
+                    compiler,
+                    context,
+                    "select * from (" + sql + ") limit -2",
+                    sink,
+                    "ts\tc\ts\n" +
+                            "1970-01-12T13:46:38.000000Z\t1\t999999\n" +
+                            "1970-01-12T13:46:39.000000Z\t1\t1000000\n"
+            );
+        });
+    }
+
+    @Test
+    public void testNonThreadSafeFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            // regex matcher is not thread-safe, workers have to evaluate their own copies of the filter
+            final String sql = "select ts, s, count(), sum(l) from x where str ~ '^ba' and s != 'C' sample by 1h align to calendar";
+            assertFactory(sql, AsyncSampleByRecordCursorFactory.class, context);
+            assertParallelEqualsSerial("select * from (" + sql + ") order by ts, s", context);
+        });
+    }
+
+    @Test
+    public void testKeyedMatchesSerialExecution() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            assertParallelEqualsSerial(
+                    "select * from (select ts, s, count(), sum(l), avg(l), min(d), max(d) from x sample by 15m) order by ts, s",
+                    context
+            );
+        });
+    }
+
+    @Test
+    public void testNotKeyedMatchesSerialExecution() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            final String sql = "select ts, count(), sum(l), min(d), max(d) from x sample by 7m";
+            try (RecordCursorFactory factory = compiler.compile(sql, context).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncSampleByRecordCursorFactory.class, factory.getClass());
+            }
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testUnsupportedSampleByFallsBackToSerial() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            // calendar samplers
+            assertFactory("select ts, count() from x sample by 1M", SampleByFillNoneNotKeyedRecordCursorFactory.class, context);
+            // time zone with daylight savings
+            assertFactory("select ts, count() from x sample by 1h align to calendar time zone 'Europe/London'", SampleByFillNoneNotKeyedRecordCursorFactory.class, context);
+            // non-mergeable function
+            assertFactory("select ts, s, first(l) from x sample by 1h", SampleByFillNoneRecordCursorFactory.class, context);
+            // fill
+            assertFactory("select ts, s, sum(l) from x sample by 1h fill(null)", SampleByFillNullRecordCursorFactory.class, context);
+        });
+    }
+
+    private static void assertFactory(String sql, Class<?> expectedClass, SqlExecutionContext context) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, context).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedClass, factory.getClass());
+        }
+    }
+
+    private static void assertParallelEqualsSerial(String sql, SqlExecutionContext context) throws SqlException {
+        final StringSink serialSink = new StringSink();
+        enableParallelGroupBy = false;
+        try {
+            TestUtils.printSql(compiler, context, sql, serialSink);
+        } finally {
+            enableParallelGroupBy = null;
+        }
+        // run a few times to give the workers a chance to steal frames
+        for (int i = 0; i < 5; i++) {
+            TestUtils.assertSql(compiler, context, sql, sink, serialSink);
+        }
+    }
+
+    private static void createTable(SqlExecutionContext context) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_symbol('A','B','C') s, rnd_str('foo','bar','baz','qux') str, rnd_long(0, 100, 2) l, rnd_int(0, 1000, 2) d, " +
+                        "timestamp_sequence(0, 10000000) ts " +
+                        "from long_sequence(20000)" +
+                        ") timestamp(ts) partition by hour",
+                context
+        );
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+            try {
+                final SqlExecutionContext context = new SqlExecutionContextImpl(engine, WORKER_COUNT).with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        bindVariableService,
+                        null,
+                        -1,
+                        null
+                );
+                runnable.run(context);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlExecutionContext context) throws Exception;
+    }
+}
@@ -136,8 +136,11 @@ public class GroupByFunctionCaseTest extends AbstractGriffinTest {
                         keyPos = 1;
                     }
 
+                    // sum, avg, min and max can be merged, so they run in parallel unless vectorized
+                    boolean parallel = !vectorized && f > 1 && t != CHAR;
+
                     planSink.clear();
-                    planSink.put("GroupByRecord vectorized=").put(vectorized + "\n")
+                    planSink.put(parallel ? "Async Group By vectorized=false workers=1\n" : "GroupByRecord vectorized=" + vectorized + "\n")
                             .put("  groupByFunctions=[").put(expectedFunction).put("]\n")
                             .put("  ").put((vectorized ? "keyColumnIndex=0\n" : "recordFunctions=[IntColumn(" + keyPos + ")," + expectedFunction + "]\n"))
                             .put("    DataFrameRecordCursorFactory\n")
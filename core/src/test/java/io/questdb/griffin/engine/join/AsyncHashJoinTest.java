@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Chars;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncHashJoinTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    public void testDuplicateSlaveKeys() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            compiler.compile("insert into dim select k, concat('dup', k) from dim", context);
+            final String sql = "select f.ts, f.k, f.v, d.name from fact f join dim d on (k)";
+            assertParallel(sql, context);
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            final String sql = "select f.ts, f.k, f.v, d.name from fact f join dim d on (k) where f.v > 42";
+            assertParallel(sql, context);
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testJoinMatchesSerialExecution() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            final String sql = "select f.ts, f.k, f.v, d.name from fact f join dim d on (k)";
+            assertParallel(sql, context);
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testNonThreadSafeFilterIsStolenFromAsyncFilter() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            // regex matcher is not thread-safe, workers have to evaluate their own copies of the filter
+            final String sql = "select f.ts, f.k, f.str, d.name from fact f join dim d on (k) where f.str ~ '^[xy]' and f.s != 'a'";
+            assertParallel(sql, context);
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    @Test
+    public void testNoMatches() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            final String sql = "select f.ts, f.k, d.name from fact f join dim d on (k) where f.v > 1000";
+            TestUtils.assertSql(compiler, context, sql, sink, "ts\tk\tname\n");
+        });
+    }
+
+    @Test
+    public void testOuterJoinIsNotParallel() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            Assert.assertFalse(isParallel("select f.ts, f.k, d.name from fact f left join dim d on (k)", context));
+        });
+    }
+
+    @Test
+    public void testStringAndSymbolKeys() throws Exception {
+        withPool(context -> {
+            createTables(context);
+            final String sql = "select f.ts, f.s, f.str, d.name from fact f join dim2 d on f.s = d.s and f.str = d.str";
+            assertParallel(sql, context);
+            assertParallelEqualsSerial(sql, context);
+        });
+    }
+
+    private static void assertParallel(String sql, SqlExecutionContext context) throws SqlException {
+        Assert.assertTrue(isParallel(sql, context));
+    }
+
+    private static void assertParallelEqualsSerial(String sql, SqlExecutionContext context) throws SqlException {
+        final StringSink serialSink = new StringSink();
+        enableParallelHashJoin = false;
+        try {
+            TestUtils.printSql(compiler, context, sql, serialSink);
+        } finally {
+            enableParallelHashJoin = null;
+        }
+        // run a few times to give the workers a chance to steal frames
+        for (int i = 0; i < 5; i++) {
+            TestUtils.assertSql(compiler, context, sql, sink, serialSink);
+        }
+    }
+
+    private static void createTables(SqlExecutionContext context) throws SqlException {
+        compiler.compile(
+                "create table fact as (" +
+                        "select rnd_int(0, 120, 0) k, rnd_long(0, 100, 0) v, rnd_symbol('a','b','c','d') s, rnd_str('x','y','z', null) str, " +
+                        "timestamp_sequence(0, 100000000) ts " +
+                        "from long_sequence(10000)" +
+                        ") timestamp(ts) partition by hour",
+                context
+        );
+        compiler.compile("create table dim as (select cast(x as int) k, concat('name', x) name from long_sequence(100))", context);
+        compiler.compile(
+                "create table dim2 as (" +
+                        "select rnd_symbol('a','b','c') s, rnd_str('x','y', null) str, concat('name', x) name from long_sequence(20)" +
+                        ")",
+                context
+        );
+    }
+
+    private static boolean isParallel(String sql, SqlExecutionContext context) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, context).getRecordCursorFactory()) {
+            planSink.reset();
+            factory.toPlan(planSink);
+            return Chars.contains(planSink.getText(), "Async Hash Join Light");
+        }
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            TestUtils.setupWorkerPool(pool, engine);
+            pool.start();
+            try {
+                final SqlExecutionContext context = new SqlExecutionContextImpl(engine, WORKER_COUNT).with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        bindVariableService,
+                        null,
+                        -1,
+                        null
+                );
+                runnable.run(context);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlExecutionContext context) throws Exception;
+    }
+}
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.mv;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.mv.MatViewRegistry;
+import io.questdb.cairo.mv.MatViewState;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MatViewRefreshJobTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAppendAndUpdateBuckets() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view price_1h as (" +
+                    "select ts, sym, sum(price) total, count() cnt from base sample by 1h align to calendar" +
+                    ") partition by DAY");
+
+            assertSql(
+                    "price_1h",
+                    "ts\tsym\ttotal\tcnt\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t3.0\t2\n" +
+                            "2022-01-01T00:00:00.000000Z\tb\t5.0\t1\n" +
+                            "2022-01-01T01:00:00.000000Z\ta\t7.0\t1\n"
+            );
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                // view is in sync with base table
+                Assert.assertFalse(job.run(0));
+
+                // last bucket is updated, new key and new bucket are appended
+                executeInsert("insert into base values ('a', 10.0, '2022-01-01T01:30')");
+                executeInsert("insert into base values ('c', 1.0, '2022-01-01T01:40')");
+                executeInsert("insert into base values ('b', 2.0, '2022-01-01T02:10')");
+                Assert.assertTrue(job.run(0));
+                assertSql(
+                        "price_1h",
+                        "ts\tsym\ttotal\tcnt\n" +
+                                "2022-01-01T00:00:00.000000Z\ta\t3.0\t2\n" +
+                                "2022-01-01T00:00:00.000000Z\tb\t5.0\t1\n" +
+                                "2022-01-01T01:00:00.000000Z\ta\t17.0\t2\n" +
+                                "2022-01-01T01:00:00.000000Z\tc\t1.0\t1\n" +
+                                "2022-01-01T02:00:00.000000Z\tb\t2.0\t1\n"
+                );
+
+                // out-of-order rows recompute older bucket only
+                executeInsert("insert into base values ('b', 4.0, '2022-01-01T00:10')");
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+                assertSql(
+                        "price_1h",
+                        "ts\tsym\ttotal\tcnt\n" +
+                                "2022-01-01T00:00:00.000000Z\ta\t3.0\t2\n" +
+                                "2022-01-01T00:00:00.000000Z\tb\t9.0\t2\n" +
+                                "2022-01-01T01:00:00.000000Z\ta\t17.0\t2\n" +
+                                "2022-01-01T01:00:00.000000Z\tc\t1.0\t1\n" +
+                                "2022-01-01T02:00:00.000000Z\tb\t2.0\t1\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testCreateIfNotExists() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            final String ddl = "create materialized view if not exists v as (" +
+                    "select ts, max(price) mx from base sample by 1h align to calendar)";
+            compile(ddl);
+            compile(ddl);
+            assertSql(
+                    "v",
+                    "ts\tmx\n" +
+                            "2022-01-01T00:00:00.000000Z\t5.0\n" +
+                            "2022-01-01T01:00:00.000000Z\t7.0\n"
+            );
+            Assert.assertEquals(1, engine.getMatViewRegistry().getViews().size());
+        });
+    }
+
+    @Test
+    public void testDropBaseTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sum(price) s from base sample by 1h align to calendar)");
+            try {
+                compile("drop table base");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is the base table of materialized view, drop the view first [table=base, view=v]");
+            }
+            assertSql("select count() from base", "count\n4\n");
+
+            compile("drop table v");
+            compile("drop table base");
+            Assert.assertEquals(0, engine.getMatViewRegistry().getViews().size());
+        });
+    }
+
+    @Test
+    public void testDropView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sum(price) s from base sample by 1h align to calendar)");
+            Assert.assertNotNull(engine.getMatViewRegistry().getView("v"));
+            compile("drop table v");
+            Assert.assertNull(engine.getMatViewRegistry().getView("v"));
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                executeInsert("insert into base values ('a', 10.0, '2022-01-01T01:30')");
+                Assert.assertFalse(job.run(0));
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidDefinitions() throws Exception {
+        createBaseTable();
+        compile("create table other (k symbol, ts timestamp) timestamp(ts) partition by DAY");
+        compile("create table no_ts (price double, ts timestamp)");
+        engine.clear();
+
+        assertMatViewFailure("select ts, sum(price) from base", 31, "must use SAMPLE BY");
+        assertMatViewFailure("select ts, sum(price) from base sample by 1h fill(prev) align to calendar", 81, "FILL is not supported");
+        assertMatViewFailure("select ts, sum(price) from base sample by 1h", 73, "must use ALIGN TO CALENDAR");
+        assertMatViewFailure("select ts, sum(price) from base sample by 1h align to calendar time zone 'Europe/London'", 104, "time zone is not supported");
+        assertMatViewFailure("select sym, sum(price) from base sample by 1h align to calendar", 31, "must select designated timestamp");
+        assertMatViewFailure("select * from base sample by 1h align to calendar", 38, "must list its columns");
+        assertMatViewFailure("select ts, sym from base sample by 1h align to calendar", 31, "at least one aggregate");
+        assertMatViewFailure("select base.ts, sum(price) from base join other on (sym = k) sample by 1h align to calendar", 31, "single table");
+        assertMatViewFailure("select ts, sum(price) from no_ts sample by 1h align to calendar", 58, "must have designated timestamp");
+        assertMatViewFailure("select ts, sum(price) from missing sample by 1h align to calendar", 58, "table does not exist");
+
+        Assert.assertEquals(0, engine.getMatViewRegistry().getViews().size());
+        assertFailure(
+                "create materialized view v as (select ts, sum(price) from base sample by 1h align to calendar) partition by NONE",
+                null,
+                108,
+                "must be partitioned"
+        );
+        assertFailure(
+                "create materialized view base as (select ts, sum(price) from base sample by 1h align to calendar)",
+                null,
+                25,
+                "table already exists"
+        );
+    }
+
+    @Test
+    public void testOffset() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table base (sym symbol, price double, ts timestamp) timestamp(ts) partition by DAY");
+            executeInsert("insert into base values ('a', 1.0, '2022-01-01T00:40')");
+            executeInsert("insert into base values ('a', 2.0, '2022-01-01T00:50')");
+            executeInsert("insert into base values ('a', 4.0, '2022-01-01T01:40')");
+            compile("create materialized view v as (select ts, sum(price) s from base sample by 1h align to calendar with offset '00:30')");
+            assertSql(
+                    "v",
+                    "ts\ts\n" +
+                            "2022-01-01T00:30:00.000000Z\t3.0\n" +
+                            "2022-01-01T01:30:00.000000Z\t4.0\n"
+            );
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                executeInsert("insert into base values ('a', 8.0, '2022-01-01T01:50')");
+                executeInsert("insert into base values ('a', 16.0, '2022-01-01T02:35')");
+                Assert.assertTrue(job.run(0));
+            }
+            assertSql(
+                    "v",
+                    "ts\ts\n" +
+                            "2022-01-01T00:30:00.000000Z\t3.0\n" +
+                            "2022-01-01T01:30:00.000000Z\t12.0\n" +
+                            "2022-01-01T02:30:00.000000Z\t16.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRebuildAfterRestart() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sym, sum(price) s from base sample by 1h align to calendar)");
+            // rows committed while refresh job is not running
+            executeInsert("insert into base values ('b', 1.0, '2022-01-01T00:20')");
+
+            final MatViewRegistry registry = engine.getMatViewRegistry();
+            registry.clear();
+            registry.load();
+            final MatViewState state = registry.getView("v");
+            Assert.assertNotNull(state);
+            Assert.assertFalse(state.isDirty());
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                Assert.assertTrue(job.run(0));
+                Assert.assertFalse(job.run(0));
+            }
+            assertSql(
+                    "v",
+                    "ts\tsym\ts\n" +
+                            "2022-01-01T00:00:00.000000Z\ta\t3.0\n" +
+                            "2022-01-01T00:00:00.000000Z\tb\t6.0\n" +
+                            "2022-01-01T01:00:00.000000Z\ta\t7.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRebuildAfterTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sym, sum(price) s from base where price > 1.0 sample by 1h align to calendar)");
+
+            try (MatViewRefreshJob job = new MatViewRefreshJob(engine, null)) {
+                compile("truncate table base");
+                executeInsert("insert into base values ('c', 8.0, '2022-01-02T00:20')");
+                Assert.assertTrue(job.run(0));
+            }
+            assertSql(
+                    "v",
+                    "ts\tsym\ts\n" +
+                            "2022-01-02T00:00:00.000000Z\tc\t8.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRenameBaseTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sum(price) s from base sample by 1h align to calendar)");
+            try {
+                compile("rename table base to base2");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is the base table of materialized view, drop the view first [table=base, view=v]");
+            }
+            assertSql("select count() from base", "count\n4\n");
+        });
+    }
+
+    @Test
+    public void testRenameView() throws Exception {
+        assertMemoryLeak(() -> {
+            createBaseTable();
+            compile("create materialized view v as (select ts, sum(price) s from base sample by 1h align to calendar)");
+            try {
+                compile("rename table v to v2");
+                Assert.fail();
+            } catch (CairoException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "materialized view cannot be renamed [view=v]");
+            }
+            Assert.assertNotNull(engine.getMatViewRegistry().getView("v"));
+        });
+    }
+
+    private void assertMatViewFailure(String query, int position, String message) throws Exception {
+        assertFailure("create materialized view v as (" + query + ")", null, position, message);
+    }
+
+    private void createBaseTable() throws Exception {
+        compile("create table base (sym symbol, price double, ts timestamp) timestamp(ts) partition by DAY");
+        executeInsert("insert into base values ('a', 1.0, '2022-01-01T00:10')");
+        executeInsert("insert into base values ('a', 2.0, '2022-01-01T00:40')");
+        executeInsert("insert into base values ('b', 5.0, '2022-01-01T00:50')");
+        executeInsert("insert into base values ('a', 7.0, '2022-01-01T01:10')");
+    }
+}
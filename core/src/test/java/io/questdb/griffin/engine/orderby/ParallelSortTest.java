@@ -0,0 +1,309 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+// parallel sort replaces copying sort only, so queries sort union, which does not support random access
+public class ParallelSortTest extends AbstractGriffinTest {
+
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    public void testComparatorKeys() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            assertParallelEqualsSerial("select * from (x union all x) order by str, l desc, ts", context);
+            assertParallelEqualsSerial("select * from (x union all x) order by str2, str desc, ts", context);
+        });
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            TestUtils.assertSql(compiler, context, "select i, l from (x union all x) where l > 1000 order by i", sink, "i\tl\n");
+        });
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            sortValueMaxPages = 2;
+            enableParallelSort = true;
+            try {
+                TestUtils.printSql(compiler, context, "select * from (x union all x) order by str, l", sink);
+                Assert.fail();
+            } catch (LimitOverflowException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "Maximum number of pages (2) breached in sorted runs");
+            }
+
+            // spilled runs do not count towards the limit
+            final File spillRoot = temp.newFolder("sort_spill");
+            sortSpillRoot = spillRoot.getAbsolutePath();
+            sortMemoryLimit = 0;
+            sortValueMaxPages = -1;
+            final StringSink expected = new StringSink();
+            enableParallelSort = false;
+            TestUtils.printSql(compiler, context, "select * from (x union all x) order by str, l", expected);
+            enableParallelSort = true;
+            sortValueMaxPages = 2;
+            TestUtils.assertSql(compiler, context, "select * from (x union all x) order by str, l", sink, expected);
+        });
+    }
+
+    @Test
+    public void testRadixKeyAscending() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            assertParallelEqualsSerial("select * from (x union all x) order by i", context);
+        });
+    }
+
+    @Test
+    public void testRadixKeyDescending() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            assertParallelEqualsSerial("select * from (x union all x) order by l desc", context);
+        });
+    }
+
+    @Test
+    public void testRadixSortTieOrder() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            // equal keys come out in base cursor order, same as with tree chain sort
+            final String base = "(select i, ts from x union all select i, dateadd('y', 1, ts) ts from x)";
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, context, "select * from " + base + " order by i, ts", expected);
+            TestUtils.assertSql(compiler, context, "select * from " + base + " order by i", sink, expected);
+        });
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            enableParallelSort = true;
+            try (RecordCursorFactory factory = compiler.compile("select i, str from (x union all x) order by i", context).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof ParallelSortRecordCursorFactory);
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    Assert.assertEquals(20000, cursor.size());
+                    final Record record = cursor.getRecord();
+                    final Record recordB = cursor.getRecordB();
+                    int prev = Integer.MIN_VALUE;
+                    while (cursor.hasNext()) {
+                        cursor.recordAt(recordB, record.getRowId());
+                        Assert.assertEquals(record.getInt(0), recordB.getInt(0));
+                        TestUtils.assertEquals(record.getStr(1), recordB.getStr(1));
+                        Assert.assertTrue(prev <= record.getInt(0));
+                        prev = record.getInt(0);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLightSort() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 1024;
+            assertParallelEqualsSerial("select * from x order by str, l desc, ts", context);
+            assertParallelEqualsSerial("select * from x order by s desc, i", context);
+            assertParallelEqualsSerial("select * from x order by i desc", context);
+            assertParallelEqualsSerial("select i, d from x order by d", context);
+        });
+    }
+
+    @Test
+    public void testLightSortRandomAccess() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 1024;
+            enableParallelSort = true;
+            try (RecordCursorFactory factory = compiler.compile("select i, s from x order by s, i", context).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof ParallelSortRecordCursorFactory);
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    Assert.assertEquals(10000, cursor.size());
+                    final Record record = cursor.getRecord();
+                    final Record recordB = cursor.getRecordB();
+                    while (cursor.hasNext()) {
+                        cursor.recordAt(recordB, record.getRowId());
+                        Assert.assertEquals(record.getInt(0), recordB.getInt(0));
+                        TestUtils.assertEquals(record.getSym(1), recordB.getSym(1));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testLightSortSpillToDisk() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            final File spillRoot = temp.newFolder("sort_spill");
+            sortSpillRoot = spillRoot.getAbsolutePath();
+            sortRunSize = 1024;
+            sortMemoryLimit = 4 * 1024;
+            assertParallelEqualsSerial("select * from x order by str, l, ts", context);
+            final String[] files = spillRoot.list();
+            Assert.assertNotNull(files);
+            Assert.assertEquals(0, files.length);
+        });
+    }
+
+    @Test
+    public void testSortFactories() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            enableParallelSort = true;
+            // random access base, runs hold keys and row ids
+            assertFactory("select * from x order by str, i", ParallelSortRecordCursorFactory.class, context);
+            // base without random access, runs hold entire records
+            assertFactory("select * from (x union all x) order by str, i", ParallelSortRecordCursorFactory.class, context);
+            // limit keeps only top rows, there is nothing to sort in parallel
+            assertFactory("select * from x order by str, i limit 10", LimitedSizeSortedLightRecordCursorFactory.class, context);
+
+            enableParallelSort = false;
+            assertFactory("select * from x order by str, i", SortedLightRecordCursorFactory.class, context);
+            assertFactory("select * from (x union all x) order by str, i", SortedRecordCursorFactory.class, context);
+        });
+    }
+
+    @Test
+    public void testSingleRun() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            assertParallelEqualsSerial("select * from (x union all x) order by str desc, i, ts", context);
+        });
+    }
+
+    @Test
+    public void testSpillToDisk() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            final File spillRoot = temp.newFolder("sort_spill");
+            sortSpillRoot = spillRoot.getAbsolutePath();
+            sortRunSize = 4096;
+            sortMemoryLimit = 16 * 1024;
+            assertParallelEqualsSerial("select * from (x union all x) order by str, l, ts", context);
+            assertParallelEqualsSerial("select i from (x union all x) order by i desc", context);
+            final String[] files = spillRoot.list();
+            Assert.assertNotNull(files);
+            Assert.assertEquals(0, files.length);
+        });
+    }
+
+    @Test
+    public void testSymbolKeys() throws Exception {
+        withPool(context -> {
+            createTable(context);
+            sortRunSize = 4096;
+            assertParallelEqualsSerial("select * from (x union all x) order by s desc, ts", context);
+        });
+    }
+
+    private static void assertFactory(String sql, Class<?> expected, SqlExecutionContext context) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(sql, context).getRecordCursorFactory()) {
+            Assert.assertSame(sql, expected, factory.getClass());
+        }
+    }
+
+    private static void assertParallelEqualsSerial(String sql, SqlExecutionContext context) throws SqlException {
+        final StringSink serialSink = new StringSink();
+        enableParallelSort = false;
+        try {
+            TestUtils.printSql(compiler, context, sql, serialSink);
+        } finally {
+            enableParallelSort = true;
+        }
+        // run a few times to give the workers a chance to pick up runs
+        for (int i = 0; i < 3; i++) {
+            TestUtils.assertSql(compiler, context, sql, sink, serialSink);
+        }
+    }
+
+    private static void createTable(SqlExecutionContext context) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select rnd_int(0, 500, 2) i, rnd_long(-100, 100, 2) l, rnd_double(2) d, rnd_symbol('a','b','c', null) s, " +
+                        "rnd_str(3, 6, 2) str, rnd_str('a', 'b', null) str2, timestamp_sequence(0, 100000000) ts " +
+                        "from long_sequence(10000)" +
+                        ") timestamp(ts) partition by hour",
+                context
+        );
+    }
+
+    private void withPool(PoolRunnable runnable) throws Exception {
+        assertMemoryLeak(() -> {
+            final WorkerPool pool = new TestWorkerPool(WORKER_COUNT);
+            pool.assign(new SortRunJob(engine.getMessageBus()));
+            pool.start();
+            try {
+                final SqlExecutionContext context = new SqlExecutionContextImpl(engine, WORKER_COUNT).with(
+                        AllowAllCairoSecurityContext.INSTANCE,
+                        bindVariableService,
+                        null,
+                        -1,
+                        null
+                );
+                runnable.run(context);
+            } finally {
+                pool.halt();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface PoolRunnable {
+        void run(SqlExecutionContext context) throws Exception;
+    }
+}
@@ -33,6 +33,7 @@ import io.questdb.griffin.*;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
 import io.questdb.jit.JitUtil;
 import io.questdb.mp.*;
+import io.questdb.std.IOURingFacadeImpl;
 import io.questdb.std.Misc;
 import io.questdb.std.Rnd;
 import io.questdb.std.str.StringSink;
@@ -299,6 +300,38 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         testNoLimit(true, SqlJitMode.JIT_MODE_ENABLED, AsyncJitFilteredRecordCursorFactory.class);
     }
 
+    @Test
+    public void testPageFrameReadAhead() throws Exception {
+        Assume.assumeTrue(IOURingFacadeImpl.INSTANCE.isAvailable());
+        ioURingEnabled = true;
+        pageFrameMaxRows = 1000;
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            compiler.compile("create table x as (select rnd_double() a, rnd_str(5,16,2) s, timestamp_sequence(0, 100000) t from long_sequence(100000)) timestamp(t) partition by hour", sqlExecutionContext);
+            // new column has a top in the middle of the last partition
+            compiler.compile("alter table x add column l long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_double(), rnd_str(5,16,2), timestamp_sequence(10000000000, 100000), rnd_long() from long_sequence(10000)", sqlExecutionContext);
+
+            final String sql = "x where a > 0.9";
+            final StringSink expected = new StringSink();
+            enablePageFrameReadAhead = false;
+            TestUtils.printSql(compiler, sqlExecutionContext, sql, expected);
+
+            enablePageFrameReadAhead = true;
+            try (RecordCursorFactory f = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(AsyncFilteredRecordCursorFactory.class, f.getClass());
+                // second run reads the same frames again
+                for (int i = 0; i < 2; i++) {
+                    try (RecordCursor cursor = f.getCursor(sqlExecutionContext)) {
+                        sink.clear();
+                        TestUtils.printCursor(cursor, f.getMetadata(), true, sink, printer);
+                        TestUtils.assertEquals(expected, sink);
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testPageFrameSequenceJit() throws Exception {
         // Disable the test on ARM64.
@@ -27,13 +27,55 @@ package io.questdb.std;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
 public class WeakSelfReturningObjectPoolTest {
     private static final int initSize = 12;
 
+    @Test
+    public void testCloseOnManyThreads() throws Exception {
+        final int threadCount = 4;
+        final int iterations = 100_000;
+
+        final WeakSelfReturningObjectPool<SelfReturningPoolElement> pool = new WeakSelfReturningObjectPool<>(SelfReturningPoolElement::new, initSize);
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int i = 0; i < iterations; i++) {
+                        pool.pop().close();
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+        }
+
+        if (error.get() != null) {
+            throw new AssertionError("pool failed on concurrent close", error.get());
+        }
+        assertTrue(pool.cache.size() <= 2 * initSize);
+        // element must not be cached twice
+        final Set<SelfReturningPoolElement> elements = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SelfReturningPoolElement element : pool.cache) {
+            assertTrue(elements.add(element));
+        }
+    }
+
     @Test
     public void testSelfReturnOnClose() {
         final int elementCount = 10 * initSize;